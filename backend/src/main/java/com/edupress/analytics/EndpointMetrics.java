@@ -0,0 +1,80 @@
+package com.edupress.analytics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency, error and in-flight figures for one controller method. All counters are striped
+ * adders so concurrent requests to the same endpoint never contend on a single cache line.
+ */
+public class EndpointMetrics {
+
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder inFlight = new LongAdder();
+    private final LongAdder clientErrors = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+    private final LongAdder dbNanos = new LongAdder();
+    private final LongAdder dbStatements = new LongAdder();
+    private final LongAdder jsonNanos = new LongAdder();
+
+    public EndpointMetrics(String name) {
+        this.name = name;
+    }
+
+    public void begin() {
+        inFlight.increment();
+    }
+
+    /**
+     * Records a finished request. {@code status} is the response status; a handler that threw
+     * counts as a server error whatever status was set.
+     */
+    public void complete(long elapsedNanos, int status, boolean failed, RequestTimings timings) {
+        inFlight.decrement();
+        latency.record(elapsedNanos);
+        if (failed || status >= 500) {
+            serverErrors.increment();
+        } else if (status >= 400) {
+            clientErrors.increment();
+        }
+        if (timings.getDbStatements() > 0) {
+            dbNanos.add(timings.getDbNanos());
+            dbStatements.add(timings.getDbStatements());
+        }
+        if (timings.getJsonNanos() > 0) {
+            jsonNanos.add(timings.getJsonNanos());
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LatencyHistogram.Snapshot getLatency() {
+        return latency.snapshot();
+    }
+
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    public long getClientErrors() {
+        return clientErrors.sum();
+    }
+
+    public long getServerErrors() {
+        return serverErrors.sum();
+    }
+
+    public long getDbNanos() {
+        return dbNanos.sum();
+    }
+
+    public long getDbStatements() {
+        return dbStatements.sum();
+    }
+
+    public long getJsonNanos() {
+        return jsonNanos.sum();
+    }
+}
@@ -0,0 +1,33 @@
+package com.edupress.analytics;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link EndpointMetrics} keyed by controller method. The set of handler methods is fixed at
+ * startup, so the map stops growing once every endpoint has been hit.
+ */
+public class EndpointMetricsRegistry {
+
+    private final ConcurrentHashMap<Method, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    private final long startedAt = System.currentTimeMillis();
+
+    public EndpointMetrics forMethod(Method method) {
+        EndpointMetrics metrics = endpoints.get(method);
+        if (metrics == null) {
+            metrics = endpoints.computeIfAbsent(method,
+                    m -> new EndpointMetrics(m.getDeclaringClass().getSimpleName() + "." + m.getName()));
+        }
+        return metrics;
+    }
+
+    public List<EndpointMetrics> getEndpoints() {
+        return new ArrayList<>(endpoints.values());
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+}
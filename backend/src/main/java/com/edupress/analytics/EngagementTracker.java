@@ -0,0 +1,158 @@
+package com.edupress.analytics;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Distinct users and hourly activity for one scope (the whole platform or a single course),
+ * kept as a ring of one slot per day.
+ * <p>
+ * Each slot holds a {@link HyperLogLog} of the users seen that day and 24 hourly event counts.
+ * Active-user figures for any range inside the retention window come from merging the daily
+ * sketches, and the hour-of-week heatmap from folding each day's hours onto its weekday. A slot
+ * is allocated on the first write for its day, so a quiet scope costs only the slot array; a
+ * scope active every day tops out at {@code retentionDays * (2^precision + 24 * 8)} bytes, give
+ * or take object headers. A slot is recycled the first time a write for a newer day lands on
+ * it; writes that fall behind the window ending at the newest day seen are dropped.
+ */
+public class EngagementTracker {
+
+    public static final int HOURS_PER_WEEK = 7 * 24;
+
+    private final int precision;
+    private final AtomicReferenceArray<Slot> slots;
+    private final AtomicLong latestDay = new AtomicLong(Long.MIN_VALUE);
+
+    public EngagementTracker(int retentionDays, int precision) {
+        if (retentionDays < 1) {
+            throw new IllegalArgumentException("retentionDays must be positive");
+        }
+        this.precision = precision;
+        this.slots = new AtomicReferenceArray<>(retentionDays);
+    }
+
+    public int getRetentionDays() {
+        return slots.length();
+    }
+
+    /** Newest day written so far, or null if nothing has been recorded since the last clear. */
+    public LocalDate getLatestDay() {
+        long day = latestDay.get();
+        return day == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(day);
+    }
+
+    /** Number of daily slots holding memory, at most {@link #getRetentionDays()}. */
+    public int getAllocatedDays() {
+        int allocated = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            if (slots.get(i) != null) {
+                allocated++;
+            }
+        }
+        return allocated;
+    }
+
+    public void record(Long userId, LocalDateTime at) {
+        long day = at.toLocalDate().toEpochDay();
+        if (day <= latestDay.accumulateAndGet(day, Math::max) - slots.length()) {
+            return;
+        }
+        int index = indexOf(day);
+        Slot slot = slots.get(index);
+        if (slot == null) {
+            slots.compareAndSet(index, null, new Slot(precision));
+            slot = slots.get(index);
+        }
+        synchronized (slot) {
+            if (slot.day != day) {
+                if (day < slot.day) {
+                    // Older than what this slot now holds, so it has left the window
+                    return;
+                }
+                slot.reset(day);
+            }
+            if (userId != null) {
+                slot.users.add(userId);
+            }
+            slot.hours[at.getHour()]++;
+        }
+    }
+
+    /** Union of the daily sketches for {@code from..to} inclusive. */
+    public HyperLogLog activeUsers(LocalDate from, LocalDate to) {
+        HyperLogLog union = new HyperLogLog(precision);
+        forEachDay(from, to, slot -> union.merge(slot.users));
+        return union;
+    }
+
+    public long countActiveUsers(LocalDate from, LocalDate to) {
+        return activeUsers(from, to).estimate();
+    }
+
+    /**
+     * Event counts for {@code from..to} inclusive, indexed by
+     * {@code (dayOfWeek - 1) * 24 + hour} with Monday as day 1.
+     */
+    public long[] hourOfWeek(LocalDate from, LocalDate to) {
+        long[] cells = new long[HOURS_PER_WEEK];
+        forEachDay(from, to, slot -> {
+            int offset = (DayOfWeek.from(LocalDate.ofEpochDay(slot.day)).getValue() - 1) * 24;
+            for (int hour = 0; hour < 24; hour++) {
+                cells[offset + hour] += slot.hours[hour];
+            }
+        });
+        return cells;
+    }
+
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            Slot slot = slots.get(i);
+            if (slot != null) {
+                synchronized (slot) {
+                    slot.reset(Long.MIN_VALUE);
+                }
+            }
+        }
+        latestDay.set(Long.MIN_VALUE);
+    }
+
+    private void forEachDay(LocalDate from, LocalDate to, Consumer<Slot> action) {
+        long first = Math.max(from.toEpochDay(), to.toEpochDay() - slots.length() + 1);
+        for (long day = first; day <= to.toEpochDay(); day++) {
+            Slot slot = slots.get(indexOf(day));
+            if (slot == null) {
+                continue;
+            }
+            synchronized (slot) {
+                if (slot.day == day) {
+                    action.accept(slot);
+                }
+            }
+        }
+    }
+
+    private int indexOf(long day) {
+        return (int) Math.floorMod(day, (long) slots.length());
+    }
+
+    private static final class Slot {
+        private long day = Long.MIN_VALUE;
+        private final HyperLogLog users;
+        private final long[] hours = new long[24];
+
+        private Slot(int precision) {
+            this.users = new HyperLogLog(precision);
+        }
+
+        private void reset(long newDay) {
+            day = newDay;
+            users.clear();
+            Arrays.fill(hours, 0);
+        }
+    }
+}
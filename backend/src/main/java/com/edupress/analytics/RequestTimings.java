@@ -0,0 +1,51 @@
+package com.edupress.analytics;
+
+/**
+ * Per-thread accumulator for time spent in JDBC statements and JSON serialization while a
+ * request is being handled. The performance interceptor resets it when a handler starts and
+ * reads it when the handler completes; the timed {@code DataSource} and message converter add
+ * to it without knowing which endpoint they are serving.
+ */
+public final class RequestTimings {
+
+    private static final ThreadLocal<RequestTimings> CURRENT = ThreadLocal.withInitial(RequestTimings::new);
+
+    private long dbNanos;
+    private long dbStatements;
+    private long jsonNanos;
+
+    private RequestTimings() {
+    }
+
+    public static RequestTimings current() {
+        return CURRENT.get();
+    }
+
+    public static void addDb(long nanos) {
+        RequestTimings timings = CURRENT.get();
+        timings.dbNanos += nanos;
+        timings.dbStatements++;
+    }
+
+    public static void addJson(long nanos) {
+        CURRENT.get().jsonNanos += nanos;
+    }
+
+    public void reset() {
+        dbNanos = 0;
+        dbStatements = 0;
+        jsonNanos = 0;
+    }
+
+    public long getDbNanos() {
+        return dbNanos;
+    }
+
+    public long getDbStatements() {
+        return dbStatements;
+    }
+
+    public long getJsonNanos() {
+        return jsonNanos;
+    }
+}
@@ -0,0 +1,242 @@
+package com.edupress.analytics;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * In-memory counters bucketed by minute, hour and day for a fixed set of metrics.
+ * <p>
+ * Each resolution is a ring of slots holding one primitive column per metric, so a write is a
+ * couple of array increments and a range query is a linear pass over at most one ring. Every
+ * write lands in all three resolutions at once, which means coarse buckets are always complete
+ * and old fine-grained data simply ages out when its slot is reused. Times are wall-clock
+ * {@link LocalDateTime}s, so day buckets line up with local calendar days.
+ */
+public class TimeSeriesStore {
+
+    public enum Metric {
+        SIGNUPS, COURSES_CREATED, ENROLLMENTS, PAYMENTS, LESSON_COMPLETIONS
+    }
+
+    public enum Resolution {
+        MINUTE(1), HOUR(60), DAY(1440);
+
+        private final long minutes;
+
+        Resolution(long minutes) {
+            this.minutes = minutes;
+        }
+
+        public long getMinutes() {
+            return minutes;
+        }
+    }
+
+    /** Upper bound on points returned by a single {@link #series} call. */
+    public static final int MAX_POINTS = 10_000;
+
+    private final Tier[] tiers;
+
+    public TimeSeriesStore(Duration minuteRetention, Duration hourRetention, Duration dayRetention) {
+        tiers = new Tier[] {
+                new Tier(Resolution.MINUTE, minuteRetention),
+                new Tier(Resolution.HOUR, hourRetention),
+                new Tier(Resolution.DAY, dayRetention)
+        };
+    }
+
+    public void record(Metric metric, LocalDateTime at) {
+        add(metric, at, 1);
+    }
+
+    public void add(Metric metric, LocalDateTime at, long delta) {
+        long minute = toEpochMinute(at);
+        for (Tier tier : tiers) {
+            tier.add(metric.ordinal(), minute, delta);
+        }
+    }
+
+    /**
+     * Sums {@code metric} over {@code [from, to)} using the finest resolution that still retains
+     * {@code from}. Coarser resolutions include whole buckets, so the window is widened to bucket
+     * boundaries once it reaches past the minute ring.
+     */
+    public long sum(Metric metric, LocalDateTime from, LocalDateTime to) {
+        long fromMinute = toEpochMinute(from);
+        long toMinute = toEpochMinute(to);
+        if (toMinute <= fromMinute) {
+            return 0L;
+        }
+        Tier tier = tierCovering(fromMinute);
+        return tier.sum(metric.ordinal(), tier.bucketOf(fromMinute), tier.bucketOf(toMinute - 1));
+    }
+
+    /**
+     * Returns one point per bucket in {@code [from, to)} at the requested resolution. Buckets that
+     * have already aged out of that resolution are reported as zero.
+     */
+    public List<Point> series(Metric metric, LocalDateTime from, LocalDateTime to, Resolution resolution) {
+        Tier tier = tiers[resolution.ordinal()];
+        long fromBucket = tier.bucketOf(toEpochMinute(from));
+        long toBucket = tier.bucketOf(toEpochMinute(to) - 1);
+        List<Point> points = new ArrayList<>();
+        if (toBucket < fromBucket) {
+            return points;
+        }
+        if (toBucket - fromBucket >= MAX_POINTS) {
+            throw new IllegalArgumentException("Range too large for " + resolution + " resolution");
+        }
+        long[] values = tier.range(metric.ordinal(), fromBucket, toBucket);
+        for (int i = 0; i < values.length; i++) {
+            long startMinute = (fromBucket + i) * resolution.minutes;
+            points.add(new Point(fromEpochMinute(startMinute), values[i]));
+        }
+        return points;
+    }
+
+    /**
+     * Picks the finest resolution that retains {@code from} and keeps the number of points
+     * under {@code maxPoints}.
+     */
+    public Resolution suggestResolution(LocalDateTime from, LocalDateTime to, int maxPoints) {
+        long fromMinute = toEpochMinute(from);
+        long span = Math.max(1, toEpochMinute(to) - fromMinute);
+        for (Tier tier : tiers) {
+            if (tier.retains(fromMinute) && span / tier.resolution.minutes <= maxPoints) {
+                return tier.resolution;
+            }
+        }
+        return Resolution.DAY;
+    }
+
+    public void clear() {
+        for (Tier tier : tiers) {
+            tier.clear();
+        }
+    }
+
+    private Tier tierCovering(long fromMinute) {
+        for (Tier tier : tiers) {
+            if (tier.retains(fromMinute)) {
+                return tier;
+            }
+        }
+        return tiers[tiers.length - 1];
+    }
+
+    static long toEpochMinute(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    static LocalDateTime fromEpochMinute(long minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+    }
+
+    public static class Point {
+        private final LocalDateTime start;
+        private final long value;
+
+        public Point(LocalDateTime start, long value) {
+            this.start = start;
+            this.value = value;
+        }
+
+        public LocalDateTime getStart() {
+            return start;
+        }
+
+        public long getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * One resolution. {@code values[metric][slot]} holds the count for the bucket recorded in
+     * {@code bucketAt[slot]}; a slot whose bucket doesn't match the one asked for is stale.
+     */
+    private static final class Tier {
+        private final Resolution resolution;
+        private final int capacity;
+        private final long[] bucketAt;
+        private final long[][] values;
+        private long newestBucket = Long.MIN_VALUE;
+
+        private Tier(Resolution resolution, Duration retention) {
+            this.resolution = resolution;
+            this.capacity = (int) Math.max(1, retention.toMinutes() / resolution.minutes);
+            this.bucketAt = new long[capacity];
+            this.values = new long[Metric.values().length][capacity];
+            Arrays.fill(bucketAt, Long.MIN_VALUE);
+        }
+
+        private long bucketOf(long epochMinute) {
+            return Math.floorDiv(epochMinute, resolution.minutes);
+        }
+
+        private int slotOf(long bucket) {
+            return (int) Math.floorMod(bucket, (long) capacity);
+        }
+
+        private synchronized boolean retains(long epochMinute) {
+            long bucket = bucketOf(epochMinute);
+            long newest = Math.max(newestBucket, bucketOf(toEpochMinute(LocalDateTime.now())));
+            return bucket > newest - capacity;
+        }
+
+        private synchronized void add(int metric, long epochMinute, long delta) {
+            long bucket = bucketOf(epochMinute);
+            if (newestBucket != Long.MIN_VALUE && bucket <= newestBucket - capacity) {
+                return; // older than this tier keeps
+            }
+            int slot = slotOf(bucket);
+            if (bucketAt[slot] != bucket) {
+                if (bucketAt[slot] > bucket) {
+                    return; // slot already reused by a newer bucket
+                }
+                bucketAt[slot] = bucket;
+                for (long[] column : values) {
+                    column[slot] = 0L;
+                }
+            }
+            values[metric][slot] += delta;
+            newestBucket = Math.max(newestBucket, bucket);
+        }
+
+        private synchronized long sum(int metric, long fromBucket, long toBucket) {
+            long[] column = values[metric];
+            long first = Math.max(fromBucket, toBucket - capacity + 1);
+            long total = 0L;
+            for (long bucket = first; bucket <= toBucket; bucket++) {
+                int slot = slotOf(bucket);
+                if (bucketAt[slot] == bucket) {
+                    total += column[slot];
+                }
+            }
+            return total;
+        }
+
+        private synchronized long[] range(int metric, long fromBucket, long toBucket) {
+            long[] column = values[metric];
+            long[] result = new long[(int) (toBucket - fromBucket + 1)];
+            for (long bucket = Math.max(fromBucket, toBucket - capacity + 1); bucket <= toBucket; bucket++) {
+                int slot = slotOf(bucket);
+                if (bucketAt[slot] == bucket) {
+                    result[(int) (bucket - fromBucket)] = column[slot];
+                }
+            }
+            return result;
+        }
+
+        private synchronized void clear() {
+            Arrays.fill(bucketAt, Long.MIN_VALUE);
+            for (long[] column : values) {
+                Arrays.fill(column, 0L);
+            }
+            newestBucket = Long.MIN_VALUE;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.edupress.analytics;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Watch-time statistics for one video, built from playback heartbeats.
+ * <p>
+ * The video is split into {@value #SEGMENTS} equal segments. Each viewing session remembers,
+ * as a bitmask, which segments it has played; the first time a session plays a segment, that
+ * segment's view count goes up by one and the session moves up one step in the completion
+ * distribution. The retention curve and the completion distribution are therefore kept
+ * incrementally, in O(1) per heartbeat, and the only per-viewer state is the open sessions.
+ * Sessions idle for longer than the caller's cutoff are dropped by {@link #expireSessions}, so a
+ * student coming back later starts a new session.
+ * <p>
+ * All methods are synchronized on the tracker; heartbeats for different videos never contend.
+ */
+public class WatchTimeTracker {
+
+    public static final int SEGMENTS = 10;
+
+    private final int durationSeconds;
+    private final HyperLogLog viewers;
+    private final long[] segmentViews = new long[SEGMENTS];
+    // completion[k]: sessions that have played exactly k + 1 segments
+    private final long[] completion = new long[SEGMENTS];
+    private final Map<Long, Session> sessions = new HashMap<>();
+    private long watchSeconds;
+    private long sessionCount;
+    private boolean dirty;
+
+    public WatchTimeTracker(int durationSeconds, int viewerPrecision) {
+        this.durationSeconds = Math.max(0, durationSeconds);
+        this.viewers = new HyperLogLog(viewerPrecision);
+    }
+
+    /**
+     * Restores a tracker from persisted totals. Open sessions are not persisted, so a viewer
+     * mid-video when the totals were saved continues in a new session.
+     */
+    public static WatchTimeTracker restore(int durationSeconds, HyperLogLog viewers, long watchSeconds,
+                                           long sessionCount, long[] segmentViews, long[] completion) {
+        WatchTimeTracker tracker = new WatchTimeTracker(durationSeconds, viewers.getPrecision());
+        tracker.viewers.merge(viewers);
+        tracker.watchSeconds = watchSeconds;
+        tracker.sessionCount = sessionCount;
+        System.arraycopy(segmentViews, 0, tracker.segmentViews, 0, Math.min(SEGMENTS, segmentViews.length));
+        System.arraycopy(completion, 0, tracker.completion, 0, Math.min(SEGMENTS, completion.length));
+        return tracker;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    /**
+     * Records that {@code userId} played {@code watchedSeconds} of video ending at
+     * {@code positionSeconds}. Every segment overlapping that interval counts as played.
+     */
+    public synchronized void heartbeat(long userId, int positionSeconds, int watchedSeconds, long nowMillis) {
+        watchSeconds += Math.max(0, watchedSeconds);
+        dirty = true;
+        Session session = sessions.get(userId);
+        if (session == null) {
+            session = new Session();
+            sessions.put(userId, session);
+            sessionCount++;
+            viewers.add(userId);
+        }
+        session.lastSeenMillis = nowMillis;
+        if (durationSeconds == 0) {
+            return;
+        }
+        int end = Math.min(Math.max(positionSeconds, 0), durationSeconds);
+        int start = Math.max(0, end - Math.max(0, watchedSeconds));
+        // The interval is half-open, so stopping exactly on a boundary doesn't count the next segment
+        int last = segmentOf(end > start ? end - 1 : end);
+        for (int segment = segmentOf(start); segment <= last; segment++) {
+            int bit = 1 << segment;
+            if ((session.playedSegments & bit) == 0) {
+                int played = Integer.bitCount(session.playedSegments);
+                if (played > 0) {
+                    completion[played - 1]--;
+                }
+                completion[played]++;
+                session.playedSegments |= bit;
+                segmentViews[segment]++;
+            }
+        }
+    }
+
+    private int segmentOf(int positionSeconds) {
+        return Math.min(SEGMENTS - 1, (int) ((long) positionSeconds * SEGMENTS / durationSeconds));
+    }
+
+    /** Drops sessions whose last heartbeat was before {@code idleBeforeMillis}; returns how many. */
+    public synchronized int expireSessions(long idleBeforeMillis) {
+        int expired = 0;
+        for (Iterator<Session> it = sessions.values().iterator(); it.hasNext(); ) {
+            if (it.next().lastSeenMillis < idleBeforeMillis) {
+                it.remove();
+                expired++;
+            }
+        }
+        return expired;
+    }
+
+    public synchronized int getOpenSessions() {
+        return sessions.size();
+    }
+
+    /** Whether anything changed since the last call, clearing the flag. */
+    public synchronized boolean takeDirty() {
+        boolean wasDirty = dirty;
+        dirty = false;
+        return wasDirty;
+    }
+
+    public synchronized void markDirty() {
+        dirty = true;
+    }
+
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(durationSeconds, watchSeconds, sessionCount, viewers.copy(),
+                segmentViews.clone(), completion.clone());
+    }
+
+    private static class Session {
+        int playedSegments;
+        long lastSeenMillis;
+    }
+
+    public static class Snapshot {
+        private final int durationSeconds;
+        private final long watchSeconds;
+        private final long sessions;
+        private final HyperLogLog viewers;
+        private final long[] segmentViews;
+        private final long[] completion;
+
+        private Snapshot(int durationSeconds, long watchSeconds, long sessions, HyperLogLog viewers,
+                         long[] segmentViews, long[] completion) {
+            this.durationSeconds = durationSeconds;
+            this.watchSeconds = watchSeconds;
+            this.sessions = sessions;
+            this.viewers = viewers;
+            this.segmentViews = segmentViews;
+            this.completion = completion;
+        }
+
+        public int getDurationSeconds() {
+            return durationSeconds;
+        }
+
+        public long getWatchSeconds() {
+            return watchSeconds;
+        }
+
+        public long getSessions() {
+            return sessions;
+        }
+
+        public HyperLogLog getViewers() {
+            return viewers;
+        }
+
+        public long getUniqueViewers() {
+            return viewers.estimate();
+        }
+
+        /** Sessions that played each segment, first to last. */
+        public long[] getSegmentViews() {
+            return segmentViews.clone();
+        }
+
+        /** Sessions by share of the video played: index k holds those that played (k + 1) * 10%. */
+        public long[] getCompletion() {
+            return completion.clone();
+        }
+
+        /** Share of sessions, in percent, that played each segment. */
+        public double[] getRetention() {
+            double[] retention = new double[SEGMENTS];
+            for (int i = 0; i < SEGMENTS; i++) {
+                retention[i] = sessions > 0 ? 100.0 * segmentViews[i] / sessions : 0.0;
+            }
+            return retention;
+        }
+
+        /** Mean share of the video played per session, in percent. */
+        public double getAverageCompletion() {
+            long weighted = 0, counted = 0;
+            for (int k = 0; k < SEGMENTS; k++) {
+                weighted += completion[k] * (k + 1);
+                counted += completion[k];
+            }
+            return counted > 0 ? 100.0 * weighted / (counted * SEGMENTS) : 0.0;
+        }
+
+        /**
+         * Segment after which the most sessions stopped watching: the one with the largest fall
+         * in views to the next segment, or -1 when nobody has watched.
+         */
+        public int getDropOffSegment() {
+            int worst = -1;
+            long worstDrop = 0;
+            for (int i = 0; i < SEGMENTS; i++) {
+                long next = i + 1 < SEGMENTS ? segmentViews[i + 1] : segmentViews[i];
+                long drop = segmentViews[i] - next;
+                if (drop > worstDrop) {
+                    worstDrop = drop;
+                    worst = i;
+                }
+            }
+            return worst;
+        }
+
+        /** Sessions that stopped at {@link #getDropOffSegment()}. */
+        public long getDropOffSessions() {
+            int segment = getDropOffSegment();
+            if (segment < 0) {
+                return 0;
+            }
+            long next = segment + 1 < SEGMENTS ? segmentViews[segment + 1] : segmentViews[segment];
+            return segmentViews[segment] - next;
+        }
+
+        /** Playback position, in seconds, at the end of {@code segment}. */
+        public int segmentEndSeconds(int segment) {
+            return (int) ((long) durationSeconds * (segment + 1) / SEGMENTS);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.edupress.config;
+
+import com.edupress.security.UserPrincipal;
+import com.edupress.service.EngagementAnalyticsService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+/**
+ * Reports each successful authenticated API call to {@link EngagementAnalyticsService},
+ * attributing it to a course when the route carries a {@code courseId} or is a course's own
+ * {@code /api/courses/{id}} resource.
+ */
+@Component
+public class EngagementTrackingInterceptor implements HandlerInterceptor {
+
+    @Autowired
+    private EngagementAnalyticsService engagementAnalyticsService;
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (ex != null || response.getStatus() >= 400) {
+            return;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof UserPrincipal principal)) {
+            return;
+        }
+        engagementAnalyticsService.recordRequest(principal.getId(), courseIdOf(request));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Long courseIdOf(HttpServletRequest request) {
+        Object attribute = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (!(attribute instanceof Map)) {
+            return null;
+        }
+        Map<String, String> variables = (Map<String, String>) attribute;
+        String value = variables.get("courseId");
+        if (value == null) {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (pattern != null && pattern.toString().startsWith("/api/courses/{id}")) {
+                value = variables.get("id");
+            }
+        }
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.edupress.config;
+
+import com.edupress.analytics.EndpointMetrics;
+import com.edupress.analytics.EndpointMetricsRegistry;
+import com.edupress.analytics.RequestTimings;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Times every controller method from the moment its handler is chosen until the response has
+ * been written. Async handlers (streamed exports) are timed across the async dispatch: the
+ * start mark lives in a request attribute until the final {@code afterCompletion}.
+ */
+@Component
+public class PerformanceInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String START_ATTRIBUTE = PerformanceInterceptor.class.getName() + ".start";
+
+    @Autowired
+    private EndpointMetricsRegistry endpointMetricsRegistry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod method && request.getAttribute(START_ATTRIBUTE) == null) {
+            endpointMetricsRegistry.forMethod(method.getMethod()).begin();
+            RequestTimings.current().reset();
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (!(start instanceof Long) || !(handler instanceof HandlerMethod method)) {
+            return;
+        }
+        request.removeAttribute(START_ATTRIBUTE);
+        EndpointMetrics metrics = endpointMetricsRegistry.forMethod(method.getMethod());
+        metrics.complete(System.nanoTime() - (Long) start, response.getStatus(), ex != null, RequestTimings.current());
+    }
+}
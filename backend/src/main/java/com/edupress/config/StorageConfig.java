@@ -0,0 +1,81 @@
+package com.edupress.config;
+
+import com.edupress.media.SegmentCache;
+import com.edupress.storage.BlobStore;
+import com.edupress.storage.CachingBlobStore;
+import com.edupress.storage.LocalBlobStore;
+import com.edupress.storage.S3BlobStore;
+import com.edupress.storage.TieredBlobStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URI;
+import java.nio.file.Paths;
+
+/**
+ * Chooses where uploaded files live. {@code local} keeps them under {@code app.upload.dir} on
+ * this node; {@code s3} keeps them in a bucket every node shares, with a read-through disk cache
+ * of hot objects under {@code app.storage.cache.dir}. Hot segments of streamed videos are also
+ * kept in memory by the {@link SegmentCache}.
+ * <p>
+ * With {@code app.storage.archive.backend} set to {@code local} or {@code s3}, the store is
+ * wrapped in a {@link TieredBlobStore} whose archive tier cold files are moved to.
+ */
+@Configuration
+public class StorageConfig {
+
+    @Bean
+    public BlobStore blobStore(@Value("${app.storage.backend:local}") String backend,
+                               @Value("${app.upload.dir:uploads/}") String uploadDir,
+                               @Value("${app.storage.s3.endpoint:}") String endpoint,
+                               @Value("${app.storage.s3.region:us-east-1}") String region,
+                               @Value("${app.storage.s3.bucket:}") String bucket,
+                               @Value("${app.storage.s3.access-key:}") String accessKey,
+                               @Value("${app.storage.s3.secret-key:}") String secretKey,
+                               @Value("${app.storage.cache.dir:cache/blobs}") String cacheDir,
+                               @Value("${app.storage.cache.max-bytes:10737418240}") long cacheMaxBytes,
+                               @Value("${app.storage.archive.backend:none}") String archiveBackend,
+                               @Value("${app.storage.archive.dir:archive/}") String archiveDir,
+                               @Value("${app.storage.archive.s3.bucket:}") String archiveBucket) {
+        BlobStore primary;
+        switch (backend) {
+            case "local":
+                primary = new LocalBlobStore(Paths.get(uploadDir));
+                break;
+            case "s3":
+                if (endpoint.isBlank() || bucket.isBlank()) {
+                    throw new IllegalStateException("app.storage.s3.endpoint and app.storage.s3.bucket are required for the s3 backend");
+                }
+                S3BlobStore s3 = new S3BlobStore(URI.create(endpoint), region, bucket, accessKey, secretKey,
+                        Paths.get(cacheDir, ".tmp"));
+                primary = new CachingBlobStore(s3, new LocalBlobStore(Paths.get(cacheDir)), cacheMaxBytes);
+                break;
+            default:
+                throw new IllegalStateException("Unknown app.storage.backend: " + backend);
+        }
+
+        switch (archiveBackend) {
+            case "none":
+                return primary;
+            case "local":
+                return new TieredBlobStore(primary, new LocalBlobStore(Paths.get(archiveDir)), Paths.get(archiveDir, ".tmp"));
+            case "s3":
+                // Same S3 service and credentials as the primary store, usually a bucket with a colder storage class
+                if (endpoint.isBlank() || archiveBucket.isBlank()) {
+                    throw new IllegalStateException("app.storage.s3.endpoint and app.storage.archive.s3.bucket are required for the s3 archive");
+                }
+                S3BlobStore archive = new S3BlobStore(URI.create(endpoint), region, archiveBucket, accessKey, secretKey,
+                        Paths.get(archiveDir, ".tmp"));
+                return new TieredBlobStore(primary, archive, Paths.get(archiveDir, ".tmp"));
+            default:
+                throw new IllegalStateException("Unknown app.storage.archive.backend: " + archiveBackend);
+        }
+    }
+
+    @Bean
+    public SegmentCache segmentCache(@Value("${app.video.segment-cache.segment-bytes:1048576}") int segmentBytes,
+                                     @Value("${app.video.segment-cache.max-bytes:268435456}") long maxBytes) {
+        return new SegmentCache(segmentBytes, maxBytes);
+    }
+}
@@ -0,0 +1,113 @@
+package com.edupress.config;
+
+import com.edupress.analytics.RequestTimings;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Wraps the application {@link DataSource} so every {@code execute*} call on a JDBC statement
+ * is timed into {@link RequestTimings}. Only statement execution is measured; reading a
+ * result set after execution returns is not.
+ */
+@Component
+public class TimedDataSourcePostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof TimedDataSource)) {
+            return new TimedDataSource(dataSource);
+        }
+        return bean;
+    }
+
+    static class TimedDataSource extends DelegatingDataSource {
+
+        TimedDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return timed(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return timed(super.getConnection(username, password));
+        }
+
+        private static Connection timed(Connection connection) {
+            return proxy(Connection.class, connection, (target, method, args) -> {
+                Object result = invoke(target, method, args);
+                if (result instanceof CallableStatement statement) {
+                    return proxy(CallableStatement.class, statement, TimedDataSource::invokeStatement);
+                }
+                if (result instanceof PreparedStatement statement) {
+                    return proxy(PreparedStatement.class, statement, TimedDataSource::invokeStatement);
+                }
+                if (result instanceof Statement statement) {
+                    return proxy(Statement.class, statement, TimedDataSource::invokeStatement);
+                }
+                return result;
+            });
+        }
+
+        private static Object invokeStatement(Object target, Method method, Object[] args) throws Throwable {
+            if (!method.getName().startsWith("execute")) {
+                return invoke(target, method, args);
+            }
+            long start = System.nanoTime();
+            try {
+                return invoke(target, method, args);
+            } finally {
+                RequestTimings.addDb(System.nanoTime() - start);
+            }
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("unwrap") || method.getName().equals("isWrapperFor")) {
+                // Let callers reach the driver's own objects without going through the proxy
+                Class<?> type = (Class<?>) args[0];
+                if (type.isInstance(target)) {
+                    return method.getName().equals("unwrap") ? target : Boolean.TRUE;
+                }
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target, Handler handler) {
+            InvocationHandler invocationHandler = (proxy, method, args) -> {
+                if (method.getName().equals("equals") && method.getParameterCount() == 1) {
+                    return proxy == args[0];
+                }
+                if (method.getName().equals("hashCode") && method.getParameterCount() == 0) {
+                    return System.identityHashCode(proxy);
+                }
+                return handler.invoke(target, method, args);
+            };
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, invocationHandler);
+        }
+
+        @FunctionalInterface
+        private interface Handler {
+            Object invoke(Object target, Method method, Object[] args) throws Throwable;
+        }
+    }
+}
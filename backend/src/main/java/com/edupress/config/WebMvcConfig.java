@@ -0,0 +1,45 @@
+package com.edupress.config;
+
+import com.edupress.analytics.EndpointMetricsRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private EngagementTrackingInterceptor engagementTrackingInterceptor;
+
+    @Autowired
+    private PerformanceInterceptor performanceInterceptor;
+
+    // Static so the interceptors can be built before this configuration is
+    @Bean
+    public static EndpointMetricsRegistry endpointMetricsRegistry() {
+        return new EndpointMetricsRegistry();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Registered first so its timing wraps the other interceptors
+        registry.addInterceptor(performanceInterceptor).addPathPatterns("/api/**");
+        registry.addInterceptor(engagementTrackingInterceptor).addPathPatterns("/api/**");
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        for (int i = 0; i < converters.size(); i++) {
+            if (converters.get(i).getClass() == MappingJackson2HttpMessageConverter.class) {
+                MappingJackson2HttpMessageConverter jackson = (MappingJackson2HttpMessageConverter) converters.get(i);
+                converters.set(i, new TimedJacksonHttpMessageConverter(jackson.getObjectMapper()));
+            }
+        }
+    }
+}
@@ -1,12 +1,31 @@
 package com.edupress.controller;
 
+import com.edupress.analytics.EndpointMetrics;
+import com.edupress.analytics.EngagementTracker;
+import com.edupress.analytics.HyperLogLog;
+import com.edupress.analytics.LatencyHistogram;
+import com.edupress.analytics.TimeSeriesStore;
+import com.edupress.analytics.WatchTimeTracker;
+import com.edupress.export.ExportFormat;
+import com.edupress.model.CohortRetention;
+import com.edupress.security.UserPrincipal;
 import com.edupress.service.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @CrossOrigin(origins = "*")
 @RestController
@@ -22,6 +41,30 @@ public class AnalyticsController {
     @Autowired
     private EnrollmentService enrollmentService;
 
+    @Autowired
+    private TimeSeriesService timeSeriesService;
+
+    @Autowired
+    private RevenueLedgerService revenueLedgerService;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private EngagementAnalyticsService engagementAnalyticsService;
+
+    @Autowired
+    private PerformanceMetricsService performanceMetricsService;
+
+    @Autowired
+    private CohortAnalyticsService cohortAnalyticsService;
+
+    @Autowired
+    private CourseAnalyticsService courseAnalyticsService;
+
+    @Autowired
+    private VideoAnalyticsService videoAnalyticsService;
+
     // Course Analytics
     @GetMapping("/courses/performance")
     @PreAuthorize("hasRole('ADMIN')")
@@ -51,20 +94,41 @@ public class AnalyticsController {
     }
 
     private Object getMonthlyStats() {
+        LocalDateTime monthStart = LocalDate.now().withDayOfMonth(1).atStartOfDay();
+        LocalDateTime now = LocalDateTime.now().plusMinutes(1);
         return new Object() {
-            public final int newUsersThisMonth = 25; // Would be calculated from user creation dates
-            public final int newCoursesThisMonth = 5; // Would be calculated from course creation dates
-            public final int newEnrollmentsThisMonth = 150; // Would be calculated from enrollment dates
+            public final long newUsersThisMonth = timeSeriesService.count(TimeSeriesStore.Metric.SIGNUPS, monthStart, now);
+            public final long newCoursesThisMonth = timeSeriesService.count(TimeSeriesStore.Metric.COURSES_CREATED, monthStart, now);
+            public final long newEnrollmentsThisMonth = timeSeriesService.count(TimeSeriesStore.Metric.ENROLLMENTS, monthStart, now);
+            public final long paymentsThisMonth = timeSeriesService.count(TimeSeriesStore.Metric.PAYMENTS, monthStart, now);
         };
     }
 
     @GetMapping("/courses/{courseId}/detailed")
     @PreAuthorize("hasRole('INSTRUCTOR') or hasRole('ADMIN')")
-    public ResponseEntity<?> getDetailedCourseAnalytics(@PathVariable Long courseId) {
-        final Long id = courseId;
+    public ResponseEntity<?> getDetailedCourseAnalytics(
+            @PathVariable Long courseId,
+            @RequestParam(defaultValue = "12") int weeks,
+            Authentication authentication) {
+        CourseAnalyticsService.CourseDetail detail = courseAnalyticsService.getCourseDetail(courseId, weeks);
+        if (detail == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!isAdmin(authentication)
+                && !((UserPrincipal) authentication.getPrincipal()).getId().equals(detail.getInstructorId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You can only view analytics for your own courses");
+        }
+        return ResponseEntity.ok(detail);
+    }
+
+    @PostMapping("/courses/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> rebuildCourseAnalytics() {
+        final long started = System.currentTimeMillis();
+        final int courses = courseAnalyticsService.rebuild();
         return ResponseEntity.ok(new Object() {
-            public final Long courseId = id;
-            public final String message = "Detailed course analytics including student progress, quiz results, assignment grades";
+            public final int rebuiltCourses = courses;
+            public final long durationMs = System.currentTimeMillis() - started;
         });
     }
 
@@ -82,23 +146,173 @@ public class AnalyticsController {
     public ResponseEntity<?> getUserGrowthAnalytics(
             @RequestParam(required = false) String startDate,
             @RequestParam(required = false) String endDate) {
-        final String start = startDate;
-        final String end = endDate;
+        final LocalDate start;
+        final LocalDate end;
+        try {
+            end = endDate != null ? LocalDate.parse(endDate) : LocalDate.now();
+            start = startDate != null ? LocalDate.parse(startDate) : end.minusDays(29);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body("Dates must be in yyyy-MM-dd format");
+        }
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().body("startDate must not be after endDate");
+        }
+        final LocalDateTime from = start.atStartOfDay();
+        final LocalDateTime to = end.plusDays(1).atStartOfDay();
         return ResponseEntity.ok(new Object() {
-            public final String message = "User growth analytics over time period";
-            public final String startDate = start;
-            public final String endDate = end;
+            public final String startDate = start.toString();
+            public final String endDate = end.toString();
+            public final long newUsers = timeSeriesService.count(TimeSeriesStore.Metric.SIGNUPS, from, to);
+            public final long totalUsers = userService.getTotalUsers();
+            public final List<TimeSeriesStore.Point> signups = timeSeriesService.series(
+                    TimeSeriesStore.Metric.SIGNUPS, from, to, TimeSeriesStore.Resolution.DAY);
         });
     }
 
+    @GetMapping("/timeseries/{metric}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getTimeSeries(
+            @PathVariable String metric,
+            @RequestParam String from,
+            @RequestParam String to,
+            @RequestParam(required = false) String resolution) {
+        try {
+            final TimeSeriesStore.Metric m = TimeSeriesStore.Metric.valueOf(metric.toUpperCase());
+            final LocalDateTime fromTime = parseDateTime(from);
+            final LocalDateTime toTime = parseDateTime(to);
+            final TimeSeriesStore.Resolution res = resolution != null
+                    ? TimeSeriesStore.Resolution.valueOf(resolution.toUpperCase())
+                    : timeSeriesService.suggestResolution(fromTime, toTime);
+            final List<TimeSeriesStore.Point> series = timeSeriesService.series(m, fromTime, toTime, res);
+            return ResponseEntity.ok(new Object() {
+                public final String metric = m.name();
+                public final String resolution = res.name();
+                public final long total = timeSeriesService.count(m, fromTime, toTime);
+                public final List<TimeSeriesStore.Point> points = series;
+            });
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Accepts either a date (yyyy-MM-dd) or a full ISO local date-time
+    private static LocalDateTime parseDateTime(String value) {
+        return value.length() <= 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+    }
+
     @GetMapping("/users/engagement")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> getUserEngagementAnalytics() {
+    public ResponseEntity<?> getUserEngagementAnalytics(@RequestParam(required = false) String date) {
+        final LocalDate day;
+        try {
+            day = date != null ? LocalDate.parse(date) : LocalDate.now();
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body("Dates must be in yyyy-MM-dd format");
+        }
+        return ResponseEntity.ok(activeUsers(null, day));
+    }
+
+    @GetMapping("/courses/{courseId}/engagement")
+    @PreAuthorize("hasRole('INSTRUCTOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> getCourseEngagement(
+            @PathVariable Long courseId,
+            @RequestParam(defaultValue = "28") int days) {
+        final LocalDate today = LocalDate.now();
+        final LocalDate start = today.minusDays(clampDays(days) - 1);
+        final Object users = activeUsers(courseId, today);
         return ResponseEntity.ok(new Object() {
-            public final String message = "User engagement metrics - login frequency, course completion rates, etc.";
+            public final Long id = courseId;
+            public final Object activeUsers = users;
+            public final Object activity = heatmap(start, today,
+                    engagementAnalyticsService.getCourseHeatmap(courseId, start, today));
         });
     }
 
+    /**
+     * Serialized HyperLogLog of users active in the range, base64 encoded, so sketches from
+     * several nodes can be merged with {@code HyperLogLog.fromBytes(...).merge(...)}.
+     */
+    @GetMapping("/engagement/sketch")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getActiveUserSketch(
+            @RequestParam(required = false) Long courseId,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate) {
+        final LocalDate start;
+        final LocalDate end;
+        try {
+            end = endDate != null ? LocalDate.parse(endDate) : LocalDate.now();
+            start = startDate != null ? LocalDate.parse(startDate) : end;
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body("Dates must be in yyyy-MM-dd format");
+        }
+        final HyperLogLog users = engagementAnalyticsService.activeUsers(courseId, start, end);
+        return ResponseEntity.ok(new Object() {
+            public final String startDate = start.toString();
+            public final String endDate = end.toString();
+            public final int precision = users.getPrecision();
+            public final long estimate = users.estimate();
+            public final String sketch = Base64.getEncoder().encodeToString(users.toBytes());
+        });
+    }
+
+    private Object activeUsers(Long courseId, LocalDate day) {
+        final long dau = engagementAnalyticsService.countActiveUsers(courseId, day, day);
+        final long wau = engagementAnalyticsService.countActiveUsers(courseId, day.minusDays(6), day);
+        final long mau = engagementAnalyticsService.countActiveUsers(courseId, day.minusDays(29), day);
+        final List<Object> daily = new ArrayList<>();
+        for (LocalDate d = day.minusDays(29); !d.isAfter(day); d = d.plusDays(1)) {
+            final LocalDate current = d;
+            daily.add(new Object() {
+                public final String date = current.toString();
+                public final long activeUsers = engagementAnalyticsService.countActiveUsers(courseId, current, current);
+            });
+        }
+        return new Object() {
+            public final String date = day.toString();
+            public final long dailyActiveUsers = dau;
+            public final long weeklyActiveUsers = wau;
+            public final long monthlyActiveUsers = mau;
+            // DAU/MAU: the share of a month's users who show up on a given day
+            public final double stickiness = mau > 0 ? Math.round(1000.0 * dau / mau) / 1000.0 : 0.0;
+            public final List<Object> dailyActive = daily;
+        };
+    }
+
+    private static int clampDays(int days) {
+        return Math.max(1, Math.min(days, 366));
+    }
+
+    private static Object heatmap(LocalDate start, LocalDate end, long[] counts) {
+        final long[][] grid = new long[7][24];
+        final long[] dayTotals = new long[7];
+        final long[] hourTotals = new long[24];
+        long sum = 0;
+        int peak = 0;
+        for (int i = 0; i < EngagementTracker.HOURS_PER_WEEK; i++) {
+            grid[i / 24][i % 24] = counts[i];
+            dayTotals[i / 24] += counts[i];
+            hourTotals[i % 24] += counts[i];
+            sum += counts[i];
+            if (counts[i] > counts[peak]) {
+                peak = i;
+            }
+        }
+        final long totalEvents = sum;
+        final int peakSlot = peak;
+        return new Object() {
+            public final String startDate = start.toString();
+            public final String endDate = end.toString();
+            public final long total = totalEvents;
+            // Rows are Monday..Sunday, columns hours 0..23 in server local time
+            public final long[][] hourOfWeek = grid;
+            public final long[] byDayOfWeek = dayTotals;
+            public final long[] byHour = hourTotals;
+            public final String peakDay = totalEvents > 0 ? DayOfWeek.of(peakSlot / 24 + 1).name() : null;
+            public final Integer peakHour = totalEvents > 0 ? peakSlot % 24 : null;
+        };
+    }
+
     @GetMapping("/users/demographics")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> getUserDemographics() {
@@ -119,36 +333,93 @@ public class AnalyticsController {
     @GetMapping("/instructors/{instructorId}/detailed")
     @PreAuthorize("hasRole('ADMIN') or (#instructorId == principal.id and hasRole('INSTRUCTOR'))")
     public ResponseEntity<?> getDetailedInstructorAnalytics(@PathVariable Long instructorId) {
-        final Long id = instructorId;
-        return ResponseEntity.ok(new Object() {
-            public final Long instructorId = id;
-            public final String message = "Detailed instructor analytics including course performance, student outcomes";
-        });
+        return ResponseEntity.ok(courseAnalyticsService.getInstructorOverview(instructorId));
     }
 
     // Learning Analytics
     @GetMapping("/learning/patterns")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> getLearningPatterns() {
-        return ResponseEntity.ok(new Object() {
-            public final String message = "Learning patterns analysis - peak learning times, popular content types";
-        });
+    public ResponseEntity<?> getLearningPatterns(@RequestParam(defaultValue = "28") int days) {
+        LocalDate today = LocalDate.now();
+        LocalDate start = today.minusDays(clampDays(days) - 1);
+        // Lesson completions and enrollments, bucketed by hour of week
+        return ResponseEntity.ok(heatmap(start, today, engagementAnalyticsService.getLearningHeatmap(start, today)));
     }
 
     @GetMapping("/learning/outcomes")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> getLearningOutcomes() {
+    public ResponseEntity<?> getLearningOutcomes(
+            @RequestParam(defaultValue = "signup") String cohort,
+            @RequestParam(defaultValue = "12") int weeks) {
+        final CohortRetention.CohortType type;
+        try {
+            type = CohortRetention.CohortType.valueOf(cohort.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("cohort must be one of: signup, enrollment");
+        }
+        final List<CohortAnalyticsService.RetentionCurve> curves = cohortAnalyticsService.getRetention(type, weeks);
+        // Size-weighted retention per week offset, over the cohorts old enough to have reached it
+        final double[] average = new double[cohortAnalyticsService.getRetentionWeeks() + 1];
+        final long[] reached = new long[average.length];
+        for (CohortAnalyticsService.RetentionCurve curve : curves) {
+            int[] active = curve.getActiveUsers();
+            for (int offset = 0; offset < active.length && offset < average.length; offset++) {
+                average[offset] += active[offset];
+                reached[offset] += curve.getCohortSize();
+            }
+        }
+        for (int offset = 0; offset < average.length; offset++) {
+            average[offset] = reached[offset] > 0 ? percent(average[offset], reached[offset]) : 0.0;
+        }
         return ResponseEntity.ok(new Object() {
-            public final String message = "Learning outcomes analysis - skill acquisition, certification rates";
+            public final String cohortType = type.name();
+            public final double[] averageRetention = average;
+            public final List<CohortAnalyticsService.RetentionCurve> cohorts = curves;
+            public final Object lastRun = cohortAnalyticsService.getLastRun().map(run -> run.getLastRunAt()).orElse(null);
         });
     }
 
+    @PostMapping("/cohorts/refresh")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> refreshCohorts(@RequestParam(defaultValue = "false") boolean full) {
+        return ResponseEntity.ok(cohortAnalyticsService.refresh(full));
+    }
+
+    private static double percent(double part, double whole) {
+        return whole > 0 ? Math.round(1000.0 * part / whole) / 10.0 : 0.0;
+    }
+
     // Revenue Analytics
     @GetMapping("/revenue/overview")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> getRevenueAnalytics() {
+    public ResponseEntity<?> getRevenueAnalytics(
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate) {
+        final LocalDate start;
+        final LocalDate end;
+        try {
+            end = endDate != null ? LocalDate.parse(endDate) : LocalDate.now();
+            start = startDate != null ? LocalDate.parse(startDate) : end.minusDays(29);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body("Dates must be in yyyy-MM-dd format");
+        }
+        return ResponseEntity.ok(new Object() {
+            public final String startDate = start.toString();
+            public final String endDate = end.toString();
+            public final Object totalRevenue = revenueLedgerService.getTotalRevenue();
+            public final Object periodRevenue = revenueLedgerService.getRevenueBetween(start, end);
+            public final Object dailyRevenue = revenueLedgerService.getDailyRevenue(start, end);
+            public final Object topCourses = revenueLedgerService.getTopCourses(revenueLedgerService.getReportingCurrency(), 10);
+        });
+    }
+
+    @PostMapping("/revenue/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> rebuildRevenueLedger() {
+        final int rebuilt = revenueLedgerService.rebuild();
         return ResponseEntity.ok(new Object() {
-            public final String message = "Revenue analytics - total revenue, revenue by course, payment trends";
+            public final int entries = rebuilt;
+            public final String message = "Revenue ledger rebuilt from payment history";
         });
     }
 
@@ -163,60 +434,246 @@ public class AnalyticsController {
     // Content Analytics
     @GetMapping("/content/popularity")
     @PreAuthorize("hasRole('ADMIN') or hasRole('INSTRUCTOR')")
-    public ResponseEntity<?> getContentPopularityAnalytics() {
+    public ResponseEntity<?> getContentPopularityAnalytics(
+            @RequestParam(required = false) Long courseId,
+            @RequestParam(defaultValue = "20") int limit,
+            Authentication authentication) {
+        final List<Long> courseIds;
+        if (isAdmin(authentication)) {
+            courseIds = courseId != null ? List.of(courseId) : null;
+        } else {
+            List<Long> own = courseService.getInstructorCourseIds(((UserPrincipal) authentication.getPrincipal()).getId());
+            if (courseId != null && !own.contains(courseId)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You can only view analytics for your own courses");
+            }
+            courseIds = courseId != null ? List.of(courseId) : own;
+        }
+        final List<Object> videos = new ArrayList<>();
+        for (VideoAnalyticsService.VideoRetention video : videoAnalyticsService.getTopVideos(courseIds, Math.min(limit, 200))) {
+            videos.add(videoStats(video));
+        }
         return ResponseEntity.ok(new Object() {
-            public final String message = "Content popularity analysis - most viewed lessons, downloads";
+            public final Long filteredCourseId = courseId;
+            public final List<Object> mostWatchedVideos = videos;
         });
     }
 
+    @GetMapping("/courses/{courseId}/videos")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('INSTRUCTOR')")
+    public ResponseEntity<?> getCourseVideoRetention(@PathVariable Long courseId, Authentication authentication) {
+        if (!isAdmin(authentication) && !courseService.getInstructorCourseIds(
+                ((UserPrincipal) authentication.getPrincipal()).getId()).contains(courseId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You can only view analytics for your own courses");
+        }
+        final List<Object> videos = new ArrayList<>();
+        VideoAnalyticsService.VideoRetention worst = null;
+        for (VideoAnalyticsService.VideoRetention video : videoAnalyticsService.getCourseRetention(courseId)) {
+            videos.add(videoStats(video));
+            if (worst == null || video.getStats().getDropOffSessions() > worst.getStats().getDropOffSessions()) {
+                worst = video;
+            }
+        }
+        // The single video and point in the course where the most viewing sessions stopped
+        final VideoAnalyticsService.VideoRetention abandoned =
+                worst != null && worst.getStats().getDropOffSessions() > 0 ? worst : null;
+        return ResponseEntity.ok(new Object() {
+            public final Long id = courseId;
+            public final List<Object> videosInOrder = videos;
+            public final Object biggestDropOff = abandoned == null ? null : new Object() {
+                public final Long videoId = abandoned.getVideoId();
+                public final String videoTitle = abandoned.getTitle();
+                public final Long lessonId = abandoned.getLessonId();
+                public final String lessonTitle = abandoned.getLessonTitle();
+                public final int atSecond = abandoned.getStats().segmentEndSeconds(abandoned.getStats().getDropOffSegment());
+                public final long sessionsStopped = abandoned.getStats().getDropOffSessions();
+            };
+        });
+    }
+
+    private static Object videoStats(VideoAnalyticsService.VideoRetention video) {
+        final WatchTimeTracker.Snapshot stats = video.getStats();
+        final double[] retentionCurve = stats.getRetention();
+        for (int i = 0; i < retentionCurve.length; i++) {
+            retentionCurve[i] = Math.round(retentionCurve[i] * 10.0) / 10.0;
+        }
+        final long[] completion = stats.getCompletion();
+        final Map<String, Long> distribution = new LinkedHashMap<>();
+        for (int k = 0; k < completion.length; k++) {
+            distribution.put((k + 1) * 100 / WatchTimeTracker.SEGMENTS + "%", completion[k]);
+        }
+        final int dropSegment = stats.getDropOffSegment();
+        return new Object() {
+            public final Long videoId = video.getVideoId();
+            public final String title = video.getTitle();
+            public final Long lessonId = video.getLessonId();
+            public final String lessonTitle = video.getLessonTitle();
+            public final Long courseId = video.getCourseId();
+            public final String courseTitle = video.getCourseTitle();
+            public final int durationSeconds = stats.getDurationSeconds();
+            public final long watchSeconds = stats.getWatchSeconds();
+            public final long sessions = stats.getSessions();
+            public final long uniqueViewers = stats.getUniqueViewers();
+            public final double averageCompletion = Math.round(stats.getAverageCompletion() * 10.0) / 10.0;
+            public final double[] retentionBySegment = retentionCurve;
+            public final Map<String, Long> completionDistribution = distribution;
+            public final Integer dropOffAtSecond = dropSegment >= 0 ? stats.segmentEndSeconds(dropSegment) : null;
+            public final long dropOffSessions = stats.getDropOffSessions();
+        };
+    }
+
     @GetMapping("/content/effectiveness")
     @PreAuthorize("hasRole('ADMIN') or hasRole('INSTRUCTOR')")
-    public ResponseEntity<?> getContentEffectivenessAnalytics() {
+    public ResponseEntity<?> getContentEffectivenessAnalytics(
+            @RequestParam(required = false) Long courseId,
+            @RequestParam(defaultValue = "12") int weeks,
+            Authentication authentication) {
+        // Instructors only ever see their own courses; admins see everything unless they filter
+        final List<Long> courseIds;
+        if (isAdmin(authentication)) {
+            courseIds = courseId != null ? List.of(courseId) : null;
+        } else {
+            List<Long> own = courseService.getInstructorCourseIds(((UserPrincipal) authentication.getPrincipal()).getId());
+            if (courseId != null && !own.contains(courseId)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You can only view analytics for your own courses");
+            }
+            courseIds = courseId != null ? List.of(courseId) : own;
+        }
+        final List<CohortAnalyticsService.FunnelWeek> byWeek = cohortAnalyticsService.getFunnel(courseIds, weeks);
+        final long[] steps = new long[5];
+        for (CohortAnalyticsService.FunnelWeek week : byWeek) {
+            steps[0] += week.getEnrolled();
+            steps[1] += week.getStartedLesson();
+            steps[2] += week.getHalfCompleted();
+            steps[3] += week.getPassedQuiz();
+            steps[4] += week.getCertified();
+        }
+        final String[] names = {"enrolled", "startedLesson", "halfCompleted", "passedQuiz", "certified"};
+        final List<Object> funnelSteps = new ArrayList<>();
+        for (int i = 0; i < steps.length; i++) {
+            final int step = i;
+            funnelSteps.add(new Object() {
+                public final String name = names[step];
+                public final long students = steps[step];
+                public final double percentOfEnrolled = percent(steps[step], steps[0]);
+                public final double percentOfPreviousStep = step == 0 ? 100.0 : percent(steps[step], steps[step - 1]);
+            });
+        }
         return ResponseEntity.ok(new Object() {
-            public final String message = "Content effectiveness metrics - completion rates, quiz scores by content type";
+            public final Long filteredCourseId = courseId;
+            public final List<Object> funnel = funnelSteps;
+            public final List<CohortAnalyticsService.FunnelWeek> cohorts = byWeek;
         });
     }
 
+    private static boolean isAdmin(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+    }
+
     // System Analytics
     @GetMapping("/system/usage")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> getSystemUsageAnalytics() {
-        return ResponseEntity.ok(new Object() {
-            public final String message = "System usage analytics - peak hours, device types, geographic distribution";
-        });
+    public ResponseEntity<?> getSystemUsageAnalytics(@RequestParam(defaultValue = "28") int days) {
+        LocalDate today = LocalDate.now();
+        LocalDate start = today.minusDays(clampDays(days) - 1);
+        // Successful authenticated API requests, bucketed by hour of week
+        return ResponseEntity.ok(heatmap(start, today, engagementAnalyticsService.getRequestHeatmap(start, today)));
     }
 
     @GetMapping("/system/performance")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> getSystemPerformanceAnalytics() {
+    public ResponseEntity<?> getSystemPerformanceAnalytics(@RequestParam(defaultValue = "50") int limit) {
+        final List<Object> rows = new ArrayList<>();
+        long requestCount = 0;
+        long errorCount = 0;
+        long inFlightCount = 0;
+        for (EndpointMetrics endpoint : performanceMetricsService.getEndpointsByTotalTime()) {
+            final LatencyHistogram.Snapshot latency = endpoint.getLatency();
+            requestCount += latency.getCount();
+            errorCount += endpoint.getClientErrors() + endpoint.getServerErrors();
+            inFlightCount += endpoint.getInFlight();
+            if (rows.size() >= Math.max(1, limit)) {
+                continue;
+            }
+            final long n = Math.max(1, latency.getCount());
+            rows.add(new Object() {
+                public final String name = endpoint.getName();
+                public final long count = latency.getCount();
+                public final long inFlight = endpoint.getInFlight();
+                public final long clientErrors = endpoint.getClientErrors();
+                public final long serverErrors = endpoint.getServerErrors();
+                public final double meanMs = millis(latency.getMean());
+                public final double p50Ms = millis(latency.percentile(0.50));
+                public final double p90Ms = millis(latency.percentile(0.90));
+                public final double p99Ms = millis(latency.percentile(0.99));
+                public final double maxMs = millis(latency.getMax());
+                public final double totalMs = millis(latency.getSum());
+                public final double dbMeanMs = millis((double) endpoint.getDbNanos() / n);
+                public final double dbStatementsPerRequest = Math.round(100.0 * endpoint.getDbStatements() / n) / 100.0;
+                public final double jsonMeanMs = millis((double) endpoint.getJsonNanos() / n);
+            });
+        }
+        final long totalRequests = requestCount;
+        final long totalErrors = errorCount;
+        final long totalInFlight = inFlightCount;
         return ResponseEntity.ok(new Object() {
-            public final String message = "System performance metrics - response times, error rates, uptime";
+            public final long uptimeSeconds = performanceMetricsService.getUptimeMillis() / 1000;
+            public final long requests = totalRequests;
+            public final long errors = totalErrors;
+            public final long inFlight = totalInFlight;
+            public final List<Object> endpoints = rows;
         });
     }
 
-    // Export functionality
+    private static double millis(double nanos) {
+        return Math.round(nanos / 1_000) / 1_000.0;
+    }
+
+    // Export functionality. Exports stream straight from a database cursor; pass gzip=true
+    // for a compressed download.
     @PostMapping("/export/courses")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> exportCourseAnalytics(@RequestBody Object exportParams) {
-        return ResponseEntity.ok(new Object() {
-            public final String message = "Course analytics export functionality";
-            public final String format = "CSV/PDF/Excel export would be generated";
-        });
+    public ResponseEntity<?> exportCourseAnalytics(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        try {
+            ExportFormat exportFormat = ExportFormat.fromParameter(format);
+            return ExportService.attachment("courses", exportFormat, gzip, exportService.exportCourses(exportFormat, gzip));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @PostMapping("/export/users")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> exportUserAnalytics(@RequestBody Object exportParams) {
-        return ResponseEntity.ok(new Object() {
-            public final String message = "User analytics export functionality";
-        });
+    public ResponseEntity<?> exportUserAnalytics(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        try {
+            ExportFormat exportFormat = ExportFormat.fromParameter(format);
+            return ExportService.attachment("users", exportFormat, gzip, exportService.exportUsers(exportFormat, gzip));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @PostMapping("/export/revenue")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> exportRevenueAnalytics(@RequestBody Object exportParams) {
-        return ResponseEntity.ok(new Object() {
-            public final String message = "Revenue analytics export functionality";
-        });
+    public ResponseEntity<?> exportRevenueAnalytics(
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        try {
+            ExportFormat exportFormat = ExportFormat.fromParameter(format);
+            LocalDate end = endDate != null ? LocalDate.parse(endDate) : LocalDate.now();
+            LocalDate start = startDate != null ? LocalDate.parse(startDate) : LocalDate.of(1970, 1, 1);
+            return ExportService.attachment("revenue", exportFormat, gzip,
+                    exportService.exportRevenue(start, end, exportFormat, gzip));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body("Dates must be in yyyy-MM-dd format");
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 }
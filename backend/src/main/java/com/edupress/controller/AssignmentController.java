@@ -1,7 +1,11 @@
 package com.edupress.controller;
 
+import com.edupress.export.ExportFormat;
 import com.edupress.model.*;
+import com.edupress.security.UserPrincipal;
 import com.edupress.service.AssignmentService;
+import com.edupress.service.ExportService;
+import com.edupress.service.UploadPipelineService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
@@ -9,13 +13,15 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.IOException;
 import java.math.BigDecimal;
 import java.nio.file.Path;
 import java.util.List;
@@ -29,6 +35,9 @@ public class AssignmentController {
     @Autowired
     private AssignmentService assignmentService;
 
+    @Autowired
+    private UploadPipelineService uploadPipelineService;
+
     // Assignment CRUD operations
     @GetMapping
     public ResponseEntity<Page<Assignment>> getAllAssignments(
@@ -105,19 +114,18 @@ public class AssignmentController {
     }
 
     // Assignment submission operations
+    // Answers 202 with the upload job; the submission is created once its file has been processed
     @PostMapping("/{assignmentId}/submit")
     @PreAuthorize("hasRole('STUDENT') or hasRole('INSTRUCTOR') or hasRole('ADMIN')")
-    public ResponseEntity<AssignmentSubmission> submitAssignment(
+    public ResponseEntity<?> submitAssignment(
             @PathVariable Long assignmentId,
             @RequestParam Long studentId,
             @RequestParam("file") MultipartFile file) {
         try {
-            AssignmentSubmission submission = assignmentService.submitAssignment(assignmentId, studentId, file);
-            return ResponseEntity.ok(submission);
-        } catch (IOException e) {
-            return ResponseEntity.badRequest().body(null);
+            UploadJob job = uploadPipelineService.submitAssignment(assignmentId, studentId, file);
+            return ResponseEntity.accepted().body(uploadPipelineService.view(job));
         } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body(null);
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
@@ -275,10 +283,20 @@ public class AssignmentController {
 
     @GetMapping("/{assignmentId}/export-grades")
     @PreAuthorize("hasRole('INSTRUCTOR') or hasRole('ADMIN')")
-    public ResponseEntity<?> exportGrades(@PathVariable Long assignmentId) {
+    public ResponseEntity<?> exportGrades(
+            @PathVariable Long assignmentId,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            Authentication authentication) {
         try {
-            Object exportData = assignmentService.exportGrades(assignmentId);
-            return ResponseEntity.ok(exportData);
+            Long instructorId = assignmentService.getInstructorId(assignmentId);
+            if (!isAdmin(authentication)
+                    && !((UserPrincipal) authentication.getPrincipal()).getId().equals(instructorId)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You can only export grades of your own courses");
+            }
+            ExportFormat exportFormat = ExportFormat.fromParameter(format);
+            StreamingResponseBody body = assignmentService.exportGrades(assignmentId, exportFormat, gzip);
+            return ExportService.attachment("assignment-" + assignmentId + "-grades", exportFormat, gzip, body);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -302,4 +320,9 @@ public class AssignmentController {
     public ResponseEntity<?> getDetailedAssignmentStats(@PathVariable Long assignmentId) {
         return ResponseEntity.ok(assignmentService.getDetailedAssignmentStats(assignmentId));
     }
+
+    private static boolean isAdmin(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+    }
 }
@@ -2,16 +2,20 @@ package com.edupress.controller;
 
 import com.edupress.model.Course;
 import com.edupress.model.User;
+import com.edupress.security.UserPrincipal;
 import com.edupress.service.CourseService;
+import com.edupress.service.CourseUpdateFanoutService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @CrossOrigin(origins = "*")
@@ -22,6 +26,9 @@ public class CourseController {
     @Autowired
     private CourseService courseService;
 
+    @Autowired
+    private CourseUpdateFanoutService courseUpdateFanoutService;
+
     @GetMapping
     public ResponseEntity<Page<Course>> getAllCourses(
             @RequestParam(defaultValue = "0") int page,
@@ -226,6 +233,32 @@ public class CourseController {
         return ResponseEntity.ok(students);
     }
 
+    // Notify every enrolled student of new content; runs in the background and answers with its progress
+    @PostMapping("/{courseId}/notify-update")
+    @PreAuthorize("hasRole('INSTRUCTOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> notifyCourseUpdate(@PathVariable Long courseId,
+                                                @RequestBody(required = false) Map<String, String> body,
+                                                Authentication authentication) {
+        try {
+            UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+            String message = body != null ? body.get("message") : null;
+            return ResponseEntity.accepted().body(
+                    courseUpdateFanoutService.notifyCourseUpdate(courseId, message, userPrincipal.getUser()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/notify-update/{jobId}")
+    @PreAuthorize("hasRole('INSTRUCTOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> getCourseUpdateProgress(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(courseUpdateFanoutService.getJob(jobId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @GetMapping("/{courseId}/progress")
     @PreAuthorize("hasRole('STUDENT')")
     public ResponseEntity<?> getCourseProgress(@PathVariable Long courseId) {
@@ -1,5 +1,6 @@
 package com.edupress.controller;
 
+import com.edupress.dto.response.AdminOverviewResponse;
 import com.edupress.dto.response.StudentDashboardResponse;
 import com.edupress.dto.response.InstructorDashboardResponse;
 import com.edupress.model.User;
@@ -11,6 +12,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -46,6 +48,15 @@ public class DashboardController {
     @Autowired
     private LessonService lessonService;
 
+    @Autowired
+    private DashboardAggregationService dashboardAggregationService;
+
+    @Autowired
+    private RevenueLedgerService revenueLedgerService;
+
+    @Autowired
+    private CourseAnalyticsService courseAnalyticsService;
+
     // Test endpoint - no authentication required
     @GetMapping("/test")
     public ResponseEntity<?> testEndpoint() {
@@ -55,20 +66,8 @@ public class DashboardController {
     // Admin Dashboard
     @GetMapping("/admin/overview")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> getAdminOverview() {
-        return ResponseEntity.ok(new Object() {
-            public final long totalUsers = userService.getTotalUsers();
-            public final long totalCourses = courseService.getTotalCourses();
-            public final long publishedCourses = courseService.getPublishedCoursesCount();
-            public final long freeCourses = courseService.getFreeCoursesCount();
-            public final long paidCourses = courseService.getPaidCoursesCount();
-            public final long totalStudents = userService.countUsersByRole(User.Role.STUDENT);
-            public final long totalInstructors = userService.countUsersByRole(User.Role.INSTRUCTOR);
-            public final long totalAdmins = userService.countUsersByRole(User.Role.ADMIN);
-            public final Object userStats = userService.getUserStatsByRole();
-            public final Object enrollmentStats = enrollmentService.getGlobalEnrollmentStats();
-            public final Object notificationStats = notificationService.getNotificationStats();
-        });
+    public ResponseEntity<AdminOverviewResponse> getAdminOverview() {
+        return ResponseEntity.ok(dashboardAggregationService.getAdminOverview());
     }
 
     @GetMapping("/admin/recent-activity")
@@ -83,10 +82,11 @@ public class DashboardController {
     @GetMapping("/admin/revenue")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> getRevenueStats() {
+        java.time.LocalDate today = java.time.LocalDate.now();
         return ResponseEntity.ok(new Object() {
-            public final double totalRevenue = 0.0; // paymentService.getTotalRevenue();
-            public final double monthlyRevenue = 0.0; // paymentService.getMonthlyRevenue();
-            public final String message = "Revenue stats would be implemented with PaymentService";
+            public final Object totalRevenue = revenueLedgerService.getTotalRevenue();
+            public final Object monthlyRevenue = revenueLedgerService.getRevenueBetween(today.withDayOfMonth(1), today);
+            public final Object todayRevenue = revenueLedgerService.getRevenueBetween(today, today);
         });
     }
 
@@ -117,17 +117,38 @@ public class DashboardController {
 
     @GetMapping("/instructor/my-courses-stats")
     @PreAuthorize("hasRole('INSTRUCTOR')")
-    public ResponseEntity<?> getInstructorCoursesStats() {
-        return ResponseEntity.ok(new Object() {
-            public final String message = "Instructor courses statistics would be implemented here";
-        });
+    public ResponseEntity<?> getInstructorCoursesStats(Authentication authentication) {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        return ResponseEntity.ok(courseAnalyticsService.getInstructorOverview(userPrincipal.getId()));
     }
 
     @GetMapping("/instructor/students")
     @PreAuthorize("hasRole('INSTRUCTOR')")
-    public ResponseEntity<?> getInstructorStudents() {
+    public ResponseEntity<?> getInstructorStudents(Authentication authentication) {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        Long instructorId = userPrincipal.getId();
+        final CourseAnalyticsService.InstructorOverview overview = courseAnalyticsService.getInstructorOverview(instructorId);
+        final List<Object> byCourse = overview.getCourses().stream()
+                .sorted(Comparator.comparingLong(CourseAnalyticsService.CourseSummary::getActiveEnrollments).reversed())
+                .limit(10)
+                .map(course -> (Object) new Object() {
+                    public final Long courseId = course.getCourseId();
+                    public final String title = course.getTitle();
+                    public final long enrolledStudents = course.getActiveEnrollments();
+                    public final long activeStudentsLast7Days = course.getActiveStudentsLast7Days();
+                    public final long completedStudents = course.getCompletedStudents();
+                })
+                .collect(Collectors.toList());
+        final long distinctStudents = enrollmentService.getInstructorStudentsCount(instructorId);
         return ResponseEntity.ok(new Object() {
-            public final String message = "Instructor students overview would be implemented here";
+            public final long totalStudents = distinctStudents;
+            public final long enrollments = overview.getActiveEnrollments();
+            public final long newEnrollmentsLast30Days = overview.getNewEnrollmentsLast30Days();
+            public final long activeStudentsLast7Days = overview.getActiveStudentsLast7Days();
+            public final long activeStudentsLast30Days = overview.getActiveStudentsLast30Days();
+            public final long completedStudents = overview.getCompletedStudents();
+            public final double completionRate = overview.getCompletionRate();
+            public final List<Object> topCourses = byCourse;
         });
     }
 
@@ -221,12 +242,14 @@ public class DashboardController {
         
         switch (role.toUpperCase()) {
             case "ADMIN":
+                // One memoized aggregation feeds every admin section instead of re-counting per field
+                AdminOverviewResponse adminOverview = dashboardAggregationService.getAdminOverview();
                 return ResponseEntity.ok(new Object() {
-                    public final Object overview = getAdminOverview().getBody();
-                    public final Object userStats = userService.getUserStatsByRole();
+                    public final Object overview = adminOverview;
+                    public final Object userStats = adminOverview.getUserStats();
                     public final Object courseStats = new Object() {
-                        public final long total = courseService.getTotalCourses();
-                        public final long published = courseService.getPublishedCoursesCount();
+                        public final long total = adminOverview.getTotalCourses();
+                        public final long published = adminOverview.getPublishedCourses();
                     };
                     public final Object recentActivity = new Object() {
                         public final String message = "Recent user registrations, course creations, enrollments";
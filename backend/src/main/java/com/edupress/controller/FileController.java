@@ -1,21 +1,40 @@
 package com.edupress.controller;
 
+import com.edupress.model.UploadJob;
+import com.edupress.security.MediaUrlSigner;
+import com.edupress.security.UserPrincipal;
+import com.edupress.service.BlobAccessTracker;
+import com.edupress.service.BlobGarbageCollector;
 import com.edupress.service.FileStorageService;
+import com.edupress.service.ImageVariantService;
+import com.edupress.service.StorageMigrationService;
+import com.edupress.service.StorageSweeper;
+import com.edupress.service.StorageTieringService;
+import com.edupress.service.UploadPipelineService;
+import com.edupress.storage.ContentAddressedStore;
+import com.edupress.storage.StorageReferences;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.servlet.http.HttpServletRequest;
 import java.io.IOException;
-import java.util.HashMap;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @CrossOrigin(origins = "*")
 @RestController
@@ -27,22 +46,46 @@ public class FileController {
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private BlobGarbageCollector blobGarbageCollector;
+
+    @Autowired
+    private StorageSweeper storageSweeper;
+
+    @Autowired
+    private StorageMigrationService storageMigrationService;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private UploadPipelineService uploadPipelineService;
+
+    @Autowired
+    private StorageTieringService storageTieringService;
+
+    @Autowired
+    private BlobAccessTracker blobAccessTracker;
+
+    @Autowired
+    private StorageReferences storageReferences;
+
+    @Autowired
+    private MediaUrlSigner mediaUrlSigner;
+
+    @Value("${app.media.signed-url-ttl-seconds:14400}")
+    private long signedUrlTtlSeconds;
+
+    // Answers 202 once the bytes are staged; processing status is pushed on /user/queue/uploads
     @PostMapping("/upload")
     @PreAuthorize("hasRole('INSTRUCTOR') or hasRole('ADMIN') or hasRole('STUDENT')")
     public ResponseEntity<?> uploadFile(@RequestParam("file") MultipartFile file,
-                                       @RequestParam(value = "type", defaultValue = "general") String type) {
+                                       @RequestParam(value = "type", defaultValue = "general") String type,
+                                       Authentication authentication) {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
         try {
-            String fileName = fileStorageService.storeFile(file, type);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("filename", fileName);
-            response.put("originalFilename", file.getOriginalFilename());
-            response.put("url", "/api/files/download/" + fileName);
-            response.put("contentType", file.getContentType());
-            response.put("size", file.getSize());
-            response.put("type", type);
-            
-            return ResponseEntity.ok(response);
+            UploadJob job = uploadPipelineService.submitFile(userPrincipal.getId(), file, type);
+            return ResponseEntity.accepted().body(uploadPipelineService.view(job));
         } catch (Exception e) {
             logger.error("Error uploading file: ", e);
             return ResponseEntity.badRequest()
@@ -50,11 +93,26 @@ public class FileController {
         }
     }
 
+    // Status of any upload (file, avatar, video or submission) started by the caller
+    @GetMapping("/uploads/{uploadId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> getUpload(@PathVariable String uploadId, Authentication authentication) {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        boolean admin = authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+        try {
+            return ResponseEntity.ok(uploadPipelineService.view(uploadPipelineService.getJob(uploadId, userPrincipal.getId(), admin)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @GetMapping("/download/{fileName:.+}")
     public ResponseEntity<Resource> downloadFile(@PathVariable String fileName,
                                                HttpServletRequest request) {
         try {
             Resource resource = fileStorageService.loadFileAsResource(fileName);
+            blobAccessTracker.record(storageReferences.objectNameOf(fileName));
 
             String contentType = null;
             try {
@@ -78,11 +136,18 @@ public class FileController {
         }
     }
 
+    // With ?w= an image is served from the smallest cached variant at least that wide
     @GetMapping("/view/{fileName:.+}")
     public ResponseEntity<Resource> viewFile(@PathVariable String fileName,
+                                           @RequestParam(value = "w", required = false) Integer width,
                                            HttpServletRequest request) {
         try {
             Resource resource = fileStorageService.loadFileAsResource(fileName);
+            blobAccessTracker.record(storageReferences.objectNameOf(fileName));
+            if (width != null && width > 0 && ImageVariantService.isImage(fileName)) {
+                Path variant = imageVariantService.getVariant(fileName, resource.getFile().toPath(), width);
+                resource = new FileSystemResource(variant);
+            }
 
             String contentType = null;
             try {
@@ -95,7 +160,13 @@ public class FileController {
                 contentType = "application/octet-stream";
             }
 
-            return ResponseEntity.ok()
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (ContentAddressedStore.isKey(fileName)) {
+                // Blob keys name their content, so the response for one can never change
+                response.cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable());
+            }
+
+            return response
                     .contentType(MediaType.parseMediaType(contentType))
                     .header(HttpHeaders.CONTENT_DISPOSITION, "inline")
                     .body(resource);
@@ -105,6 +176,24 @@ public class FileController {
         }
     }
 
+    // Signed, expiring URL for a stored file that is served without authentication or database access
+    @GetMapping("/signed-url/{fileName:.+}")
+    public ResponseEntity<?> getSignedUrl(@PathVariable String fileName,
+                                          @RequestParam(value = "w", required = false) Integer width,
+                                          @RequestParam(value = "download", defaultValue = "false") boolean download) {
+        if (!ContentAddressedStore.isKey(fileName)) {
+            return ResponseEntity.badRequest().body("Only content-addressed files can be signed");
+        }
+        if (!fileStorageService.fileExists(fileName)) {
+            return ResponseEntity.notFound().build();
+        }
+        Instant expiry = Instant.now().plusSeconds(signedUrlTtlSeconds);
+        return ResponseEntity.ok(new Object() {
+            public final String url = mediaUrlSigner.sign(fileName, expiry, width, download);
+            public final Instant expiresAt = expiry;
+        });
+    }
+
     @DeleteMapping("/{fileName:.+}")
     @PreAuthorize("hasRole('INSTRUCTOR') or hasRole('ADMIN')")
     public ResponseEntity<?> deleteFile(@PathVariable String fileName) {
@@ -128,4 +217,70 @@ public class FileController {
             return ResponseEntity.notFound().build();
         }
     }
+
+    // Content store usage: stored vs. referenced bytes, without deleting anything
+    @GetMapping("/storage/usage")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getStorageUsage() {
+        BlobGarbageCollector.CollectionReport report = blobGarbageCollector.collect(true);
+        if (report == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("A blob collection is already running");
+        }
+        return ResponseEntity.ok(report);
+    }
+
+    @PostMapping("/storage/gc")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> collectUnreferencedBlobs() {
+        BlobGarbageCollector.CollectionReport report = blobGarbageCollector.collect(false);
+        if (report == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("A blob collection is already running");
+        }
+        return ResponseEntity.ok(report);
+    }
+
+    // Whole-store reconciliation against the referencing records, with per-owner usage
+    @GetMapping("/storage/sweep")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getStorageSweep() {
+        return sweepResponse(storageSweeper.sweep(false));
+    }
+
+    @PostMapping("/storage/sweep")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> removeOrphanedFiles() {
+        return sweepResponse(storageSweeper.sweep(true));
+    }
+
+    private ResponseEntity<?> sweepResponse(StorageSweeper.SweepReport report) {
+        if (report == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("A storage sweep is already running");
+        }
+        return ResponseEntity.ok(report);
+    }
+
+    // Moves up to `limit` files from the old flat directories into the sharded layout
+    @PostMapping("/storage/migrate")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> migrateStorage(@RequestParam(value = "limit", defaultValue = "500") int limit) {
+        StorageMigrationService.MigrationReport report = storageMigrationService.migrate(Math.max(1, limit));
+        if (report == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("A storage migration is already running");
+        }
+        return ResponseEntity.ok(report);
+    }
+
+    // Moves files nobody has read for their type's cold-after-days to the archive tier
+    @PostMapping("/storage/tier")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> tierColdFiles() {
+        if (!storageTieringService.isEnabled()) {
+            return ResponseEntity.badRequest().body("No archive tier is configured (app.storage.archive.backend)");
+        }
+        StorageTieringService.TieringReport report = storageTieringService.run();
+        if (report == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("A storage tiering run is already in progress");
+        }
+        return ResponseEntity.ok(report);
+    }
 }
@@ -0,0 +1,83 @@
+package com.edupress.controller;
+
+import com.edupress.media.RangeFileSender;
+import com.edupress.media.SegmentCache;
+import com.edupress.security.MediaUrlSigner;
+import com.edupress.service.BlobAccessTracker;
+import com.edupress.service.ImageVariantService;
+import com.edupress.storage.ContentAddressedStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * Byte serving for signed {@code /media/<key>} URLs minted by {@link MediaUrlSigner}. The
+ * signature is the whole authorization check: no JWT is parsed and nothing is read from the
+ * database, so a player's stream of range requests costs about what a static file server would.
+ */
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/media")
+public class MediaController {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaController.class);
+
+    @Autowired
+    private MediaUrlSigner mediaUrlSigner;
+
+    @Autowired
+    private ContentAddressedStore contentStore;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private SegmentCache segmentCache;
+
+    @Autowired
+    private BlobAccessTracker blobAccessTracker;
+
+    @GetMapping("/{key:.+}")
+    public void serve(@PathVariable String key,
+                      @RequestParam("exp") long expires,
+                      @RequestParam(value = "w", required = false) Integer width,
+                      @RequestParam(value = "dl", defaultValue = "0") String download,
+                      @RequestParam(value = "sig", required = false) String signature,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean attachment = "1".equals(download);
+        if (!ContentAddressedStore.isKey(key) || !mediaUrlSigner.verify(key, expires, width, attachment, signature)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        Path file = contentStore.localFile(key);
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        blobAccessTracker.record(contentStore.objectName(key));
+        if (width != null && width > 0) {
+            file = imageVariantService.getVariant(key, file, width);
+        }
+
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, attachment
+                ? "attachment; filename=\"" + key + "\""
+                : "inline");
+        // Blob contents never change, but the URL stops working at its expiry
+        long remaining = Math.max(0, expires - Instant.now().getEpochSecond());
+        try {
+            // Only playback goes through the segment cache; image variants and downloads are read from disk
+            RangeFileSender.send(request, response, file, "private, max-age=" + remaining,
+                    width == null && !attachment ? segmentCache : null);
+        } catch (IOException e) {
+            logger.debug("Media transfer of {} ended early: {}", key, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.edupress.controller;
+
+import com.edupress.service.PerformanceMetricsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricsController {
+
+    private static final MediaType PROMETHEUS_TEXT = MediaType.parseMediaType("text/plain;version=0.0.4;charset=utf-8");
+
+    @Autowired
+    private PerformanceMetricsService performanceMetricsService;
+
+    @Value("${app.metrics.scrape-token:}")
+    private String scrapeToken;
+
+    /**
+     * Prometheus scrape endpoint. Scrapers send {@code X-Metrics-Token} when
+     * {@code app.metrics.scrape-token} is set; otherwise an admin session is required.
+     */
+    @GetMapping("/prometheus")
+    public ResponseEntity<?> prometheus(
+            @RequestHeader(value = "X-Metrics-Token", required = false) String token,
+            Authentication authentication) {
+        if (!hasValidToken(token) && !isAdmin(authentication)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok().contentType(PROMETHEUS_TEXT).body(performanceMetricsService.renderPrometheus());
+    }
+
+    private boolean hasValidToken(String token) {
+        return token != null && !scrapeToken.isEmpty()
+                && MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), scrapeToken.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean isAdmin(Authentication authentication) {
+        return authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+    }
+}
@@ -1,5 +1,6 @@
 package com.edupress.controller;
 
+import com.edupress.dto.response.NotificationFeedItem;
 import com.edupress.model.Notification;
 import com.edupress.service.NotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,12 +24,12 @@ public class NotificationController {
     // Get notifications for current user
     @GetMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<Page<Notification>> getUserNotifications(
+    public ResponseEntity<Page<NotificationFeedItem>> getUserNotifications(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(required = false) Boolean isRead) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<Notification> notifications;
+        Page<NotificationFeedItem> notifications;
         
         if (isRead != null) {
             notifications = notificationService.findUserNotificationsByReadStatus(isRead, pageable);
@@ -59,6 +60,18 @@ public class NotificationController {
         }
     }
 
+    // Mark a broadcast as read for the current user
+    @PutMapping("/broadcasts/{id}/read")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> markBroadcastAsRead(@PathVariable Long id) {
+        try {
+            notificationService.markBroadcastAsRead(id);
+            return ResponseEntity.ok("Broadcast marked as read");
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     // Mark all notifications as read
     @PutMapping("/mark-all-read")
     @PreAuthorize("isAuthenticated()")
@@ -131,6 +144,17 @@ public class NotificationController {
         }
     }
 
+    @DeleteMapping("/broadcasts/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> deleteBroadcast(@PathVariable Long id) {
+        try {
+            notificationService.deleteBroadcast(id);
+            return ResponseEntity.ok("Broadcast deleted successfully");
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     // Get all notifications (admin only)
     @GetMapping("/all")
     @PreAuthorize("hasRole('ADMIN')")
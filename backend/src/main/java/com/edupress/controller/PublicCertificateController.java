@@ -62,7 +62,7 @@ public class PublicCertificateController {
         }
         
         try {
-            Path filePath = Path.of(certificate.getPdfFilePath());
+            Path filePath = certificateService.getCertificatePdfPath(certificate.getId());
             Resource resource = new UrlResource(filePath.toUri());
             
             if (resource.exists() && resource.isReadable()) {
@@ -1,14 +1,20 @@
 package com.edupress.controller;
 
+import com.edupress.export.ExportFormat;
 import com.edupress.model.*;
+import com.edupress.security.UserPrincipal;
+import com.edupress.service.ExportService;
 import com.edupress.service.QuizService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Optional;
@@ -227,10 +233,20 @@ public class QuizController {
 
     @PostMapping("/{quizId}/export")
     @PreAuthorize("hasRole('INSTRUCTOR') or hasRole('ADMIN')")
-    public ResponseEntity<?> exportQuizResults(@PathVariable Long quizId) {
+    public ResponseEntity<?> exportQuizResults(
+            @PathVariable Long quizId,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            Authentication authentication) {
         try {
-            Object exportData = quizService.exportQuizResults(quizId);
-            return ResponseEntity.ok(exportData);
+            Long instructorId = quizService.getInstructorId(quizId);
+            if (!isAdmin(authentication)
+                    && !((UserPrincipal) authentication.getPrincipal()).getId().equals(instructorId)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You can only export results of your own courses");
+            }
+            ExportFormat exportFormat = ExportFormat.fromParameter(format);
+            StreamingResponseBody body = quizService.exportQuizResults(quizId, exportFormat, gzip);
+            return ExportService.attachment("quiz-" + quizId + "-results", exportFormat, gzip, body);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -263,4 +279,9 @@ public class QuizController {
             return ResponseEntity.badRequest().build();
         }
     }
+
+    private static boolean isAdmin(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+    }
 }
@@ -1,6 +1,8 @@
 package com.edupress.controller;
 
+import com.edupress.model.UploadJob;
 import com.edupress.model.User;
+import com.edupress.service.UploadPipelineService;
 import com.edupress.service.UserService;
 import com.edupress.security.UserPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,6 +25,9 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UploadPipelineService uploadPipelineService;
+
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Page<User>> getAllUsers(
@@ -173,14 +178,15 @@ public class UserController {
         }
     }
 
+    // Answers 202 with the upload job; the profile image changes once the file has been processed
     @PostMapping("/{id}/avatar")
     @PreAuthorize("#id == principal.id or hasRole('ADMIN')")
-    public ResponseEntity<User> uploadAvatar(@PathVariable Long id, @RequestParam("file") org.springframework.web.multipart.MultipartFile file) {
+    public ResponseEntity<?> uploadAvatar(@PathVariable Long id, @RequestParam("file") org.springframework.web.multipart.MultipartFile file) {
         try {
-            User updatedUser = userService.uploadAvatar(id, file);
-            return ResponseEntity.ok(updatedUser);
+            UploadJob job = uploadPipelineService.submitAvatar(id, file);
+            return ResponseEntity.accepted().body(uploadPipelineService.view(job));
         } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().build();
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
@@ -1,22 +1,35 @@
 package com.edupress.controller;
 
+import com.edupress.media.RangeFileSender;
+import com.edupress.media.SegmentCache;
 import com.edupress.model.*;
+import com.edupress.security.MediaUrlSigner;
+import com.edupress.security.UserPrincipal;
+import com.edupress.service.BlobAccessTracker;
+import com.edupress.service.UploadPipelineService;
+import com.edupress.service.VideoAnalyticsService;
 import com.edupress.service.VideoService;
+import com.edupress.storage.StorageReferences;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,9 +38,35 @@ import java.util.Optional;
 @RequestMapping("/api/videos")
 public class VideoController {
 
+    private static final Logger logger = LoggerFactory.getLogger(VideoController.class);
+
+    @Value("${app.video.stream.cache-max-age-seconds:3600}")
+    private long streamCacheSeconds;
+
     @Autowired
     private VideoService videoService;
 
+    @Autowired
+    private UploadPipelineService uploadPipelineService;
+
+    @Autowired
+    private VideoAnalyticsService videoAnalyticsService;
+
+    @Autowired
+    private MediaUrlSigner mediaUrlSigner;
+
+    @Autowired
+    private SegmentCache segmentCache;
+
+    @Autowired
+    private BlobAccessTracker blobAccessTracker;
+
+    @Autowired
+    private StorageReferences storageReferences;
+
+    @Value("${app.media.signed-url-ttl-seconds:14400}")
+    private long signedUrlTtlSeconds;
+
     // Video CRUD operations
     @GetMapping
     public ResponseEntity<Page<Video>> getAllVideos(
@@ -57,19 +96,22 @@ public class VideoController {
         return ResponseEntity.ok(videos);
     }
 
+    // Answers 202 with the upload job; the video is created once its file has been processed
     @PostMapping("/upload")
     @PreAuthorize("hasRole('INSTRUCTOR') or hasRole('ADMIN')")
-    public ResponseEntity<Video> uploadVideo(
+    public ResponseEntity<?> uploadVideo(
             @RequestParam Long lessonId,
             @RequestParam String title,
             @RequestParam(required = false) String description,
             @RequestParam Integer orderIndex,
-            @RequestParam("file") MultipartFile file) {
+            @RequestParam("file") MultipartFile file,
+            Authentication authentication) {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
         try {
-            Video video = videoService.uploadVideo(lessonId, title, description, orderIndex, file);
-            return ResponseEntity.ok(video);
-        } catch (IOException | RuntimeException e) {
-            return ResponseEntity.badRequest().body(null);
+            UploadJob job = uploadPipelineService.submitVideo(userPrincipal.getId(), lessonId, title, description, orderIndex, file);
+            return ResponseEntity.accepted().body(uploadPipelineService.view(job));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
@@ -143,24 +185,65 @@ public class VideoController {
                     .orElse(ResponseEntity.notFound().build());
     }
 
+    // Playback heartbeats, sent by the player every few seconds while a video is playing
+    @PostMapping("/{videoId}/heartbeat")
+    @PreAuthorize("hasRole('STUDENT') or hasRole('INSTRUCTOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> recordHeartbeat(
+            @PathVariable Long videoId,
+            @RequestParam int position,
+            @RequestParam(defaultValue = "0") int watched,
+            Authentication authentication) {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        try {
+            videoAnalyticsService.recordHeartbeat(videoId, userPrincipal.getId(), position, watched);
+            return ResponseEntity.noContent().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     // Video streaming/download
     @GetMapping("/{videoId}/stream")
-    public ResponseEntity<Resource> streamVideo(@PathVariable Long videoId) {
+    public void streamVideo(@PathVariable Long videoId, HttpServletRequest request,
+                            HttpServletResponse response) throws IOException {
+        Path filePath;
+        try {
+            filePath = videoService.getVideoFilePath(videoId);
+        } catch (RuntimeException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (!Files.isReadable(filePath)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        blobAccessTracker.record(storageReferences.objectNameOf(filePath.toString()));
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filePath.getFileName().toString() + "\"");
         try {
-            Path filePath = videoService.getVideoFilePath(videoId);
-            Resource resource = new UrlResource(filePath.toUri());
-            
-            if (resource.exists() && resource.isReadable()) {
-                return ResponseEntity.ok()
-                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                        .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filePath.getFileName().toString() + "\"")
-                        .body(resource);
-            } else {
-                return ResponseEntity.notFound().build();
-            }
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().build();
+            RangeFileSender.send(request, response, filePath, "private, max-age=" + streamCacheSeconds, segmentCache);
+        } catch (IOException e) {
+            // Players abort in-flight range requests whenever the viewer seeks; nothing to report
+            logger.debug("Stream of video {} ended early: {}", videoId, e.getMessage());
+        }
+    }
+
+    // Signed URL for one playback session; its range requests skip authentication and the database
+    @GetMapping("/{videoId}/stream-url")
+    public ResponseEntity<?> getStreamUrl(@PathVariable Long videoId) {
+        String key;
+        try {
+            key = videoService.getVideoBlobKey(videoId);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
         }
+        Instant expiry = Instant.now().plusSeconds(signedUrlTtlSeconds);
+        return ResponseEntity.ok(new Object() {
+            // Videos stored before content addressing are only reachable through the authenticated stream
+            public final String url = key != null
+                    ? mediaUrlSigner.sign(key, expiry, null, false)
+                    : "/api/videos/" + videoId + "/stream";
+            public final Instant expiresAt = key != null ? expiry : null;
+        });
     }
 
     @GetMapping("/search")
@@ -0,0 +1,135 @@
+package com.edupress.controller;
+
+import com.edupress.model.UploadSession;
+import com.edupress.model.Video;
+import com.edupress.security.UserPrincipal;
+import com.edupress.service.VideoUploadService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Resumable video uploads. A client calls {@code POST /api/videos/uploads} with the file's name
+ * and size, {@code PUT}s each chunk to {@code /api/videos/uploads/{uploadId}?offset=N} with an
+ * {@code X-Chunk-SHA256} header (chunks may be sent in parallel and in any order), and finishes
+ * with {@code POST /api/videos/uploads/{uploadId}/commit}. After an interruption,
+ * {@code GET /api/videos/uploads/{uploadId}} lists the chunks still missing.
+ */
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/api/videos/uploads")
+public class VideoUploadController {
+
+    @Autowired
+    private VideoUploadService videoUploadService;
+
+    @PostMapping
+    @PreAuthorize("hasRole('INSTRUCTOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> startUpload(
+            @RequestParam Long lessonId,
+            @RequestParam String title,
+            @RequestParam(required = false) String description,
+            @RequestParam Integer orderIndex,
+            @RequestParam(required = false) Integer duration,
+            @RequestParam String fileName,
+            @RequestParam long size,
+            @RequestParam(required = false) Integer chunkSize,
+            Authentication authentication) {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        try {
+            UploadSession session = videoUploadService.start(userPrincipal.getId(), lessonId, title, description,
+                    orderIndex, duration, fileName, size, chunkSize);
+            return ResponseEntity.status(HttpStatus.CREATED).body(uploadView(session));
+        } catch (IOException | RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping
+    @PreAuthorize("hasRole('INSTRUCTOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> getMyUploads(Authentication authentication) {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        return ResponseEntity.ok(videoUploadService.getActiveSessions(userPrincipal.getId()).stream()
+                .map(VideoUploadController::uploadView).toList());
+    }
+
+    @GetMapping("/{uploadId}")
+    @PreAuthorize("hasRole('INSTRUCTOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> getUpload(@PathVariable String uploadId, Authentication authentication) {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        try {
+            return ResponseEntity.ok(uploadView(videoUploadService.getSession(uploadId, userPrincipal.getId())));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PutMapping("/{uploadId}")
+    @PreAuthorize("hasRole('INSTRUCTOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> uploadChunk(
+            @PathVariable String uploadId,
+            @RequestParam long offset,
+            @RequestHeader(value = "X-Chunk-SHA256", required = false) String checksum,
+            HttpServletRequest request,
+            Authentication authentication) {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        try {
+            UploadSession session = videoUploadService.writeChunk(uploadId, userPrincipal.getId(), offset,
+                    request.getContentLengthLong(), checksum, request.getInputStream());
+            return ResponseEntity.ok(uploadView(session));
+        } catch (IOException e) {
+            // Connection dropped mid-chunk: the chunk wasn't recorded and can be sent again
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Chunk interrupted: " + e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/{uploadId}/commit")
+    @PreAuthorize("hasRole('INSTRUCTOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> commitUpload(@PathVariable String uploadId, Authentication authentication) {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        try {
+            Video video = videoUploadService.commit(uploadId, userPrincipal.getId());
+            return ResponseEntity.status(HttpStatus.CREATED).body(video);
+        } catch (IOException | RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{uploadId}")
+    @PreAuthorize("hasRole('INSTRUCTOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> abortUpload(@PathVariable String uploadId, Authentication authentication) {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        try {
+            videoUploadService.abort(uploadId, userPrincipal.getId());
+            return ResponseEntity.noContent().build();
+        } catch (IOException | RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    private static Object uploadView(UploadSession session) {
+        List<Integer> missing = VideoUploadService.missingChunks(session);
+        return new Object() {
+            public final String uploadId = session.getId();
+            public final String status = session.getStatus().name();
+            public final String fileName = session.getFileName();
+            public final long size = session.getTotalSize();
+            public final int chunkSize = session.getChunkSize();
+            public final int totalChunks = session.getTotalChunks();
+            public final int receivedChunks = session.getTotalChunks() - missing.size();
+            public final List<Integer> missingChunks = missing;
+            public final Long videoId = session.getVideoId();
+            public final LocalDateTime expiresAt = session.getExpiresAt();
+        };
+    }
+}
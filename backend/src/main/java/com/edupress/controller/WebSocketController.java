@@ -1,6 +1,8 @@
 package com.edupress.controller;
 
+import com.edupress.model.BroadcastNotification;
 import com.edupress.model.Notification;
+import com.edupress.model.UploadJob;
 import com.edupress.service.NotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.MessageMapping;
@@ -11,6 +13,7 @@ import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.stereotype.Controller;
 
 import java.security.Principal;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Controller
@@ -79,17 +82,27 @@ public class WebSocketController {
 
     // Method to send real-time notifications to specific users
     public void sendNotificationToUser(String userId, Notification notification) {
+        // actionUrl may be null, which Map.of rejects
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("type", "notification");
+        payload.put("id", notification.getId());
+        payload.put("title", notification.getTitle());
+        payload.put("message", notification.getMessage());
+        payload.put("notificationType", notification.getType().toString());
+        payload.put("actionUrl", notification.getActionUrl());
+        payload.put("createdAt", notification.getCreatedAt().toString());
+        messagingTemplate.convertAndSendToUser(userId, "/queue/notifications", payload);
+    }
+
+    // Unread badge count, sent whenever it changes
+    public void sendUnreadCount(String userId, long count) {
         messagingTemplate.convertAndSendToUser(
             userId,
-            "/queue/notifications",
+            "/queue/unread-count",
             Map.of(
-                "type", "notification",
-                "id", notification.getId(),
-                "title", notification.getTitle(),
-                "message", notification.getMessage(),
-                "notificationType", notification.getType().toString(),
-                "actionUrl", notification.getActionUrl(),
-                "createdAt", notification.getCreatedAt().toString()
+                "type", "unread_count",
+                "count", count,
+                "timestamp", System.currentTimeMillis()
             )
         );
     }
@@ -107,6 +120,23 @@ public class WebSocketController {
         );
     }
 
+    // Broadcasts go to the shared topic, or to the role's own topic when targeted at one role
+    public void sendSystemAnnouncement(BroadcastNotification broadcast) {
+        String destination = broadcast.getTargetRole() != null
+                ? "/topic/announcements/" + broadcast.getTargetRole().name().toLowerCase()
+                : "/topic/announcements";
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("type", "system_announcement");
+        payload.put("id", broadcast.getId());
+        payload.put("title", broadcast.getTitle());
+        payload.put("message", broadcast.getMessage());
+        payload.put("announcementType", broadcast.getType().name());
+        payload.put("actionUrl", broadcast.getActionUrl());
+        payload.put("role", broadcast.getTargetRole() != null ? broadcast.getTargetRole().name() : null);
+        payload.put("timestamp", System.currentTimeMillis());
+        messagingTemplate.convertAndSend(destination, payload);
+    }
+
     // Method to send course-specific updates
     public void sendCourseUpdate(String courseId, String message, String updateType) {
         messagingTemplate.convertAndSend(
@@ -135,4 +165,21 @@ public class WebSocketController {
             )
         );
     }
+
+    // Method to send the outcome of an upload once its processing has finished
+    public void sendUploadStatus(String userId, UploadJob job) {
+        // Several fields are null until the upload is ready, which Map.of doesn't allow
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("type", "upload_status");
+        message.put("uploadId", job.getId());
+        message.put("kind", job.getKind().toString());
+        message.put("status", job.getStatus().toString());
+        message.put("fileName", job.getFileName());
+        message.put("contentType", job.getContentType());
+        message.put("blobKey", job.getBlobKey());
+        message.put("targetId", job.getTargetId());
+        message.put("error", job.getError());
+        message.put("timestamp", System.currentTimeMillis());
+        messagingTemplate.convertAndSendToUser(userId, "/queue/uploads", message);
+    }
 }
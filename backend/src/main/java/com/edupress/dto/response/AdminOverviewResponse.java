@@ -0,0 +1,174 @@
+package com.edupress.dto.response;
+
+public class AdminOverviewResponse {
+    private long totalUsers;
+    private long totalCourses;
+    private long publishedCourses;
+    private long freeCourses;
+    private long paidCourses;
+    private long totalStudents;
+    private long totalInstructors;
+    private long totalAdmins;
+    private UserStats userStats;
+    private Object enrollmentStats;
+    private NotificationStats notificationStats;
+    private String generatedAt;
+
+    // Constructors
+    public AdminOverviewResponse() {}
+
+    // Getters and setters
+    public long getTotalUsers() {
+        return totalUsers;
+    }
+
+    public void setTotalUsers(long totalUsers) {
+        this.totalUsers = totalUsers;
+    }
+
+    public long getTotalCourses() {
+        return totalCourses;
+    }
+
+    public void setTotalCourses(long totalCourses) {
+        this.totalCourses = totalCourses;
+    }
+
+    public long getPublishedCourses() {
+        return publishedCourses;
+    }
+
+    public void setPublishedCourses(long publishedCourses) {
+        this.publishedCourses = publishedCourses;
+    }
+
+    public long getFreeCourses() {
+        return freeCourses;
+    }
+
+    public void setFreeCourses(long freeCourses) {
+        this.freeCourses = freeCourses;
+    }
+
+    public long getPaidCourses() {
+        return paidCourses;
+    }
+
+    public void setPaidCourses(long paidCourses) {
+        this.paidCourses = paidCourses;
+    }
+
+    public long getTotalStudents() {
+        return totalStudents;
+    }
+
+    public void setTotalStudents(long totalStudents) {
+        this.totalStudents = totalStudents;
+    }
+
+    public long getTotalInstructors() {
+        return totalInstructors;
+    }
+
+    public void setTotalInstructors(long totalInstructors) {
+        this.totalInstructors = totalInstructors;
+    }
+
+    public long getTotalAdmins() {
+        return totalAdmins;
+    }
+
+    public void setTotalAdmins(long totalAdmins) {
+        this.totalAdmins = totalAdmins;
+    }
+
+    public UserStats getUserStats() {
+        return userStats;
+    }
+
+    public void setUserStats(UserStats userStats) {
+        this.userStats = userStats;
+    }
+
+    public Object getEnrollmentStats() {
+        return enrollmentStats;
+    }
+
+    public void setEnrollmentStats(Object enrollmentStats) {
+        this.enrollmentStats = enrollmentStats;
+    }
+
+    public NotificationStats getNotificationStats() {
+        return notificationStats;
+    }
+
+    public void setNotificationStats(NotificationStats notificationStats) {
+        this.notificationStats = notificationStats;
+    }
+
+    public String getGeneratedAt() {
+        return generatedAt;
+    }
+
+    public void setGeneratedAt(String generatedAt) {
+        this.generatedAt = generatedAt;
+    }
+
+    public static class UserStats {
+        private long totalUsers;
+        private long admins;
+        private long instructors;
+        private long students;
+
+        public UserStats() {}
+
+        public UserStats(long totalUsers, long admins, long instructors, long students) {
+            this.totalUsers = totalUsers;
+            this.admins = admins;
+            this.instructors = instructors;
+            this.students = students;
+        }
+
+        public long getTotalUsers() {
+            return totalUsers;
+        }
+
+        public long getAdmins() {
+            return admins;
+        }
+
+        public long getInstructors() {
+            return instructors;
+        }
+
+        public long getStudents() {
+            return students;
+        }
+    }
+
+    public static class NotificationStats {
+        private long totalNotifications;
+        private long unreadNotifications;
+        private long readNotifications;
+
+        public NotificationStats() {}
+
+        public NotificationStats(long totalNotifications, long unreadNotifications, long readNotifications) {
+            this.totalNotifications = totalNotifications;
+            this.unreadNotifications = unreadNotifications;
+            this.readNotifications = readNotifications;
+        }
+
+        public long getTotalNotifications() {
+            return totalNotifications;
+        }
+
+        public long getUnreadNotifications() {
+            return unreadNotifications;
+        }
+
+        public long getReadNotifications() {
+            return readNotifications;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.edupress.dto.response;
+
+import com.edupress.model.BroadcastNotification;
+import com.edupress.model.Notification;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of a user's notification feed: either their own {@link Notification} or a
+ * {@link BroadcastNotification}. The two are numbered separately, so {@code broadcast} tells
+ * which endpoint marks the entry as read.
+ */
+public class NotificationFeedItem {
+    private Long id;
+    private boolean broadcast;
+    private String title;
+    private String message;
+    private Notification.Type type;
+    private String actionUrl;
+    private boolean read;
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public NotificationFeedItem() {}
+
+    public static NotificationFeedItem of(Notification notification) {
+        NotificationFeedItem item = new NotificationFeedItem();
+        item.id = notification.getId();
+        item.title = notification.getTitle();
+        item.message = notification.getMessage();
+        item.type = notification.getType();
+        item.actionUrl = notification.getActionUrl();
+        item.read = Boolean.TRUE.equals(notification.getIsRead());
+        item.createdAt = notification.getCreatedAt();
+        return item;
+    }
+
+    public static NotificationFeedItem of(BroadcastNotification broadcast, boolean read) {
+        NotificationFeedItem item = new NotificationFeedItem();
+        item.id = broadcast.getId();
+        item.broadcast = true;
+        item.title = broadcast.getTitle();
+        item.message = broadcast.getMessage();
+        item.type = broadcast.getType();
+        item.actionUrl = broadcast.getActionUrl();
+        item.read = read;
+        item.createdAt = broadcast.getCreatedAt();
+        return item;
+    }
+
+    // Getters and setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public boolean isBroadcast() {
+        return broadcast;
+    }
+
+    public void setBroadcast(boolean broadcast) {
+        this.broadcast = broadcast;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Notification.Type getType() {
+        return type;
+    }
+
+    public void setType(Notification.Type type) {
+        this.type = type;
+    }
+
+    public String getActionUrl() {
+        return actionUrl;
+    }
+
+    public void setActionUrl(String actionUrl) {
+        this.actionUrl = actionUrl;
+    }
+
+    public boolean isRead() {
+        return read;
+    }
+
+    public void setRead(boolean read) {
+        this.read = read;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
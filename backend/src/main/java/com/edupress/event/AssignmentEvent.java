@@ -0,0 +1,95 @@
+package com.edupress.event;
+
+import com.edupress.model.Assignment;
+import com.edupress.model.AssignmentSubmission;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Published by {@link com.edupress.service.AssignmentService} when a student submits work and
+ * whenever a submission is graded. A regrade carries the score it replaced so listeners can
+ * move the submission between grade bands without reloading it.
+ */
+public class AssignmentEvent {
+
+    public enum Type {
+        SUBMITTED, GRADED
+    }
+
+    private final Type type;
+    private final Long submissionId;
+    private final Long assignmentId;
+    private final Long courseId;
+    private final Long studentId;
+    private final BigDecimal previousScore;
+    private final BigDecimal score;
+    private final BigDecimal maxScore;
+    private final LocalDateTime occurredAt;
+
+    public AssignmentEvent(Type type, Long submissionId, Long assignmentId, Long courseId, Long studentId,
+                           BigDecimal previousScore, BigDecimal score, BigDecimal maxScore) {
+        this.type = type;
+        this.submissionId = submissionId;
+        this.assignmentId = assignmentId;
+        this.courseId = courseId;
+        this.studentId = studentId;
+        this.previousScore = previousScore;
+        this.score = score;
+        this.maxScore = maxScore;
+        this.occurredAt = LocalDateTime.now();
+    }
+
+    public static AssignmentEvent submitted(AssignmentSubmission submission) {
+        return of(Type.SUBMITTED, submission, null);
+    }
+
+    public static AssignmentEvent graded(AssignmentSubmission submission, BigDecimal previousScore) {
+        return of(Type.GRADED, submission, previousScore);
+    }
+
+    private static AssignmentEvent of(Type type, AssignmentSubmission submission, BigDecimal previousScore) {
+        Assignment assignment = submission.getAssignment();
+        Long courseId = assignment.getLesson() != null && assignment.getLesson().getCourse() != null
+                ? assignment.getLesson().getCourse().getId() : null;
+        return new AssignmentEvent(type, submission.getId(), assignment.getId(), courseId,
+                submission.getStudent() != null ? submission.getStudent().getId() : null,
+                previousScore, submission.getScore(), assignment.getMaxScore());
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getSubmissionId() {
+        return submissionId;
+    }
+
+    public Long getAssignmentId() {
+        return assignmentId;
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public Long getStudentId() {
+        return studentId;
+    }
+
+    public BigDecimal getPreviousScore() {
+        return previousScore;
+    }
+
+    public BigDecimal getScore() {
+        return score;
+    }
+
+    public BigDecimal getMaxScore() {
+        return maxScore;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+}
@@ -0,0 +1,90 @@
+package com.edupress.event;
+
+import com.edupress.model.Course;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by {@link com.edupress.service.CourseService} on every course lifecycle change.
+ * Carries the status and pricing before and after the change so listeners can apply deltas
+ * without reloading the course.
+ */
+public class CourseEvent {
+
+    public enum Type {
+        CREATED, UPDATED, PUBLISHED, UNPUBLISHED, DELETED
+    }
+
+    private final Type type;
+    private final Long courseId;
+    private final Long instructorId;
+    private final Course.Status previousStatus;
+    private final Boolean previousFree;
+    private final Course.Status status;
+    private final Boolean free;
+    private final LocalDateTime occurredAt;
+
+    public CourseEvent(Type type, Long courseId, Long instructorId,
+                       Course.Status previousStatus, Boolean previousFree,
+                       Course.Status status, Boolean free) {
+        this.type = type;
+        this.courseId = courseId;
+        this.instructorId = instructorId;
+        this.previousStatus = previousStatus;
+        this.previousFree = previousFree;
+        this.status = status;
+        this.free = free;
+        this.occurredAt = LocalDateTime.now();
+    }
+
+    public static CourseEvent created(Course course) {
+        return new CourseEvent(Type.CREATED, course.getId(), instructorIdOf(course),
+                null, null, course.getStatus(), course.getIsFree());
+    }
+
+    public static CourseEvent changed(Type type, Course course, Course.Status previousStatus, Boolean previousFree) {
+        return new CourseEvent(type, course.getId(), instructorIdOf(course),
+                previousStatus, previousFree, course.getStatus(), course.getIsFree());
+    }
+
+    public static CourseEvent deleted(Course course) {
+        return new CourseEvent(Type.DELETED, course.getId(), instructorIdOf(course),
+                course.getStatus(), course.getIsFree(), null, null);
+    }
+
+    private static Long instructorIdOf(Course course) {
+        return course.getInstructor() != null ? course.getInstructor().getId() : null;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public Long getInstructorId() {
+        return instructorId;
+    }
+
+    public Course.Status getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public Boolean getPreviousFree() {
+        return previousFree;
+    }
+
+    public Course.Status getStatus() {
+        return status;
+    }
+
+    public Boolean getFree() {
+        return free;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+}
@@ -0,0 +1,64 @@
+package com.edupress.event;
+
+import com.edupress.model.Course;
+import com.edupress.model.User;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published whenever a student is added to or removed from a course's enrollment list.
+ * Enrollments live only in the {@code user_course_enrollments} join table, so this event is
+ * the only record of when they happened.
+ */
+public class EnrollmentEvent {
+
+    public enum Type {
+        ENROLLED, UNENROLLED
+    }
+
+    private final Type type;
+    private final Long userId;
+    private final Long courseId;
+    private final Long instructorId;
+    private final LocalDateTime occurredAt;
+
+    public EnrollmentEvent(Type type, Long userId, Long courseId, Long instructorId) {
+        this.type = type;
+        this.userId = userId;
+        this.courseId = courseId;
+        this.instructorId = instructorId;
+        this.occurredAt = LocalDateTime.now();
+    }
+
+    public static EnrollmentEvent enrolled(User user, Course course) {
+        return new EnrollmentEvent(Type.ENROLLED, user.getId(), course.getId(), instructorIdOf(course));
+    }
+
+    public static EnrollmentEvent unenrolled(User user, Course course) {
+        return new EnrollmentEvent(Type.UNENROLLED, user.getId(), course.getId(), instructorIdOf(course));
+    }
+
+    private static Long instructorIdOf(Course course) {
+        return course.getInstructor() != null ? course.getInstructor().getId() : null;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public Long getInstructorId() {
+        return instructorId;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+}
@@ -0,0 +1,38 @@
+package com.edupress.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by {@link com.edupress.service.LessonService} when a student marks a lesson as
+ * completed.
+ */
+public class LessonCompletedEvent {
+
+    private final Long lessonId;
+    private final Long courseId;
+    private final Long userId;
+    private final LocalDateTime occurredAt;
+
+    public LessonCompletedEvent(Long lessonId, Long courseId, Long userId) {
+        this.lessonId = lessonId;
+        this.courseId = courseId;
+        this.userId = userId;
+        this.occurredAt = LocalDateTime.now();
+    }
+
+    public Long getLessonId() {
+        return lessonId;
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+}
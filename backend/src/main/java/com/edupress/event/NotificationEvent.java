@@ -0,0 +1,56 @@
+package com.edupress.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by {@link com.edupress.service.NotificationService}. {@code count} is the number
+ * of notifications affected, which is greater than one for bulk operations such as
+ * mark-all-read. {@link Type#PURGED} is used when rows were removed in bulk without knowing
+ * their read state.
+ */
+public class NotificationEvent {
+
+    public enum Type {
+        CREATED, READ, ALL_READ, DELETED, PURGED
+    }
+
+    private final Type type;
+    private final Long userId;
+    private final Long notificationId;
+    private final long count;
+    private final boolean wasRead;
+    private final LocalDateTime occurredAt;
+
+    public NotificationEvent(Type type, Long userId, Long notificationId, long count, boolean wasRead) {
+        this.type = type;
+        this.userId = userId;
+        this.notificationId = notificationId;
+        this.count = count;
+        this.wasRead = wasRead;
+        this.occurredAt = LocalDateTime.now();
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getNotificationId() {
+        return notificationId;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public boolean isWasRead() {
+        return wasRead;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+}
@@ -0,0 +1,86 @@
+package com.edupress.event;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Published by {@link com.edupress.service.PaymentService} (Stripe) and
+ * {@link com.edupress.service.PaymeService} whenever a payment record is created or changes
+ * state. States are the provider's own enum names ({@code Payment.PaymentStatus} or
+ * {@code PaymeTransaction.TransactionState}); {@code previousState} is null for new records.
+ */
+public class PaymentEvent {
+
+    public enum Provider {
+        STRIPE, PAYME
+    }
+
+    private final Provider provider;
+    private final Long paymentId;
+    private final Long userId;
+    private final Long courseId;
+    private final Long instructorId;
+    private final BigDecimal amount;
+    private final String currency;
+    private final String previousState;
+    private final String state;
+    private final LocalDateTime occurredAt;
+
+    public PaymentEvent(Provider provider, Long paymentId, Long userId, Long courseId, Long instructorId,
+                        BigDecimal amount, String currency, String previousState, String state) {
+        this.provider = provider;
+        this.paymentId = paymentId;
+        this.userId = userId;
+        this.courseId = courseId;
+        this.instructorId = instructorId;
+        this.amount = amount;
+        this.currency = currency;
+        this.previousState = previousState;
+        this.state = state;
+        this.occurredAt = LocalDateTime.now();
+    }
+
+    public boolean isStateChange() {
+        return previousState == null || !previousState.equals(state);
+    }
+
+    public Provider getProvider() {
+        return provider;
+    }
+
+    public Long getPaymentId() {
+        return paymentId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public Long getInstructorId() {
+        return instructorId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public String getPreviousState() {
+        return previousState;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+}
@@ -0,0 +1,77 @@
+package com.edupress.event;
+
+import com.edupress.model.Quiz;
+import com.edupress.model.QuizAttempt;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by {@link com.edupress.service.QuizService} when a student submits a quiz attempt
+ * and it has been scored.
+ */
+public class QuizAttemptEvent {
+
+    private final Long attemptId;
+    private final Long quizId;
+    private final Long courseId;
+    private final Long userId;
+    private final int score;
+    private final int maxScore;
+    private final boolean passed;
+    private final LocalDateTime occurredAt;
+
+    public QuizAttemptEvent(Long attemptId, Long quizId, Long courseId, Long userId,
+                            int score, int maxScore, boolean passed) {
+        this.attemptId = attemptId;
+        this.quizId = quizId;
+        this.courseId = courseId;
+        this.userId = userId;
+        this.score = score;
+        this.maxScore = maxScore;
+        this.passed = passed;
+        this.occurredAt = LocalDateTime.now();
+    }
+
+    public static QuizAttemptEvent scored(QuizAttempt attempt) {
+        Quiz quiz = attempt.getQuiz();
+        Long courseId = quiz.getLesson() != null && quiz.getLesson().getCourse() != null
+                ? quiz.getLesson().getCourse().getId() : null;
+        int score = attempt.getScore() != null ? attempt.getScore() : 0;
+        boolean passed = quiz.getPassingScore() != null && score >= quiz.getPassingScore();
+        return new QuizAttemptEvent(attempt.getId(), quiz.getId(), courseId,
+                attempt.getUser() != null ? attempt.getUser().getId() : null,
+                score, quiz.getMaxScore() != null ? quiz.getMaxScore() : 0, passed);
+    }
+
+    public Long getAttemptId() {
+        return attemptId;
+    }
+
+    public Long getQuizId() {
+        return quizId;
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getMaxScore() {
+        return maxScore;
+    }
+
+    public boolean isPassed() {
+        return passed;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+}
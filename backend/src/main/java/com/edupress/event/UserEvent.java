@@ -0,0 +1,62 @@
+package com.edupress.event;
+
+import com.edupress.model.User;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by {@link com.edupress.service.UserService} whenever a user is created, deleted
+ * or moved to another role.
+ */
+public class UserEvent {
+
+    public enum Type {
+        CREATED, ROLE_CHANGED, DELETED
+    }
+
+    private final Type type;
+    private final Long userId;
+    private final User.Role role;
+    private final User.Role previousRole;
+    private final LocalDateTime occurredAt;
+
+    public UserEvent(Type type, Long userId, User.Role role, User.Role previousRole) {
+        this.type = type;
+        this.userId = userId;
+        this.role = role;
+        this.previousRole = previousRole;
+        this.occurredAt = LocalDateTime.now();
+    }
+
+    public static UserEvent created(User user) {
+        return new UserEvent(Type.CREATED, user.getId(), user.getRole(), null);
+    }
+
+    public static UserEvent roleChanged(User user, User.Role previousRole) {
+        return new UserEvent(Type.ROLE_CHANGED, user.getId(), user.getRole(), previousRole);
+    }
+
+    public static UserEvent deleted(User user) {
+        return new UserEvent(Type.DELETED, user.getId(), null, user.getRole());
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public User.Role getRole() {
+        return role;
+    }
+
+    public User.Role getPreviousRole() {
+        return previousRole;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+}
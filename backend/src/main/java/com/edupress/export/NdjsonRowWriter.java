@@ -0,0 +1,76 @@
+package com.edupress.export;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+
+/**
+ * Newline-delimited JSON: one object per row, keyed by column name. Written with Jackson's
+ * streaming generator so no row is ever materialized as a tree.
+ */
+public class NdjsonRowWriter implements RowWriter {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final JsonGenerator generator;
+    private final String[] columns;
+    private long rowCount;
+
+    public NdjsonRowWriter(OutputStream out, String[] columns) {
+        this.columns = columns;
+        try {
+            this.generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+    }
+
+    @Override
+    public void write(Object[] row) throws IOException {
+        generator.writeStartObject();
+        for (int i = 0; i < columns.length; i++) {
+            generator.writeFieldName(columns[i]);
+            writeValue(i < row.length ? row[i] : null);
+        }
+        generator.writeEndObject();
+        rowCount++;
+    }
+
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (rowCount > 0) {
+            generator.writeRaw('\n');
+        }
+        generator.close();
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof Boolean b) {
+            generator.writeBoolean(b);
+        } else if (value instanceof BigDecimal d) {
+            generator.writeNumber(d);
+        } else if (value instanceof Double || value instanceof Float) {
+            generator.writeNumber(((Number) value).doubleValue());
+        } else if (value instanceof Number n) {
+            generator.writeNumber(n.longValue());
+        } else if (value instanceof Enum<?> e) {
+            generator.writeString(e.name());
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+}
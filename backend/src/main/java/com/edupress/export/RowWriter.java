@@ -0,0 +1,15 @@
+package com.edupress.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes export rows one at a time. Implementations buffer a small, fixed amount of output and
+ * never hold on to rows, so memory use doesn't depend on how many rows are written.
+ */
+public interface RowWriter extends Closeable {
+
+    void write(Object[] row) throws IOException;
+
+    long getRowCount();
+}
@@ -0,0 +1,36 @@
+package com.edupress.media;
+
+/**
+ * The fixed set of resized copies kept for every uploaded image. Requests for an arbitrary
+ * width are served from the smallest variant at least that wide, so the cache stays bounded at
+ * three files per image no matter what widths clients ask for.
+ */
+public enum ImageVariant {
+    THUMB(160),
+    CARD(480),
+    HERO(1280);
+
+    private final int width;
+
+    ImageVariant(int width) {
+        this.width = width;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public String fileName() {
+        return name().toLowerCase();
+    }
+
+    /** Smallest variant at least {@code requestedWidth} wide, or the largest one. */
+    public static ImageVariant forWidth(int requestedWidth) {
+        for (ImageVariant variant : values()) {
+            if (variant.width >= requestedWidth) {
+                return variant;
+            }
+        }
+        return HERO;
+    }
+}
@@ -0,0 +1,123 @@
+package com.edupress.media;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Media type of a file from its leading bytes, for checking an upload against its extension
+ * instead of trusting the {@code Content-Type} the client sent. Only formats uploads are allowed
+ * to have are recognised; plain-text formats have no signature and are never rejected.
+ */
+public final class MimeSniffer {
+
+    private static final int HEADER_BYTES = 16;
+
+    // Container formats several extensions share map to one sniffed type
+    private static final Map<String, String> EXPECTED_TYPES = Map.ofEntries(
+            Map.entry("jpg", "image/jpeg"),
+            Map.entry("jpeg", "image/jpeg"),
+            Map.entry("png", "image/png"),
+            Map.entry("gif", "image/gif"),
+            Map.entry("webp", "image/webp"),
+            Map.entry("bmp", "image/bmp"),
+            Map.entry("pdf", "application/pdf"),
+            Map.entry("doc", "application/x-ole-storage"),
+            Map.entry("xls", "application/x-ole-storage"),
+            Map.entry("ppt", "application/x-ole-storage"),
+            Map.entry("docx", "application/zip"),
+            Map.entry("xlsx", "application/zip"),
+            Map.entry("pptx", "application/zip"),
+            Map.entry("zip", "application/zip"),
+            Map.entry("mp4", "video/mp4"),
+            Map.entry("m4v", "video/mp4"),
+            Map.entry("mov", "video/mp4"),
+            Map.entry("webm", "video/webm"),
+            Map.entry("mkv", "video/webm"),
+            Map.entry("avi", "video/x-msvideo"),
+            Map.entry("wmv", "video/x-ms-asf"),
+            Map.entry("flv", "video/x-flv"));
+
+    private MimeSniffer() {
+    }
+
+    /** Type of the file, or null when its first bytes match no known signature. */
+    public static String sniff(Path file) throws IOException {
+        byte[] header;
+        try (InputStream in = Files.newInputStream(file)) {
+            header = in.readNBytes(HEADER_BYTES);
+        }
+        return sniff(header);
+    }
+
+    static String sniff(byte[] h) {
+        if (startsWith(h, 0, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(h, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return "image/png";
+        }
+        if (startsWith(h, 0, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        }
+        if (startsWith(h, 0, 'B', 'M')) {
+            return "image/bmp";
+        }
+        if (startsWith(h, 0, 'R', 'I', 'F', 'F')) {
+            if (startsWith(h, 8, 'W', 'E', 'B', 'P')) {
+                return "image/webp";
+            }
+            if (startsWith(h, 8, 'A', 'V', 'I', ' ')) {
+                return "video/x-msvideo";
+            }
+        }
+        if (startsWith(h, 0, '%', 'P', 'D', 'F', '-')) {
+            return "application/pdf";
+        }
+        if (startsWith(h, 0, 0xD0, 0xCF, 0x11, 0xE0, 0xA1, 0xB1, 0x1A, 0xE1)) {
+            return "application/x-ole-storage";
+        }
+        if (startsWith(h, 0, 'P', 'K', 0x03, 0x04)) {
+            return "application/zip";
+        }
+        // ISO media (MP4, M4V, QuickTime) starts with an ftyp box
+        if (startsWith(h, 4, 'f', 't', 'y', 'p')) {
+            return "video/mp4";
+        }
+        // EBML header of Matroska and WebM
+        if (startsWith(h, 0, 0x1A, 0x45, 0xDF, 0xA3)) {
+            return "video/webm";
+        }
+        if (startsWith(h, 0, 0x30, 0x26, 0xB2, 0x75, 0x8E, 0x66, 0xCF, 0x11)) {
+            return "video/x-ms-asf";
+        }
+        if (startsWith(h, 0, 'F', 'L', 'V', 0x01)) {
+            return "video/x-flv";
+        }
+        return null;
+    }
+
+    /**
+     * Whether a file sniffed as {@code sniffedType} may carry {@code extension}: the types must
+     * agree for formats with a signature, anything goes for the rest.
+     */
+    public static boolean matchesExtension(String sniffedType, String extension) {
+        String expected = EXPECTED_TYPES.get(extension.toLowerCase(Locale.ROOT));
+        return expected == null || expected.equals(sniffedType);
+    }
+
+    private static boolean startsWith(byte[] header, int offset, int... signature) {
+        if (header.length < offset + signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((header[offset + i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,156 @@
+package com.edupress.media;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rewrites an MP4 whose {@code moov} atom follows the media data into fast-start order, with
+ * {@code moov} moved in front of the first {@code mdat}. A browser can then start playback and
+ * seek from the first bytes it fetches instead of requesting the file's tail first.
+ * <p>
+ * Moving {@code moov} shifts the media data behind it, so every chunk offset in the {@code stco}
+ * and {@code co64} tables is adjusted by the distance its containing box moved. Media bytes are
+ * copied with {@link FileChannel#transferTo} and never pass through the heap.
+ */
+public final class Mp4FastStart {
+
+    private static final long MAX_32_BIT_OFFSET = 0xffffffffL;
+
+    private Mp4FastStart() {
+    }
+
+    /**
+     * Writes the fast-start form of {@code source} to {@code target}. Returns false, leaving
+     * {@code target} untouched, when the file is already fast-start or isn't ISO base media.
+     */
+    public static boolean rewrite(Path source, Path target) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            List<Mp4Parser.Box> boxes = Mp4Parser.topLevelBoxes(in);
+            Mp4Parser.Box moov = Mp4Parser.find(boxes, "moov");
+            Mp4Parser.Box mdat = Mp4Parser.find(boxes, "mdat");
+            if (moov == null || mdat == null || moov.offset < mdat.offset) {
+                return false;
+            }
+            Mp4Parser.Box last = boxes.get(boxes.size() - 1);
+            if (last.offset + last.size != in.size()) {
+                // Trailing bytes that aren't a whole box would be lost in the rewrite
+                return false;
+            }
+
+            // New order: everything ahead of the first mdat, then moov, then the rest as it was
+            List<Mp4Parser.Box> order = new ArrayList<>();
+            for (Mp4Parser.Box box : boxes) {
+                if (box.offset < mdat.offset && box != moov) {
+                    order.add(box);
+                }
+            }
+            order.add(moov);
+            for (Mp4Parser.Box box : boxes) {
+                if (box.offset >= mdat.offset && box != moov) {
+                    order.add(box);
+                }
+            }
+            long[] shift = new long[boxes.size()];
+            long position = 0;
+            for (Mp4Parser.Box box : order) {
+                shift[boxes.indexOf(box)] = position - box.offset;
+                position += box.size;
+            }
+
+            ByteBuffer moovData = Mp4Parser.read(in, moov);
+            patchChunkOffsets(moovData, moov.headerSize, moovData.limit(), boxes, shift);
+
+            try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                for (Mp4Parser.Box box : order) {
+                    if (box == moov) {
+                        while (moovData.hasRemaining()) {
+                            out.write(moovData);
+                        }
+                    } else {
+                        copy(in, box.offset, box.size, out);
+                    }
+                }
+                out.force(true);
+            }
+            return true;
+        }
+    }
+
+    private static void patchChunkOffsets(ByteBuffer buffer, int start, int end,
+                                          List<Mp4Parser.Box> boxes, long[] shift) throws IOException {
+        int position = start;
+        while (position + 8 <= end) {
+            long size = buffer.getInt(position) & 0xffffffffL;
+            String type = Mp4Parser.fourcc(buffer, position + 4);
+            int headerSize = 8;
+            if (size == 1) {
+                size = buffer.getLong(position + 8);
+                headerSize = 16;
+            } else if (size == 0) {
+                size = end - position;
+            }
+            if (type == null || size < headerSize || position + size > end) {
+                throw new IOException("Malformed box inside moov at " + position);
+            }
+            int content = position + headerSize;
+            switch (type) {
+                case "trak", "mdia", "minf", "stbl" ->
+                        patchChunkOffsets(buffer, content, (int) (position + size), boxes, shift);
+                case "stco" -> {
+                    int entries = buffer.getInt(content + 4);
+                    for (int i = 0; i < entries; i++) {
+                        int index = content + 8 + i * 4;
+                        long offset = buffer.getInt(index) & 0xffffffffL;
+                        long moved = offset + shiftAt(offset, boxes, shift);
+                        if (moved > MAX_32_BIT_OFFSET) {
+                            throw new IOException("Chunk offset " + moved + " doesn't fit a 32-bit stco table");
+                        }
+                        buffer.putInt(index, (int) moved);
+                    }
+                }
+                case "co64" -> {
+                    int entries = buffer.getInt(content + 4);
+                    for (int i = 0; i < entries; i++) {
+                        int index = content + 8 + i * 8;
+                        long offset = buffer.getLong(index);
+                        buffer.putLong(index, offset + shiftAt(offset, boxes, shift));
+                    }
+                }
+                default -> {
+                }
+            }
+            position += (int) size;
+        }
+    }
+
+    // How far the top-level box holding this file offset moves
+    private static long shiftAt(long offset, List<Mp4Parser.Box> boxes, long[] shift) throws IOException {
+        for (int i = 0; i < boxes.size(); i++) {
+            Mp4Parser.Box box = boxes.get(i);
+            if (offset >= box.offset && offset < box.offset + box.size) {
+                return shift[i];
+            }
+        }
+        throw new IOException("Chunk offset " + offset + " points outside the file");
+    }
+
+    private static void copy(FileChannel in, long offset, long length, FileChannel out) throws IOException {
+        long position = offset;
+        long remaining = length;
+        while (remaining > 0) {
+            long transferred = in.transferTo(position, remaining, out);
+            if (transferred <= 0) {
+                throw new EOFException("Unexpected end of file at " + position);
+            }
+            position += transferred;
+            remaining -= transferred;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.edupress.media;
+
+/**
+ * What {@link Mp4Parser} learned from a file's {@code moov} atom. Dimensions and codecs are null
+ * when the file has no track of that kind.
+ */
+public class Mp4Info {
+
+    double durationSeconds;
+    Integer width;
+    Integer height;
+    String videoCodec;
+    String audioCodec;
+    Long bitrate;
+    boolean fastStart;
+
+    public double getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public Integer getWidth() {
+        return width;
+    }
+
+    public Integer getHeight() {
+        return height;
+    }
+
+    /** Sample entry type of the first video track, e.g. {@code avc1} or {@code hvc1}. */
+    public String getVideoCodec() {
+        return videoCodec;
+    }
+
+    /** Sample entry type of the first audio track, e.g. {@code mp4a}. */
+    public String getAudioCodec() {
+        return audioCodec;
+    }
+
+    /** Average bitrate of the media data in bits per second, or null when the duration is unknown. */
+    public Long getBitrate() {
+        return bitrate;
+    }
+
+    /** Whether {@code moov} precedes the media data, so playback can start before the tail is fetched. */
+    public boolean isFastStart() {
+        return fastStart;
+    }
+}
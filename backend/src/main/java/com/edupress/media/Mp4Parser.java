@@ -0,0 +1,225 @@
+package com.edupress.media;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads duration, dimensions, codecs and bitrate from an MP4 / ISO base media file (also
+ * {@code .mov} and {@code .m4v}) without decoding anything. Only box headers are read to find the
+ * top-level layout, then the {@code moov} atom alone, all with positional reads, so a multi-GB
+ * upload costs a few small reads plus one read of a box that is typically well under a megabyte.
+ */
+public final class Mp4Parser {
+
+    /** Larger {@code moov} atoms are rejected rather than read into memory. */
+    static final int MAX_MOOV_BYTES = 64 * 1024 * 1024;
+
+    private Mp4Parser() {
+    }
+
+    /** Metadata of {@code file}, or null when it isn't an ISO base media file or has no {@code moov}. */
+    public static Mp4Info parse(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return parse(channel);
+        }
+    }
+
+    public static Mp4Info parse(FileChannel channel) throws IOException {
+        List<Box> boxes = topLevelBoxes(channel);
+        Box moov = find(boxes, "moov");
+        if (moov == null) {
+            return null;
+        }
+        Box mdat = find(boxes, "mdat");
+        ByteBuffer buffer = read(channel, moov);
+
+        Mp4Info info = new Mp4Info();
+        try {
+            parseChildren(buffer, moov.headerSize, buffer.limit(), info, null);
+        } catch (IndexOutOfBoundsException e) {
+            // A box claiming more bytes than its parent holds: treat the file as unreadable
+            return null;
+        }
+        info.fastStart = mdat == null || moov.offset < mdat.offset;
+        if (info.durationSeconds > 0) {
+            long mediaBytes = 0;
+            for (Box box : boxes) {
+                if (box.type.equals("mdat")) {
+                    mediaBytes += box.size - box.headerSize;
+                }
+            }
+            info.bitrate = Math.round(mediaBytes * 8 / info.durationSeconds);
+        }
+        return info;
+    }
+
+    /**
+     * Headers of the top-level boxes in file order; empty when the file doesn't look like ISO base
+     * media. A trailing box cut short by a truncated file ends the list.
+     */
+    static List<Box> topLevelBoxes(FileChannel channel) throws IOException {
+        List<Box> boxes = new ArrayList<>();
+        long fileSize = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(16);
+        long position = 0;
+        while (position + 8 <= fileSize) {
+            header.clear().limit(8);
+            readFully(channel, header, position);
+            long size = header.getInt(0) & 0xffffffffL;
+            String type = fourcc(header, 4);
+            int headerSize = 8;
+            if (size == 1) {
+                header.clear().limit(8);
+                readFully(channel, header, position + 8);
+                size = header.getLong(0);
+                headerSize = 16;
+            } else if (size == 0) {
+                size = fileSize - position;
+            }
+            if (type == null || size < headerSize) {
+                return boxes.isEmpty() || find(boxes, "ftyp") == null ? new ArrayList<>() : boxes;
+            }
+            if (position + size > fileSize) {
+                break;
+            }
+            boxes.add(new Box(type, position, size, headerSize));
+            position += size;
+        }
+        return boxes;
+    }
+
+    static Box find(List<Box> boxes, String type) {
+        for (Box box : boxes) {
+            if (box.type.equals(type)) {
+                return box;
+            }
+        }
+        return null;
+    }
+
+    /** The whole box, header included. */
+    static ByteBuffer read(FileChannel channel, Box box) throws IOException {
+        if (box.size > MAX_MOOV_BYTES) {
+            throw new IOException("'" + box.type + "' box of " + box.size + " bytes is too large to read");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) box.size);
+        readFully(channel, buffer, box.offset);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long at = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, at);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of file at " + at);
+            }
+            at += read;
+        }
+    }
+
+    private static void parseChildren(ByteBuffer buffer, int start, int end, Mp4Info info, Track track) {
+        int position = start;
+        while (position + 8 <= end) {
+            long size = buffer.getInt(position) & 0xffffffffL;
+            String type = fourcc(buffer, position + 4);
+            int headerSize = 8;
+            if (size == 1) {
+                size = buffer.getLong(position + 8);
+                headerSize = 16;
+            } else if (size == 0) {
+                size = end - position;
+            }
+            if (type == null || size < headerSize || position + size > end) {
+                return;
+            }
+            int content = position + headerSize;
+            int boxEnd = (int) (position + size);
+            switch (type) {
+                case "mvhd" -> {
+                    boolean wide = buffer.get(content) == 1;
+                    long timescale = buffer.getInt(content + (wide ? 20 : 12)) & 0xffffffffL;
+                    long duration = wide ? buffer.getLong(content + 24) : buffer.getInt(content + 16) & 0xffffffffL;
+                    if (timescale > 0 && duration > 0 && duration != -1L) {
+                        info.durationSeconds = (double) duration / timescale;
+                    }
+                }
+                case "trak" -> {
+                    Track child = new Track();
+                    parseChildren(buffer, content, boxEnd, info, child);
+                    if ("vide".equals(child.handler) && info.videoCodec == null) {
+                        info.videoCodec = child.codec;
+                        info.width = child.width;
+                        info.height = child.height;
+                    } else if ("soun".equals(child.handler) && info.audioCodec == null) {
+                        info.audioCodec = child.codec;
+                    }
+                }
+                case "mdia", "minf", "stbl" -> parseChildren(buffer, content, boxEnd, info, track);
+                case "tkhd" -> {
+                    if (track != null) {
+                        // Fixed-point 16.16 width and height close the box
+                        int dimensions = content + (buffer.get(content) == 1 ? 88 : 76);
+                        track.width = buffer.getInt(dimensions) >>> 16;
+                        track.height = buffer.getInt(dimensions + 4) >>> 16;
+                    }
+                }
+                case "hdlr" -> {
+                    if (track != null) {
+                        track.handler = fourcc(buffer, content + 8);
+                    }
+                }
+                case "stsd" -> {
+                    if (track != null && buffer.getInt(content + 4) > 0) {
+                        track.codec = fourcc(buffer, content + 12);
+                    }
+                }
+                default -> {
+                }
+            }
+            position = boxEnd;
+        }
+    }
+
+    /** The four-character code at {@code index}, or null when it isn't printable ASCII. */
+    static String fourcc(ByteBuffer buffer, int index) {
+        byte[] code = new byte[4];
+        for (int i = 0; i < 4; i++) {
+            code[i] = buffer.get(index + i);
+            if (code[i] < 0x20 || code[i] > 0x7e) {
+                return null;
+            }
+        }
+        return new String(code, StandardCharsets.US_ASCII);
+    }
+
+    /** A box header: its type, where it starts, its total size and the size of the header itself. */
+    static final class Box {
+        final String type;
+        final long offset;
+        final long size;
+        final int headerSize;
+
+        Box(String type, long offset, long size, int headerSize) {
+            this.type = type;
+            this.offset = offset;
+            this.size = size;
+            this.headerSize = headerSize;
+        }
+    }
+
+    private static final class Track {
+        private String handler;
+        private String codec;
+        private Integer width;
+        private Integer height;
+    }
+}
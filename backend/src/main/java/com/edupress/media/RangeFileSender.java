@@ -0,0 +1,313 @@
+package com.edupress.media;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Serves a file over HTTP with byte-range, conditional-request and caching support, so a player
+ * seeking through a video only fetches the bytes it needs and a revisit can be answered with
+ * 304 instead of the whole file.
+ * <p>
+ * Bodies are never copied through a user-space buffer of ours. When the servlet container is
+ * Tomcat with sendfile enabled (the default NIO connector), a single range is handed to the
+ * connector, which sends it with {@code sendfile(2)} from its poller and releases the request
+ * thread immediately. Otherwise bytes go through {@link FileChannel#transferTo} into the
+ * response channel.
+ * <p>
+ * With a {@link SegmentCache}, a single range whose segments are hot is written from cached
+ * buffers instead; ranges over cold segments still take the sendfile path.
+ */
+public final class RangeFileSender {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Same cut-off as Tomcat's DefaultServlet: below this a plain write is cheaper
+    private static final long SENDFILE_THRESHOLD = 48 * 1024;
+
+    private static final Map<String, String> MEDIA_TYPES = Map.of(
+            "mp4", "video/mp4",
+            "m4v", "video/mp4",
+            "webm", "video/webm",
+            "ogv", "video/ogg",
+            "mov", "video/quicktime",
+            "mkv", "video/x-matroska",
+            "avi", "video/x-msvideo",
+            "m3u8", "application/vnd.apple.mpegurl",
+            "ts", "video/mp2t");
+
+    private RangeFileSender() {
+    }
+
+    /**
+     * Answers {@code request} with {@code file}: 200, 206 (single range or
+     * {@code multipart/byteranges}), 304 or 416. Headers the caller has already set, such as
+     * {@code Content-Disposition}, are kept.
+     *
+     * @throws IOException when the file can't be read or the client goes away mid-transfer
+     */
+    public static void send(HttpServletRequest request, HttpServletResponse response, Path file,
+                            String cacheControl) throws IOException {
+        send(request, response, file, cacheControl, null);
+    }
+
+    /** As {@link #send(HttpServletRequest, HttpServletResponse, Path, String)}, serving hot segments from {@code cache}. */
+    public static void send(HttpServletRequest request, HttpServletResponse response, Path file,
+                            String cacheControl, SegmentCache cache) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis() / 1000 * 1000;
+        String etag = etag(length, attributes.lastModifiedTime().toMillis());
+        String contentType = contentType(file);
+
+        response.setHeader("Accept-Ranges", "bytes");
+        response.setHeader("ETag", etag);
+        response.setDateHeader("Last-Modified", lastModified);
+        if (cacheControl != null) {
+            response.setHeader("Cache-Control", cacheControl);
+        }
+
+        if (notModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        List<ByteRange> ranges = rangeApplies(request, etag, lastModified)
+                ? ByteRange.parse(request.getHeader("Range"), length)
+                : null;
+        boolean head = "HEAD".equalsIgnoreCase(request.getMethod());
+
+        if (ranges != null && ranges.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader("Content-Range", "bytes */" + length);
+            return;
+        }
+
+        if (ranges == null) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(contentType);
+            response.setContentLengthLong(length);
+            if (!head && length > 0) {
+                sendSingle(request, response, file, etag, length, new ByteRange(0, length - 1), cache);
+            }
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        if (ranges.size() == 1) {
+            ByteRange range = ranges.get(0);
+            response.setContentType(contentType);
+            response.setHeader("Content-Range", range.toContentRange(length));
+            response.setContentLengthLong(range.getLength());
+            if (!head) {
+                sendSingle(request, response, file, etag, length, range, cache);
+            }
+            return;
+        }
+
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+        byte[][] partHeaders = new byte[ranges.size()][];
+        long total = 0;
+        for (int i = 0; i < ranges.size(); i++) {
+            ByteRange range = ranges.get(i);
+            partHeaders[i] = ("\r\n--" + boundary + "\r\nContent-Type: " + contentType
+                    + "\r\nContent-Range: " + range.toContentRange(length) + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            total += partHeaders[i].length + range.getLength();
+        }
+        byte[] trailer = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        total += trailer.length;
+
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(total);
+        if (head) {
+            return;
+        }
+        ServletOutputStream out = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (int i = 0; i < ranges.size(); i++) {
+                out.write(partHeaders[i]);
+                transfer(channel, ranges.get(i), target);
+            }
+        }
+        out.write(trailer);
+        out.flush();
+    }
+
+    private static void sendSingle(HttpServletRequest request, HttpServletResponse response, Path file,
+                                   String etag, long length, ByteRange range, SegmentCache cache) throws IOException {
+        if (cache != null && cache.isEnabled()) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                // The ETag changes with the contents, so stale segments are simply never asked for again
+                if (sendCached(response, cache, file.toAbsolutePath() + "@" + etag, channel, length, range)) {
+                    return;
+                }
+            }
+        }
+        if (range.getLength() >= SENDFILE_THRESHOLD && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toRealPath().toString());
+            request.setAttribute(SENDFILE_START, range.getStart());
+            request.setAttribute(SENDFILE_END, range.getEnd() + 1);
+            return;
+        }
+        ServletOutputStream out = response.getOutputStream();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            transfer(channel, range, Channels.newChannel(out));
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the range segment by segment, from the cache where it holds them and from the file
+     * elsewhere. Returns false without writing anything when the first segment isn't cached, so
+     * the caller can use sendfile for cold data.
+     */
+    private static boolean sendCached(HttpServletResponse response, SegmentCache cache, String fileId,
+                                      FileChannel channel, long length, ByteRange range) throws IOException {
+        long segmentSize = cache.getSegmentSize();
+        long position = range.getStart();
+        long end = range.getEnd() + 1;
+        SegmentCache.Segment segment = cache.acquire(fileId, position / segmentSize, channel, length);
+        if (segment == null) {
+            return false;
+        }
+        ServletOutputStream out = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        while (true) {
+            long segmentStart = position / segmentSize * segmentSize;
+            long segmentEnd = Math.min(segmentStart + segmentSize, end);
+            if (segment != null) {
+                try {
+                    ByteBuffer bytes = segment.slice((int) (position - segmentStart), (int) (segmentEnd - segmentStart));
+                    while (bytes.hasRemaining()) {
+                        target.write(bytes);
+                    }
+                } finally {
+                    segment.release();
+                }
+            } else {
+                transfer(channel, new ByteRange(position, segmentEnd - 1), target);
+            }
+            position = segmentEnd;
+            if (position >= end) {
+                break;
+            }
+            segment = cache.acquire(fileId, position / segmentSize, channel, length);
+        }
+        out.flush();
+        return true;
+    }
+
+    private static void transfer(FileChannel channel, ByteRange range, WritableByteChannel target) throws IOException {
+        long position = range.getStart();
+        long remaining = range.getLength();
+        while (remaining > 0) {
+            long sent = channel.transferTo(position, remaining, target);
+            if (sent <= 0) {
+                throw new EOFException("File shrank while it was being sent");
+            }
+            position += sent;
+            remaining -= sent;
+        }
+    }
+
+    // Validators
+
+    /** Strong validator from size and modification time, the same inputs Last-Modified uses. */
+    public static String etag(long length, long lastModifiedMillis) {
+        return "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModifiedMillis) + "\"";
+    }
+
+    private static boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        String method = request.getMethod();
+        if (!"GET".equalsIgnoreCase(method) && !"HEAD".equalsIgnoreCase(method)) {
+            return false;
+        }
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            // If-None-Match takes precedence and uses weak comparison
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || stripWeak(tag).equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long since = dateHeader(request, "If-Modified-Since");
+        return since >= 0 && lastModified <= since;
+    }
+
+    private static boolean rangeApplies(HttpServletRequest request, String etag, long lastModified) {
+        if (!"GET".equalsIgnoreCase(request.getMethod()) && !"HEAD".equalsIgnoreCase(request.getMethod())) {
+            return false;
+        }
+        String ifRange = request.getHeader("If-Range");
+        if (ifRange == null) {
+            return true;
+        }
+        String value = ifRange.trim();
+        if (value.startsWith("\"")) {
+            // Strong comparison: a weak tag never matches
+            return value.equals(etag);
+        }
+        if (value.startsWith("W/")) {
+            return false;
+        }
+        long date = dateHeader(request, "If-Range");
+        return date >= 0 && date == lastModified;
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /** Media type from the extension, falling back to the platform's guess and then octet-stream. */
+    public static String contentType(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        if (dot >= 0) {
+            String known = MEDIA_TYPES.get(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+            if (known != null) {
+                return known;
+            }
+        }
+        try {
+            String probed = Files.probeContentType(file);
+            if (probed != null) {
+                return probed;
+            }
+        } catch (IOException ignored) {
+            // fall through to the generic type
+        }
+        return "application/octet-stream";
+    }
+}
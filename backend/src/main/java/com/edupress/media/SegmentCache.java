@@ -0,0 +1,350 @@
+package com.edupress.media;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Memory cache of fixed-size segments of hot media files, so the opening minutes of a video
+ * every student of a new course is watching are read from disk once instead of once per request.
+ * <p>
+ * Segments live in direct buffers outside the heap, allocated up to the byte budget and recycled
+ * through a free list rather than freed, and are handed out as read-only views, so serving one
+ * copies nothing on our side. Admission is TinyLFU: a count-min sketch estimates how often each
+ * segment has been asked for recently, and a miss only displaces the least recently used segment
+ * when it is asked for more often than that segment. A one-off seek through a rarely watched
+ * video therefore never evicts what the crowd is watching.
+ * <p>
+ * Segments are reference counted: one evicted while a response is still writing it goes back to
+ * the free list only after {@link Segment#release}.
+ */
+public class SegmentCache {
+
+    private final int segmentSize;
+    private final int capacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<SegmentKey, Segment> segments = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch;
+    private final ConcurrentLinkedQueue<ByteBuffer> freeBuffers = new ConcurrentLinkedQueue<>();
+    private int allocatedBuffers;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder servedBytes = new LongAdder();
+
+    /** A cache of {@code segmentSize}-byte segments holding at most {@code maxBytes}; 0 disables it. */
+    public SegmentCache(int segmentSize, long maxBytes) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Segment size must be positive");
+        }
+        this.segmentSize = segmentSize;
+        this.capacity = (int) Math.min(Integer.MAX_VALUE, Math.max(0, maxBytes / segmentSize));
+        this.sketch = new FrequencySketch(capacity);
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public boolean isEnabled() {
+        return capacity > 0;
+    }
+
+    /**
+     * Segment {@code index} of the file {@code fileId} (which must change whenever the contents
+     * do), read through {@code channel} on a miss that TinyLFU admits. Returns null when the
+     * segment isn't cached and isn't worth caching; the caller then reads the file itself. The
+     * returned segment must be {@link Segment#release released}.
+     */
+    public Segment acquire(String fileId, long index, FileChannel channel, long fileLength) throws IOException {
+        if (capacity == 0 || index * segmentSize >= fileLength) {
+            return null;
+        }
+        SegmentKey key = new SegmentKey(fileId, index);
+        Segment segment;
+        boolean created = false;
+        lock.lock();
+        try {
+            sketch.increment(key.hashCode());
+            segment = segments.get(key);
+            if (segment != null && segment.retain()) {
+                hits.increment();
+            } else {
+                misses.increment();
+                segment = admit(key);
+                if (segment == null) {
+                    rejections.increment();
+                    return null;
+                }
+                created = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (created) {
+            load(segment, channel, fileLength);
+        } else {
+            segment.awaitLoaded();
+        }
+        if (segment.failed) {
+            segment.release();
+            return null;
+        }
+        return segment;
+    }
+
+    // Called with the lock held; returns the new segment holding the cache's reference and the caller's
+    private Segment admit(SegmentKey key) {
+        ByteBuffer buffer = freeBuffers.poll();
+        if (segments.size() >= capacity) {
+            Iterator<Map.Entry<SegmentKey, Segment>> eldest = segments.entrySet().iterator();
+            Map.Entry<SegmentKey, Segment> victim = eldest.next();
+            if (sketch.frequency(key.hashCode()) <= sketch.frequency(victim.getKey().hashCode())) {
+                if (buffer != null) {
+                    freeBuffers.offer(buffer);
+                }
+                return null;
+            }
+            eldest.remove();
+            evictions.increment();
+            victim.getValue().release();
+            if (buffer == null) {
+                buffer = freeBuffers.poll();
+            }
+        }
+        if (buffer == null) {
+            if (allocatedBuffers >= capacity) {
+                // Every buffer is still being written by a response that holds an evicted segment
+                return null;
+            }
+            buffer = ByteBuffer.allocateDirect(segmentSize);
+            allocatedBuffers++;
+        }
+        Segment segment = new Segment(key, buffer);
+        segments.put(key, segment);
+        return segment;
+    }
+
+    private void load(Segment segment, FileChannel channel, long fileLength) throws IOException {
+        ByteBuffer buffer = segment.buffer;
+        long start = segment.key.index * segmentSize;
+        try {
+            buffer.clear().limit((int) Math.min(segmentSize, fileLength - start));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    throw new EOFException("File shrank while it was being cached");
+                }
+            }
+            buffer.flip();
+        } catch (IOException | RuntimeException e) {
+            segment.failed = true;
+            lock.lock();
+            try {
+                if (segments.get(segment.key) == segment) {
+                    segments.remove(segment.key);
+                    segment.release();
+                }
+            } finally {
+                lock.unlock();
+            }
+            // The caller's reference: it gets the exception instead of the segment
+            segment.release();
+            throw e;
+        } finally {
+            segment.loaded.countDown();
+        }
+    }
+
+    // Metrics
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /** Misses that were not cached because TinyLFU judged them colder than what they'd replace. */
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRatio() {
+        long hit = getHits();
+        long total = hit + getMisses();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    /** Bytes sent from memory that would otherwise have been read from disk. */
+    public long getServedBytes() {
+        return servedBytes.sum();
+    }
+
+    public long getResidentBytes() {
+        lock.lock();
+        try {
+            return (long) segments.size() * segmentSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getCapacityBytes() {
+        return (long) capacity * segmentSize;
+    }
+
+    /** A cached segment; its bytes are valid until {@link #release}. */
+    public final class Segment {
+        private final SegmentKey key;
+        private final ByteBuffer buffer;
+        // One reference for the cache while the segment is mapped, one per caller holding it
+        private final AtomicInteger references = new AtomicInteger(2);
+        private final CountDownLatch loaded = new CountDownLatch(1);
+        private volatile boolean failed;
+
+        private Segment(SegmentKey key, ByteBuffer buffer) {
+            this.key = key;
+            this.buffer = buffer;
+        }
+
+        public int length() {
+            return buffer.limit();
+        }
+
+        /** Read-only view of bytes {@code from} (inclusive) to {@code to} (exclusive); nothing is copied. */
+        public ByteBuffer slice(int from, int to) {
+            servedBytes.add(to - from);
+            ByteBuffer view = buffer.asReadOnlyBuffer();
+            view.limit(to).position(from);
+            return view;
+        }
+
+        public void release() {
+            if (references.decrementAndGet() == 0) {
+                freeBuffers.offer(buffer);
+            }
+        }
+
+        private boolean retain() {
+            int current;
+            do {
+                current = references.get();
+                if (current == 0) {
+                    return false;
+                }
+            } while (!references.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        private void awaitLoaded() throws IOException {
+            try {
+                loaded.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                release();
+                throw new IOException("Interrupted while waiting for a cached segment", e);
+            }
+        }
+    }
+
+    private static final class SegmentKey {
+        private final String fileId;
+        private final long index;
+        private final int hash;
+
+        SegmentKey(String fileId, long index) {
+            this.fileId = fileId;
+            this.index = index;
+            this.hash = Objects.hash(fileId, index);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof SegmentKey that && index == that.index && fileId.equals(that.fileId);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Count-min sketch of 4-bit counters over four rows. Every counter is halved once the sketch
+     * has seen ten times as many increments as it has counters per row, so popularity decays and a
+     * video that was hot last week doesn't keep its place.
+     */
+    static final class FrequencySketch {
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+        private static final int MAX_COUNT = 15;
+
+        private final int[][] rows = new int[SEEDS.length][];
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            int width = Integer.highestOneBit(Math.max(256, capacity) * 8 - 1) << 1;
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = new int[width];
+            }
+            this.mask = width - 1;
+            this.sampleSize = width * 10;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int i = 0; i < rows.length; i++) {
+                int index = index(hash, i);
+                if (rows[i][index] < MAX_COUNT) {
+                    rows[i][index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(int hash) {
+            int frequency = MAX_COUNT;
+            for (int i = 0; i < rows.length; i++) {
+                frequency = Math.min(frequency, rows[i][index(hash, i)]);
+            }
+            return frequency;
+        }
+
+        private int index(int hash, int row) {
+            int h = (hash ^ SEEDS[row]) * SEEDS[row];
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private void reset() {
+            for (int[] row : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>>= 1;
+                }
+            }
+            additions /= 2;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.edupress.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * When a stored object was last served, for storage tiering. Written in batches by
+ * {@link com.edupress.service.BlobAccessTracker}, so it lags real traffic by up to a minute and is
+ * only advanced once it has moved by an hour or more; coarse, but cold means months here.
+ */
+@Entity
+@Table(name = "blob_access")
+public class BlobAccess {
+
+    @Id
+    @Column(name = "object_name", length = 300)
+    private String objectName;
+
+    @Column(name = "last_accessed_at", nullable = false)
+    private LocalDateTime lastAccessedAt;
+
+    // Constructors
+    public BlobAccess() {}
+
+    public BlobAccess(String objectName, LocalDateTime lastAccessedAt) {
+        this.objectName = objectName;
+        this.lastAccessedAt = lastAccessedAt;
+    }
+
+    // Getters and Setters
+    public String getObjectName() {
+        return objectName;
+    }
+
+    public void setObjectName(String objectName) {
+        this.objectName = objectName;
+    }
+
+    public LocalDateTime getLastAccessedAt() {
+        return lastAccessedAt;
+    }
+
+    public void setLastAccessedAt(LocalDateTime lastAccessedAt) {
+        this.lastAccessedAt = lastAccessedAt;
+    }
+}
@@ -0,0 +1,110 @@
+package com.edupress.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A notification for every user, or every user with {@code targetRole}, stored once. Feeds
+ * merge broadcasts with the user's own {@link Notification}s when read, and whether a user has
+ * read one is kept as a {@link BroadcastRead} row, so sending a broadcast is a single insert no
+ * matter how many users it reaches.
+ */
+@Entity
+@Table(name = "broadcast_notifications",
+       indexes = @Index(name = "idx_broadcast_notifications_created", columnList = "created_at"))
+public class BroadcastNotification {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "title", length = 200, nullable = false)
+    private String title;
+
+    @Column(name = "message", length = 1000, nullable = false)
+    private String message;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", length = 20, nullable = false)
+    private Notification.Type type = Notification.Type.SYSTEM;
+
+    @Column(name = "action_url")
+    private String actionUrl;
+
+    // Null for everyone
+    @Enumerated(EnumType.STRING)
+    @Column(name = "target_role", length = 20)
+    private User.Role targetRole;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public BroadcastNotification() {}
+
+    public BroadcastNotification(String title, String message, Notification.Type type, User.Role targetRole) {
+        this.title = title;
+        this.message = message;
+        this.type = type;
+        this.targetRole = targetRole;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Notification.Type getType() {
+        return type;
+    }
+
+    public void setType(Notification.Type type) {
+        this.type = type;
+    }
+
+    public String getActionUrl() {
+        return actionUrl;
+    }
+
+    public void setActionUrl(String actionUrl) {
+        this.actionUrl = actionUrl;
+    }
+
+    public User.Role getTargetRole() {
+        return targetRole;
+    }
+
+    public void setTargetRole(User.Role targetRole) {
+        this.targetRole = targetRole;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,68 @@
+package com.edupress.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/** Marks a {@link BroadcastNotification} as read by one user; no row means unread. */
+@Entity
+@Table(name = "broadcast_reads",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"broadcast_id", "user_id"}),
+       indexes = @Index(name = "idx_broadcast_reads_user", columnList = "user_id"))
+public class BroadcastRead {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "broadcast_id", nullable = false)
+    private Long broadcastId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "read_at", nullable = false)
+    private LocalDateTime readAt;
+
+    // Constructors
+    public BroadcastRead() {}
+
+    public BroadcastRead(Long broadcastId, Long userId, LocalDateTime readAt) {
+        this.broadcastId = broadcastId;
+        this.userId = userId;
+        this.readAt = readAt;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getBroadcastId() {
+        return broadcastId;
+    }
+
+    public void setBroadcastId(Long broadcastId) {
+        this.broadcastId = broadcastId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public LocalDateTime getReadAt() {
+        return readAt;
+    }
+
+    public void setReadAt(LocalDateTime readAt) {
+        this.readAt = readAt;
+    }
+}
@@ -0,0 +1,133 @@
+package com.edupress.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Precomputed funnel for the students who enrolled in one course during one week. Each step
+ * only counts students who also reached every earlier step.
+ */
+@Entity
+@Table(name = "cohort_funnel",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"cohort_week", "course_id"}),
+       indexes = @Index(name = "idx_cohort_funnel_course", columnList = "course_id"))
+public class CohortFunnel {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Monday of the enrollment week
+    @Column(name = "cohort_week", nullable = false)
+    private LocalDate cohortWeek;
+
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    @Column(name = "enrolled", nullable = false)
+    private Integer enrolled;
+
+    @Column(name = "started_lesson", nullable = false)
+    private Integer startedLesson;
+
+    @Column(name = "half_completed", nullable = false)
+    private Integer halfCompleted;
+
+    @Column(name = "passed_quiz", nullable = false)
+    private Integer passedQuiz;
+
+    @Column(name = "certified", nullable = false)
+    private Integer certified;
+
+    @Column(name = "computed_at", nullable = false)
+    private LocalDateTime computedAt;
+
+    // Constructors
+    public CohortFunnel() {}
+
+    public CohortFunnel(LocalDate cohortWeek, Long courseId, LocalDateTime computedAt) {
+        this.cohortWeek = cohortWeek;
+        this.courseId = courseId;
+        this.enrolled = 0;
+        this.startedLesson = 0;
+        this.halfCompleted = 0;
+        this.passedQuiz = 0;
+        this.certified = 0;
+        this.computedAt = computedAt;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDate getCohortWeek() {
+        return cohortWeek;
+    }
+
+    public void setCohortWeek(LocalDate cohortWeek) {
+        this.cohortWeek = cohortWeek;
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(Long courseId) {
+        this.courseId = courseId;
+    }
+
+    public Integer getEnrolled() {
+        return enrolled;
+    }
+
+    public void setEnrolled(Integer enrolled) {
+        this.enrolled = enrolled;
+    }
+
+    public Integer getStartedLesson() {
+        return startedLesson;
+    }
+
+    public void setStartedLesson(Integer startedLesson) {
+        this.startedLesson = startedLesson;
+    }
+
+    public Integer getHalfCompleted() {
+        return halfCompleted;
+    }
+
+    public void setHalfCompleted(Integer halfCompleted) {
+        this.halfCompleted = halfCompleted;
+    }
+
+    public Integer getPassedQuiz() {
+        return passedQuiz;
+    }
+
+    public void setPassedQuiz(Integer passedQuiz) {
+        this.passedQuiz = passedQuiz;
+    }
+
+    public Integer getCertified() {
+        return certified;
+    }
+
+    public void setCertified(Integer certified) {
+        this.certified = certified;
+    }
+
+    public LocalDateTime getComputedAt() {
+        return computedAt;
+    }
+
+    public void setComputedAt(LocalDateTime computedAt) {
+        this.computedAt = computedAt;
+    }
+}
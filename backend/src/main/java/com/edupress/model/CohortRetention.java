@@ -0,0 +1,115 @@
+package com.edupress.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Precomputed retention: of the students in a weekly cohort, how many were active
+ * {@code weekOffset} weeks later. Written by the cohort analytics job, read by the admin
+ * learning-outcomes view.
+ */
+@Entity
+@Table(name = "cohort_retention",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"cohort_type", "cohort_week", "week_offset"}))
+public class CohortRetention {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "cohort_type", nullable = false, length = 20)
+    private CohortType cohortType;
+
+    // Monday of the cohort's week
+    @Column(name = "cohort_week", nullable = false)
+    private LocalDate cohortWeek;
+
+    @Column(name = "week_offset", nullable = false)
+    private Integer weekOffset;
+
+    @Column(name = "cohort_size", nullable = false)
+    private Integer cohortSize;
+
+    @Column(name = "active_users", nullable = false)
+    private Integer activeUsers;
+
+    @Column(name = "computed_at", nullable = false)
+    private LocalDateTime computedAt;
+
+    public enum CohortType {
+        SIGNUP, ENROLLMENT
+    }
+
+    // Constructors
+    public CohortRetention() {}
+
+    public CohortRetention(CohortType cohortType, LocalDate cohortWeek, int weekOffset, int cohortSize,
+                           int activeUsers, LocalDateTime computedAt) {
+        this.cohortType = cohortType;
+        this.cohortWeek = cohortWeek;
+        this.weekOffset = weekOffset;
+        this.cohortSize = cohortSize;
+        this.activeUsers = activeUsers;
+        this.computedAt = computedAt;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public CohortType getCohortType() {
+        return cohortType;
+    }
+
+    public void setCohortType(CohortType cohortType) {
+        this.cohortType = cohortType;
+    }
+
+    public LocalDate getCohortWeek() {
+        return cohortWeek;
+    }
+
+    public void setCohortWeek(LocalDate cohortWeek) {
+        this.cohortWeek = cohortWeek;
+    }
+
+    public Integer getWeekOffset() {
+        return weekOffset;
+    }
+
+    public void setWeekOffset(Integer weekOffset) {
+        this.weekOffset = weekOffset;
+    }
+
+    public Integer getCohortSize() {
+        return cohortSize;
+    }
+
+    public void setCohortSize(Integer cohortSize) {
+        this.cohortSize = cohortSize;
+    }
+
+    public Integer getActiveUsers() {
+        return activeUsers;
+    }
+
+    public void setActiveUsers(Integer activeUsers) {
+        this.activeUsers = activeUsers;
+    }
+
+    public LocalDateTime getComputedAt() {
+        return computedAt;
+    }
+
+    public void setComputedAt(LocalDateTime computedAt) {
+        this.computedAt = computedAt;
+    }
+}
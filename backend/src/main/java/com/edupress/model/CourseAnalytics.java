@@ -0,0 +1,262 @@
+package com.edupress.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Running per-course totals for the instructor analytics views. One row per course, created
+ * with the course and moved by atomic increments from domain events, so reading every course of
+ * an instructor is a single indexed scan.
+ */
+@Entity
+@Table(name = "course_analytics",
+       indexes = @Index(name = "idx_course_analytics_instructor", columnList = "instructor_id"))
+public class CourseAnalytics {
+
+    @Id
+    @Column(name = "course_id")
+    private Long courseId;
+
+    @Column(name = "instructor_id")
+    private Long instructorId;
+
+    @Column(name = "active_enrollments", nullable = false)
+    private Long activeEnrollments = 0L;
+
+    @Column(name = "total_enrollments", nullable = false)
+    private Long totalEnrollments = 0L;
+
+    @Column(name = "unenrollments", nullable = false)
+    private Long unenrollments = 0L;
+
+    @Column(name = "lesson_completions", nullable = false)
+    private Long lessonCompletions = 0L;
+
+    // Students who have completed every lesson the course had at the time
+    @Column(name = "completed_students", nullable = false)
+    private Long completedStudents = 0L;
+
+    @Column(name = "quiz_attempts", nullable = false)
+    private Long quizAttempts = 0L;
+
+    @Column(name = "quiz_passed", nullable = false)
+    private Long quizPassed = 0L;
+
+    @Column(name = "quiz_score_sum", nullable = false)
+    private Long quizScoreSum = 0L;
+
+    @Column(name = "quiz_max_score_sum", nullable = false)
+    private Long quizMaxScoreSum = 0L;
+
+    @Column(name = "submissions", nullable = false)
+    private Long submissions = 0L;
+
+    @Column(name = "graded_submissions", nullable = false)
+    private Long gradedSubmissions = 0L;
+
+    // Graded submissions by percentage of the assignment's max score: 90+, 80+, 70+, 60+, below 60
+    @Column(name = "grade_a", nullable = false)
+    private Long gradeA = 0L;
+
+    @Column(name = "grade_b", nullable = false)
+    private Long gradeB = 0L;
+
+    @Column(name = "grade_c", nullable = false)
+    private Long gradeC = 0L;
+
+    @Column(name = "grade_d", nullable = false)
+    private Long gradeD = 0L;
+
+    @Column(name = "grade_f", nullable = false)
+    private Long gradeF = 0L;
+
+    @Column(name = "last_activity_at")
+    private LocalDateTime lastActivityAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public CourseAnalytics() {}
+
+    public CourseAnalytics(Long courseId, Long instructorId) {
+        this.courseId = courseId;
+        this.instructorId = instructorId;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Derived values
+    public double getAverageQuizScorePercent() {
+        return quizMaxScoreSum > 0 ? 100.0 * quizScoreSum / quizMaxScoreSum : 0.0;
+    }
+
+    public double getQuizPassRate() {
+        return quizAttempts > 0 ? 100.0 * quizPassed / quizAttempts : 0.0;
+    }
+
+    public double getCompletionRate() {
+        return activeEnrollments > 0 ? 100.0 * completedStudents / activeEnrollments : 0.0;
+    }
+
+    // Getters and Setters
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(Long courseId) {
+        this.courseId = courseId;
+    }
+
+    public Long getInstructorId() {
+        return instructorId;
+    }
+
+    public void setInstructorId(Long instructorId) {
+        this.instructorId = instructorId;
+    }
+
+    public Long getActiveEnrollments() {
+        return activeEnrollments;
+    }
+
+    public void setActiveEnrollments(Long activeEnrollments) {
+        this.activeEnrollments = activeEnrollments;
+    }
+
+    public Long getTotalEnrollments() {
+        return totalEnrollments;
+    }
+
+    public void setTotalEnrollments(Long totalEnrollments) {
+        this.totalEnrollments = totalEnrollments;
+    }
+
+    public Long getUnenrollments() {
+        return unenrollments;
+    }
+
+    public void setUnenrollments(Long unenrollments) {
+        this.unenrollments = unenrollments;
+    }
+
+    public Long getLessonCompletions() {
+        return lessonCompletions;
+    }
+
+    public void setLessonCompletions(Long lessonCompletions) {
+        this.lessonCompletions = lessonCompletions;
+    }
+
+    public Long getCompletedStudents() {
+        return completedStudents;
+    }
+
+    public void setCompletedStudents(Long completedStudents) {
+        this.completedStudents = completedStudents;
+    }
+
+    public Long getQuizAttempts() {
+        return quizAttempts;
+    }
+
+    public void setQuizAttempts(Long quizAttempts) {
+        this.quizAttempts = quizAttempts;
+    }
+
+    public Long getQuizPassed() {
+        return quizPassed;
+    }
+
+    public void setQuizPassed(Long quizPassed) {
+        this.quizPassed = quizPassed;
+    }
+
+    public Long getQuizScoreSum() {
+        return quizScoreSum;
+    }
+
+    public void setQuizScoreSum(Long quizScoreSum) {
+        this.quizScoreSum = quizScoreSum;
+    }
+
+    public Long getQuizMaxScoreSum() {
+        return quizMaxScoreSum;
+    }
+
+    public void setQuizMaxScoreSum(Long quizMaxScoreSum) {
+        this.quizMaxScoreSum = quizMaxScoreSum;
+    }
+
+    public Long getSubmissions() {
+        return submissions;
+    }
+
+    public void setSubmissions(Long submissions) {
+        this.submissions = submissions;
+    }
+
+    public Long getGradedSubmissions() {
+        return gradedSubmissions;
+    }
+
+    public void setGradedSubmissions(Long gradedSubmissions) {
+        this.gradedSubmissions = gradedSubmissions;
+    }
+
+    public Long getGradeA() {
+        return gradeA;
+    }
+
+    public void setGradeA(Long gradeA) {
+        this.gradeA = gradeA;
+    }
+
+    public Long getGradeB() {
+        return gradeB;
+    }
+
+    public void setGradeB(Long gradeB) {
+        this.gradeB = gradeB;
+    }
+
+    public Long getGradeC() {
+        return gradeC;
+    }
+
+    public void setGradeC(Long gradeC) {
+        this.gradeC = gradeC;
+    }
+
+    public Long getGradeD() {
+        return gradeD;
+    }
+
+    public void setGradeD(Long gradeD) {
+        this.gradeD = gradeD;
+    }
+
+    public Long getGradeF() {
+        return gradeF;
+    }
+
+    public void setGradeF(Long gradeF) {
+        this.gradeF = gradeF;
+    }
+
+    public LocalDateTime getLastActivityAt() {
+        return lastActivityAt;
+    }
+
+    public void setLastActivityAt(LocalDateTime lastActivityAt) {
+        this.lastActivityAt = lastActivityAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,86 @@
+package com.edupress.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * When a student joined (and possibly left) a course. The {@code user_course_enrollments} join
+ * table only says who is enrolled; this table keeps the dates that cohort and course analytics
+ * need. Re-enrolling reuses the row with a fresh enrollment date.
+ */
+@Entity
+@Table(name = "enrollment_records",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "course_id"}),
+       indexes = {
+           @Index(name = "idx_enrollment_records_course", columnList = "course_id"),
+           @Index(name = "idx_enrollment_records_enrolled", columnList = "enrolled_at")
+       })
+public class EnrollmentRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    @Column(name = "enrolled_at", nullable = false)
+    private LocalDateTime enrolledAt;
+
+    @Column(name = "unenrolled_at")
+    private LocalDateTime unenrolledAt;
+
+    // Constructors
+    public EnrollmentRecord() {}
+
+    public EnrollmentRecord(Long userId, Long courseId, LocalDateTime enrolledAt) {
+        this.userId = userId;
+        this.courseId = courseId;
+        this.enrolledAt = enrolledAt;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(Long courseId) {
+        this.courseId = courseId;
+    }
+
+    public LocalDateTime getEnrolledAt() {
+        return enrolledAt;
+    }
+
+    public void setEnrolledAt(LocalDateTime enrolledAt) {
+        this.enrolledAt = enrolledAt;
+    }
+
+    public LocalDateTime getUnenrolledAt() {
+        return unenrolledAt;
+    }
+
+    public void setUnenrolledAt(LocalDateTime unenrolledAt) {
+        this.unenrolledAt = unenrolledAt;
+    }
+}
@@ -0,0 +1,99 @@
+package com.edupress.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row per lesson a student has completed. Course id is copied from the lesson so progress
+ * can be counted per course without a join.
+ */
+@Entity
+@Table(name = "lesson_progress",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "lesson_id"}),
+       indexes = {
+           @Index(name = "idx_lesson_progress_course_user", columnList = "course_id, user_id"),
+           @Index(name = "idx_lesson_progress_completed", columnList = "completed_at")
+       })
+public class LessonProgress {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "lesson_id", nullable = false)
+    private Long lessonId;
+
+    @Column(name = "course_id")
+    private Long courseId;
+
+    @Column(name = "completed_at", nullable = false)
+    private LocalDateTime completedAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public LessonProgress() {}
+
+    public LessonProgress(Long userId, Long lessonId, Long courseId, LocalDateTime completedAt) {
+        this.userId = userId;
+        this.lessonId = lessonId;
+        this.courseId = courseId;
+        this.completedAt = completedAt;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getLessonId() {
+        return lessonId;
+    }
+
+    public void setLessonId(Long lessonId) {
+        this.lessonId = lessonId;
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(Long courseId) {
+        this.courseId = courseId;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,183 @@
+package com.edupress.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "revenue_ledger",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"provider", "source_id", "entry_type"}),
+       indexes = {
+           @Index(name = "idx_revenue_ledger_instructor", columnList = "instructor_id"),
+           @Index(name = "idx_revenue_ledger_course", columnList = "course_id"),
+           @Index(name = "idx_revenue_ledger_date", columnList = "entry_date")
+       })
+public class RevenueLedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "provider", nullable = false, length = 20)
+    private Provider provider;
+
+    // Payment.id or PaymeTransaction.id, depending on provider
+    @Column(name = "source_id", nullable = false)
+    private Long sourceId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false, length = 20)
+    private EntryType entryType;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "course_id")
+    private Long courseId;
+
+    @Column(name = "instructor_id")
+    private Long instructorId;
+
+    // Signed: reversals are stored as negative amounts
+    @Column(name = "amount", nullable = false, precision = 12, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "currency", nullable = false, length = 3)
+    private String currency;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    @Column(name = "entry_date", nullable = false)
+    private LocalDate entryDate;
+
+    @CreationTimestamp
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    public enum Provider {
+        STRIPE, PAYME
+    }
+
+    public enum EntryType {
+        CREDIT, REVERSAL
+    }
+
+    // Constructors
+    public RevenueLedgerEntry() {}
+
+    public RevenueLedgerEntry(Provider provider, Long sourceId, EntryType entryType, Long userId, Long courseId,
+                              Long instructorId, BigDecimal amount, String currency, LocalDateTime occurredAt) {
+        this.provider = provider;
+        this.sourceId = sourceId;
+        this.entryType = entryType;
+        this.userId = userId;
+        this.courseId = courseId;
+        this.instructorId = instructorId;
+        this.amount = entryType == EntryType.REVERSAL ? amount.abs().negate() : amount.abs();
+        this.currency = currency;
+        this.occurredAt = occurredAt;
+        this.entryDate = occurredAt.toLocalDate();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Provider getProvider() {
+        return provider;
+    }
+
+    public void setProvider(Provider provider) {
+        this.provider = provider;
+    }
+
+    public Long getSourceId() {
+        return sourceId;
+    }
+
+    public void setSourceId(Long sourceId) {
+        this.sourceId = sourceId;
+    }
+
+    public EntryType getEntryType() {
+        return entryType;
+    }
+
+    public void setEntryType(EntryType entryType) {
+        this.entryType = entryType;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(Long courseId) {
+        this.courseId = courseId;
+    }
+
+    public Long getInstructorId() {
+        return instructorId;
+    }
+
+    public void setInstructorId(Long instructorId) {
+        this.instructorId = instructorId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+
+    public void setOccurredAt(LocalDateTime occurredAt) {
+        this.occurredAt = occurredAt;
+    }
+
+    public LocalDate getEntryDate() {
+        return entryDate;
+    }
+
+    public void setEntryDate(LocalDate entryDate) {
+        this.entryDate = entryDate;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
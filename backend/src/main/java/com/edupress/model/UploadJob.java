@@ -0,0 +1,267 @@
+package com.edupress.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * An upload accepted by {@link com.edupress.service.UploadPipelineService}: the raw bytes are
+ * staged on disk and the job tracks them through checksumming, MIME sniffing and metadata
+ * extraction until the record they belong to ({@code targetId}) exists. The request parameters
+ * that record needs are kept here until then.
+ */
+@Entity
+@Table(name = "upload_jobs",
+       indexes = {
+           @Index(name = "idx_upload_jobs_user", columnList = "user_id"),
+           @Index(name = "idx_upload_jobs_status", columnList = "status, updated_at")
+       })
+public class UploadJob {
+
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", length = 20, nullable = false)
+    private Kind kind;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20, nullable = false)
+    private Status status = Status.PENDING;
+
+    @Column(name = "file_name", length = 255, nullable = false)
+    private String fileName;
+
+    // Lower-case, without the dot
+    @Column(name = "extension", length = 10, nullable = false)
+    private String extension;
+
+    @Column(name = "file_size", nullable = false)
+    private Long fileSize;
+
+    // Raw bytes waiting to be processed; cleared once they are in the content store
+    @JsonIgnore
+    @Column(name = "staged_path", length = 500)
+    private String stagedPath;
+
+    // Lesson of a video, assignment of a submission
+    @Column(name = "parent_id")
+    private Long parentId;
+
+    @Column(name = "title", length = 200)
+    private String title;
+
+    @Column(name = "description", length = 1000)
+    private String description;
+
+    @Column(name = "order_index")
+    private Integer orderIndex;
+
+    // The "type" a generic file was uploaded with, e.g. course or blog
+    @Column(name = "category", length = 50)
+    private String category;
+
+    // Sniffed from the bytes, not taken from the request
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Column(name = "blob_key", length = 80)
+    private String blobKey;
+
+    // Video, submission or user the upload ended up in
+    @Column(name = "target_id")
+    private Long targetId;
+
+    @Column(name = "error", length = 500)
+    private String error;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public enum Kind {
+        FILE,
+        AVATAR,
+        VIDEO,
+        SUBMISSION
+    }
+
+    public enum Status {
+        PENDING,
+        PROCESSING,
+        READY,
+        FAILED
+    }
+
+    // Constructors
+    public UploadJob() {}
+
+    public UploadJob(String id, Long userId, Kind kind, String fileName, String extension, long fileSize) {
+        this.id = id;
+        this.userId = userId;
+        this.kind = kind;
+        this.fileName = fileName;
+        this.extension = extension;
+        this.fileSize = fileSize;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public void setKind(Kind kind) {
+        this.kind = kind;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public void setExtension(String extension) {
+        this.extension = extension;
+    }
+
+    public Long getFileSize() {
+        return fileSize;
+    }
+
+    public void setFileSize(Long fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    public String getStagedPath() {
+        return stagedPath;
+    }
+
+    public void setStagedPath(String stagedPath) {
+        this.stagedPath = stagedPath;
+    }
+
+    public Long getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(Long parentId) {
+        this.parentId = parentId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public Integer getOrderIndex() {
+        return orderIndex;
+    }
+
+    public void setOrderIndex(Integer orderIndex) {
+        this.orderIndex = orderIndex;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getBlobKey() {
+        return blobKey;
+    }
+
+    public void setBlobKey(String blobKey) {
+        this.blobKey = blobKey;
+    }
+
+    public Long getTargetId() {
+        return targetId;
+    }
+
+    public void setTargetId(Long targetId) {
+        this.targetId = targetId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
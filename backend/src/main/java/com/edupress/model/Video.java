@@ -50,6 +50,22 @@ public class Video {
 
     private Long fileSize; // in bytes
 
+    // Read from the file's moov atom on upload; null for YouTube videos and non-MP4 files
+    private Integer width;
+
+    private Integer height;
+
+    private Long bitrate; // in bits per second
+
+    @Column(length = 16)
+    private String videoCodec;
+
+    @Column(length = 16)
+    private String audioCodec;
+
+    // Whether the moov atom precedes the media data, so playback can start before the tail loads
+    private Boolean fastStart;
+
     private Double averageRating = 0.0;
 
     private Integer totalRatings = 0;
@@ -170,6 +186,54 @@ public class Video {
         this.fileSize = fileSize;
     }
 
+    public Integer getWidth() {
+        return width;
+    }
+
+    public void setWidth(Integer width) {
+        this.width = width;
+    }
+
+    public Integer getHeight() {
+        return height;
+    }
+
+    public void setHeight(Integer height) {
+        this.height = height;
+    }
+
+    public Long getBitrate() {
+        return bitrate;
+    }
+
+    public void setBitrate(Long bitrate) {
+        this.bitrate = bitrate;
+    }
+
+    public String getVideoCodec() {
+        return videoCodec;
+    }
+
+    public void setVideoCodec(String videoCodec) {
+        this.videoCodec = videoCodec;
+    }
+
+    public String getAudioCodec() {
+        return audioCodec;
+    }
+
+    public void setAudioCodec(String audioCodec) {
+        this.audioCodec = audioCodec;
+    }
+
+    public Boolean getFastStart() {
+        return fastStart;
+    }
+
+    public void setFastStart(Boolean fastStart) {
+        this.fastStart = fastStart;
+    }
+
     public Double getAverageRating() {
         return averageRating;
     }
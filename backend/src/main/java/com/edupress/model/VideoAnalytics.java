@@ -0,0 +1,150 @@
+package com.edupress.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Persisted watch-time totals for one video, written periodically from the in-memory
+ * {@link com.edupress.analytics.WatchTimeTracker}. Per-segment counts are stored as
+ * comma-separated lists, first segment first.
+ */
+@Entity
+@Table(name = "video_analytics",
+       indexes = @Index(name = "idx_video_analytics_course", columnList = "course_id"))
+public class VideoAnalytics {
+
+    @Id
+    @Column(name = "video_id")
+    private Long videoId;
+
+    @Column(name = "course_id")
+    private Long courseId;
+
+    @Column(name = "duration_seconds", nullable = false)
+    private Integer durationSeconds;
+
+    @Column(name = "watch_seconds", nullable = false)
+    private Long watchSeconds = 0L;
+
+    @Column(name = "sessions", nullable = false)
+    private Long sessions = 0L;
+
+    @Column(name = "segment_views", length = 400, nullable = false)
+    private String segmentViews;
+
+    @Column(name = "completion", length = 400, nullable = false)
+    private String completion;
+
+    // HyperLogLog sketch of distinct viewers, see HyperLogLog.toBytes()
+    @Column(name = "viewer_sketch", length = 65600, nullable = false)
+    private byte[] viewerSketch;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public VideoAnalytics() {}
+
+    public VideoAnalytics(Long videoId, Long courseId, Integer durationSeconds) {
+        this.videoId = videoId;
+        this.courseId = courseId;
+        this.durationSeconds = durationSeconds;
+    }
+
+    public static String joinCounts(long[] counts) {
+        StringBuilder joined = new StringBuilder();
+        for (int i = 0; i < counts.length; i++) {
+            if (i > 0) {
+                joined.append(',');
+            }
+            joined.append(counts[i]);
+        }
+        return joined.toString();
+    }
+
+    public static long[] splitCounts(String joined) {
+        if (joined == null || joined.isEmpty()) {
+            return new long[0];
+        }
+        String[] parts = joined.split(",");
+        long[] counts = new long[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            counts[i] = Long.parseLong(parts[i].trim());
+        }
+        return counts;
+    }
+
+    // Getters and Setters
+    public Long getVideoId() {
+        return videoId;
+    }
+
+    public void setVideoId(Long videoId) {
+        this.videoId = videoId;
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(Long courseId) {
+        this.courseId = courseId;
+    }
+
+    public Integer getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public void setDurationSeconds(Integer durationSeconds) {
+        this.durationSeconds = durationSeconds;
+    }
+
+    public Long getWatchSeconds() {
+        return watchSeconds;
+    }
+
+    public void setWatchSeconds(Long watchSeconds) {
+        this.watchSeconds = watchSeconds;
+    }
+
+    public Long getSessions() {
+        return sessions;
+    }
+
+    public void setSessions(Long sessions) {
+        this.sessions = sessions;
+    }
+
+    public String getSegmentViews() {
+        return segmentViews;
+    }
+
+    public void setSegmentViews(String segmentViews) {
+        this.segmentViews = segmentViews;
+    }
+
+    public String getCompletion() {
+        return completion;
+    }
+
+    public void setCompletion(String completion) {
+        this.completion = completion;
+    }
+
+    public byte[] getViewerSketch() {
+        return viewerSketch;
+    }
+
+    public void setViewerSketch(byte[] viewerSketch) {
+        this.viewerSketch = viewerSketch;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -34,4 +34,8 @@ public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
     
     @Query("SELECT a FROM Assignment a WHERE a.title LIKE %:searchTerm% OR a.description LIKE %:searchTerm%")
     Page<Assignment> searchByTitleOrDescription(@Param("searchTerm") String searchTerm, Pageable pageable);
+
+    // Instructor of the assignment's course; null when the assignment or the instructor doesn't exist
+    @Query("SELECT i.id FROM Assignment a JOIN a.lesson l JOIN l.course c LEFT JOIN c.instructor i WHERE a.id = :assignmentId")
+    Long findInstructorIdById(@Param("assignmentId") Long assignmentId);
 }
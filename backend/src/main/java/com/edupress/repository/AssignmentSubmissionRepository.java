@@ -1,16 +1,24 @@
 package com.edupress.repository;
 
 import com.edupress.model.AssignmentSubmission;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import com.edupress.model.Assignment;
 import com.edupress.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
+import java.time.LocalDateTime;
+import java.util.Collection;
 
 
 @Repository
@@ -48,4 +56,43 @@ public interface AssignmentSubmissionRepository extends JpaRepository<Assignment
     
     @Query("SELECT AVG(asub.score) FROM AssignmentSubmission asub WHERE asub.assignment.id = :assignmentId AND asub.score IS NOT NULL")
     Double getAverageScoreByAssignmentId(@Param("assignmentId") Long assignmentId);
+    
+    // Export rows of [submissionId, studentId, username, email, score, status, submittedAt, gradedAt]
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT asub.id, s.id, s.username, s.email, asub.score, asub.status, asub.createdAt, asub.gradedAt " +
+           "FROM AssignmentSubmission asub LEFT JOIN asub.student s WHERE asub.assignment.id = :assignmentId ORDER BY asub.id")
+    Stream<Object[]> streamGradeRowsByAssignmentId(@Param("assignmentId") Long assignmentId);
+
+    // Rows of [userId, createdAt]
+    @Query("SELECT s.student.id, s.createdAt FROM AssignmentSubmission s " +
+           "WHERE s.student.id IN :userIds AND s.createdAt >= :from AND s.createdAt < :to")
+    List<Object[]> findActivityBetween(@Param("userIds") Collection<Long> userIds,
+                                       @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Rows of [courseId, submissions]
+    @Query("SELECT c.id, COUNT(s) FROM AssignmentSubmission s JOIN s.assignment a JOIN a.lesson l JOIN l.course c " +
+           "WHERE c.id IN :courseIds GROUP BY c.id")
+    List<Object[]> countByCourse(@Param("courseIds") Collection<Long> courseIds);
+
+    // Rows of [courseId, score, assignment max score] for graded submissions
+    @Query("SELECT c.id, s.score, a.maxScore FROM AssignmentSubmission s JOIN s.assignment a JOIN a.lesson l JOIN l.course c " +
+           "WHERE s.score IS NOT NULL AND c.id IN :courseIds")
+    List<Object[]> findGradedScoresByCourse(@Param("courseIds") Collection<Long> courseIds);
+
+    // Stored file references, for blob garbage collection
+    @Query("SELECT s.filePath FROM AssignmentSubmission s WHERE s.filePath IS NOT NULL")
+    List<String> findAllFilePaths();
+
+    // Rows of [filePath, student id], for the storage sweeper
+    @Query("SELECT s.filePath, s.student.id FROM AssignmentSubmission s WHERE s.filePath IS NOT NULL")
+    List<Object[]> findFilePathOwners();
+
+    // Repoints records at a relocated file; matching on the old value makes it a compare-and-set
+    @Modifying
+    @Transactional
+    @Query("UPDATE AssignmentSubmission s SET s.filePath = :newPath WHERE s.filePath = :oldPath")
+    int replaceFilePath(@Param("oldPath") String oldPath, @Param("newPath") String newPath);
 }
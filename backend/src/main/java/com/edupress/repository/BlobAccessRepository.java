@@ -0,0 +1,17 @@
+package com.edupress.repository;
+
+import com.edupress.model.BlobAccess;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BlobAccessRepository extends JpaRepository<BlobAccess, String> {
+
+    // Rows of [objectName, lastAccessedAt] below a prefix, for the tiering run
+    @Query("SELECT b.objectName, b.lastAccessedAt FROM BlobAccess b WHERE b.objectName LIKE CONCAT(:prefix, '%')")
+    List<Object[]> findAccessTimesByPrefix(@Param("prefix") String prefix);
+}
@@ -6,6 +6,8 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -42,4 +44,18 @@ public interface BlogPostRepository extends JpaRepository<BlogPost, Long> {
     
     @Query("SELECT COUNT(b) FROM BlogPost b WHERE b.status = 'PUBLISHED'")
     long countPublishedPosts();
+
+    // Stored file references, for blob garbage collection
+    @Query("SELECT b.featuredImage FROM BlogPost b WHERE b.featuredImage IS NOT NULL")
+    List<String> findAllFeaturedImages();
+
+    // Rows of [featuredImage, author id], for the storage sweeper
+    @Query("SELECT b.featuredImage, b.author.id FROM BlogPost b WHERE b.featuredImage IS NOT NULL")
+    List<Object[]> findFeaturedImageOwners();
+
+    // Repoints records at a relocated file; matching on the old value makes it a compare-and-set
+    @Modifying
+    @Transactional
+    @Query("UPDATE BlogPost b SET b.featuredImage = :newImage WHERE b.featuredImage = :oldImage")
+    int replaceFeaturedImage(@Param("oldImage") String oldImage, @Param("newImage") String newImage);
 }
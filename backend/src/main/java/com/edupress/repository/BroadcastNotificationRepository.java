@@ -0,0 +1,47 @@
+package com.edupress.repository;
+
+import com.edupress.model.BroadcastNotification;
+import com.edupress.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface BroadcastNotificationRepository extends JpaRepository<BroadcastNotification, Long> {
+
+    // Broadcasts a user sees: sent to everyone or to their role since they signed up, newest first
+    @Query("SELECT b FROM BroadcastNotification b WHERE (b.targetRole IS NULL OR b.targetRole = :role) " +
+           "AND b.createdAt >= :since ORDER BY b.createdAt DESC, b.id DESC")
+    List<BroadcastNotification> findVisible(@Param("role") User.Role role, @Param("since") LocalDateTime since,
+                                            Pageable pageable);
+
+    @Query("SELECT COUNT(b) FROM BroadcastNotification b WHERE (b.targetRole IS NULL OR b.targetRole = :role) " +
+           "AND b.createdAt >= :since")
+    long countVisible(@Param("role") User.Role role, @Param("since") LocalDateTime since);
+
+    // Visible broadcasts without a read marker from the user
+    @Query("SELECT b FROM BroadcastNotification b WHERE (b.targetRole IS NULL OR b.targetRole = :role) " +
+           "AND b.createdAt >= :since AND NOT EXISTS " +
+           "(SELECT r.id FROM BroadcastRead r WHERE r.broadcastId = b.id AND r.userId = :userId) " +
+           "ORDER BY b.createdAt DESC, b.id DESC")
+    List<BroadcastNotification> findUnread(@Param("role") User.Role role, @Param("since") LocalDateTime since,
+                                           @Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT COUNT(b) FROM BroadcastNotification b WHERE (b.targetRole IS NULL OR b.targetRole = :role) " +
+           "AND b.createdAt >= :since AND NOT EXISTS " +
+           "(SELECT r.id FROM BroadcastRead r WHERE r.broadcastId = b.id AND r.userId = :userId)")
+    long countUnread(@Param("role") User.Role role, @Param("since") LocalDateTime since, @Param("userId") Long userId);
+
+    // Visible broadcasts the user has a read marker for
+    @Query("SELECT b FROM BroadcastNotification b WHERE (b.targetRole IS NULL OR b.targetRole = :role) " +
+           "AND b.createdAt >= :since AND EXISTS " +
+           "(SELECT r.id FROM BroadcastRead r WHERE r.broadcastId = b.id AND r.userId = :userId) " +
+           "ORDER BY b.createdAt DESC, b.id DESC")
+    List<BroadcastNotification> findRead(@Param("role") User.Role role, @Param("since") LocalDateTime since,
+                                         @Param("userId") Long userId, Pageable pageable);
+}
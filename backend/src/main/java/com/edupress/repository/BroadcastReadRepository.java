@@ -0,0 +1,25 @@
+package com.edupress.repository;
+
+import com.edupress.model.BroadcastRead;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BroadcastReadRepository extends JpaRepository<BroadcastRead, Long> {
+
+    boolean existsByBroadcastIdAndUserId(Long broadcastId, Long userId);
+
+    // Which of the given broadcasts the user has read
+    @Query("SELECT r.broadcastId FROM BroadcastRead r WHERE r.userId = :userId AND r.broadcastId IN :broadcastIds")
+    List<Long> findReadBroadcastIds(@Param("userId") Long userId, @Param("broadcastIds") Collection<Long> broadcastIds);
+
+    @Modifying
+    @Query("DELETE FROM BroadcastRead r WHERE r.broadcastId = :broadcastId")
+    int deleteByBroadcastId(@Param("broadcastId") Long broadcastId);
+}
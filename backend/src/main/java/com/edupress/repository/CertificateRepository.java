@@ -7,11 +7,14 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Collection;
 
 @Repository
 public interface CertificateRepository extends JpaRepository<Certificate, Long> {
@@ -44,4 +47,23 @@ public interface CertificateRepository extends JpaRepository<Certificate, Long>
     
     @Query("SELECT c FROM Certificate c WHERE c.studentName LIKE %:searchTerm% OR c.courseName LIKE %:searchTerm%")
     Page<Certificate> searchByStudentNameOrCourseName(@Param("searchTerm") String searchTerm, Pageable pageable);
+
+    // Rows of [userId, courseId] holding an active certificate
+    @Query("SELECT DISTINCT c.student.id, c.course.id FROM Certificate c " +
+           "WHERE c.student.id IN :userIds AND c.isActive = true")
+    List<Object[]> findCertifiedUserCourses(@Param("userIds") Collection<Long> userIds);
+
+    // Stored file references, for storage migration
+    @Query("SELECT c.pdfFilePath FROM Certificate c WHERE c.pdfFilePath IS NOT NULL")
+    List<String> findAllPdfFilePaths();
+
+    // Rows of [pdfFilePath, student id], for the storage sweeper
+    @Query("SELECT c.pdfFilePath, c.student.id FROM Certificate c WHERE c.pdfFilePath IS NOT NULL")
+    List<Object[]> findPdfFilePathOwners();
+
+    // Repoints records at a relocated file; matching on the old value makes it a compare-and-set
+    @Modifying
+    @Transactional
+    @Query("UPDATE Certificate c SET c.pdfFilePath = :newPath WHERE c.pdfFilePath = :oldPath")
+    int replacePdfFilePath(@Param("oldPath") String oldPath, @Param("newPath") String newPath);
 }
@@ -0,0 +1,37 @@
+package com.edupress.repository;
+
+import com.edupress.model.CohortFunnel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CohortFunnelRepository extends JpaRepository<CohortFunnel, Long> {
+
+    // Rows of [cohortWeek, enrolled, startedLesson, halfCompleted, passedQuiz, certified]
+    @Query("SELECT f.cohortWeek, SUM(f.enrolled), SUM(f.startedLesson), SUM(f.halfCompleted), " +
+           "SUM(f.passedQuiz), SUM(f.certified) FROM CohortFunnel f WHERE f.cohortWeek >= :since " +
+           "GROUP BY f.cohortWeek ORDER BY f.cohortWeek")
+    List<Object[]> sumByWeekSince(@Param("since") LocalDate since);
+
+    // Same row shape, limited to the given courses
+    @Query("SELECT f.cohortWeek, SUM(f.enrolled), SUM(f.startedLesson), SUM(f.halfCompleted), " +
+           "SUM(f.passedQuiz), SUM(f.certified) FROM CohortFunnel f " +
+           "WHERE f.cohortWeek >= :since AND f.courseId IN :courseIds " +
+           "GROUP BY f.cohortWeek ORDER BY f.cohortWeek")
+    List<Object[]> sumByWeekSinceForCourses(@Param("since") LocalDate since, @Param("courseIds") Collection<Long> courseIds);
+
+    @Modifying
+    @Query("DELETE FROM CohortFunnel f WHERE f.cohortWeek = :cohortWeek")
+    int deleteCohort(@Param("cohortWeek") LocalDate cohortWeek);
+
+    @Modifying
+    @Query("DELETE FROM CohortFunnel f WHERE f.cohortWeek < :before")
+    int deleteOlderThan(@Param("before") LocalDate before);
+}
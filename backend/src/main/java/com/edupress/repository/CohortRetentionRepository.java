@@ -0,0 +1,26 @@
+package com.edupress.repository;
+
+import com.edupress.model.CohortRetention;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface CohortRetentionRepository extends JpaRepository<CohortRetention, Long> {
+
+    List<CohortRetention> findByCohortTypeAndCohortWeekGreaterThanEqualOrderByCohortWeekAscWeekOffsetAsc(
+            CohortRetention.CohortType cohortType, LocalDate since);
+
+    @Modifying
+    @Query("DELETE FROM CohortRetention r WHERE r.cohortType = :cohortType AND r.cohortWeek = :cohortWeek")
+    int deleteCohort(@Param("cohortType") CohortRetention.CohortType cohortType, @Param("cohortWeek") LocalDate cohortWeek);
+
+    @Modifying
+    @Query("DELETE FROM CohortRetention r WHERE r.cohortWeek < :before")
+    int deleteOlderThan(@Param("before") LocalDate before);
+}
@@ -0,0 +1,79 @@
+package com.edupress.repository;
+
+import com.edupress.model.CourseAnalytics;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Event handlers only ever move counters with in-place {@code UPDATE ... SET x = x + :delta}
+ * statements, so concurrent events for the same course never overwrite each other. They join
+ * the caller's transaction when there is one.
+ */
+@Repository
+public interface CourseAnalyticsRepository extends JpaRepository<CourseAnalytics, Long> {
+
+    // Rows of [CourseAnalytics, course title, course status]
+    @Query("SELECT a, c.title, c.status FROM CourseAnalytics a, Course c " +
+           "WHERE c.id = a.courseId AND a.instructorId = :instructorId ORDER BY c.title")
+    List<Object[]> findWithCourseByInstructorId(@Param("instructorId") Long instructorId);
+
+    @Query("SELECT c.id FROM Course c WHERE NOT EXISTS (SELECT a.courseId FROM CourseAnalytics a WHERE a.courseId = c.id)")
+    List<Long> findCourseIdsWithoutAnalytics();
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE CourseAnalytics a SET a.instructorId = :instructorId WHERE a.courseId = :courseId")
+    int updateInstructor(@Param("courseId") Long courseId, @Param("instructorId") Long instructorId);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE CourseAnalytics a SET a.activeEnrollments = a.activeEnrollments + :active, " +
+           "a.totalEnrollments = a.totalEnrollments + :enrolled, a.unenrollments = a.unenrollments + :unenrolled, " +
+           "a.lastActivityAt = :at, a.updatedAt = :at WHERE a.courseId = :courseId")
+    int addEnrollments(@Param("courseId") Long courseId, @Param("active") long active,
+                       @Param("enrolled") long enrolled, @Param("unenrolled") long unenrolled,
+                       @Param("at") LocalDateTime at);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE CourseAnalytics a SET a.lessonCompletions = a.lessonCompletions + 1, " +
+           "a.completedStudents = a.completedStudents + :completedStudents, " +
+           "a.lastActivityAt = :at, a.updatedAt = :at WHERE a.courseId = :courseId")
+    int addLessonCompletion(@Param("courseId") Long courseId, @Param("completedStudents") long completedStudents,
+                            @Param("at") LocalDateTime at);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE CourseAnalytics a SET a.quizAttempts = a.quizAttempts + 1, a.quizPassed = a.quizPassed + :passed, " +
+           "a.quizScoreSum = a.quizScoreSum + :score, a.quizMaxScoreSum = a.quizMaxScoreSum + :maxScore, " +
+           "a.lastActivityAt = :at, a.updatedAt = :at WHERE a.courseId = :courseId")
+    int addQuizAttempt(@Param("courseId") Long courseId, @Param("passed") long passed,
+                       @Param("score") long score, @Param("maxScore") long maxScore,
+                       @Param("at") LocalDateTime at);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE CourseAnalytics a SET a.submissions = a.submissions + 1, " +
+           "a.lastActivityAt = :at, a.updatedAt = :at WHERE a.courseId = :courseId")
+    int addSubmission(@Param("courseId") Long courseId, @Param("at") LocalDateTime at);
+
+    /** Moves one graded submission into the grade band {@code to}, out of {@code from} on a regrade (-1 for none). */
+    @Modifying
+    @Transactional
+    @Query("UPDATE CourseAnalytics a SET a.gradedSubmissions = a.gradedSubmissions + :newlyGraded, " +
+           "a.gradeA = a.gradeA + (CASE WHEN :to = 0 THEN 1 ELSE 0 END) - (CASE WHEN :from = 0 THEN 1 ELSE 0 END), " +
+           "a.gradeB = a.gradeB + (CASE WHEN :to = 1 THEN 1 ELSE 0 END) - (CASE WHEN :from = 1 THEN 1 ELSE 0 END), " +
+           "a.gradeC = a.gradeC + (CASE WHEN :to = 2 THEN 1 ELSE 0 END) - (CASE WHEN :from = 2 THEN 1 ELSE 0 END), " +
+           "a.gradeD = a.gradeD + (CASE WHEN :to = 3 THEN 1 ELSE 0 END) - (CASE WHEN :from = 3 THEN 1 ELSE 0 END), " +
+           "a.gradeF = a.gradeF + (CASE WHEN :to = 4 THEN 1 ELSE 0 END) - (CASE WHEN :from = 4 THEN 1 ELSE 0 END), " +
+           "a.updatedAt = :at WHERE a.courseId = :courseId")
+    int moveGrade(@Param("courseId") Long courseId, @Param("newlyGraded") long newlyGraded,
+                  @Param("from") int from, @Param("to") int to, @Param("at") LocalDateTime at);
+}
@@ -1,16 +1,24 @@
 package com.edupress.repository;
 
 import com.edupress.model.Course;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import com.edupress.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
+import java.util.Collection;
 
 @Repository
 public interface CourseRepository extends JpaRepository<Course, Long> {
@@ -71,6 +79,23 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
     @Query("SELECT COUNT(c) FROM Course c WHERE c.status = 'PUBLISHED' AND c.isFree = false")
     long countPaidCourses();
     
+    // Single grouped scan used by dashboard aggregation: rows of [status, isFree, count]
+    @Query("SELECT c.status, c.isFree, COUNT(c) FROM Course c GROUP BY c.status, c.isFree")
+    List<Object[]> countCoursesGroupedByStatusAndFree();
+    
+    // Creation timestamps only, used to seed the analytics time series
+    @Query("SELECT c.createdAt FROM Course c WHERE c.createdAt >= :since")
+    List<LocalDateTime> findCreatedAtSince(@Param("since") LocalDateTime since);
+    
+    // Export rows of ExportService.COURSE_COLUMNS; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c.id, c.title, c.status, c.isFree, c.price, c.enrollmentCount, c.averageRating, i.id, c.createdAt " +
+           "FROM Course c LEFT JOIN c.instructor i ORDER BY c.id")
+    Stream<Object[]> streamExportRows();
+    
     @Query("SELECT SUM(c.enrollmentCount) FROM Course c WHERE c.status = 'PUBLISHED'")
     Long getTotalEnrollments();
 
@@ -79,10 +104,41 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
     
     // Additional instructor-specific methods
     long countByInstructorId(Long instructorId);
+
+    @Query("SELECT c.id FROM Course c ORDER BY c.id")
+    List<Long> findAllIds();
+
+    @Query("SELECT COUNT(DISTINCT s.id) FROM Course c JOIN c.enrolledStudents s WHERE c.instructor.id = :instructorId")
+    long countDistinctStudentsByInstructorId(@Param("instructorId") Long instructorId);
+
+    @Query("SELECT c.id FROM Course c WHERE c.instructor.id = :instructorId")
+    List<Long> findIdsByInstructorId(@Param("instructorId") Long instructorId);
     
     long countByInstructorIdAndStatus(Long instructorId, Course.Status status);
     
     List<Course> findTop5ByInstructorIdOrderByCreatedAtDesc(Long instructorId);
     
     List<Course> findTop5ByInstructorIdOrderByEnrollmentCountDesc(Long instructorId);
+
+    @Query("SELECT COUNT(s) FROM Course c JOIN c.enrolledStudents s WHERE c.id = :courseId")
+    long countEnrolledStudents(@Param("courseId") Long courseId);
+
+    // Rows of [courseId, instructorId, enrolled students]
+    @Query("SELECT c.id, c.instructor.id, COUNT(s) FROM Course c LEFT JOIN c.enrolledStudents s " +
+           "WHERE c.id IN :courseIds GROUP BY c.id, c.instructor.id")
+    List<Object[]> countEnrolledStudentsByCourse(@Param("courseIds") Collection<Long> courseIds);
+
+    // Stored file references, for blob garbage collection
+    @Query("SELECT c.thumbnailImage FROM Course c WHERE c.thumbnailImage IS NOT NULL")
+    List<String> findAllThumbnailImages();
+
+    // Rows of [thumbnailImage, instructor id], for the storage sweeper
+    @Query("SELECT c.thumbnailImage, c.instructor.id FROM Course c WHERE c.thumbnailImage IS NOT NULL")
+    List<Object[]> findThumbnailImageOwners();
+
+    // Repoints records at a relocated file; matching on the old value makes it a compare-and-set
+    @Modifying
+    @Transactional
+    @Query("UPDATE Course c SET c.thumbnailImage = :newImage WHERE c.thumbnailImage = :oldImage")
+    int replaceThumbnailImage(@Param("oldImage") String oldImage, @Param("newImage") String newImage);
 }
@@ -0,0 +1,59 @@
+package com.edupress.repository;
+
+import com.edupress.model.EnrollmentRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface EnrollmentRecordRepository extends JpaRepository<EnrollmentRecord, Long> {
+
+    Optional<EnrollmentRecord> findByUserIdAndCourseId(Long userId, Long courseId);
+
+    long countByCourseIdInAndEnrolledAtGreaterThanEqual(Collection<Long> courseIds, LocalDateTime since);
+
+    // Rows of [userId, courseId, user signup time, first successful payment time] for join-table
+    // enrollments that predate this table
+    @Query("SELECT u.id, c.id, u.createdAt, " +
+           "(SELECT MIN(p.updatedAt) FROM Payment p WHERE p.user = u AND p.course = c AND p.status = 'SUCCEEDED') " +
+           "FROM User u JOIN u.enrolledCourses c " +
+           "WHERE NOT EXISTS (SELECT r.id FROM EnrollmentRecord r WHERE r.userId = u.id AND r.courseId = c.id)")
+    List<Object[]> findUnrecordedEnrollments();
+
+    // Rows of [userId, courseId]
+    @Query("SELECT r.userId, r.courseId FROM EnrollmentRecord r WHERE r.enrolledAt >= :from AND r.enrolledAt < :to")
+    List<Object[]> findEnrolledBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Rows of [userId, enrolledAt]
+    @Query("SELECT r.userId, r.enrolledAt FROM EnrollmentRecord r " +
+           "WHERE r.userId IN :userIds AND r.enrolledAt >= :from AND r.enrolledAt < :to")
+    List<Object[]> findActivityBetween(@Param("userIds") Collection<Long> userIds,
+                                       @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Enrollment times (within the horizon) of enrollments that are new since {@code since} or
+     * whose student has done anything since then. Used to find cohorts that need recomputing.
+     */
+    @Query("SELECT DISTINCT r.enrolledAt FROM EnrollmentRecord r WHERE r.enrolledAt >= :oldest AND (" +
+           "r.enrolledAt >= :since " +
+           "OR r.userId IN (SELECT lp.userId FROM LessonProgress lp WHERE lp.completedAt >= :since) " +
+           "OR r.userId IN (SELECT qa.user.id FROM QuizAttempt qa WHERE qa.createdAt >= :since) " +
+           "OR r.userId IN (SELECT s.student.id FROM AssignmentSubmission s WHERE s.createdAt >= :since) " +
+           "OR r.userId IN (SELECT c.student.id FROM Certificate c WHERE c.issueDate >= :since))")
+    List<LocalDateTime> findEnrollmentTimesTouchedSince(@Param("since") LocalDateTime since,
+                                                        @Param("oldest") LocalDateTime oldest);
+
+    // Rows of [courseId, enrollments, unenrollments]
+    @Query("SELECT r.courseId, COUNT(r), SUM(CASE WHEN r.unenrolledAt IS NOT NULL THEN 1 ELSE 0 END) " +
+           "FROM EnrollmentRecord r WHERE r.courseId IN :courseIds GROUP BY r.courseId")
+    List<Object[]> countByCourse(@Param("courseIds") Collection<Long> courseIds);
+
+    @Query("SELECT r.enrolledAt FROM EnrollmentRecord r WHERE r.courseId = :courseId AND r.enrolledAt >= :from")
+    List<LocalDateTime> findEnrollmentTimesSince(@Param("courseId") Long courseId, @Param("from") LocalDateTime from);
+}
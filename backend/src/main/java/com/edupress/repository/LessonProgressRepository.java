@@ -0,0 +1,39 @@
+package com.edupress.repository;
+
+import com.edupress.model.LessonProgress;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LessonProgressRepository extends JpaRepository<LessonProgress, Long> {
+
+    boolean existsByUserIdAndLessonId(Long userId, Long lessonId);
+
+    long countByUserIdAndCourseId(Long userId, Long courseId);
+
+    // Rows of [userId, completedAt]
+    @Query("SELECT lp.userId, lp.completedAt FROM LessonProgress lp " +
+           "WHERE lp.userId IN :userIds AND lp.completedAt >= :from AND lp.completedAt < :to")
+    List<Object[]> findActivityBetween(@Param("userIds") Collection<Long> userIds,
+                                       @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Rows of [userId, courseId, completed lessons]
+    @Query("SELECT lp.userId, lp.courseId, COUNT(lp) FROM LessonProgress lp " +
+           "WHERE lp.userId IN :userIds AND lp.courseId IS NOT NULL GROUP BY lp.userId, lp.courseId")
+    List<Object[]> countByUserAndCourse(@Param("userIds") Collection<Long> userIds);
+
+    // Rows of [courseId, userId, completed lessons]
+    @Query("SELECT lp.courseId, lp.userId, COUNT(lp) FROM LessonProgress lp " +
+           "WHERE lp.courseId IN :courseIds GROUP BY lp.courseId, lp.userId")
+    List<Object[]> countByCourseAndUser(@Param("courseIds") Collection<Long> courseIds);
+
+    // Rows of [lessonId, students who completed it]
+    @Query("SELECT lp.lessonId, COUNT(lp) FROM LessonProgress lp WHERE lp.courseId = :courseId GROUP BY lp.lessonId")
+    List<Object[]> countByLesson(@Param("courseId") Long courseId);
+}
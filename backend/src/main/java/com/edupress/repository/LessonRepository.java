@@ -34,4 +34,12 @@ public interface LessonRepository extends JpaRepository<Lesson, Long> {
     Page<Lesson> searchByTitleOrDescription(@Param("searchTerm") String searchTerm, Pageable pageable);
     
     List<Lesson> findByIsFreeTrue();
+
+    // Rows of [courseId, lesson count]
+    @Query("SELECT l.course.id, COUNT(l) FROM Lesson l GROUP BY l.course.id")
+    List<Object[]> countGroupedByCourse();
+
+    // Rows of [lessonId, title, orderIndex] in course order
+    @Query("SELECT l.id, l.title, l.orderIndex FROM Lesson l WHERE l.course.id = :courseId ORDER BY l.orderIndex, l.id")
+    List<Object[]> findOutlineByCourseId(@Param("courseId") Long courseId);
 }
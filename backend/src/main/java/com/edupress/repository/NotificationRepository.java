@@ -32,6 +32,10 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     @Modifying
     @Query("DELETE FROM Notification n WHERE n.user = :user AND n.createdAt < :before")
     int deleteOldNotificationsByUser(@Param("user") User user, @Param("before") LocalDateTime before);
+
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.user = :user AND n.isRead = true")
+    int deleteReadByUser(@Param("user") User user);
     
     @Query("SELECT n FROM Notification n WHERE n.type = :type AND n.createdAt >= :after")
     List<Notification> findByTypeAndCreatedAfter(@Param("type") Notification.Type type, 
@@ -43,4 +47,8 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     long countByIsReadFalse();
     
     long countByIsReadTrue();
+
+    // Single grouped scan used by dashboard aggregation: rows of [isRead, count]
+    @Query("SELECT n.isRead, COUNT(n) FROM Notification n GROUP BY n.isRead")
+    List<Object[]> countGroupedByReadStatus();
 }
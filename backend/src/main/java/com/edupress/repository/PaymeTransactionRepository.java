@@ -33,6 +33,22 @@ public interface PaymeTransactionRepository extends JpaRepository<PaymeTransacti
     @Query("SELECT SUM(pt.amount) FROM PaymeTransaction pt WHERE pt.state = :state")
     Long getTotalAmountByState(@Param("state") PaymeTransaction.TransactionState state);
     
+    @Query("SELECT pt.state, COUNT(pt) FROM PaymeTransaction pt GROUP BY pt.state")
+    List<Object[]> countGroupedByState();
+    
+    @Query("SELECT pt.performTime FROM PaymeTransaction pt WHERE pt.performTime >= :since AND pt.state IN :states")
+    List<Long> findPerformTimesSince(@Param("since") Long since, @Param("states") List<PaymeTransaction.TransactionState> states);
+    
+    @Query("SELECT MAX(pt.id) FROM PaymeTransaction pt")
+    Long findMaxId();
+    
+    // Ledger replay rows of [id, userId, courseId, instructorId, amount, state, performTime, cancelTime]
+    @Query("SELECT pt.id, u.id, c.id, i.id, pt.amount, pt.state, pt.performTime, pt.cancelTime FROM PaymeTransaction pt " +
+           "JOIN pt.user u JOIN pt.course c LEFT JOIN c.instructor i " +
+           "WHERE pt.id > :afterId AND pt.id <= :toId AND pt.state IN :states")
+    List<Object[]> findLedgerRows(@Param("afterId") Long afterId, @Param("toId") Long toId,
+                                  @Param("states") List<PaymeTransaction.TransactionState> states);
+    
     boolean existsByUserIdAndCourseIdAndState(Long userId, Long courseId, PaymeTransaction.TransactionState state);
     
     @Query("SELECT pt FROM PaymeTransaction pt WHERE pt.createdAt < :cutoffDate")
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -43,5 +44,20 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     @Query("SELECT SUM(p.amount) FROM Payment p WHERE p.status = 'SUCCEEDED'")
     Double getTotalRevenue();
     
+    @Query("SELECT p.status, COUNT(p) FROM Payment p GROUP BY p.status")
+    List<Object[]> countGroupedByStatus();
+    
+    @Query("SELECT p.updatedAt FROM Payment p WHERE p.status = 'SUCCEEDED' AND p.updatedAt >= :since")
+    List<LocalDateTime> findSucceededAtSince(@Param("since") LocalDateTime since);
+    
+    @Query("SELECT MAX(p.id) FROM Payment p")
+    Long findMaxId();
+    
+    // Ledger replay rows of [id, userId, courseId, instructorId, amount, currency, updatedAt]
+    @Query("SELECT p.id, u.id, c.id, i.id, p.amount, p.currency, p.updatedAt FROM Payment p " +
+           "JOIN p.user u JOIN p.course c LEFT JOIN c.instructor i " +
+           "WHERE p.id > :afterId AND p.id <= :toId AND p.status = 'SUCCEEDED'")
+    List<Object[]> findSucceededLedgerRows(@Param("afterId") Long afterId, @Param("toId") Long toId);
+    
     boolean existsByUserAndCourseAndStatus(User user, Course course, Payment.PaymentStatus status);
 }
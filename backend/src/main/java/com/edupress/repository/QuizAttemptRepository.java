@@ -1,17 +1,23 @@
 package com.edupress.repository;
 
 import com.edupress.model.QuizAttempt;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import com.edupress.model.Quiz;
 import com.edupress.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import java.time.LocalDateTime;
+import java.util.Collection;
 
 @Repository
 public interface QuizAttemptRepository extends JpaRepository<QuizAttempt, Long> {
@@ -41,4 +47,30 @@ public interface QuizAttemptRepository extends JpaRepository<QuizAttempt, Long>
     
     @Query("SELECT COUNT(qa) FROM QuizAttempt qa WHERE qa.quiz.id = :quizId AND qa.score >= qa.quiz.passingScore")
     long countPassedAttemptsByQuizId(@Param("quizId") Long quizId);
+    
+    // Export rows of [attemptId, userId, username, email, score, status, timeSpent, startedAt, completedAt]
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT qa.id, u.id, u.username, u.email, qa.score, qa.status, qa.timeSpent, qa.startedAt, qa.completedAt " +
+           "FROM QuizAttempt qa LEFT JOIN qa.user u WHERE qa.quiz.id = :quizId ORDER BY qa.id")
+    Stream<Object[]> streamResultRowsByQuizId(@Param("quizId") Long quizId);
+
+    // Rows of [userId, createdAt]
+    @Query("SELECT qa.user.id, qa.createdAt FROM QuizAttempt qa " +
+           "WHERE qa.user.id IN :userIds AND qa.createdAt >= :from AND qa.createdAt < :to")
+    List<Object[]> findActivityBetween(@Param("userIds") Collection<Long> userIds,
+                                       @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Rows of [userId, courseId] where the user has at least one passing attempt in the course
+    @Query("SELECT DISTINCT qa.user.id, qa.quiz.lesson.course.id FROM QuizAttempt qa " +
+           "WHERE qa.user.id IN :userIds AND qa.score >= qa.quiz.passingScore")
+    List<Object[]> findPassedUserCourses(@Param("userIds") Collection<Long> userIds);
+
+    // Rows of [courseId, completed attempts, passing attempts, score sum, max score sum]
+    @Query("SELECT c.id, COUNT(qa), SUM(CASE WHEN qa.score >= q.passingScore THEN 1 ELSE 0 END), " +
+           "SUM(qa.score), SUM(q.maxScore) FROM QuizAttempt qa JOIN qa.quiz q JOIN q.lesson l JOIN l.course c " +
+           "WHERE qa.status = 'COMPLETED' AND c.id IN :courseIds GROUP BY c.id")
+    List<Object[]> sumCompletedByCourse(@Param("courseIds") Collection<Long> courseIds);
 }
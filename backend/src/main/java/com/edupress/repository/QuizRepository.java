@@ -31,4 +31,11 @@ public interface QuizRepository extends JpaRepository<Quiz, Long> {
     
     @Query("SELECT q FROM Quiz q WHERE q.title LIKE %:searchTerm% OR q.description LIKE %:searchTerm%")
     Page<Quiz> searchByTitleOrDescription(@Param("searchTerm") String searchTerm, Pageable pageable);
+
+    @Query("SELECT DISTINCT q.lesson.course.id FROM Quiz q WHERE q.isActive = true")
+    List<Long> findCourseIdsWithActiveQuizzes();
+
+    // Instructor of the quiz's course; null when the quiz or the instructor doesn't exist
+    @Query("SELECT i.id FROM Quiz q JOIN q.lesson l JOIN l.course c LEFT JOIN c.instructor i WHERE q.id = :quizId")
+    Long findInstructorIdById(@Param("quizId") Long quizId);
 }
@@ -0,0 +1,45 @@
+package com.edupress.repository;
+
+import com.edupress.model.RevenueLedgerEntry;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface RevenueLedgerRepository extends JpaRepository<RevenueLedgerEntry, Long> {
+
+    boolean existsByProviderAndSourceIdAndEntryType(RevenueLedgerEntry.Provider provider, Long sourceId,
+                                                    RevenueLedgerEntry.EntryType entryType);
+
+    // Rows of [instructorId, currency, sum]
+    @Query("SELECT e.instructorId, e.currency, SUM(e.amount) FROM RevenueLedgerEntry e " +
+           "WHERE e.instructorId IS NOT NULL GROUP BY e.instructorId, e.currency")
+    List<Object[]> sumByInstructorAndCurrency();
+
+    // Rows of [courseId, currency, sum]
+    @Query("SELECT e.courseId, e.currency, SUM(e.amount) FROM RevenueLedgerEntry e " +
+           "WHERE e.courseId IS NOT NULL GROUP BY e.courseId, e.currency")
+    List<Object[]> sumByCourseAndCurrency();
+
+    // Rows of [entryDate, currency, sum]
+    @Query("SELECT e.entryDate, e.currency, SUM(e.amount) FROM RevenueLedgerEntry e GROUP BY e.entryDate, e.currency")
+    List<Object[]> sumByDateAndCurrency();
+
+    // Export rows of ExportService.REVENUE_COLUMNS; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT e.id, e.provider, e.sourceId, e.entryType, e.userId, e.courseId, e.instructorId, " +
+           "e.amount, e.currency, e.occurredAt FROM RevenueLedgerEntry e " +
+           "WHERE e.entryDate BETWEEN :from AND :to ORDER BY e.id")
+    Stream<Object[]> streamExportRows(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
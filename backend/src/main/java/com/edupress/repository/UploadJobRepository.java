@@ -0,0 +1,15 @@
+package com.edupress.repository;
+
+import com.edupress.model.UploadJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface UploadJobRepository extends JpaRepository<UploadJob, String> {
+
+    List<UploadJob> findByStatusInAndUpdatedAtBefore(Collection<UploadJob.Status> statuses, LocalDateTime time);
+}
@@ -0,0 +1,16 @@
+package com.edupress.repository;
+
+import com.edupress.model.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    List<UploadSession> findByStatusAndExpiresAtBefore(UploadSession.UploadStatus status, LocalDateTime time);
+
+    List<UploadSession> findByUserIdAndStatusOrderByCreatedAtDesc(Long userId, UploadSession.UploadStatus status);
+}
@@ -1,15 +1,22 @@
 package com.edupress.repository;
 
 import com.edupress.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -51,6 +58,23 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     long countByEmailVerifiedTrue();
 
+    // Single grouped scan used by dashboard aggregation: rows of [role, count]
+    @Query("SELECT u.role, COUNT(u) FROM User u GROUP BY u.role")
+    List<Object[]> countUsersGroupedByRole();
+
+    // Creation timestamps only, used to seed the analytics time series
+    @Query("SELECT u.createdAt FROM User u WHERE u.createdAt >= :since")
+    List<LocalDateTime> findCreatedAtSince(@Param("since") LocalDateTime since);
+
+    // Export rows of ExportService.USER_COLUMNS; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u.id, u.username, u.email, u.firstName, u.lastName, u.role, u.isActive, u.createdAt " +
+           "FROM User u ORDER BY u.id")
+    Stream<Object[]> streamExportRows();
+
     @Query("SELECT u FROM User u WHERE " +
            "LOWER(u.firstName) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
            "LOWER(u.lastName) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
@@ -60,4 +84,39 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     Page<User> findByUsernameContainingIgnoreCaseOrEmailContainingIgnoreCaseOrFirstNameContainingIgnoreCaseOrLastNameContainingIgnoreCase(
             String username, String email, String firstName, String lastName, Pageable pageable);
+
+    @Query("SELECT u.id FROM User u WHERE u.role = 'STUDENT' AND u.createdAt >= :from AND u.createdAt < :to")
+    List<Long> findStudentIdsCreatedBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Signup times (within the horizon) of students who signed up or did anything since
+     * {@code since}. Used to find signup cohorts that need recomputing.
+     */
+    @Query("SELECT DISTINCT u.createdAt FROM User u WHERE u.role = 'STUDENT' AND u.createdAt >= :oldest AND (" +
+           "u.createdAt >= :since " +
+           "OR u.id IN (SELECT lp.userId FROM LessonProgress lp WHERE lp.completedAt >= :since) " +
+           "OR u.id IN (SELECT qa.user.id FROM QuizAttempt qa WHERE qa.createdAt >= :since) " +
+           "OR u.id IN (SELECT s.student.id FROM AssignmentSubmission s WHERE s.createdAt >= :since) " +
+           "OR u.id IN (SELECT r.userId FROM EnrollmentRecord r WHERE r.enrolledAt >= :since))")
+    List<LocalDateTime> findStudentSignupTimesTouchedSince(@Param("since") LocalDateTime since,
+                                                           @Param("oldest") LocalDateTime oldest);
+
+    // Keyset chunk of a course's enrolled students: ids above afterId, ascending
+    @Query("SELECT u.id FROM User u JOIN u.enrolledCourses c WHERE c.id = :courseId AND u.id > :afterId ORDER BY u.id")
+    List<Long> findEnrolledStudentIdsAfter(@Param("courseId") Long courseId, @Param("afterId") Long afterId,
+                                           Pageable pageable);
+
+    // Stored file references, for blob garbage collection
+    @Query("SELECT u.profileImage FROM User u WHERE u.profileImage IS NOT NULL")
+    List<String> findAllProfileImages();
+
+    // Rows of [profileImage, user id], for the storage sweeper
+    @Query("SELECT u.profileImage, u.id FROM User u WHERE u.profileImage IS NOT NULL")
+    List<Object[]> findProfileImageOwners();
+
+    // Repoints records at a relocated file; matching on the old value makes it a compare-and-set
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.profileImage = :newImage WHERE u.profileImage = :oldImage")
+    int replaceProfileImage(@Param("oldImage") String oldImage, @Param("newImage") String newImage);
 }
@@ -0,0 +1,9 @@
+package com.edupress.repository;
+
+import com.edupress.model.VideoAnalytics;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface VideoAnalyticsRepository extends JpaRepository<VideoAnalytics, Long> {
+}
@@ -6,9 +6,12 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -36,4 +39,39 @@ public interface VideoRepository extends JpaRepository<Video, Long> {
     
     @Query("SELECT v FROM Video v WHERE v.averageRating >= :minRating ORDER BY v.averageRating DESC")
     List<Video> findByMinimumRating(@Param("minRating") Double minRating);
+
+    // Rows of [videoId, duration, courseId]
+    @Query("SELECT v.id, v.duration, c.id FROM Video v LEFT JOIN v.lesson l LEFT JOIN l.course c WHERE v.id = :videoId")
+    List<Object[]> findPlaybackInfo(@Param("videoId") Long videoId);
+
+    // Rows of [videoId, video title, lessonId, lesson title, lesson orderIndex] in course order
+    @Query("SELECT v.id, v.title, l.id, l.title, l.orderIndex FROM Video v JOIN v.lesson l " +
+           "WHERE l.course.id = :courseId AND v.isActive = true ORDER BY l.orderIndex, v.orderIndex")
+    List<Object[]> findOutlineByCourseId(@Param("courseId") Long courseId);
+
+    // Rows of [videoId, video title, lessonId, lesson title, courseId, course title]
+    @Query("SELECT v.id, v.title, l.id, l.title, c.id, c.title FROM Video v LEFT JOIN v.lesson l LEFT JOIN l.course c " +
+           "WHERE v.id IN :videoIds")
+    List<Object[]> findTitlesByIds(@Param("videoIds") Collection<Long> videoIds);
+
+    // Stored file references, for blob garbage collection
+    @Query("SELECT v.filePath FROM Video v WHERE v.filePath IS NOT NULL")
+    List<String> findAllFilePaths();
+
+    // Rows of [filePath, course instructor id], for the storage sweeper
+    @Query("SELECT v.filePath, i.id FROM Video v LEFT JOIN v.lesson l LEFT JOIN l.course c LEFT JOIN c.instructor i " +
+           "WHERE v.filePath IS NOT NULL")
+    List<Object[]> findFilePathOwners();
+
+    // Repoints records at a relocated file; matching on the old value makes it a compare-and-set
+    @Modifying
+    @Transactional
+    @Query("UPDATE Video v SET v.filePath = :newPath WHERE v.filePath = :oldPath")
+    int replaceFilePath(@Param("oldPath") String oldPath, @Param("newPath") String newPath);
+
+    // Repoints records at the fast-start rewrite of their file; a compare-and-set on the old key
+    @Modifying
+    @Transactional
+    @Query("UPDATE Video v SET v.filePath = :newPath, v.fastStart = true WHERE v.filePath = :oldPath")
+    int replaceWithFastStartFile(@Param("oldPath") String oldPath, @Param("newPath") String newPath);
 }
@@ -71,6 +71,10 @@ public class WebSecurityConfig {
                 .requestMatchers("/api/categories/**").permitAll()
                 .requestMatchers("/api/blog/posts/published/**").permitAll()
                 .requestMatchers("/h2-console/**").permitAll()
+                // Checks its own scrape token or admin role, see MetricsController
+                .requestMatchers("/api/metrics/prometheus").permitAll()
+                // Authorized by the URL signature, see MediaController
+                .requestMatchers("/media/**").permitAll()
                 .anyRequest().authenticated()
             );
 
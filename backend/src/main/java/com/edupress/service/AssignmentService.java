@@ -1,24 +1,23 @@
 package com.edupress.service;
 
+import com.edupress.event.AssignmentEvent;
+import com.edupress.export.ExportFormat;
 import com.edupress.model.*;
 import com.edupress.repository.*;
+import com.edupress.storage.ContentAddressedStore;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.IOException;
 import java.math.BigDecimal;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 @Transactional
@@ -36,7 +35,14 @@ public class AssignmentService {
     @Autowired
     private UserRepository userRepository;
 
-    private final String uploadDir = "uploads/assignments/";
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ContentAddressedStore contentStore;
 
     // Assignment CRUD operations
     public Assignment createAssignment(Assignment assignment) {
@@ -96,8 +102,12 @@ public class AssignmentService {
     }
 
     // Assignment submission operations
-    public AssignmentSubmission submitAssignment(Long assignmentId, Long studentId, MultipartFile file) 
-            throws IOException {
+    /**
+     * Checks a submission before its file is processed and returns the file's extension. Runs
+     * again in {@link #createSubmission}, since other attempts may land in between.
+     */
+    @Transactional(readOnly = true)
+    public String checkSubmission(Long assignmentId, Long studentId, String fileName, long fileSize) {
         Assignment assignment = findById(assignmentId)
                 .orElseThrow(() -> new RuntimeException("Assignment not found with id: " + assignmentId));
         
@@ -112,12 +122,11 @@ public class AssignmentService {
 
         // Validate file size (convert MB to bytes)
         long maxSizeInBytes = assignment.getMaxFileSize() * 1024 * 1024;
-        if (file.getSize() > maxSizeInBytes) {
+        if (fileSize > maxSizeInBytes) {
             throw new RuntimeException("File size exceeds maximum allowed size: " + assignment.getMaxFileSize() + "MB");
         }
 
         // Validate file type
-        String fileName = file.getOriginalFilename();
         if (fileName == null || fileName.isEmpty()) {
             throw new RuntimeException("Invalid file name");
         }
@@ -134,22 +143,21 @@ public class AssignmentService {
         if (!isValidType) {
             throw new RuntimeException("File type not allowed. Allowed types: " + assignment.getAllowedFileTypes());
         }
+        return fileExtension;
+    }
 
-        // Save file
-        String uniqueFileName = UUID.randomUUID().toString() + "_" + fileName;
-        Path uploadPath = Paths.get(uploadDir);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
-        }
-        
-        Path filePath = uploadPath.resolve(uniqueFileName);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+    // Called by UploadPipelineService once the submitted file is in the content store
+    public AssignmentSubmission createSubmission(Long assignmentId, Long studentId, String fileName,
+                                                 String blobKey, long fileSize) {
+        String fileExtension = checkSubmission(assignmentId, studentId, fileName, fileSize);
+        Assignment assignment = assignmentRepository.getReferenceById(assignmentId);
+        User student = userRepository.getReferenceById(studentId);
 
-        // Create submission record
+        // Create submission record; identical submissions share one stored copy
         AssignmentSubmission submission = new AssignmentSubmission(
                 fileName, 
-                filePath.toString(), 
-                file.getSize(), 
+                blobKey, 
+                fileSize, 
                 assignment, 
                 student
         );
@@ -160,7 +168,9 @@ public class AssignmentService {
             submission.setStatus(AssignmentSubmission.SubmissionStatus.LATE);
         }
 
-        return submissionRepository.save(submission);
+        submission = submissionRepository.save(submission);
+        eventPublisher.publishEvent(AssignmentEvent.submitted(submission));
+        return submission;
     }
 
     public AssignmentSubmission gradeSubmission(Long submissionId, BigDecimal score, String feedback, Long graderId) {
@@ -170,13 +180,16 @@ public class AssignmentService {
         User grader = userRepository.findById(graderId)
                 .orElseThrow(() -> new RuntimeException("Grader not found with id: " + graderId));
 
+        BigDecimal previousScore = submission.getScore();
         submission.setScore(score);
         submission.setFeedback(feedback);
         submission.setGradedBy(grader);
         submission.setGradedAt(LocalDateTime.now());
         submission.setStatus(AssignmentSubmission.SubmissionStatus.GRADED);
 
-        return submissionRepository.save(submission);
+        submission = submissionRepository.save(submission);
+        eventPublisher.publishEvent(AssignmentEvent.graded(submission, previousScore));
+        return submission;
     }
 
     public List<AssignmentSubmission> getSubmissionsByStudent(Long studentId) {
@@ -223,7 +236,7 @@ public class AssignmentService {
     public Path getSubmissionFilePath(Long submissionId) {
         AssignmentSubmission submission = submissionRepository.findById(submissionId)
                 .orElseThrow(() -> new RuntimeException("Submission not found with id: " + submissionId));
-        return Paths.get(submission.getFilePath());
+        return contentStore.localFileOf(submission.getFilePath());
     }
 
     // Enhanced assignment management methods
@@ -287,13 +300,22 @@ public class AssignmentService {
         return "Export functionality not yet implemented for assignment: " + assignment.getTitle();
     }
 
-    public Object exportGrades(Long assignmentId) {
-        Assignment assignment = findById(assignmentId)
-                .orElseThrow(() -> new RuntimeException("Assignment not found with id: " + assignmentId));
-        
-        // TODO: Implement grades export functionality
-        // This would export assignment grades to CSV, Excel, etc.
-        return "Grades export functionality not yet implemented for assignment: " + assignment.getTitle();
+    /** Instructor of the assignment's course, who with admins may see its grades. */
+    public Long getInstructorId(Long assignmentId) {
+        if (!assignmentRepository.existsById(assignmentId)) {
+            throw new RuntimeException("Assignment not found with id: " + assignmentId);
+        }
+        return assignmentRepository.findInstructorIdById(assignmentId);
+    }
+
+    public StreamingResponseBody exportGrades(Long assignmentId, ExportFormat format, boolean gzip) {
+        if (!assignmentRepository.existsById(assignmentId)) {
+            throw new RuntimeException("Assignment not found with id: " + assignmentId);
+        }
+        String[] columns = {"submissionId", "studentId", "username", "email", "score", "status",
+                "submittedAt", "gradedAt"};
+        return exportService.stream(format, gzip, columns,
+                () -> submissionRepository.streamGradeRowsByAssignmentId(assignmentId));
     }
 
     public Assignment extendDeadline(Long assignmentId, String newDeadline) {
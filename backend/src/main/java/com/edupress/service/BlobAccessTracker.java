@@ -0,0 +1,91 @@
+package com.edupress.service;
+
+import com.edupress.model.BlobAccess;
+import com.edupress.repository.BlobAccessRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Last-access times of stored objects, for {@link StorageTieringService}. Serving a file only
+ * records the time in memory; a periodic flush writes the newest time per object in batches and
+ * skips rows that would move by less than an hour, so a video being streamed in hundreds of range
+ * requests costs one row update at most.
+ */
+@Service
+public class BlobAccessTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlobAccessTracker.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final Duration MIN_ADVANCE = Duration.ofHours(1);
+
+    @Autowired
+    private BlobAccessRepository blobAccessRepository;
+
+    private final ConcurrentHashMap<String, Long> pending = new ConcurrentHashMap<>();
+
+    /** Notes that the object was just served; null names (external URLs) are ignored. */
+    public void record(String objectName) {
+        if (objectName != null) {
+            pending.put(objectName, System.currentTimeMillis());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.storage.tiering.access-flush-interval-ms:60000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<String, Long> batch = new HashMap<>();
+        for (String name : new ArrayList<>(pending.keySet())) {
+            Long accessedAt = pending.remove(name);
+            if (accessedAt != null) {
+                batch.put(name, accessedAt);
+            }
+        }
+        List<String> names = new ArrayList<>(batch.keySet());
+        try {
+            for (int from = 0; from < names.size(); from += BATCH_SIZE) {
+                List<String> chunk = names.subList(from, Math.min(names.size(), from + BATCH_SIZE));
+                Map<String, BlobAccess> existing = new HashMap<>();
+                for (BlobAccess row : blobAccessRepository.findAllById(chunk)) {
+                    existing.put(row.getObjectName(), row);
+                }
+                List<BlobAccess> rows = new ArrayList<>();
+                for (String name : chunk) {
+                    LocalDateTime accessedAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(batch.get(name)), ZoneId.systemDefault());
+                    BlobAccess row = existing.get(name);
+                    if (row == null) {
+                        rows.add(new BlobAccess(name, accessedAt));
+                    } else if (Duration.between(row.getLastAccessedAt(), accessedAt).compareTo(MIN_ADVANCE) >= 0) {
+                        row.setLastAccessedAt(accessedAt);
+                        rows.add(row);
+                    }
+                }
+                blobAccessRepository.saveAll(rows);
+            }
+        } catch (Exception e) {
+            batch.forEach((name, accessedAt) -> pending.merge(name, accessedAt, Math::max));
+            logger.warn("Failed to persist access times of {} stored objects: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    @jakarta.annotation.PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
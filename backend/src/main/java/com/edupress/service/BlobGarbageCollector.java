@@ -0,0 +1,218 @@
+package com.edupress.service;
+
+import com.edupress.repository.AssignmentSubmissionRepository;
+import com.edupress.repository.BlogPostRepository;
+import com.edupress.repository.CourseRepository;
+import com.edupress.repository.UserRepository;
+import com.edupress.repository.VideoRepository;
+import com.edupress.storage.ContentAddressedStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Mark-and-sweep collection for {@link ContentAddressedStore}. The mark phase counts, per blob,
+ * the records pointing at it: video files, course thumbnails, assignment submissions, avatars and
+ * blog images. The sweep deletes blobs nobody points at, along with their cached image variants,
+ * but only once they are older than the grace period, so a blob uploaded moments ago whose record
+ * hasn't been committed yet is left alone.
+ * <p>
+ * Counts are derived from the referencing columns on every run rather than kept in a counter
+ * table: those columns are written from many places (course edits, duplication, uploads) and a
+ * separately maintained count would drift.
+ */
+@Service
+public class BlobGarbageCollector {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlobGarbageCollector.class);
+
+    @Value("${app.storage.gc.grace-hours:24}")
+    private int graceHours;
+
+    @Autowired
+    private ContentAddressedStore store;
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private AssignmentSubmissionRepository submissionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BlogPostRepository blogPostRepository;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    private final ReentrantLock running = new ReentrantLock();
+
+    /** Number of records referencing each blob key. Blobs with no references are absent. */
+    public Map<String, Integer> countReferences() {
+        Map<String, Integer> counts = new HashMap<>();
+        List<List<String>> columns = List.of(
+                videoRepository.findAllFilePaths(),
+                courseRepository.findAllThumbnailImages(),
+                submissionRepository.findAllFilePaths(),
+                userRepository.findAllProfileImages(),
+                blogPostRepository.findAllFeaturedImages());
+        for (List<String> references : columns) {
+            for (String reference : references) {
+                String key = ContentAddressedStore.keyOf(reference);
+                if (key != null) {
+                    counts.merge(key, 1, Integer::sum);
+                }
+            }
+        }
+        return counts;
+    }
+
+    @Scheduled(cron = "${app.storage.gc.cron:0 30 4 * * *}")
+    public void scheduledCollect() {
+        CollectionReport report = collect(false);
+        if (report != null) {
+            logger.info("Blob collection: {} blobs, {} unreferenced, {} deleted ({} bytes reclaimed) in {} ms",
+                    report.getBlobs(), report.getUnreferencedBlobs(), report.getDeletedBlobs(),
+                    report.getReclaimedBytes(), report.getDurationMs());
+        }
+    }
+
+    /**
+     * Runs one collection; with {@code dryRun} nothing is deleted and the report only describes
+     * usage. Returns null when another collection is already running.
+     */
+    public CollectionReport collect(boolean dryRun) {
+        if (!running.tryLock()) {
+            return null;
+        }
+        try {
+            long started = System.currentTimeMillis();
+            Instant cutoff = Instant.now().minus(Duration.ofHours(graceHours));
+            Map<String, Integer> references = countReferences();
+
+            CollectionReport report = new CollectionReport();
+            List<String> unreferenced = new ArrayList<>();
+            store.forEachBlob((key, size) -> {
+                report.blobs++;
+                report.storedBytes += size;
+                int count = references.getOrDefault(key, 0);
+                if (count > 0) {
+                    report.referencedBlobs++;
+                    report.references += count;
+                    report.logicalBytes += size * count;
+                } else {
+                    report.unreferencedBlobs++;
+                    report.unreferencedBytes += size;
+                    unreferenced.add(key);
+                }
+            });
+            report.missingBlobs = (int) references.keySet().stream().filter(key -> !store.exists(key)).count();
+
+            if (!dryRun) {
+                for (String key : unreferenced) {
+                    long freed = store.deleteIfOlderThan(key, cutoff);
+                    if (freed >= 0) {
+                        imageVariantService.evict(key);
+                        report.deletedBlobs++;
+                        report.reclaimedBytes += freed;
+                    }
+                }
+                report.purgedTempFiles = store.purgeTempFiles(cutoff);
+            }
+            report.durationMs = System.currentTimeMillis() - started;
+            return report;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Blob collection failed", e);
+        } finally {
+            running.unlock();
+        }
+    }
+
+    public static class CollectionReport {
+        private long blobs;
+        private long storedBytes;
+        private long referencedBlobs;
+        private long references;
+        private long logicalBytes;
+        private long unreferencedBlobs;
+        private long unreferencedBytes;
+        private int missingBlobs;
+        private long deletedBlobs;
+        private long reclaimedBytes;
+        private int purgedTempFiles;
+        private long durationMs;
+
+        public long getBlobs() {
+            return blobs;
+        }
+
+        /** Bytes on disk for all blobs. */
+        public long getStoredBytes() {
+            return storedBytes;
+        }
+
+        public long getReferencedBlobs() {
+            return referencedBlobs;
+        }
+
+        public long getReferences() {
+            return references;
+        }
+
+        /** Bytes the referenced files would take if every reference had its own copy. */
+        public long getLogicalBytes() {
+            return logicalBytes;
+        }
+
+        public long getDeduplicatedBytes() {
+            return Math.max(0, logicalBytes - (storedBytes - unreferencedBytes));
+        }
+
+        public long getUnreferencedBlobs() {
+            return unreferencedBlobs;
+        }
+
+        public long getUnreferencedBytes() {
+            return unreferencedBytes;
+        }
+
+        /** References to blobs that are not on disk. */
+        public int getMissingBlobs() {
+            return missingBlobs;
+        }
+
+        public long getDeletedBlobs() {
+            return deletedBlobs;
+        }
+
+        public long getReclaimedBytes() {
+            return reclaimedBytes;
+        }
+
+        public int getPurgedTempFiles() {
+            return purgedTempFiles;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+    }
+}
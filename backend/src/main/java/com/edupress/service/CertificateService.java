@@ -2,16 +2,17 @@ package com.edupress.service;
 
 import com.edupress.model.*;
 import com.edupress.repository.*;
+import com.edupress.storage.BlobStore;
+import com.edupress.storage.ShardedNames;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
@@ -39,8 +40,8 @@ public class CertificateService {
     @Autowired
     private AssignmentSubmissionRepository submissionRepository;
 
-    @Value("${app.upload.dir:uploads/}")
-    private String uploadDir;
+    @Autowired
+    private BlobStore blobStore;
 
     private final String certificateDir = "certificates/";
 
@@ -151,21 +152,14 @@ public class CertificateService {
     }
 
     private String generateCertificatePDF(Certificate certificate) throws IOException {
-        // Create certificates directory if it doesn't exist
-        Path certificatesPath = Paths.get(uploadDir, certificateDir);
-        if (!Files.exists(certificatesPath)) {
-            Files.createDirectories(certificatesPath);
-        }
-
-        String fileName = "certificate_" + certificate.getCertificateId() + ".pdf";
-        Path pdfPath = certificatesPath.resolve(fileName);
+        String objectName = ShardedNames.shard(certificateDir, "certificate_" + certificate.getCertificateId() + ".pdf");
 
         // TODO: Implement actual PDF generation using a library like iText or PDFBox
         // For now, creating a simple text file as placeholder
-        String content = generateCertificateContent(certificate);
-        Files.write(pdfPath, content.getBytes());
+        byte[] content = generateCertificateContent(certificate).getBytes();
+        blobStore.put(objectName, new ByteArrayInputStream(content), content.length);
 
-        return pdfPath.toString();
+        return objectName;
     }
 
     private String generateCertificateContent(Certificate certificate) {
@@ -246,8 +240,22 @@ public class CertificateService {
         if (certificate.getPdfFilePath() == null) {
             throw new RuntimeException("Certificate PDF not found");
         }
-        
-        return Paths.get(certificate.getPdfFilePath());
+
+        // Older rows hold a local path under the upload dir, whose file sits flat in certificateDir
+        // until the storage migration moves it to its sharded name
+        String stored = certificate.getPdfFilePath();
+        String objectName = stored.startsWith(certificateDir)
+                ? stored
+                : certificateDir + Paths.get(stored).getFileName();
+        try {
+            Path pdfPath = blobStore.localPath(objectName);
+            if (pdfPath == null) {
+                throw new RuntimeException("Certificate PDF not found");
+            }
+            return pdfPath;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read certificate PDF", e);
+        }
     }
 
     public boolean verifyCertificate(String certificateId) {
@@ -0,0 +1,474 @@
+package com.edupress.service;
+
+import com.edupress.model.CohortFunnel;
+import com.edupress.model.CohortRetention;
+import com.edupress.model.CohortRetention.CohortType;
+import com.edupress.model.JobCheckpoint;
+import com.edupress.repository.AssignmentSubmissionRepository;
+import com.edupress.repository.CertificateRepository;
+import com.edupress.repository.CohortFunnelRepository;
+import com.edupress.repository.CohortRetentionRepository;
+import com.edupress.repository.EnrollmentRecordRepository;
+import com.edupress.repository.JobCheckpointRepository;
+import com.edupress.repository.LessonProgressRepository;
+import com.edupress.repository.LessonRepository;
+import com.edupress.repository.QuizAttemptRepository;
+import com.edupress.repository.QuizRepository;
+import com.edupress.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Consumer;
+
+/**
+ * Weekly cohort retention and enrollment funnels, precomputed into compact result tables.
+ * <p>
+ * A run asks the database which cohort weeks were touched since the last checkpoint (new
+ * members, or members who did anything) and recomputes only those, each cohort on its own
+ * worker thread and transaction, replacing its rows in {@code cohort_retention} and
+ * {@code cohort_funnel}. The read methods then scan those small tables instead of joining
+ * progress, quiz and certificate data live. A full run recomputes every week in the horizon.
+ */
+@Service
+public class CohortAnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CohortAnalyticsService.class);
+
+    static final String JOB_NAME = "cohort-analytics";
+
+    // Keeps IN lists inside what every supported database accepts
+    private static final int IN_CHUNK_SIZE = 1000;
+
+    // The watermark trails the run start so rows committed late by slow transactions are not skipped
+    private static final long WATERMARK_OVERLAP_MINUTES = 10;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EnrollmentRecordRepository enrollmentRecordRepository;
+
+    @Autowired
+    private LessonProgressRepository lessonProgressRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private QuizAttemptRepository quizAttemptRepository;
+
+    @Autowired
+    private AssignmentSubmissionRepository assignmentSubmissionRepository;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private CohortRetentionRepository cohortRetentionRepository;
+
+    @Autowired
+    private CohortFunnelRepository cohortFunnelRepository;
+
+    @Autowired
+    private JobCheckpointRepository jobCheckpointRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.analytics.cohorts.horizon-weeks:52}")
+    private int horizonWeeks;
+
+    @Value("${app.analytics.cohorts.retention-weeks:12}")
+    private int retentionWeeks;
+
+    @Value("${app.analytics.cohorts.threads:4}")
+    private int threads;
+
+    private ThreadPoolTaskExecutor executor;
+
+    @jakarta.annotation.PostConstruct
+    public void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(Integer.MAX_VALUE);
+        executor.setThreadNamePrefix("cohort-job-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+    }
+
+    @jakarta.annotation.PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // Reads
+
+    /** Retention curves for the most recent {@code weeks} cohorts, oldest first. */
+    public List<RetentionCurve> getRetention(CohortType type, int weeks) {
+        LocalDate thisWeek = weekOf(LocalDate.now());
+        LocalDate since = thisWeek.minusWeeks(Math.max(1, weeks) - 1L);
+        Map<LocalDate, RetentionCurve> curves = new LinkedHashMap<>();
+        for (CohortRetention row : cohortRetentionRepository
+                .findByCohortTypeAndCohortWeekGreaterThanEqualOrderByCohortWeekAscWeekOffsetAsc(type, since)) {
+            RetentionCurve curve = curves.computeIfAbsent(row.getCohortWeek(), week -> {
+                // Offsets that have elapsed without a row had no activity, so they read as zero
+                int elapsed = (int) Math.min(retentionWeeks, ChronoUnit.WEEKS.between(week, thisWeek));
+                return new RetentionCurve(week, row.getCohortSize(), new int[elapsed + 1]);
+            });
+            if (row.getWeekOffset() < curve.activeUsers.length) {
+                curve.activeUsers[row.getWeekOffset()] = row.getActiveUsers();
+            }
+        }
+        return new ArrayList<>(curves.values());
+    }
+
+    /** Funnel per enrollment week, summed over {@code courseIds}, or every course when null. */
+    public List<FunnelWeek> getFunnel(Collection<Long> courseIds, int weeks) {
+        LocalDate since = weekOf(LocalDate.now()).minusWeeks(Math.max(1, weeks) - 1L);
+        if (courseIds != null && courseIds.isEmpty()) {
+            return List.of();
+        }
+        List<Object[]> rows = courseIds == null
+                ? cohortFunnelRepository.sumByWeekSince(since)
+                : cohortFunnelRepository.sumByWeekSinceForCourses(since, courseIds);
+        List<FunnelWeek> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            result.add(new FunnelWeek((LocalDate) row[0], toLong(row[1]), toLong(row[2]), toLong(row[3]),
+                    toLong(row[4]), toLong(row[5])));
+        }
+        return result;
+    }
+
+    public Optional<JobCheckpoint> getLastRun() {
+        return jobCheckpointRepository.findById(JOB_NAME);
+    }
+
+    public int getRetentionWeeks() {
+        return retentionWeeks;
+    }
+
+    // Batch job
+
+    @Scheduled(cron = "${app.analytics.cohorts.cron:0 15 * * * *}")
+    public void scheduledRefresh() {
+        try {
+            refresh(false);
+        } catch (RuntimeException e) {
+            logger.error("Cohort analytics refresh failed", e);
+        }
+    }
+
+    /**
+     * Recomputes cohorts touched since the last run, or every cohort in the horizon when
+     * {@code full} is set or the job has never run.
+     */
+    public synchronized RunResult refresh(boolean full) {
+        long start = System.currentTimeMillis();
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDate thisWeek = weekOf(startedAt.toLocalDate());
+        LocalDate oldestWeek = thisWeek.minusWeeks(horizonWeeks - 1L);
+
+        JobCheckpoint checkpoint = jobCheckpointRepository.findById(JOB_NAME).orElseGet(() -> new JobCheckpoint(JOB_NAME));
+        LocalDateTime since = full ? null : checkpoint.getWatermark();
+
+        Set<LocalDate> signupWeeks = new TreeSet<>();
+        Set<LocalDate> enrollmentWeeks = new TreeSet<>();
+        if (since == null) {
+            for (LocalDate week = oldestWeek; !week.isAfter(thisWeek); week = week.plusWeeks(1)) {
+                signupWeeks.add(week);
+                enrollmentWeeks.add(week);
+            }
+        } else {
+            LocalDateTime oldest = oldestWeek.atStartOfDay();
+            userRepository.findStudentSignupTimesTouchedSince(since, oldest)
+                    .forEach(at -> signupWeeks.add(weekOf(at.toLocalDate())));
+            enrollmentRecordRepository.findEnrollmentTimesTouchedSince(since, oldest)
+                    .forEach(at -> enrollmentWeeks.add(weekOf(at.toLocalDate())));
+        }
+
+        CourseShape shape = enrollmentWeeks.isEmpty() ? null : loadCourseShape();
+        List<CompletableFuture<Void>> jobs = new ArrayList<>();
+        for (LocalDate week : signupWeeks) {
+            jobs.add(CompletableFuture.runAsync(() -> inTransaction(() -> rebuildSignupCohort(week, startedAt)), executor));
+        }
+        for (LocalDate week : enrollmentWeeks) {
+            jobs.add(CompletableFuture.runAsync(() -> inTransaction(() -> rebuildEnrollmentCohort(week, shape, startedAt)), executor));
+        }
+        CompletableFuture.allOf(jobs.toArray(new CompletableFuture<?>[0])).join();
+
+        long duration = System.currentTimeMillis() - start;
+        inTransaction(() -> {
+            cohortRetentionRepository.deleteOlderThan(oldestWeek);
+            cohortFunnelRepository.deleteOlderThan(oldestWeek);
+            checkpoint.setWatermark(startedAt.minusMinutes(WATERMARK_OVERLAP_MINUTES));
+            checkpoint.setLastRunAt(startedAt);
+            checkpoint.setLastDurationMs(duration);
+            jobCheckpointRepository.save(checkpoint);
+        });
+        logger.info("Recomputed {} signup and {} enrollment cohorts ({}) in {} ms",
+                signupWeeks.size(), enrollmentWeeks.size(), since == null ? "full" : "incremental", duration);
+        return new RunResult(since == null, signupWeeks.size(), enrollmentWeeks.size(), duration);
+    }
+
+    private void rebuildSignupCohort(LocalDate week, LocalDateTime computedAt) {
+        LocalDateTime from = week.atStartOfDay();
+        List<Long> members = userRepository.findStudentIdsCreatedBetween(from, from.plusWeeks(1));
+        writeRetention(CohortType.SIGNUP, week, members, computedAt);
+    }
+
+    private void rebuildEnrollmentCohort(LocalDate week, CourseShape shape, LocalDateTime computedAt) {
+        LocalDateTime from = week.atStartOfDay();
+        List<Object[]> enrollments = enrollmentRecordRepository.findEnrolledBetween(from, from.plusWeeks(1));
+        Set<Long> members = new LinkedHashSet<>();
+        for (Object[] row : enrollments) {
+            members.add((Long) row[0]);
+        }
+        writeRetention(CohortType.ENROLLMENT, week, members, computedAt);
+        writeFunnel(week, enrollments, members, shape, computedAt);
+    }
+
+    private void writeRetention(CohortType type, LocalDate week, Collection<Long> members, LocalDateTime computedAt) {
+        cohortRetentionRepository.deleteCohort(type, week);
+        if (members.isEmpty()) {
+            return;
+        }
+        LocalDateTime from = week.atStartOfDay();
+        int offsets = (int) Math.min(retentionWeeks, ChronoUnit.WEEKS.between(week, computedAt.toLocalDate())) + 1;
+        LocalDateTime until = from.plusWeeks(offsets);
+        List<Set<Long>> active = new ArrayList<>(offsets);
+        for (int i = 0; i < offsets; i++) {
+            active.add(new HashSet<>());
+        }
+        Consumer<List<Object[]>> collect = rows -> {
+            for (Object[] row : rows) {
+                int offset = (int) (ChronoUnit.DAYS.between(from, (LocalDateTime) row[1]) / 7);
+                if (offset >= 0 && offset < offsets) {
+                    active.get(offset).add((Long) row[0]);
+                }
+            }
+        };
+        forEachChunk(members, chunk -> {
+            collect.accept(lessonProgressRepository.findActivityBetween(chunk, from, until));
+            collect.accept(quizAttemptRepository.findActivityBetween(chunk, from, until));
+            collect.accept(assignmentSubmissionRepository.findActivityBetween(chunk, from, until));
+            collect.accept(enrollmentRecordRepository.findActivityBetween(chunk, from, until));
+        });
+
+        List<CohortRetention> rows = new ArrayList<>(offsets);
+        for (int offset = 0; offset < offsets; offset++) {
+            rows.add(new CohortRetention(type, week, offset, members.size(), active.get(offset).size(), computedAt));
+        }
+        cohortRetentionRepository.saveAll(rows);
+    }
+
+    private void writeFunnel(LocalDate week, List<Object[]> enrollments, Collection<Long> members,
+                             CourseShape shape, LocalDateTime computedAt) {
+        cohortFunnelRepository.deleteCohort(week);
+        if (enrollments.isEmpty()) {
+            return;
+        }
+        Map<String, Long> completedLessons = new HashMap<>();
+        Set<String> passedQuiz = new HashSet<>();
+        Set<String> certified = new HashSet<>();
+        forEachChunk(members, chunk -> {
+            for (Object[] row : lessonProgressRepository.countByUserAndCourse(chunk)) {
+                completedLessons.put(key((Long) row[0], (Long) row[1]), (Long) row[2]);
+            }
+            for (Object[] row : quizAttemptRepository.findPassedUserCourses(chunk)) {
+                passedQuiz.add(key((Long) row[0], (Long) row[1]));
+            }
+            for (Object[] row : certificateRepository.findCertifiedUserCourses(chunk)) {
+                certified.add(key((Long) row[0], (Long) row[1]));
+            }
+        });
+
+        Map<Long, CohortFunnel> byCourse = new HashMap<>();
+        for (Object[] row : enrollments) {
+            Long userId = (Long) row[0];
+            Long courseId = (Long) row[1];
+            String key = key(userId, courseId);
+            CohortFunnel funnel = byCourse.computeIfAbsent(courseId, id -> new CohortFunnel(week, id, computedAt));
+            funnel.setEnrolled(funnel.getEnrolled() + 1);
+
+            long done = completedLessons.getOrDefault(key, 0L);
+            if (done == 0) {
+                continue;
+            }
+            funnel.setStartedLesson(funnel.getStartedLesson() + 1);
+
+            long total = shape.lessonCounts.getOrDefault(courseId, 0L);
+            if (total == 0 || done * 2 < total) {
+                continue;
+            }
+            funnel.setHalfCompleted(funnel.getHalfCompleted() + 1);
+
+            // Courses without quizzes let everyone through the quiz step
+            if (shape.quizCourses.contains(courseId) && !passedQuiz.contains(key)) {
+                continue;
+            }
+            funnel.setPassedQuiz(funnel.getPassedQuiz() + 1);
+
+            if (certified.contains(key)) {
+                funnel.setCertified(funnel.getCertified() + 1);
+            }
+        }
+        cohortFunnelRepository.saveAll(byCourse.values());
+    }
+
+    private CourseShape loadCourseShape() {
+        CourseShape shape = new CourseShape();
+        for (Object[] row : lessonRepository.countGroupedByCourse()) {
+            shape.lessonCounts.put((Long) row[0], (Long) row[1]);
+        }
+        shape.quizCourses.addAll(quizRepository.findCourseIdsWithActiveQuizzes());
+        return shape;
+    }
+
+    // Helpers
+
+    private void inTransaction(Runnable work) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> work.run());
+    }
+
+    private static void forEachChunk(Collection<Long> ids, Consumer<List<Long>> action) {
+        List<Long> all = new ArrayList<>(ids);
+        for (int i = 0; i < all.size(); i += IN_CHUNK_SIZE) {
+            action.accept(all.subList(i, Math.min(all.size(), i + IN_CHUNK_SIZE)));
+        }
+    }
+
+    private static String key(Long userId, Long courseId) {
+        return userId + ":" + courseId;
+    }
+
+    private static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
+    static LocalDate weekOf(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    // Lesson totals and quiz presence per course, loaded once per run
+    private static final class CourseShape {
+        private final Map<Long, Long> lessonCounts = new HashMap<>();
+        private final Set<Long> quizCourses = new HashSet<>();
+    }
+
+    public static class RetentionCurve {
+        private final LocalDate cohortWeek;
+        private final int cohortSize;
+        private final int[] activeUsers;
+
+        private RetentionCurve(LocalDate cohortWeek, int cohortSize, int[] activeUsers) {
+            this.cohortWeek = cohortWeek;
+            this.cohortSize = cohortSize;
+            this.activeUsers = activeUsers;
+        }
+
+        public LocalDate getCohortWeek() {
+            return cohortWeek;
+        }
+
+        public int getCohortSize() {
+            return cohortSize;
+        }
+
+        /** Active members per week offset, index 0 being the cohort's own week. */
+        public int[] getActiveUsers() {
+            return activeUsers;
+        }
+    }
+
+    public static class FunnelWeek {
+        private final LocalDate cohortWeek;
+        private final long enrolled;
+        private final long startedLesson;
+        private final long halfCompleted;
+        private final long passedQuiz;
+        private final long certified;
+
+        private FunnelWeek(LocalDate cohortWeek, long enrolled, long startedLesson, long halfCompleted,
+                           long passedQuiz, long certified) {
+            this.cohortWeek = cohortWeek;
+            this.enrolled = enrolled;
+            this.startedLesson = startedLesson;
+            this.halfCompleted = halfCompleted;
+            this.passedQuiz = passedQuiz;
+            this.certified = certified;
+        }
+
+        public LocalDate getCohortWeek() {
+            return cohortWeek;
+        }
+
+        public long getEnrolled() {
+            return enrolled;
+        }
+
+        public long getStartedLesson() {
+            return startedLesson;
+        }
+
+        public long getHalfCompleted() {
+            return halfCompleted;
+        }
+
+        public long getPassedQuiz() {
+            return passedQuiz;
+        }
+
+        public long getCertified() {
+            return certified;
+        }
+    }
+
+    public static class RunResult {
+        private final boolean full;
+        private final int signupCohorts;
+        private final int enrollmentCohorts;
+        private final long durationMs;
+
+        private RunResult(boolean full, int signupCohorts, int enrollmentCohorts, long durationMs) {
+            this.full = full;
+            this.signupCohorts = signupCohorts;
+            this.enrollmentCohorts = enrollmentCohorts;
+            this.durationMs = durationMs;
+        }
+
+        public boolean isFull() {
+            return full;
+        }
+
+        public int getSignupCohorts() {
+            return signupCohorts;
+        }
+
+        public int getEnrollmentCohorts() {
+            return enrollmentCohorts;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+    }
+}
@@ -0,0 +1,683 @@
+package com.edupress.service;
+
+import com.edupress.analytics.HyperLogLog;
+import com.edupress.event.AssignmentEvent;
+import com.edupress.event.CourseEvent;
+import com.edupress.event.EnrollmentEvent;
+import com.edupress.event.LessonCompletedEvent;
+import com.edupress.event.QuizAttemptEvent;
+import com.edupress.model.Course;
+import com.edupress.model.CourseAnalytics;
+import com.edupress.repository.AssignmentSubmissionRepository;
+import com.edupress.repository.CourseAnalyticsRepository;
+import com.edupress.repository.CourseRepository;
+import com.edupress.repository.EnrollmentRecordRepository;
+import com.edupress.repository.LessonProgressRepository;
+import com.edupress.repository.LessonRepository;
+import com.edupress.repository.QuizAttemptRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Per-course analytics for instructors, kept in {@code course_analytics} and moved by domain
+ * events in the same transaction as the change that caused them. Reading an instructor's
+ * courses is one indexed query plus in-memory revenue and engagement lookups, however many
+ * courses they teach.
+ * <p>
+ * Rows are created with the course. Courses that predate the table get their row rebuilt from
+ * the source tables on startup, and {@link #rebuild()} recomputes every row on demand.
+ */
+@Service
+public class CourseAnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CourseAnalyticsService.class);
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    /** Lower bounds, in percent of the max score, of grade bands A to D. Anything lower is F. */
+    private static final int[] GRADE_BAND_FLOORS = {90, 80, 70, 60};
+    private static final String[] GRADE_BANDS = {"A", "B", "C", "D", "F"};
+
+    @Autowired
+    private CourseAnalyticsRepository courseAnalyticsRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private EnrollmentRecordRepository enrollmentRecordRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private LessonProgressRepository lessonProgressRepository;
+
+    @Autowired
+    private QuizAttemptRepository quizAttemptRepository;
+
+    @Autowired
+    private AssignmentSubmissionRepository submissionRepository;
+
+    @Autowired
+    private RevenueLedgerService revenueLedgerService;
+
+    @Autowired
+    private EngagementAnalyticsService engagementAnalyticsService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Reads
+
+    /** Summaries of every course the instructor teaches, ordered by title. */
+    public List<CourseSummary> getInstructorCourses(Long instructorId) {
+        LocalDate today = LocalDate.now();
+        List<CourseSummary> summaries = new ArrayList<>();
+        for (Object[] row : courseAnalyticsRepository.findWithCourseByInstructorId(instructorId)) {
+            summaries.add(summarize((CourseAnalytics) row[0], (String) row[1], (Course.Status) row[2], today));
+        }
+        return summaries;
+    }
+
+    /** Totals across all of an instructor's courses, plus the per-course summaries they came from. */
+    public InstructorOverview getInstructorOverview(Long instructorId) {
+        List<CourseSummary> courses = getInstructorCourses(instructorId);
+        List<Long> courseIds = new ArrayList<>(courses.size());
+        long activeEnrollments = 0, completedStudents = 0;
+        for (CourseSummary course : courses) {
+            courseIds.add(course.getCourseId());
+            activeEnrollments += course.getActiveEnrollments();
+            completedStudents += course.getCompletedStudents();
+        }
+        LocalDate today = LocalDate.now();
+        long newEnrollments = courseIds.isEmpty() ? 0L : enrollmentRecordRepository
+                .countByCourseIdInAndEnrolledAtGreaterThanEqual(courseIds, today.minusDays(29).atStartOfDay());
+        return new InstructorOverview(instructorId, courses.size(), activeEnrollments, completedStudents,
+                percent(completedStudents, activeEnrollments), newEnrollments,
+                countActiveStudents(courseIds, today.minusDays(6), today),
+                countActiveStudents(courseIds, today.minusDays(29), today),
+                revenueLedgerService.getInstructorEarnings(instructorId), courses);
+    }
+
+    /** Distinct students active in any of the courses between the two dates, inclusive. */
+    public long countActiveStudents(Collection<Long> courseIds, LocalDate from, LocalDate to) {
+        HyperLogLog merged = null;
+        for (Long courseId : courseIds) {
+            HyperLogLog sketch = engagementAnalyticsService.activeUsers(courseId, from, to);
+            merged = merged == null ? sketch : merged.merge(sketch);
+        }
+        return merged != null ? merged.estimate() : 0L;
+    }
+
+    /** Full view of one course, or null when the course has no analytics row. */
+    public CourseDetail getCourseDetail(Long courseId, int weeks) {
+        CourseAnalytics analytics = courseAnalyticsRepository.findById(courseId).orElse(null);
+        if (analytics == null) {
+            return null;
+        }
+        Course course = courseRepository.findById(courseId).orElse(null);
+        LocalDate today = LocalDate.now();
+        CourseSummary summary = summarize(analytics, course != null ? course.getTitle() : null,
+                course != null ? course.getStatus() : null, today);
+
+        // Enrollments per week, oldest first, ending with the current week
+        int weekCount = Math.max(1, Math.min(weeks, 104));
+        LocalDate firstWeek = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).minusWeeks(weekCount - 1);
+        long[] perWeek = new long[weekCount];
+        for (LocalDateTime enrolledAt : enrollmentRecordRepository.findEnrollmentTimesSince(courseId, firstWeek.atStartOfDay())) {
+            int week = (int) ((enrolledAt.toLocalDate().toEpochDay() - firstWeek.toEpochDay()) / 7);
+            if (week >= 0 && week < weekCount) {
+                perWeek[week]++;
+            }
+        }
+        List<WeeklyCount> enrollments = new ArrayList<>(weekCount);
+        for (int i = 0; i < weekCount; i++) {
+            enrollments.add(new WeeklyCount(firstWeek.plusWeeks(i), perWeek[i]));
+        }
+
+        // Students completing each lesson, in course order, against the lesson before it
+        Map<Long, Long> completions = toCounts(lessonProgressRepository.countByLesson(courseId));
+        List<LessonDropOff> lessons = new ArrayList<>();
+        long previous = analytics.getActiveEnrollments();
+        for (Object[] row : lessonRepository.findOutlineByCourseId(courseId)) {
+            long completed = completions.getOrDefault((Long) row[0], 0L);
+            lessons.add(new LessonDropOff((Long) row[0], (String) row[1], (Integer) row[2], completed,
+                    percent(completed, analytics.getActiveEnrollments()), percent(Math.max(0, previous - completed), previous)));
+            previous = completed;
+        }
+
+        Map<String, Long> grades = new LinkedHashMap<>();
+        long[] bands = {analytics.getGradeA(), analytics.getGradeB(), analytics.getGradeC(),
+                analytics.getGradeD(), analytics.getGradeF()};
+        for (int i = 0; i < bands.length; i++) {
+            grades.put(GRADE_BANDS[i], bands[i]);
+        }
+
+        return new CourseDetail(summary, analytics.getInstructorId(), analytics.getTotalEnrollments(), analytics.getUnenrollments(),
+                analytics.getLessonCompletions(), analytics.getQuizAttempts(), analytics.getSubmissions(),
+                engagementAnalyticsService.countActiveUsers(courseId, today.minusDays(29), today),
+                grades, enrollments, lessons);
+    }
+
+    private CourseSummary summarize(CourseAnalytics analytics, String title, Course.Status status, LocalDate today) {
+        Long courseId = analytics.getCourseId();
+        return new CourseSummary(courseId, title, status, analytics.getActiveEnrollments(),
+                engagementAnalyticsService.countActiveUsers(courseId, today.minusDays(6), today),
+                analytics.getCompletedStudents(), round(analytics.getCompletionRate()),
+                round(analytics.getAverageQuizScorePercent()), round(analytics.getQuizPassRate()),
+                analytics.getGradedSubmissions(), revenueLedgerService.getCourseRevenue(courseId),
+                analytics.getLastActivityAt());
+    }
+
+    // Event handlers. All run before commit so the counters move in the same transaction as the
+    // change itself; courses without a row yet are skipped and picked up by the next rebuild.
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onCourseEvent(CourseEvent event) {
+        switch (event.getType()) {
+            case CREATED -> {
+                if (!courseAnalyticsRepository.existsById(event.getCourseId())) {
+                    courseAnalyticsRepository.save(new CourseAnalytics(event.getCourseId(), event.getInstructorId()));
+                }
+            }
+            case DELETED -> {
+                if (courseAnalyticsRepository.existsById(event.getCourseId())) {
+                    courseAnalyticsRepository.deleteById(event.getCourseId());
+                }
+            }
+            default -> courseAnalyticsRepository.updateInstructor(event.getCourseId(), event.getInstructorId());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onEnrollmentEvent(EnrollmentEvent event) {
+        if (event.getType() == EnrollmentEvent.Type.ENROLLED) {
+            courseAnalyticsRepository.addEnrollments(event.getCourseId(), 1, 1, 0, event.getOccurredAt());
+        } else {
+            courseAnalyticsRepository.addEnrollments(event.getCourseId(), -1, 0, 1, event.getOccurredAt());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onLessonCompleted(LessonCompletedEvent event) {
+        if (event.getCourseId() == null) {
+            return;
+        }
+        // Completions are idempotent per lesson, so reaching the lesson count happens exactly once
+        long completed = lessonProgressRepository.countByUserIdAndCourseId(event.getUserId(), event.getCourseId());
+        long lessons = lessonRepository.countByCourseId(event.getCourseId());
+        courseAnalyticsRepository.addLessonCompletion(event.getCourseId(), completed == lessons ? 1 : 0,
+                event.getOccurredAt());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onQuizAttempt(QuizAttemptEvent event) {
+        if (event.getCourseId() == null) {
+            return;
+        }
+        courseAnalyticsRepository.addQuizAttempt(event.getCourseId(), event.isPassed() ? 1 : 0,
+                event.getScore(), event.getMaxScore(), event.getOccurredAt());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onAssignmentEvent(AssignmentEvent event) {
+        if (event.getCourseId() == null) {
+            return;
+        }
+        if (event.getType() == AssignmentEvent.Type.SUBMITTED) {
+            courseAnalyticsRepository.addSubmission(event.getCourseId(), event.getOccurredAt());
+            return;
+        }
+        if (event.getScore() == null) {
+            return;
+        }
+        int to = gradeBand(event.getScore(), event.getMaxScore());
+        int from = event.getPreviousScore() != null ? gradeBand(event.getPreviousScore(), event.getMaxScore()) : -1;
+        if (event.getPreviousScore() != null && from == to) {
+            return;
+        }
+        courseAnalyticsRepository.moveGrade(event.getCourseId(), event.getPreviousScore() == null ? 1 : 0,
+                from, to, event.getOccurredAt());
+    }
+
+    static int gradeBand(BigDecimal score, BigDecimal maxScore) {
+        BigDecimal percent = maxScore != null && maxScore.signum() > 0
+                ? score.multiply(BigDecimal.valueOf(100)).divide(maxScore, 2, RoundingMode.HALF_UP)
+                : score;
+        for (int i = 0; i < GRADE_BAND_FLOORS.length; i++) {
+            if (percent.compareTo(BigDecimal.valueOf(GRADE_BAND_FLOORS[i])) >= 0) {
+                return i;
+            }
+        }
+        return GRADE_BAND_FLOORS.length;
+    }
+
+    // Lifecycle
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        List<Long> missing = courseAnalyticsRepository.findCourseIdsWithoutAnalytics();
+        if (!missing.isEmpty()) {
+            logger.info("Building analytics for {} courses without them", missing.size());
+            rebuild(missing);
+        }
+    }
+
+    /**
+     * Recomputes every course's row from the source tables, in batches. Events that commit
+     * while a batch is being computed may be lost for that batch, so run this when the platform
+     * is quiet.
+     */
+    public int rebuild() {
+        return rebuild(courseRepository.findAllIds());
+    }
+
+    private synchronized int rebuild(List<Long> courseIds) {
+        long started = System.currentTimeMillis();
+        Map<Long, Long> lessonCounts = toCounts(lessonRepository.countGroupedByCourse());
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (int from = 0; from < courseIds.size(); from += REBUILD_BATCH_SIZE) {
+            List<Long> batch = courseIds.subList(from, Math.min(from + REBUILD_BATCH_SIZE, courseIds.size()));
+            transaction.executeWithoutResult(status ->
+                    courseAnalyticsRepository.saveAll(computeBatch(batch, lessonCounts)));
+        }
+        logger.info("Rebuilt analytics for {} courses in {} ms", courseIds.size(), System.currentTimeMillis() - started);
+        return courseIds.size();
+    }
+
+    private Collection<CourseAnalytics> computeBatch(List<Long> courseIds, Map<Long, Long> lessonCounts) {
+        Map<Long, CourseAnalytics> existing = courseAnalyticsRepository.findAllById(courseIds).stream()
+                .collect(Collectors.toMap(CourseAnalytics::getCourseId, Function.identity()));
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, CourseAnalytics> rows = new HashMap<>();
+        for (Object[] row : courseRepository.countEnrolledStudentsByCourse(courseIds)) {
+            CourseAnalytics analytics = new CourseAnalytics((Long) row[0], (Long) row[1]);
+            analytics.setActiveEnrollments(((Number) row[2]).longValue());
+            analytics.setTotalEnrollments(analytics.getActiveEnrollments());
+            CourseAnalytics previous = existing.get(analytics.getCourseId());
+            analytics.setLastActivityAt(previous != null ? previous.getLastActivityAt() : null);
+            analytics.setUpdatedAt(now);
+            rows.put(analytics.getCourseId(), analytics);
+        }
+        for (Object[] row : enrollmentRecordRepository.countByCourse(courseIds)) {
+            CourseAnalytics analytics = rows.get((Long) row[0]);
+            if (analytics != null) {
+                analytics.setTotalEnrollments(Math.max(analytics.getActiveEnrollments(), ((Number) row[1]).longValue()));
+                analytics.setUnenrollments(row[2] != null ? ((Number) row[2]).longValue() : 0L);
+            }
+        }
+        for (Object[] row : lessonProgressRepository.countByCourseAndUser(courseIds)) {
+            CourseAnalytics analytics = rows.get((Long) row[0]);
+            if (analytics != null) {
+                long completed = ((Number) row[2]).longValue();
+                long lessons = lessonCounts.getOrDefault(analytics.getCourseId(), 0L);
+                analytics.setLessonCompletions(analytics.getLessonCompletions() + completed);
+                if (lessons > 0 && completed >= lessons) {
+                    analytics.setCompletedStudents(analytics.getCompletedStudents() + 1);
+                }
+            }
+        }
+        for (Object[] row : quizAttemptRepository.sumCompletedByCourse(courseIds)) {
+            CourseAnalytics analytics = rows.get((Long) row[0]);
+            if (analytics != null) {
+                analytics.setQuizAttempts(longValue(row[1]));
+                analytics.setQuizPassed(longValue(row[2]));
+                analytics.setQuizScoreSum(longValue(row[3]));
+                analytics.setQuizMaxScoreSum(longValue(row[4]));
+            }
+        }
+        for (Object[] row : submissionRepository.countByCourse(courseIds)) {
+            CourseAnalytics analytics = rows.get((Long) row[0]);
+            if (analytics != null) {
+                analytics.setSubmissions(longValue(row[1]));
+            }
+        }
+        for (Object[] row : submissionRepository.findGradedScoresByCourse(courseIds)) {
+            CourseAnalytics analytics = rows.get((Long) row[0]);
+            if (analytics != null) {
+                analytics.setGradedSubmissions(analytics.getGradedSubmissions() + 1);
+                switch (gradeBand((BigDecimal) row[1], (BigDecimal) row[2])) {
+                    case 0 -> analytics.setGradeA(analytics.getGradeA() + 1);
+                    case 1 -> analytics.setGradeB(analytics.getGradeB() + 1);
+                    case 2 -> analytics.setGradeC(analytics.getGradeC() + 1);
+                    case 3 -> analytics.setGradeD(analytics.getGradeD() + 1);
+                    default -> analytics.setGradeF(analytics.getGradeF() + 1);
+                }
+            }
+        }
+        return rows.values();
+    }
+
+    private static Map<Long, Long> toCounts(List<Object[]> rows) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            if (row[0] != null) {
+                counts.put((Long) row[0], ((Number) row[1]).longValue());
+            }
+        }
+        return counts;
+    }
+
+    private static long longValue(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
+    private static double percent(long part, long whole) {
+        return whole > 0 ? round(100.0 * part / whole) : 0.0;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10.0) / 10.0;
+    }
+
+    public static class CourseSummary {
+        private final Long courseId;
+        private final String title;
+        private final Course.Status status;
+        private final long activeEnrollments;
+        private final long activeStudentsLast7Days;
+        private final long completedStudents;
+        private final double completionRate;
+        private final double averageQuizScore;
+        private final double quizPassRate;
+        private final long gradedSubmissions;
+        private final Map<String, BigDecimal> revenue;
+        private final LocalDateTime lastActivityAt;
+
+        private CourseSummary(Long courseId, String title, Course.Status status, long activeEnrollments,
+                              long activeStudentsLast7Days, long completedStudents, double completionRate,
+                              double averageQuizScore, double quizPassRate, long gradedSubmissions,
+                              Map<String, BigDecimal> revenue, LocalDateTime lastActivityAt) {
+            this.courseId = courseId;
+            this.title = title;
+            this.status = status;
+            this.activeEnrollments = activeEnrollments;
+            this.activeStudentsLast7Days = activeStudentsLast7Days;
+            this.completedStudents = completedStudents;
+            this.completionRate = completionRate;
+            this.averageQuizScore = averageQuizScore;
+            this.quizPassRate = quizPassRate;
+            this.gradedSubmissions = gradedSubmissions;
+            this.revenue = revenue;
+            this.lastActivityAt = lastActivityAt;
+        }
+
+        public Long getCourseId() {
+            return courseId;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public Course.Status getStatus() {
+            return status;
+        }
+
+        public long getActiveEnrollments() {
+            return activeEnrollments;
+        }
+
+        public long getActiveStudentsLast7Days() {
+            return activeStudentsLast7Days;
+        }
+
+        public long getCompletedStudents() {
+            return completedStudents;
+        }
+
+        public double getCompletionRate() {
+            return completionRate;
+        }
+
+        public double getAverageQuizScore() {
+            return averageQuizScore;
+        }
+
+        public double getQuizPassRate() {
+            return quizPassRate;
+        }
+
+        public long getGradedSubmissions() {
+            return gradedSubmissions;
+        }
+
+        public Map<String, BigDecimal> getRevenue() {
+            return revenue;
+        }
+
+        public LocalDateTime getLastActivityAt() {
+            return lastActivityAt;
+        }
+    }
+
+    public static class InstructorOverview {
+        private final Long instructorId;
+        private final int courseCount;
+        private final long activeEnrollments;
+        private final long completedStudents;
+        private final double completionRate;
+        private final long newEnrollmentsLast30Days;
+        private final long activeStudentsLast7Days;
+        private final long activeStudentsLast30Days;
+        private final Map<String, BigDecimal> earnings;
+        private final List<CourseSummary> courses;
+
+        private InstructorOverview(Long instructorId, int courseCount, long activeEnrollments,
+                                   long completedStudents, double completionRate, long newEnrollmentsLast30Days,
+                                   long activeStudentsLast7Days, long activeStudentsLast30Days,
+                                   Map<String, BigDecimal> earnings, List<CourseSummary> courses) {
+            this.instructorId = instructorId;
+            this.courseCount = courseCount;
+            this.activeEnrollments = activeEnrollments;
+            this.completedStudents = completedStudents;
+            this.completionRate = completionRate;
+            this.newEnrollmentsLast30Days = newEnrollmentsLast30Days;
+            this.activeStudentsLast7Days = activeStudentsLast7Days;
+            this.activeStudentsLast30Days = activeStudentsLast30Days;
+            this.earnings = earnings;
+            this.courses = courses;
+        }
+
+        public Long getInstructorId() {
+            return instructorId;
+        }
+
+        public int getCourseCount() {
+            return courseCount;
+        }
+
+        public long getActiveEnrollments() {
+            return activeEnrollments;
+        }
+
+        public long getCompletedStudents() {
+            return completedStudents;
+        }
+
+        public double getCompletionRate() {
+            return completionRate;
+        }
+
+        public long getNewEnrollmentsLast30Days() {
+            return newEnrollmentsLast30Days;
+        }
+
+        public long getActiveStudentsLast7Days() {
+            return activeStudentsLast7Days;
+        }
+
+        public long getActiveStudentsLast30Days() {
+            return activeStudentsLast30Days;
+        }
+
+        public Map<String, BigDecimal> getEarnings() {
+            return earnings;
+        }
+
+        public List<CourseSummary> getCourses() {
+            return courses;
+        }
+    }
+
+    public static class CourseDetail {
+        private final CourseSummary summary;
+        private final Long instructorId;
+        private final long totalEnrollments;
+        private final long unenrollments;
+        private final long lessonCompletions;
+        private final long quizAttempts;
+        private final long submissions;
+        private final long activeStudentsLast30Days;
+        private final Map<String, Long> gradeDistribution;
+        private final List<WeeklyCount> enrollmentsByWeek;
+        private final List<LessonDropOff> lessons;
+
+        private CourseDetail(CourseSummary summary, Long instructorId, long totalEnrollments, long unenrollments,
+                             long lessonCompletions, long quizAttempts, long submissions,
+                             long activeStudentsLast30Days, Map<String, Long> gradeDistribution,
+                             List<WeeklyCount> enrollmentsByWeek, List<LessonDropOff> lessons) {
+            this.summary = summary;
+            this.instructorId = instructorId;
+            this.totalEnrollments = totalEnrollments;
+            this.unenrollments = unenrollments;
+            this.lessonCompletions = lessonCompletions;
+            this.quizAttempts = quizAttempts;
+            this.submissions = submissions;
+            this.activeStudentsLast30Days = activeStudentsLast30Days;
+            this.gradeDistribution = gradeDistribution;
+            this.enrollmentsByWeek = enrollmentsByWeek;
+            this.lessons = lessons;
+        }
+
+        public CourseSummary getSummary() {
+            return summary;
+        }
+
+        public Long getInstructorId() {
+            return instructorId;
+        }
+
+        public long getTotalEnrollments() {
+            return totalEnrollments;
+        }
+
+        public long getUnenrollments() {
+            return unenrollments;
+        }
+
+        public long getLessonCompletions() {
+            return lessonCompletions;
+        }
+
+        public long getQuizAttempts() {
+            return quizAttempts;
+        }
+
+        public long getSubmissions() {
+            return submissions;
+        }
+
+        public long getActiveStudentsLast30Days() {
+            return activeStudentsLast30Days;
+        }
+
+        public Map<String, Long> getGradeDistribution() {
+            return gradeDistribution;
+        }
+
+        public List<WeeklyCount> getEnrollmentsByWeek() {
+            return enrollmentsByWeek;
+        }
+
+        public List<LessonDropOff> getLessons() {
+            return lessons;
+        }
+    }
+
+    public static class WeeklyCount {
+        private final LocalDate week;
+        private final long count;
+
+        private WeeklyCount(LocalDate week, long count) {
+            this.week = week;
+            this.count = count;
+        }
+
+        public LocalDate getWeek() {
+            return week;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+
+    public static class LessonDropOff {
+        private final Long lessonId;
+        private final String title;
+        private final Integer orderIndex;
+        private final long completedStudents;
+        private final double percentOfEnrolled;
+        private final double dropFromPrevious;
+
+        private LessonDropOff(Long lessonId, String title, Integer orderIndex, long completedStudents,
+                              double percentOfEnrolled, double dropFromPrevious) {
+            this.lessonId = lessonId;
+            this.title = title;
+            this.orderIndex = orderIndex;
+            this.completedStudents = completedStudents;
+            this.percentOfEnrolled = percentOfEnrolled;
+            this.dropFromPrevious = dropFromPrevious;
+        }
+
+        public Long getLessonId() {
+            return lessonId;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public Integer getOrderIndex() {
+            return orderIndex;
+        }
+
+        public long getCompletedStudents() {
+            return completedStudents;
+        }
+
+        public double getPercentOfEnrolled() {
+            return percentOfEnrolled;
+        }
+
+        /** Percentage of the previous lesson's completers (or enrolled students, for the first) who did not complete this one. */
+        public double getDropFromPrevious() {
+            return dropFromPrevious;
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.edupress.service;
 
+import com.edupress.event.CourseEvent;
 import com.edupress.model.Course;
 import com.edupress.model.User;
 import com.edupress.repository.CourseRepository;
 import com.edupress.security.UserPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.Authentication;
@@ -21,10 +23,18 @@ public class CourseService {
     @Autowired
     private CourseRepository courseRepository;
 
+    @Autowired
+    private PlatformCounterService platformCounterService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public Course createCourse(Course course) {
         course.setCreatedAt(LocalDateTime.now());
         course.setUpdatedAt(LocalDateTime.now());
-        return courseRepository.save(course);
+        course = courseRepository.save(course);
+        eventPublisher.publishEvent(CourseEvent.created(course));
+        return course;
     }
 
     public Optional<Course> findById(Long id) {
@@ -58,6 +68,8 @@ public class CourseService {
     public Course updateCourse(Long id, Course courseDetails) {
         Course course = courseRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Course not found with id: " + id));
+        Course.Status previousStatus = course.getStatus();
+        Boolean previousFree = course.getIsFree();
 
         course.setTitle(courseDetails.getTitle());
         course.setDescription(courseDetails.getDescription());
@@ -68,29 +80,38 @@ public class CourseService {
         course.setCategory(courseDetails.getCategory());
         course.setUpdatedAt(LocalDateTime.now());
 
-        return courseRepository.save(course);
+        course = courseRepository.save(course);
+        eventPublisher.publishEvent(CourseEvent.changed(CourseEvent.Type.UPDATED, course, previousStatus, previousFree));
+        return course;
     }
 
     public void deleteCourse(Long id) {
         Course course = courseRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Course not found with id: " + id));
         courseRepository.delete(course);
+        eventPublisher.publishEvent(CourseEvent.deleted(course));
     }
 
     public Course publishCourse(Long id) {
         Course course = courseRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Course not found with id: " + id));
+        Course.Status previousStatus = course.getStatus();
         course.setStatus(Course.Status.PUBLISHED);
         course.setUpdatedAt(LocalDateTime.now());
-        return courseRepository.save(course);
+        course = courseRepository.save(course);
+        eventPublisher.publishEvent(CourseEvent.changed(CourseEvent.Type.PUBLISHED, course, previousStatus, course.getIsFree()));
+        return course;
     }
 
     public Course unpublishCourse(Long id) {
         Course course = courseRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Course not found with id: " + id));
+        Course.Status previousStatus = course.getStatus();
         course.setStatus(Course.Status.DRAFT);
         course.setUpdatedAt(LocalDateTime.now());
-        return courseRepository.save(course);
+        course = courseRepository.save(course);
+        eventPublisher.publishEvent(CourseEvent.changed(CourseEvent.Type.UNPUBLISHED, course, previousStatus, course.getIsFree()));
+        return course;
     }
 
     public List<Course> findPopularCourses() {
@@ -104,25 +125,29 @@ public class CourseService {
     }
 
     public long getTotalCourses() {
-        return courseRepository.count();
+        return platformCounterService.get(PlatformCounterService.COURSES_TOTAL);
     }
 
     public long getPublishedCoursesCount() {
-        return courseRepository.countPublishedCourses();
+        return platformCounterService.get(PlatformCounterService.COURSES_PUBLISHED);
     }
 
     public long getFreeCoursesCount() {
-        return courseRepository.countFreeCourses();
+        return platformCounterService.get(PlatformCounterService.COURSES_PUBLISHED_FREE);
     }
 
     public long getPaidCoursesCount() {
-        return courseRepository.countPaidCourses();
+        return platformCounterService.get(PlatformCounterService.COURSES_PUBLISHED_PAID);
     }
 
     public long getInstructorCoursesCount(Long instructorId) {
         return courseRepository.countByInstructorId(instructorId);
     }
 
+    public List<Long> getInstructorCourseIds(Long instructorId) {
+        return courseRepository.findIdsByInstructorId(instructorId);
+    }
+
     public long getInstructorPublishedCoursesCount(Long instructorId) {
         return courseRepository.countByInstructorIdAndStatus(instructorId, Course.Status.PUBLISHED);
     }
@@ -252,6 +277,8 @@ public class CourseService {
         duplicatedCourse.setCreatedAt(LocalDateTime.now());
         duplicatedCourse.setUpdatedAt(LocalDateTime.now());
         
-        return courseRepository.save(duplicatedCourse);
+        duplicatedCourse = courseRepository.save(duplicatedCourse);
+        eventPublisher.publishEvent(CourseEvent.created(duplicatedCourse));
+        return duplicatedCourse;
     }
 }
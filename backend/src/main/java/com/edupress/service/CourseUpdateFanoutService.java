@@ -0,0 +1,287 @@
+package com.edupress.service;
+
+import com.edupress.controller.WebSocketController;
+import com.edupress.event.NotificationEvent;
+import com.edupress.model.Course;
+import com.edupress.model.Notification;
+import com.edupress.model.User;
+import com.edupress.repository.CourseRepository;
+import com.edupress.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Tells every student enrolled in a course about new content. Instead of one
+ * {@link NotificationService#createNotification} per student, each with its own insert and
+ * WebSocket send, a background job walks the enrolled student ids in keyset chunks and writes
+ * each chunk with one JDBC batch insert in its own short transaction. Students who are online
+ * hear about it from a single message on {@code /topic/course/{id}} once every row is written.
+ * <p>
+ * Jobs run one at a time on a low-priority thread and pause between chunks, so a large course
+ * neither holds a connection for long nor crowds out request traffic. Progress is kept in
+ * memory and can be polled while the job runs.
+ */
+@Service
+public class CourseUpdateFanoutService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CourseUpdateFanoutService.class);
+
+    private static final String INSERT_NOTIFICATION =
+            "INSERT INTO notifications (title, message, type, is_read, user_id, action_url, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    // Finished jobs stay visible this long
+    private static final Duration KEEP_FINISHED = Duration.ofHours(1);
+
+    @Value("${app.notifications.fanout.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.notifications.fanout.pause-ms:50}")
+    private long pauseMs;
+
+    @Value("${app.notifications.fanout.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private UnreadCountService unreadCountService;
+
+    // Using @Lazy to avoid circular dependency with WebSocketController
+    @Autowired
+    @Lazy
+    private WebSocketController webSocketController;
+
+    private ThreadPoolTaskExecutor executor;
+
+    private final Map<String, FanoutJob> jobs = new ConcurrentHashMap<>();
+
+    @jakarta.annotation.PostConstruct
+    public void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("notification-fanout-");
+        executor.setThreadPriority(Thread.MIN_PRIORITY);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        // A job under way gets to finish its chunks rather than stop half sent
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+    }
+
+    @jakarta.annotation.PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Queues a course-update notification for every student enrolled in the course. Only the
+     * course's instructor or an admin may send one.
+     */
+    public FanoutJob notifyCourseUpdate(Long courseId, String message, User sender) {
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new RuntimeException("Course not found with id: " + courseId));
+        if (sender.getRole() != User.Role.ADMIN
+                && (course.getInstructor() == null || !course.getInstructor().getId().equals(sender.getId()))) {
+            throw new RuntimeException("Only the course instructor can notify its students");
+        }
+        String text = message != null && !message.isBlank()
+                ? message.trim()
+                : "New content has been added to: " + course.getTitle();
+        if (text.length() > 1000) {
+            throw new RuntimeException("Message must be at most 1000 characters");
+        }
+
+        pruneFinished();
+        FanoutJob job = new FanoutJob(UUID.randomUUID().toString(), courseId, text,
+                courseRepository.countEnrolledStudents(courseId));
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.getId());
+            throw new RuntimeException("Too many course notifications are being sent, try again later");
+        }
+        return job;
+    }
+
+    public FanoutJob getJob(String jobId) {
+        FanoutJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new RuntimeException("Notification job not found: " + jobId);
+        }
+        return job;
+    }
+
+    private void run(FanoutJob job) {
+        job.status = FanoutJob.Status.RUNNING;
+        job.startedAt = LocalDateTime.now();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        LocalDateTime createdAt = LocalDateTime.now();
+        String actionUrl = "/courses/" + job.getCourseId();
+        long afterId = 0;
+        String error = null;
+        try {
+            while (true) {
+                List<Long> studentIds = userRepository.findEnrolledStudentIdsAfter(
+                        job.getCourseId(), afterId, PageRequest.of(0, chunkSize));
+                if (studentIds.isEmpty()) {
+                    break;
+                }
+                transaction.executeWithoutResult(status -> {
+                    insertChunk(studentIds, job.getMessage(), actionUrl, createdAt);
+                    // Counted after the chunk commits, like a createNotification per student
+                    eventPublisher.publishEvent(new NotificationEvent(
+                            NotificationEvent.Type.CREATED, null, null, studentIds.size(), false));
+                });
+                unreadCountService.increment(studentIds);
+                job.sent += studentIds.size();
+                afterId = studentIds.get(studentIds.size() - 1);
+                logger.debug("Course {} update fan-out: {}/{} notified", job.getCourseId(), job.sent, job.getTotal());
+                if (studentIds.size() < chunkSize) {
+                    break;
+                }
+                Thread.sleep(pauseMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = "Interrupted";
+        } catch (RuntimeException e) {
+            logger.error("Course {} update fan-out failed after {} notifications", job.getCourseId(), job.sent, e);
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        }
+
+        if (job.sent > 0) {
+            try {
+                webSocketController.sendCourseUpdate(job.getCourseId().toString(), job.getMessage(), "new_content");
+            } catch (Exception e) {
+                logger.warn("Failed to send course update for course {}: {}", job.getCourseId(), e.getMessage());
+            }
+        }
+        // Finished only once the course topic has been told too
+        job.error = error;
+        job.status = error == null ? FanoutJob.Status.COMPLETED : FanoutJob.Status.FAILED;
+        job.finishedAt = LocalDateTime.now();
+        logger.info("Course {} update fan-out {}: {} of {} students notified in {} ms", job.getCourseId(),
+                job.status.name().toLowerCase(), job.sent, job.getTotal(),
+                Duration.between(job.startedAt, job.finishedAt).toMillis());
+    }
+
+    private void insertChunk(List<Long> studentIds, String message, String actionUrl, LocalDateTime createdAt) {
+        Timestamp timestamp = Timestamp.valueOf(createdAt);
+        List<Object[]> rows = new ArrayList<>(studentIds.size());
+        for (Long studentId : studentIds) {
+            rows.add(new Object[]{"Course Updated", message, Notification.Type.COURSE_UPDATE.name(), false,
+                    studentId, actionUrl, timestamp});
+        }
+        jdbcTemplate.batchUpdate(INSERT_NOTIFICATION, rows);
+    }
+
+    private void pruneFinished() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(KEEP_FINISHED);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    /** Progress of one fan-out; fields are written only by the job's thread. */
+    public static class FanoutJob {
+
+        public enum Status {
+            QUEUED, RUNNING, COMPLETED, FAILED
+        }
+
+        private final String id;
+        private final Long courseId;
+        private final String message;
+        private final long total;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private volatile Status status = Status.QUEUED;
+        private volatile long sent;
+        private volatile String error;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+
+        FanoutJob(String id, Long courseId, String message, long total) {
+            this.id = id;
+            this.courseId = courseId;
+            this.message = message;
+            this.total = total;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Long getCourseId() {
+            return courseId;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        // Enrolled students when the job was queued; enrollments after that may also be notified
+        public long getTotal() {
+            return total;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public long getSent() {
+            return sent;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        public LocalDateTime getStartedAt() {
+            return startedAt;
+        }
+
+        public LocalDateTime getFinishedAt() {
+            return finishedAt;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.edupress.service;
+
+import com.edupress.dto.response.AdminOverviewResponse;
+import com.edupress.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Builds the admin dashboard overview. User, course and notification totals are read from
+ * {@link PlatformCounterService}; the remaining database-backed groups run on a small bounded
+ * pool, and the assembled result is memoized for a short TTL. Concurrent callers that miss the
+ * cache join the single in-flight computation instead of starting their own.
+ */
+@Service
+public class DashboardAggregationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardAggregationService.class);
+
+    @Autowired
+    private PlatformCounterService platformCounterService;
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Value("${app.dashboard.cache-ttl-ms:5000}")
+    private long cacheTtlMillis;
+
+    @Value("${app.dashboard.executor.threads:4}")
+    private int executorThreads;
+
+    private ThreadPoolTaskExecutor executor;
+
+    private final AtomicReference<CachedOverview> cached = new AtomicReference<>();
+
+    private final AtomicReference<CompletableFuture<AdminOverviewResponse>> inFlight = new AtomicReference<>();
+
+    @jakarta.annotation.PostConstruct
+    public void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(executorThreads);
+        executor.setMaxPoolSize(executorThreads);
+        executor.setQueueCapacity(64);
+        executor.setThreadNamePrefix("dashboard-");
+        // When saturated, run on the caller instead of failing the dashboard request
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+    }
+
+    @jakarta.annotation.PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public AdminOverviewResponse getAdminOverview() {
+        CachedOverview current = cached.get();
+        if (current != null && !current.isExpired(cacheTtlMillis)) {
+            return current.overview;
+        }
+
+        CompletableFuture<AdminOverviewResponse> mine = new CompletableFuture<>();
+        CompletableFuture<AdminOverviewResponse> running = inFlight.compareAndExchange(null, mine);
+        if (running != null) {
+            return await(running);
+        }
+
+        try {
+            // Another caller may have refreshed the cache between our check and winning the flight
+            current = cached.get();
+            AdminOverviewResponse overview = current != null && !current.isExpired(cacheTtlMillis)
+                    ? current.overview
+                    : computeOverview();
+            cached.set(new CachedOverview(overview));
+            mine.complete(overview);
+            return overview;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.set(null);
+        }
+    }
+
+    public void invalidate() {
+        cached.set(null);
+    }
+
+    private AdminOverviewResponse computeOverview() {
+        long start = System.nanoTime();
+
+        // Enrollment stats still come from the database; everything else is a counter read
+        CompletableFuture<Object> enrollments =
+                CompletableFuture.supplyAsync(enrollmentService::getGlobalEnrollmentStats, executor);
+
+        long totalUsers = platformCounterService.get(PlatformCounterService.USERS_TOTAL);
+        long students = platformCounterService.getUserCount(User.Role.STUDENT);
+        long instructors = platformCounterService.getUserCount(User.Role.INSTRUCTOR);
+        long admins = platformCounterService.getUserCount(User.Role.ADMIN);
+
+        AdminOverviewResponse overview = new AdminOverviewResponse();
+        overview.setTotalUsers(totalUsers);
+        overview.setTotalStudents(students);
+        overview.setTotalInstructors(instructors);
+        overview.setTotalAdmins(admins);
+        overview.setUserStats(new AdminOverviewResponse.UserStats(totalUsers, admins, instructors, students));
+        overview.setTotalCourses(platformCounterService.get(PlatformCounterService.COURSES_TOTAL));
+        overview.setPublishedCourses(platformCounterService.get(PlatformCounterService.COURSES_PUBLISHED));
+        overview.setFreeCourses(platformCounterService.get(PlatformCounterService.COURSES_PUBLISHED_FREE));
+        overview.setPaidCourses(platformCounterService.get(PlatformCounterService.COURSES_PUBLISHED_PAID));
+        overview.setNotificationStats(new AdminOverviewResponse.NotificationStats(
+                platformCounterService.get(PlatformCounterService.NOTIFICATIONS_TOTAL),
+                platformCounterService.get(PlatformCounterService.NOTIFICATIONS_UNREAD),
+                platformCounterService.get(PlatformCounterService.NOTIFICATIONS_READ)));
+        overview.setEnrollmentStats(await(enrollments));
+        overview.setGeneratedAt(LocalDateTime.now().toString());
+
+        logger.debug("Admin overview aggregated in {} ms", (System.nanoTime() - start) / 1_000_000);
+        return overview;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static final class CachedOverview {
+        private final AdminOverviewResponse overview;
+        private final long createdAtMillis;
+
+        private CachedOverview(AdminOverviewResponse overview) {
+            this.overview = overview;
+            this.createdAtMillis = System.currentTimeMillis();
+        }
+
+        private boolean isExpired(long ttlMillis) {
+            return System.currentTimeMillis() - createdAtMillis >= ttlMillis;
+        }
+    }
+}
@@ -5,6 +5,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
@@ -12,6 +14,9 @@ import org.springframework.stereotype.Service;
 
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 public class EmailService {
@@ -46,6 +51,34 @@ public class EmailService {
         }
     }
 
+    /**
+     * Sends the messages over one SMTP connection and returns the ones that failed with their
+     * errors; an empty map means all were sent. The sender address is filled in.
+     */
+    public Map<SimpleMailMessage, Exception> sendSimpleEmails(List<SimpleMailMessage> messages) {
+        Map<SimpleMailMessage, Exception> failed = new IdentityHashMap<>();
+        messages.forEach(message -> message.setFrom(fromEmail));
+        try {
+            mailSender.send(messages.toArray(new SimpleMailMessage[0]));
+            logger.info("Sent {} emails", messages.size());
+        } catch (MailSendException e) {
+            e.getFailedMessages().forEach((message, error) -> {
+                if (message instanceof SimpleMailMessage simpleMessage) {
+                    failed.put(simpleMessage, error);
+                }
+            });
+            // Failures not tied to a message mean nothing can be assumed sent
+            if (failed.isEmpty()) {
+                messages.forEach(message -> failed.put(message, e));
+            }
+            logger.error("Failed to send {} of {} emails: {}", failed.size(), messages.size(), e.getMessage());
+        } catch (MailException e) {
+            messages.forEach(message -> failed.put(message, e));
+            logger.error("Failed to send {} emails: {}", messages.size(), e.getMessage());
+        }
+        return failed;
+    }
+
     public void sendHtmlEmail(String to, String subject, String htmlContent) {
         try {
             MimeMessage message = mailSender.createMimeMessage();
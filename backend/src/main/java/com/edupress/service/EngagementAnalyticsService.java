@@ -0,0 +1,175 @@
+package com.edupress.service;
+
+import com.edupress.analytics.EngagementTracker;
+import com.edupress.analytics.HyperLogLog;
+import com.edupress.event.CourseEvent;
+import com.edupress.event.EnrollmentEvent;
+import com.edupress.event.LessonCompletedEvent;
+import com.edupress.repository.CourseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Active-user sketches and hour-of-week activity, platform-wide and per course.
+ * <p>
+ * Authenticated API requests feed the request tracker (and the course tracker when the route
+ * names a course); lesson completions and enrollments feed the learning tracker. Platform
+ * active users are the union of both trackers' sketches, so nothing per user is ever stored.
+ * Everything lives in memory for {@code retention-days} and starts empty after a restart.
+ * <p>
+ * Course trackers are only created for courses that exist, dropped when the course is deleted
+ * or has had no activity for a whole retention window, and capped at {@code max-courses}. A
+ * course active every day costs up to {@code retention-days * (2^course-precision + 192)}
+ * bytes, so the defaults bound course tracking at about 1000 * 35 * 1.2 KB = 42 MB of heap.
+ */
+@Service
+public class EngagementAnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EngagementAnalyticsService.class);
+
+    @Value("${app.analytics.engagement.retention-days:35}")
+    private int retentionDays;
+
+    @Value("${app.analytics.engagement.platform-precision:14}")
+    private int platformPrecision;
+
+    @Value("${app.analytics.engagement.course-precision:10}")
+    private int coursePrecision;
+
+    @Value("${app.analytics.engagement.max-courses:1000}")
+    private int maxCourses;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    private EngagementTracker requests;
+
+    private EngagementTracker learning;
+
+    private final Map<Long, EngagementTracker> courses = new ConcurrentHashMap<>();
+
+    private volatile boolean courseLimitLogged;
+
+    @jakarta.annotation.PostConstruct
+    public void init() {
+        requests = new EngagementTracker(retentionDays, platformPrecision);
+        learning = new EngagementTracker(retentionDays, platformPrecision);
+    }
+
+    public int getRetentionDays() {
+        return retentionDays;
+    }
+
+    public void recordRequest(Long userId, Long courseId) {
+        LocalDateTime now = LocalDateTime.now();
+        requests.record(userId, now);
+        if (courseId != null) {
+            recordCourse(courseId, userId, now);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLessonCompleted(LessonCompletedEvent event) {
+        recordLearning(event.getUserId(), event.getCourseId(), event.getOccurredAt());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEnrollmentEvent(EnrollmentEvent event) {
+        if (event.getType() == EnrollmentEvent.Type.ENROLLED) {
+            recordLearning(event.getUserId(), event.getCourseId(), event.getOccurredAt());
+        }
+    }
+
+    private void recordLearning(Long userId, Long courseId, LocalDateTime at) {
+        learning.record(userId, at);
+        if (courseId != null) {
+            recordCourse(courseId, userId, at);
+        }
+    }
+
+    private void recordCourse(Long courseId, Long userId, LocalDateTime at) {
+        EngagementTracker tracker = courses.get(courseId);
+        if (tracker == null) {
+            if (courses.size() >= maxCourses) {
+                if (!courseLimitLogged) {
+                    courseLimitLogged = true;
+                    logger.warn("Engagement tracking limit of {} courses reached; new courses are not tracked", maxCourses);
+                }
+                return;
+            }
+            // Route ids are unchecked, so only allocate a tracker for a course that exists
+            if (!courseRepository.existsById(courseId)) {
+                return;
+            }
+            tracker = courses.computeIfAbsent(courseId, id -> new EngagementTracker(retentionDays, coursePrecision));
+        }
+        tracker.record(userId, at);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseEvent(CourseEvent event) {
+        if (event.getType() == CourseEvent.Type.DELETED) {
+            courses.remove(event.getCourseId());
+        }
+    }
+
+    /** Drops course trackers with no activity inside the retention window ending today. */
+    @Scheduled(cron = "${app.analytics.engagement.evict-cron:0 5 0 * * *}")
+    public void evictIdleCourses() {
+        LocalDate oldestKept = LocalDate.now().minusDays(retentionDays - 1L);
+        int before = courses.size();
+        courses.values().removeIf(tracker -> {
+            LocalDate latest = tracker.getLatestDay();
+            return latest == null || latest.isBefore(oldestKept);
+        });
+        int evicted = before - courses.size();
+        if (evicted > 0) {
+            courseLimitLogged = false;
+            logger.debug("Evicted {} idle course engagement trackers", evicted);
+        }
+    }
+
+    /**
+     * Merged sketch of users active between {@code from} and {@code to} inclusive, for the whole
+     * platform when {@code courseId} is null. Serialize it with {@link HyperLogLog#toBytes()} to
+     * combine with sketches from other nodes.
+     */
+    public HyperLogLog activeUsers(Long courseId, LocalDate from, LocalDate to) {
+        if (courseId != null) {
+            EngagementTracker tracker = courses.get(courseId);
+            return tracker != null ? tracker.activeUsers(from, to) : new HyperLogLog(coursePrecision);
+        }
+        return requests.activeUsers(from, to).merge(learning.activeUsers(from, to));
+    }
+
+    public long countActiveUsers(Long courseId, LocalDate from, LocalDate to) {
+        return activeUsers(courseId, from, to).estimate();
+    }
+
+    public long[] getRequestHeatmap(LocalDate from, LocalDate to) {
+        return requests.hourOfWeek(from, to);
+    }
+
+    public long[] getLearningHeatmap(LocalDate from, LocalDate to) {
+        return learning.hourOfWeek(from, to);
+    }
+
+    public long[] getCourseHeatmap(Long courseId, LocalDate from, LocalDate to) {
+        EngagementTracker tracker = courses.get(courseId);
+        return tracker != null ? tracker.hourOfWeek(from, to) : new long[EngagementTracker.HOURS_PER_WEEK];
+    }
+
+    public int getTrackedCourseCount() {
+        return courses.size();
+    }
+}
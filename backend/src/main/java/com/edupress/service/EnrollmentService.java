@@ -1,26 +1,85 @@
 package com.edupress.service;
 
+import com.edupress.event.EnrollmentEvent;
+import com.edupress.model.EnrollmentRecord;
 import com.edupress.model.User;
 import com.edupress.model.Course;
+import com.edupress.repository.EnrollmentRecordRepository;
 import com.edupress.repository.UserRepository;
 import com.edupress.repository.CourseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Service
 public class EnrollmentService {
 
+    private static final Logger logger = LoggerFactory.getLogger(EnrollmentService.class);
+
     @Autowired
     private UserRepository userRepository;
     
     @Autowired
     private CourseRepository courseRepository;
 
+    @Autowired
+    private EnrollmentRecordRepository enrollmentRecordRepository;
+
+    /**
+     * Keeps {@link EnrollmentRecord} dates in step with the join table. Runs before commit so the
+     * record is written in the same transaction as the enrollment itself.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onEnrollmentEvent(EnrollmentEvent event) {
+        EnrollmentRecord record = enrollmentRecordRepository
+                .findByUserIdAndCourseId(event.getUserId(), event.getCourseId())
+                .orElse(null);
+        if (event.getType() == EnrollmentEvent.Type.ENROLLED) {
+            if (record == null) {
+                record = new EnrollmentRecord(event.getUserId(), event.getCourseId(), event.getOccurredAt());
+            } else if (record.getUnenrolledAt() != null) {
+                record.setEnrolledAt(event.getOccurredAt());
+                record.setUnenrolledAt(null);
+            } else {
+                return;
+            }
+            enrollmentRecordRepository.save(record);
+        } else if (record != null && record.getUnenrolledAt() == null) {
+            record.setUnenrolledAt(event.getOccurredAt());
+            enrollmentRecordRepository.save(record);
+        }
+    }
+
+    /**
+     * Creates records for enrollments made before enrollment dates were kept, dated by the
+     * first successful payment for the course or, failing that, the student's signup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillEnrollmentRecords() {
+        List<EnrollmentRecord> records = new ArrayList<>();
+        for (Object[] row : enrollmentRecordRepository.findUnrecordedEnrollments()) {
+            LocalDateTime enrolledAt = row[3] != null ? (LocalDateTime) row[3] : (LocalDateTime) row[2];
+            records.add(new EnrollmentRecord((Long) row[0], (Long) row[1],
+                    enrolledAt != null ? enrolledAt : LocalDateTime.now()));
+        }
+        if (!records.isEmpty()) {
+            enrollmentRecordRepository.saveAll(records);
+            logger.info("Backfilled {} enrollment records", records.size());
+        }
+    }
+
     public void enrollInCourse(Long courseId) {
         // Implementation would create enrollment record
         throw new RuntimeException("Enrollment logic not yet fully implemented");
@@ -85,12 +144,7 @@ public class EnrollmentService {
 
     public long getInstructorStudentsCount(Long instructorId) {
         // Count distinct students across all instructor's courses
-        User instructor = userRepository.findById(instructorId).orElse(null);
-        if (instructor == null) return 0;
-        
-        return instructor.getInstructedCourses().stream()
-                .mapToLong(course -> course.getEnrolledStudents().size())
-                .sum();
+        return courseRepository.countDistinctStudentsByInstructorId(instructorId);
     }
 
     public long getStudentEnrolledCoursesCount(Long studentId) {
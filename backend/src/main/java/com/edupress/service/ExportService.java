@@ -0,0 +1,124 @@
+package com.edupress.service;
+
+import com.edupress.export.ExportFormat;
+import com.edupress.export.RowWriter;
+import com.edupress.repository.CourseRepository;
+import com.edupress.repository.RevenueLedgerRepository;
+import com.edupress.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams tabular exports straight from a database cursor to the response.
+ * <p>
+ * Rows come from repository queries that return {@link Stream}s of scalar projections with a
+ * fetch-size hint, so neither the persistence context nor the JDBC driver buffers the whole
+ * result. Each row is written and dropped before the next is read, which keeps memory flat
+ * no matter how many rows are exported.
+ */
+@Service
+public class ExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+
+    public static final String[] USER_COLUMNS = {
+            "id", "username", "email", "firstName", "lastName", "role", "active", "createdAt"};
+
+    public static final String[] COURSE_COLUMNS = {
+            "id", "title", "status", "free", "price", "enrollmentCount", "averageRating", "instructorId", "createdAt"};
+
+    public static final String[] REVENUE_COLUMNS = {
+            "id", "provider", "sourceId", "entryType", "userId", "courseId", "instructorId", "amount", "currency", "occurredAt"};
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private RevenueLedgerRepository revenueLedgerRepository;
+
+    public StreamingResponseBody exportUsers(ExportFormat format, boolean gzip) {
+        return stream(format, gzip, USER_COLUMNS, userRepository::streamExportRows);
+    }
+
+    public StreamingResponseBody exportCourses(ExportFormat format, boolean gzip) {
+        return stream(format, gzip, COURSE_COLUMNS, courseRepository::streamExportRows);
+    }
+
+    public StreamingResponseBody exportRevenue(LocalDate from, LocalDate to, ExportFormat format, boolean gzip) {
+        return stream(format, gzip, REVENUE_COLUMNS, () -> revenueLedgerRepository.streamExportRows(from, to));
+    }
+
+    /**
+     * Builds a response body that opens {@code rows} inside a read-only transaction when the
+     * response starts writing, and closes the cursor when done or when the client disconnects.
+     */
+    public StreamingResponseBody stream(ExportFormat format, boolean gzip, String[] columns,
+                                        Supplier<Stream<Object[]>> rows) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return out -> {
+            long start = System.currentTimeMillis();
+            long written = readOnly.execute(status -> {
+                try (Stream<Object[]> stream = rows.get()) {
+                    return writeRows(stream.iterator(), out, format, gzip, columns);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            logger.info("Exported {} rows as {}{} in {} ms", written, format, gzip ? "+gzip" : "",
+                    System.currentTimeMillis() - start);
+        };
+    }
+
+    /**
+     * Writes rows to {@code out} without closing it, so the caller (usually the servlet
+     * container) keeps ownership of the underlying stream.
+     */
+    public static long writeRows(Iterator<Object[]> rows, OutputStream out, ExportFormat format,
+                                 boolean gzip, String[] columns) throws IOException {
+        OutputStream target = StreamUtils.nonClosing(out);
+        if (gzip) {
+            target = new GZIPOutputStream(target, 64 * 1024);
+        }
+        try (RowWriter writer = format.open(target, columns)) {
+            while (rows.hasNext()) {
+                writer.write(rows.next());
+            }
+            return writer.getRowCount();
+        }
+    }
+
+    public static ResponseEntity<StreamingResponseBody> attachment(String baseName, ExportFormat format,
+                                                                   boolean gzip, StreamingResponseBody body) {
+        String fileName = baseName + "." + format.getExtension() + (gzip ? ".gz" : "");
+        MediaType contentType = MediaType.parseMediaType(gzip ? "application/gzip" : format.getContentType());
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .contentType(contentType)
+                .body(body);
+    }
+}
@@ -1,32 +1,32 @@
 package com.edupress.service;
 
+import com.edupress.storage.BlobStore;
+import com.edupress.storage.ContentAddressedStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
 
 @Service
 public class FileStorageService {
 
     private static final Logger logger = LoggerFactory.getLogger(FileStorageService.class);
 
-    private final Path fileStorageLocation;
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private ContentAddressedStore contentStore;
 
     // Allowed file types
     private static final String[] ALLOWED_IMAGE_TYPES = {
@@ -42,17 +42,11 @@ public class FileStorageService {
         "application/vnd.openxmlformats-officedocument.wordprocessingml.document"
     };
 
-    public FileStorageService(@Value("${app.upload.dir:uploads}") String uploadDir) {
-        this.fileStorageLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
-
-        try {
-            Files.createDirectories(this.fileStorageLocation);
-        } catch (Exception ex) {
-            throw new RuntimeException("Could not create the directory where the uploaded files will be stored.", ex);
-        }
-    }
-
-    public String storeFile(MultipartFile file, String type) {
+    /**
+     * Checks a general upload from what the request declares and returns its cleaned file name.
+     * The bytes themselves are checked by {@link UploadPipelineService} once they are staged.
+     */
+    public String validateUpload(MultipartFile file) {
         // Validate file
         validateFile(file);
 
@@ -62,52 +56,30 @@ public class FileStorageService {
             throw new RuntimeException("Original filename is required");
         }
         originalFileName = StringUtils.cleanPath(originalFileName);
-        
-        try {
-            // Check if the file's name contains invalid characters
-            if (originalFileName.contains("..")) {
-                throw new RuntimeException("Sorry! Filename contains invalid path sequence " + originalFileName);
-            }
-
-            // Generate unique filename
-            String fileExtension = getFileExtension(originalFileName);
-            String uniqueFileName = generateUniqueFileName(type, fileExtension);
-
-            // Create type-specific directory
-            Path typeDirectory = this.fileStorageLocation.resolve(type);
-            Files.createDirectories(typeDirectory);
 
-            // Copy file to the target location (Replacing existing file with the same name)
-            Path targetLocation = typeDirectory.resolve(uniqueFileName);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
-
-            logger.info("File stored successfully: {}", uniqueFileName);
-            return type + "/" + uniqueFileName;
-
-        } catch (IOException ex) {
-            throw new RuntimeException("Could not store file " + originalFileName + ". Please try again!", ex);
+        // Check if the file's name contains invalid characters
+        if (originalFileName.contains("..")) {
+            throw new RuntimeException("Sorry! Filename contains invalid path sequence " + originalFileName);
         }
+        return originalFileName;
     }
 
     public Resource loadFileAsResource(String fileName) {
-        try {
-            Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
-            Resource resource = new UrlResource(filePath.toUri());
-            
-            if (resource.exists()) {
-                return resource;
-            } else {
-                throw new RuntimeException("File not found " + fileName);
-            }
-        } catch (MalformedURLException ex) {
-            throw new RuntimeException("File not found " + fileName, ex);
+        Path filePath = locate(fileName);
+        if (filePath == null) {
+            throw new RuntimeException("File not found " + fileName);
         }
+        return new FileSystemResource(filePath);
     }
 
     public void deleteFile(String fileName) {
+        if (ContentAddressedStore.isKey(fileName)) {
+            // Other records may share the blob; BlobGarbageCollector removes it once nothing does
+            logger.info("File released: {}", fileName);
+            return;
+        }
         try {
-            Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
-            Files.deleteIfExists(filePath);
+            blobStore.delete(fileName);
             logger.info("File deleted successfully: {}", fileName);
         } catch (IOException ex) {
             throw new RuntimeException("Could not delete file " + fileName, ex);
@@ -116,9 +88,9 @@ public class FileStorageService {
 
     public Map<String, Object> getFileInfo(String fileName) {
         try {
-            Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
+            Path filePath = locate(fileName);
             
-            if (!Files.exists(filePath)) {
+            if (filePath == null) {
                 throw new RuntimeException("File not found " + fileName);
             }
 
@@ -178,25 +150,29 @@ public class FileStorageService {
         return false;
     }
 
-    private String getFileExtension(String fileName) {
-        if (fileName == null || fileName.lastIndexOf(".") == -1) {
-            return "";
+    public boolean fileExists(String fileName) {
+        try {
+            return locate(fileName) != null;
+        } catch (Exception ex) {
+            return false;
         }
-        return fileName.substring(fileName.lastIndexOf("."));
     }
 
-    private String generateUniqueFileName(String type, String extension) {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-        String uuid = UUID.randomUUID().toString().substring(0, 8);
-        return type + "_" + timestamp + "_" + uuid + extension;
+    /** Local path of a stored file, by blob key or legacy name; null when it doesn't exist. */
+    public Path getFilePath(String fileName) {
+        return locate(fileName);
     }
 
-    public boolean fileExists(String fileName) {
+    // Blob keys live in the content store; anything else is a file from before content addressing,
+    // stored under its own name
+    private Path locate(String fileName) {
         try {
-            Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
-            return Files.exists(filePath);
-        } catch (Exception ex) {
-            return false;
+            if (ContentAddressedStore.isKey(fileName)) {
+                return contentStore.localFile(fileName);
+            }
+            return blobStore.localPath(fileName);
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not read file " + fileName, ex);
         }
     }
 
@@ -0,0 +1,227 @@
+package com.edupress.service;
+
+import com.edupress.media.ImageResizer;
+import com.edupress.media.ImageVariant;
+import com.edupress.storage.ContentAddressedStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.stream.Stream;
+
+/**
+ * Resized copies of uploaded images, one per {@link ImageVariant}, cached on disk under
+ * {@code uploads/variants}. Variants are rendered in the background right after upload; a
+ * request for one that doesn't exist yet renders it inline, and concurrent requests for the same
+ * variant wait for that single rendering instead of each decoding the original.
+ * <p>
+ * When the original is already no wider than the variant, or isn't an image ImageIO can decode,
+ * an empty {@code .orig} marker is cached instead and the original is served.
+ */
+@Service
+public class ImageVariantService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariantService.class);
+
+    private static final Set<String> IMAGE_EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif", "bmp", "webp");
+
+    private static final String ORIGINAL_MARKER = "orig";
+
+    @Value("${app.upload.dir:uploads/}")
+    private String uploadRoot;
+
+    @Value("${app.images.executor.threads:2}")
+    private int executorThreads;
+
+    // Decoding needs about 4 bytes per pixel; refuse anything that would blow up the heap
+    @Value("${app.images.max-source-pixels:40000000}")
+    private long maxSourcePixels;
+
+    private ThreadPoolTaskExecutor executor;
+
+    private final ConcurrentHashMap<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
+    @jakarta.annotation.PostConstruct
+    public void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(executorThreads);
+        executor.setMaxPoolSize(executorThreads);
+        executor.setQueueCapacity(256);
+        executor.setThreadNamePrefix("image-variants-");
+        // A dropped job is harmless: the variant is rendered on its first request instead
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.initialize();
+    }
+
+    @jakarta.annotation.PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public static boolean isImage(String fileName) {
+        int dot = fileName != null ? fileName.lastIndexOf('.') : -1;
+        return dot >= 0 && IMAGE_EXTENSIONS.contains(fileName.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    /** Queues rendering of every variant of a freshly stored image. */
+    public void generateAsync(String fileName, Path source) {
+        if (source == null || !isImage(fileName)) {
+            return;
+        }
+        executor.execute(() -> {
+            for (ImageVariant variant : ImageVariant.values()) {
+                getOrCreate(fileName, source, variant);
+            }
+        });
+    }
+
+    /**
+     * The cached file to serve for {@code fileName} at {@code requestedWidth}, rendering it if
+     * needed; {@code source} itself when no smaller copy applies.
+     */
+    public Path getVariant(String fileName, Path source, int requestedWidth) {
+        if (!isImage(fileName)) {
+            return source;
+        }
+        Path variant = getOrCreate(fileName, source, ImageVariant.forWidth(requestedWidth));
+        return variant != null ? variant : source;
+    }
+
+    /** Removes cached variants of a blob that has been deleted. */
+    public void evict(String fileName) {
+        Path dir = variantDir(fileName);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    logger.debug("Could not delete variant {}", path, e);
+                }
+            });
+        } catch (IOException e) {
+            logger.warn("Could not evict variants of {}", fileName, e);
+        }
+    }
+
+    // Null means "serve the original"
+    private Path getOrCreate(String fileName, Path source, ImageVariant variant) {
+        Path dir = variantDir(fileName);
+        Path cached = findCached(dir, variant, source);
+        if (cached != null) {
+            return isMarker(cached) ? null : cached;
+        }
+
+        String flightKey = dir + "/" + variant.fileName();
+        CompletableFuture<Path> mine = new CompletableFuture<>();
+        CompletableFuture<Path> running = inFlight.putIfAbsent(flightKey, mine);
+        if (running != null) {
+            return running.join();
+        }
+
+        Path result = null;
+        try {
+            // Another thread may have finished rendering between our lookup and winning the flight
+            cached = findCached(dir, variant, source);
+            if (cached == null) {
+                cached = render(source, dir, variant);
+            }
+            result = isMarker(cached) ? null : cached;
+        } catch (Exception e) {
+            logger.warn("Could not render {} variant of {}", variant, fileName, e);
+        } finally {
+            mine.complete(result);
+            inFlight.remove(flightKey, mine);
+        }
+        return result;
+    }
+
+    private Path render(Path source, Path dir, ImageVariant variant) throws IOException {
+        Files.createDirectories(dir);
+        int[] dimensions = ImageResizer.readDimensions(source);
+        BufferedImage image = null;
+        if (dimensions != null && dimensions[0] > variant.getWidth()
+                && (long) dimensions[0] * dimensions[1] <= maxSourcePixels) {
+            image = ImageIO.read(source.toFile());
+        }
+        if (image == null) {
+            return publish(dir, variant, ORIGINAL_MARKER, null);
+        }
+        return publish(dir, variant, null, ImageResizer.scaleToWidth(image, variant.getWidth()));
+    }
+
+    // Written beside the target and moved into place, so readers never see a partial file
+    private Path publish(Path dir, ImageVariant variant, String extension, BufferedImage image) throws IOException {
+        String ext = image != null ? ImageResizer.formatFor(image) : extension;
+        Path target = dir.resolve(variant.fileName() + "." + ext);
+        Path temp = Files.createTempFile(dir, variant.fileName(), ".tmp");
+        try {
+            if (image != null) {
+                ImageResizer.write(image, temp);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return target;
+    }
+
+    // Variants older than their source (a legacy file overwritten in place) are ignored; blob
+    // contents never change, though their local copy may be refetched with a newer mtime
+    private static Path findCached(Path dir, ImageVariant variant, Path source) {
+        boolean immutable = ContentAddressedStore.isKey(source.getFileName().toString());
+        for (String ext : new String[] {"jpg", "png", ORIGINAL_MARKER}) {
+            Path candidate = dir.resolve(variant.fileName() + "." + ext);
+            try {
+                if (Files.exists(candidate) && (immutable || Files.getLastModifiedTime(candidate)
+                        .compareTo(Files.getLastModifiedTime(source)) >= 0)) {
+                    return candidate;
+                }
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isMarker(Path path) {
+        return path.getFileName().toString().endsWith("." + ORIGINAL_MARKER);
+    }
+
+    // Blob keys name their own cache directory; legacy names are hashed to keep paths flat
+    private Path variantDir(String fileName) {
+        String id = ContentAddressedStore.isKey(fileName) ? fileName.substring(0, 64) : sha256(fileName);
+        return Paths.get(uploadRoot).toAbsolutePath().normalize()
+                .resolve("variants").resolve(id.substring(0, 2)).resolve(id);
+    }
+
+    private static String sha256(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
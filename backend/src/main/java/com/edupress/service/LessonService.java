@@ -1,10 +1,14 @@
 package com.edupress.service;
 
+import com.edupress.event.LessonCompletedEvent;
 import com.edupress.model.Lesson;
+import com.edupress.model.LessonProgress;
 import com.edupress.model.Course;
+import com.edupress.repository.LessonProgressRepository;
 import com.edupress.repository.LessonRepository;
 import com.edupress.repository.CourseRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -24,6 +28,12 @@ public class LessonService {
     @Autowired
     private CourseRepository courseRepository;
 
+    @Autowired
+    private LessonProgressRepository lessonProgressRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // Lesson CRUD operations
     public Lesson createLesson(Lesson lesson) {
         lesson.setCreatedAt(LocalDateTime.now());
@@ -106,17 +116,19 @@ public class LessonService {
 
     // Student progress tracking
     public void markLessonAsCompleted(Long lessonId, Long userId) {
-        // TODO: Implement lesson completion tracking in a separate entity
-        // For now, we'll just mark as completed in a simple way
-        // In a real application, you'd have a LessonProgress entity
-        System.out.println("Lesson " + lessonId + " marked as completed for user " + userId);
+        Lesson lesson = lessonRepository.findById(lessonId)
+                .orElseThrow(() -> new RuntimeException("Lesson not found with id: " + lessonId));
+        // Completing a lesson twice is a no-op, so analytics see one completion per student
+        if (lessonProgressRepository.existsByUserIdAndLessonId(userId, lessonId)) {
+            return;
+        }
+        Long courseId = lesson.getCourse() != null ? lesson.getCourse().getId() : null;
+        lessonProgressRepository.save(new LessonProgress(userId, lessonId, courseId, LocalDateTime.now()));
+        eventPublisher.publishEvent(new LessonCompletedEvent(lessonId, courseId, userId));
     }
 
     public boolean isLessonCompletedByUser(Long lessonId, Long userId) {
-        // TODO: Implement lesson completion checking
-        // For now, returning false
-        // In a real application, you'd check the LessonProgress entity
-        return false;
+        return lessonProgressRepository.existsByUserIdAndLessonId(userId, lessonId);
     }
 
     // Get lessons by course with pagination
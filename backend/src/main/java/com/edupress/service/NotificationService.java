@@ -1,26 +1,74 @@
 package com.edupress.service;
 
+import com.edupress.dto.response.NotificationFeedItem;
+import com.edupress.event.NotificationEvent;
+import com.edupress.model.BroadcastNotification;
+import com.edupress.model.BroadcastRead;
 import com.edupress.model.Notification;
 import com.edupress.model.User;
+import com.edupress.repository.BroadcastNotificationRepository;
+import com.edupress.repository.BroadcastReadRepository;
 import com.edupress.repository.NotificationRepository;
+import com.edupress.security.UserPrincipal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @Transactional
 public class NotificationService {
 
+    private static final Logger logger = LoggerFactory.getLogger(NotificationService.class);
+
+    // Feed order; the tie-breakers keep rows sharing a timestamp on the same page every time
+    private static final Comparator<NotificationFeedItem> FEED_ORDER = Comparator
+            .comparing(NotificationFeedItem::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(NotificationFeedItem::isBroadcast, Comparator.reverseOrder())
+            .thenComparing(NotificationFeedItem::getId, Comparator.nullsLast(Comparator.reverseOrder()));
+
     @Autowired
     private NotificationRepository notificationRepository;
 
+    @Autowired
+    private BroadcastNotificationRepository broadcastRepository;
+
+    @Autowired
+    private BroadcastReadRepository broadcastReadRepository;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private UnreadCountService unreadCountService;
+
+    @Autowired
+    private PlatformCounterService platformCounterService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // Using @Lazy to avoid circular dependency with WebSocketController
     @Autowired
     @Lazy
@@ -31,17 +79,11 @@ public class NotificationService {
         Notification notification = new Notification(title, message, type, user);
         notification.setActionUrl(actionUrl);
         notification = notificationRepository.save(notification);
-        
-        // Send real-time notification via WebSocket
-        try {
-            if (webSocketController != null) {
-                webSocketController.sendNotificationToUser(user.getId().toString(), notification);
-            }
-        } catch (Exception e) {
-            // Log error but don't fail the notification creation
-            System.err.println("Failed to send real-time notification: " + e.getMessage());
-        }
-        
+        publish(NotificationEvent.Type.CREATED, notification, 1, false);
+
+        // Pushed over WebSocket by the outbox once this transaction commits
+        outboxService.enqueueNotificationPush(notification);
+
         return notification;
     }
 
@@ -61,8 +103,10 @@ public class NotificationService {
         return notificationRepository.findTop10ByUserAndIsReadFalseOrderByCreatedAtDesc(user);
     }
 
+    // Served from memory once loaded; see UnreadCountService
     public long getUnreadCountByUser(User user) {
-        return notificationRepository.countUnreadByUser(user);
+        return unreadCountService.get(user.getId(), () -> notificationRepository.countUnreadByUser(user)
+                + broadcastRepository.countUnread(user.getRole(), visibleSince(user), user.getId()));
     }
 
     public Optional<Notification> findById(Long id) {
@@ -73,62 +117,127 @@ public class NotificationService {
         Optional<Notification> notificationOpt = notificationRepository.findById(notificationId);
         if (notificationOpt.isPresent()) {
             Notification notification = notificationOpt.get();
+            boolean wasRead = Boolean.TRUE.equals(notification.getIsRead());
             notification.setIsRead(true);
             notification.setReadAt(LocalDateTime.now());
-            return notificationRepository.save(notification);
+            notification = notificationRepository.save(notification);
+            publish(NotificationEvent.Type.READ, notification, 1, wasRead);
+            return notification;
         }
         throw new RuntimeException("Notification not found with id: " + notificationId);
     }
 
     public int markAllAsReadByUser(User user) {
-        return notificationRepository.markAllAsReadByUser(user, LocalDateTime.now());
+        LocalDateTime now = LocalDateTime.now();
+        int updated = notificationRepository.markAllAsReadByUser(user, now);
+        if (updated > 0) {
+            eventPublisher.publishEvent(new NotificationEvent(NotificationEvent.Type.ALL_READ, user.getId(), null, updated, false));
+        }
+        List<BroadcastRead> markers = new ArrayList<>();
+        for (BroadcastNotification broadcast : broadcastRepository.findUnread(user.getRole(), visibleSince(user), user.getId(), Pageable.unpaged())) {
+            markers.add(new BroadcastRead(broadcast.getId(), user.getId(), now));
+        }
+        broadcastReadRepository.saveAll(markers);
+        if (!markers.isEmpty()) {
+            afterCommit(() -> unreadCountService.adjust(user.getId(), -markers.size()));
+        }
+        return updated + markers.size();
+    }
+
+    public void markBroadcastAsRead(Long broadcastId) {
+        User user = currentUser();
+        BroadcastNotification broadcast = broadcastRepository.findById(broadcastId)
+                .filter(b -> b.getTargetRole() == null || b.getTargetRole() == user.getRole())
+                .orElseThrow(() -> new RuntimeException("Broadcast notification not found with id: " + broadcastId));
+        if (!broadcastReadRepository.existsByBroadcastIdAndUserId(broadcast.getId(), user.getId())) {
+            broadcastReadRepository.save(new BroadcastRead(broadcast.getId(), user.getId(), LocalDateTime.now()));
+            afterCommit(() -> unreadCountService.adjust(user.getId(), -1));
+        }
     }
 
     public void deleteNotification(Long notificationId) {
+        Optional<Notification> notificationOpt = notificationRepository.findById(notificationId);
         notificationRepository.deleteById(notificationId);
+        notificationOpt.ifPresent(notification ->
+                publish(NotificationEvent.Type.DELETED, notification, 1, Boolean.TRUE.equals(notification.getIsRead())));
     }
 
     // Additional methods for NotificationController
-    public Page<Notification> findUserNotifications(Pageable pageable) {
-        // In a real implementation, you'd get the current user from security context
-        throw new RuntimeException("Current user not found in security context");
+    public Page<NotificationFeedItem> findUserNotifications(Pageable pageable) {
+        return feed(currentUser(), null, pageable);
     }
 
-    public Page<Notification> findUserNotificationsByReadStatus(Boolean isRead, Pageable pageable) {
-        // In a real implementation, you'd get the current user from security context
-        throw new RuntimeException("Current user not found in security context");
+    public Page<NotificationFeedItem> findUserNotificationsByReadStatus(Boolean isRead, Pageable pageable) {
+        return feed(currentUser(), isRead, pageable);
     }
 
     public long getUnreadNotificationsCount() {
-        // In a real implementation, you'd get the current user from security context
-        throw new RuntimeException("Current user not found in security context");
+        return getUnreadCountByUser(currentUser());
     }
 
     public void markAllAsRead() {
-        // In a real implementation, you'd get the current user from security context
-        // and mark all their notifications as read
-        throw new RuntimeException("Current user not found in security context");
+        markAllAsReadByUser(currentUser());
     }
 
     public void deleteReadNotifications() {
-        // In a real implementation, you'd get the current user from security context
-        // and delete all their read notifications
-        throw new RuntimeException("Current user not found in security context");
+        User user = currentUser();
+        int deleted = notificationRepository.deleteReadByUser(user);
+        if (deleted > 0) {
+            eventPublisher.publishEvent(new NotificationEvent(NotificationEvent.Type.DELETED, user.getId(), null, deleted, true));
+        }
     }
 
     public Notification sendNotification(Notification notification) {
         notification.setCreatedAt(LocalDateTime.now());
-        return notificationRepository.save(notification);
+        notification = notificationRepository.save(notification);
+        publish(NotificationEvent.Type.CREATED, notification, 1, Boolean.TRUE.equals(notification.getIsRead()));
+        return notification;
     }
 
-    public void broadcastNotification(String title, String message, Notification.Type type) {
-        // In a real implementation, you'd send notification to all users
-        throw new RuntimeException("Broadcast notification logic not yet implemented");
+    public BroadcastNotification broadcastNotification(String title, String message, Notification.Type type) {
+        return broadcast(title, message, type, null);
     }
 
-    public void sendNotificationToRole(String role, String title, String message, Notification.Type type) {
-        // In a real implementation, you'd send notification to all users with specific role
-        throw new RuntimeException("Send notification to role logic not yet implemented");
+    public BroadcastNotification sendNotificationToRole(String role, String title, String message, Notification.Type type) {
+        User.Role targetRole;
+        try {
+            targetRole = User.Role.valueOf(role.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Unknown role: " + role);
+        }
+        return broadcast(title, message, type, targetRole);
+    }
+
+    // One row however many users it reaches; read state is added per user only once they read it
+    private BroadcastNotification broadcast(String title, String message, Notification.Type type, User.Role targetRole) {
+        BroadcastNotification broadcast = broadcastRepository.save(
+                new BroadcastNotification(title, message, type != null ? type : Notification.Type.SYSTEM, targetRole));
+        // Pushed once to the shared topic, after the commit so clients can fetch it
+        afterCommit(() -> {
+            // Unread for everyone it reaches; cheaper to reload the counts than to find those users
+            unreadCountService.invalidateAll();
+            try {
+                webSocketController.sendSystemAnnouncement(broadcast);
+            } catch (Exception e) {
+                logger.warn("Failed to send real-time announcement {}: {}", broadcast.getId(), e.getMessage());
+            }
+        });
+        return broadcast;
+    }
+
+    public void deleteBroadcast(Long broadcastId) {
+        broadcastReadRepository.deleteByBroadcastId(broadcastId);
+        broadcastRepository.deleteById(broadcastId);
+        afterCommit(unreadCountService::invalidateAll);
+    }
+
+    private static void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 
     public Page<Notification> findAllNotifications(Pageable pageable) {
@@ -137,7 +246,11 @@ public class NotificationService {
 
     public int cleanupOldNotifications(User user, int daysOld) {
         LocalDateTime cutoffDate = LocalDateTime.now().minusDays(daysOld);
-        return notificationRepository.deleteOldNotificationsByUser(user, cutoffDate);
+        int deleted = notificationRepository.deleteOldNotificationsByUser(user, cutoffDate);
+        if (deleted > 0) {
+            eventPublisher.publishEvent(new NotificationEvent(NotificationEvent.Type.PURGED, user.getId(), null, deleted, false));
+        }
+        return deleted;
     }
 
     // Specific notification types
@@ -242,9 +355,9 @@ public class NotificationService {
 
     public Object getNotificationStats() {
         return new Object() {
-            public final long totalNotifications = notificationRepository.count();
-            public final long unreadNotifications = notificationRepository.countByIsReadFalse();
-            public final long readNotifications = notificationRepository.countByIsReadTrue();
+            public final long totalNotifications = platformCounterService.get(PlatformCounterService.NOTIFICATIONS_TOTAL);
+            public final long unreadNotifications = platformCounterService.get(PlatformCounterService.NOTIFICATIONS_UNREAD);
+            public final long readNotifications = platformCounterService.get(PlatformCounterService.NOTIFICATIONS_READ);
         };
     }
 
@@ -253,6 +366,71 @@ public class NotificationService {
     }
 
     public long getUnreadNotificationsCount(User user) {
-        return notificationRepository.countUnreadByUser(user);
+        return getUnreadCountByUser(user);
+    }
+
+    /**
+     * The user's own notifications and the broadcasts they can see, newest first. Both sources
+     * are read up to the end of the requested page and merged, which stays cheap because
+     * broadcasts are few and feeds are read from the first pages.
+     */
+    private Page<NotificationFeedItem> feed(User user, Boolean isRead, Pageable pageable) {
+        int limit = (int) Math.min(Integer.MAX_VALUE, pageable.getOffset() + pageable.getPageSize());
+        Pageable head = PageRequest.of(0, Math.max(1, limit));
+        LocalDateTime since = visibleSince(user);
+
+        // Newest first, then by id like the broadcast queries
+        Pageable ownHead = PageRequest.of(0, head.getPageSize(), Sort.by(Sort.Direction.DESC, "id"));
+        Page<Notification> own = isRead != null
+                ? notificationRepository.findByUserAndIsReadOrderByCreatedAtDesc(user, isRead, ownHead)
+                : notificationRepository.findByUserOrderByCreatedAtDesc(user, ownHead);
+        List<NotificationFeedItem> items = new ArrayList<>();
+        own.forEach(notification -> items.add(NotificationFeedItem.of(notification)));
+
+        List<BroadcastNotification> broadcasts;
+        long broadcastTotal;
+        Set<Long> readIds = new HashSet<>();
+        if (Boolean.FALSE.equals(isRead)) {
+            broadcasts = broadcastRepository.findUnread(user.getRole(), since, user.getId(), head);
+            broadcastTotal = broadcastRepository.countUnread(user.getRole(), since, user.getId());
+        } else if (Boolean.TRUE.equals(isRead)) {
+            broadcasts = broadcastRepository.findRead(user.getRole(), since, user.getId(), head);
+            broadcastTotal = broadcastRepository.countVisible(user.getRole(), since)
+                    - broadcastRepository.countUnread(user.getRole(), since, user.getId());
+            broadcasts.forEach(broadcast -> readIds.add(broadcast.getId()));
+        } else {
+            broadcasts = broadcastRepository.findVisible(user.getRole(), since, head);
+            broadcastTotal = broadcastRepository.countVisible(user.getRole(), since);
+            if (!broadcasts.isEmpty()) {
+                readIds.addAll(broadcastReadRepository.findReadBroadcastIds(user.getId(),
+                        broadcasts.stream().map(BroadcastNotification::getId).toList()));
+            }
+        }
+        for (BroadcastNotification broadcast : broadcasts) {
+            items.add(NotificationFeedItem.of(broadcast, readIds.contains(broadcast.getId())));
+        }
+
+        items.sort(FEED_ORDER);
+        int from = (int) Math.min(items.size(), pageable.getOffset());
+        int to = Math.min(items.size(), from + pageable.getPageSize());
+        return new PageImpl<>(new ArrayList<>(items.subList(from, to)), pageable, own.getTotalElements() + broadcastTotal);
+    }
+
+    // Broadcasts sent before the user signed up are not part of their feed
+    private static LocalDateTime visibleSince(User user) {
+        return user.getCreatedAt() != null ? user.getCreatedAt() : LocalDateTime.of(1970, 1, 1, 0, 0);
+    }
+
+    private User currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof UserPrincipal principal)) {
+            throw new RuntimeException("Current user not found in security context");
+        }
+        return principal.getUser();
+    }
+
+    private void publish(NotificationEvent.Type type, Notification notification, long count, boolean wasRead) {
+        Long userId = notification.getUser() != null ? notification.getUser().getId() : null;
+        eventPublisher.publishEvent(new NotificationEvent(type, userId, notification.getId(), count, wasRead));
     }
 }
@@ -0,0 +1,223 @@
+package com.edupress.service;
+
+import com.edupress.controller.WebSocketController;
+import com.edupress.model.Notification;
+import com.edupress.model.OutboxMessage;
+import com.edupress.repository.NotificationRepository;
+import com.edupress.repository.OutboxMessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Delivers {@link OutboxMessage}s queued by {@link OutboxService}. A run claims a batch of due
+ * messages, loads the notifications of all its pushes in one query, sends all its emails over one
+ * SMTP connection and marks the delivered ones sent in one update. A failed message is retried
+ * after an exponentially growing delay and given up on after {@code max-attempts}.
+ * <p>
+ * Runs happen on a single background thread, started after a commit that queued messages and
+ * every {@code poll-interval-ms} for retries and messages left over from a restart. Claiming
+ * leases the batch, so several nodes can drain the same table.
+ */
+@Service
+public class OutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    @Value("${app.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.outbox.initial-backoff-ms:5000}")
+    private long initialBackoffMs;
+
+    @Value("${app.outbox.max-backoff-ms:3600000}")
+    private long maxBackoffMs;
+
+    // A claimed batch not finished within this long is delivered again
+    @Value("${app.outbox.lease-ms:300000}")
+    private long leaseMs;
+
+    @Value("${app.outbox.retention-days:7}")
+    private int retentionDays;
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private EmailService emailService;
+
+    // Using @Lazy to avoid circular dependency with WebSocketController
+    @Autowired
+    @Lazy
+    private WebSocketController webSocketController;
+
+    private ThreadPoolTaskExecutor executor;
+
+    @jakarta.annotation.PostConstruct
+    public void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        // One drain running and one waiting covers any number of wake-ups in between
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("outbox-dispatcher-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.initialize();
+    }
+
+    @jakarta.annotation.PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /** Drains the outbox in the background; cheap to call often. */
+    public void wakeUp() {
+        executor.execute(this::drain);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:10000}")
+    public void poll() {
+        wakeUp();
+    }
+
+    @Scheduled(cron = "${app.outbox.cleanup-cron:0 30 4 * * *}")
+    public void deleteSent() {
+        int deleted = outboxMessageRepository.deleteSentBefore(LocalDateTime.now().minusDays(retentionDays));
+        if (deleted > 0) {
+            logger.info("Deleted {} delivered outbox messages", deleted);
+        }
+    }
+
+    private void drain() {
+        try {
+            while (dispatch() == batchSize) {
+                // A full batch: more may be due
+            }
+        } catch (RuntimeException e) {
+            logger.error("Outbox dispatch failed", e);
+        }
+    }
+
+    /** Delivers one batch of due messages; returns how many were due. */
+    public int dispatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> dueIds = outboxMessageRepository.findDueIds(now, PageRequest.of(0, batchSize));
+        if (dueIds.isEmpty()) {
+            return 0;
+        }
+        String token = UUID.randomUUID().toString();
+        outboxMessageRepository.claim(dueIds, token, now, now.plus(Duration.ofMillis(leaseMs)));
+        List<OutboxMessage> messages = outboxMessageRepository.findByClaimTokenOrderById(token);
+
+        List<Long> sent = new ArrayList<>();
+        Map<OutboxMessage, String> failed = new LinkedHashMap<>();
+        deliverPushes(messages, sent, failed);
+        deliverEmails(messages, sent, failed);
+
+        if (!sent.isEmpty()) {
+            outboxMessageRepository.markSent(sent, LocalDateTime.now());
+        }
+        failed.forEach(this::retryLater);
+        return dueIds.size();
+    }
+
+    private void deliverPushes(List<OutboxMessage> messages, List<Long> sent, Map<OutboxMessage, String> failed) {
+        List<OutboxMessage> pushes = messages.stream()
+                .filter(m -> m.getChannel() == OutboxMessage.Channel.NOTIFICATION)
+                .toList();
+        if (pushes.isEmpty()) {
+            return;
+        }
+        Map<Long, Notification> notifications = notificationRepository
+                .findAllById(pushes.stream().map(OutboxMessage::getNotificationId).toList())
+                .stream()
+                .collect(Collectors.toMap(Notification::getId, Function.identity()));
+        for (OutboxMessage message : pushes) {
+            Notification notification = notifications.get(message.getNotificationId());
+            try {
+                // A notification deleted before delivery has nothing left to push
+                if (notification != null) {
+                    webSocketController.sendNotificationToUser(message.getRecipient(), notification);
+                }
+                sent.add(message.getId());
+            } catch (Exception e) {
+                failed.put(message, e.getMessage());
+            }
+        }
+    }
+
+    private void deliverEmails(List<OutboxMessage> messages, List<Long> sent, Map<OutboxMessage, String> failed) {
+        Map<SimpleMailMessage, OutboxMessage> emails = new IdentityHashMap<>();
+        for (OutboxMessage message : messages) {
+            if (message.getChannel() == OutboxMessage.Channel.EMAIL) {
+                SimpleMailMessage mail = new SimpleMailMessage();
+                mail.setTo(message.getRecipient());
+                mail.setSubject(message.getSubject());
+                mail.setText(message.getBody());
+                emails.put(mail, message);
+            }
+        }
+        if (emails.isEmpty()) {
+            return;
+        }
+        Map<SimpleMailMessage, Exception> errors = emailService.sendSimpleEmails(new ArrayList<>(emails.keySet()));
+        emails.forEach((mail, message) -> {
+            Exception error = errors.get(mail);
+            if (error == null) {
+                sent.add(message.getId());
+            } else {
+                failed.put(message, error.getMessage());
+            }
+        });
+    }
+
+    private void retryLater(OutboxMessage message, String error) {
+        int attempts = message.getAttempts() + 1;
+        message.setAttempts(attempts);
+        message.setClaimToken(null);
+        message.setLastError(error != null && error.length() > 500 ? error.substring(0, 500) : error);
+        if (attempts >= maxAttempts) {
+            message.setStatus(OutboxMessage.Status.FAILED);
+            logger.warn("Giving up on outbox message {} ({} to {}) after {} attempts: {}", message.getId(),
+                    message.getChannel(), message.getRecipient(), attempts, error);
+        } else {
+            message.setNextAttemptAt(LocalDateTime.now().plus(Duration.ofMillis(backoffMs(attempts))));
+        }
+        outboxMessageRepository.save(message);
+    }
+
+    // Doubles per attempt up to the cap, with up to 20% jitter so failed batches spread out
+    long backoffMs(int attempts) {
+        long delay = initialBackoffMs << Math.min(attempts - 1, 30);
+        if (delay <= 0 || delay > maxBackoffMs) {
+            delay = maxBackoffMs;
+        }
+        return delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+    }
+}
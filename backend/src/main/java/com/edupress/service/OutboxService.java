@@ -0,0 +1,52 @@
+package com.edupress.service;
+
+import com.edupress.model.Notification;
+import com.edupress.model.OutboxMessage;
+import com.edupress.repository.OutboxMessageRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Queues WebSocket pushes and emails as {@link OutboxMessage} rows in the caller's transaction,
+ * so they go out if and only if it commits and never hold its locks while a socket or SMTP
+ * server is slow. {@link OutboxDispatcher} is woken once the transaction commits.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxService {
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    /** Pushes the saved notification to its user on {@code /user/queue/notifications}. */
+    public void enqueueNotificationPush(Notification notification) {
+        OutboxMessage message = new OutboxMessage(OutboxMessage.Channel.NOTIFICATION,
+                notification.getUser().getId().toString());
+        message.setNotificationId(notification.getId());
+        enqueue(message);
+    }
+
+    public void enqueueEmail(String to, String subject, String body) {
+        OutboxMessage message = new OutboxMessage(OutboxMessage.Channel.EMAIL, to);
+        message.setSubject(subject);
+        message.setBody(body);
+        enqueue(message);
+    }
+
+    private void enqueue(OutboxMessage message) {
+        outboxMessageRepository.save(message);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                outboxDispatcher.wakeUp();
+            }
+        });
+    }
+}
@@ -2,6 +2,8 @@ package com.edupress.service;
 
 import com.edupress.dto.request.PaymeRequest;
 import com.edupress.dto.response.PaymeResponse;
+import com.edupress.event.EnrollmentEvent;
+import com.edupress.event.PaymentEvent;
 import com.edupress.model.Course;
 import com.edupress.model.PaymeTransaction;
 import com.edupress.model.User;
@@ -10,10 +12,14 @@ import com.edupress.repository.PaymeTransactionRepository;
 import com.edupress.repository.UserRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
 import java.math.BigDecimal;
 import java.util.*;
@@ -22,6 +28,8 @@ import java.util.*;
 @Transactional
 public class PaymeService {
     
+    private static final Logger logger = LoggerFactory.getLogger(PaymeService.class);
+    
     @Autowired
     private PaymeTransactionRepository paymeTransactionRepository;
     
@@ -35,7 +43,13 @@ public class PaymeService {
     private NotificationService notificationService;
     
     @Autowired
-    private EmailService emailService;
+    private OutboxService outboxService;
+    
+    @Autowired
+    private PlatformCounterService platformCounterService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
     
     @Value("${payme.merchant.id}")
     private String merchantId;
@@ -207,6 +221,7 @@ public class PaymeService {
             
             transaction.setState(PaymeTransaction.TransactionState.INITIAL);
             transaction = paymeTransactionRepository.save(transaction);
+            publishStateChange(transaction, null);
             
             PaymeResponse.PaymeResult result = new PaymeResponse.PaymeResult(
                 transactionId,
@@ -252,6 +267,8 @@ public class PaymeService {
                 userRepository.save(user);
                 courseRepository.save(course);
                 paymeTransactionRepository.save(transaction);
+                publishStateChange(transaction, PaymeTransaction.TransactionState.INITIAL);
+                eventPublisher.publishEvent(EnrollmentEvent.enrolled(user, course));
                 
                 // Send notifications
                 sendPaymentSuccessNotifications(transaction);
@@ -284,6 +301,7 @@ public class PaymeService {
             }
             
         } catch (Exception e) {
+            rollbackOnError();
             return new PaymeResponse(
                 new PaymeResponse.PaymeError(-32603, "Error performing transaction: " + e.getMessage()),
                 request.getId()
@@ -305,6 +323,7 @@ public class PaymeService {
             }
             
             PaymeTransaction transaction = transactionOpt.get();
+            PaymeTransaction.TransactionState previousState = transaction.getState();
             
             if (transaction.getState() == PaymeTransaction.TransactionState.INITIAL) {
                 // Cancel during waiting
@@ -326,6 +345,7 @@ public class PaymeService {
                 
                 userRepository.save(user);
                 courseRepository.save(course);
+                eventPublisher.publishEvent(EnrollmentEvent.unenrolled(user, course));
                 
                 // Send cancellation notification
                 sendPaymentCancellationNotifications(transaction);
@@ -338,6 +358,7 @@ public class PaymeService {
             }
             
             paymeTransactionRepository.save(transaction);
+            publishStateChange(transaction, previousState);
             
             PaymeResponse.PaymeResult result = new PaymeResponse.PaymeResult(
                 transactionId,
@@ -349,6 +370,7 @@ public class PaymeService {
             return new PaymeResponse(result, request.getId());
             
         } catch (Exception e) {
+            rollbackOnError();
             return new PaymeResponse(
                 new PaymeResponse.PaymeError(-32603, "Error cancelling transaction: " + e.getMessage()),
                 request.getId()
@@ -451,62 +473,68 @@ public class PaymeService {
         return paymeTransaction;
     }
     
+    /**
+     * Queued in the same database transaction as the state change and not caught here: a failed
+     * insert rolls the state change back with it, and Payme gets an error answer and retries
+     * instead of the payment committing without its notifications.
+     */
     private void sendPaymentSuccessNotifications(PaymeTransaction transaction) {
-        try {
-            User user = transaction.getUser();
-            Course course = transaction.getCourse();
-            
-            // Send in-app notification
-            notificationService.createNotification(
-                user,
-                "To'lov muvaffaqiyatli amalga oshirildi",
-                "\"" + course.getTitle() + "\" kursi uchun to'lovingiz muvaffaqiyatli qabul qilindi. Endi kursga kirish huquqiga egasiz!",
-                com.edupress.model.Notification.Type.SUCCESS,
-                "/courses/" + course.getId()
-            );
-            
-            // Send email
-            String subject = "To'lov tasdiqlandi - " + course.getTitle();
-            String body = String.format(
-                "Hurmatli %s,\n\n" +
-                "\"%s\" kursi uchun to'lovingiz muvaffaqiyatli amalga oshirildi.\n\n" +
-                "To'lov ma'lumotlari:\n" +
-                "- Summa: %s so'm\n" +
-                "- Kurs: %s\n" +
-                "- To'lov ID: %s\n\n" +
-                "Endi kursga to'liq kirish huquqiga egasiz. Bugundan o'qishni boshlang!\n\n" +
-                "Hurmat bilan,\n" +
-                "EduPress jamoasi",
-                user.getFirstName(),
-                course.getTitle(),
-                transaction.getAmount(),
-                course.getTitle(),
-                transaction.getPaymeTransactionId()
-            );
-            
-            emailService.sendSimpleEmail(user.getEmail(), subject, body);
-            
-        } catch (Exception e) {
-            System.err.println("Failed to send payment success notifications: " + e.getMessage());
+        User user = transaction.getUser();
+        Course course = transaction.getCourse();
+        
+        // Send in-app notification
+        notificationService.createNotification(
+            user,
+            "To'lov muvaffaqiyatli amalga oshirildi",
+            "\"" + course.getTitle() + "\" kursi uchun to'lovingiz muvaffaqiyatli qabul qilindi. Endi kursga kirish huquqiga egasiz!",
+            com.edupress.model.Notification.Type.SUCCESS,
+            "/courses/" + course.getId()
+        );
+        
+        if (user.getEmail() == null || user.getEmail().isBlank()) {
+            logger.warn("User {} has no email, skipping the confirmation email for Payme transaction {}",
+                    user.getId(), transaction.getPaymeTransactionId());
+            return;
         }
+        
+        // Send email
+        String subject = "To'lov tasdiqlandi - " + course.getTitle();
+        String body = String.format(
+            "Hurmatli %s,\n\n" +
+            "\"%s\" kursi uchun to'lovingiz muvaffaqiyatli amalga oshirildi.\n\n" +
+            "To'lov ma'lumotlari:\n" +
+            "- Summa: %s so'm\n" +
+            "- Kurs: %s\n" +
+            "- To'lov ID: %s\n\n" +
+            "Endi kursga to'liq kirish huquqiga egasiz. Bugundan o'qishni boshlang!\n\n" +
+            "Hurmat bilan,\n" +
+            "EduPress jamoasi",
+            user.getFirstName(),
+            course.getTitle(),
+            transaction.getAmount(),
+            course.getTitle(),
+            transaction.getPaymeTransactionId()
+        );
+        
+        // Sent by the outbox after commit, so a slow SMTP server can't hold up the Payme response
+        outboxService.enqueueEmail(user.getEmail(), subject, body);
     }
     
+    // Not caught either, for the same reason as sendPaymentSuccessNotifications
     private void sendPaymentCancellationNotifications(PaymeTransaction transaction) {
-        try {
-            User user = transaction.getUser();
-            Course course = transaction.getCourse();
-            
-            notificationService.createNotification(
-                user,
-                "To'lov bekor qilindi",
-                "\"" + course.getTitle() + "\" kursi uchun to'lovingiz bekor qilindi. Kursga kirish huquqi olib tashlandi.",
-                com.edupress.model.Notification.Type.WARNING,
-                "/dashboard/purchases"
-            );
-            
-        } catch (Exception e) {
-            System.err.println("Failed to send payment cancellation notifications: " + e.getMessage());
-        }
+        notificationService.createNotification(
+            transaction.getUser(),
+            "To'lov bekor qilindi",
+            "\"" + transaction.getCourse().getTitle() + "\" kursi uchun to'lovingiz bekor qilindi. Kursga kirish huquqi olib tashlandi.",
+            com.edupress.model.Notification.Type.WARNING,
+            "/dashboard/purchases"
+        );
+    }
+    
+    // An error answer goes back to Payme as a normal response, so the changes made before the
+    // failure are rolled back explicitly; a commit would fail on a rollback-only transaction
+    private static void rollbackOnError() {
+        TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
     }
     
     // Utility methods for frontend integration
@@ -536,18 +564,18 @@ public class PaymeService {
     
     public Map<String, Object> getPaymentStats() {
         Map<String, Object> stats = new HashMap<>();
-        stats.put("totalTransactions", paymeTransactionRepository.count());
-        stats.put("successfulPayments", paymeTransactionRepository.countByState(PaymeTransaction.TransactionState.PAY_ACCEPTED));
-        stats.put("cancelledPayments", paymeTransactionRepository.countByState(PaymeTransaction.TransactionState.CANCELLED_AFTER_SUCCESSFUL));
+        stats.put("totalTransactions", platformCounterService.get(PlatformCounterService.PAYME_TOTAL));
+        stats.put("successfulPayments", platformCounterService.getPaymeCount(PaymeTransaction.TransactionState.PAY_ACCEPTED.name()));
+        stats.put("cancelledPayments", platformCounterService.getPaymeCount(PaymeTransaction.TransactionState.CANCELLED_AFTER_SUCCESSFUL.name()));
         stats.put("totalRevenue", paymeTransactionRepository.getTotalAmountByState(PaymeTransaction.TransactionState.PAY_ACCEPTED));
         return stats;
     }
     
     public Map<String, Object> getPaymentStats(String period) {
         Map<String, Object> stats = new HashMap<>();
-        stats.put("totalTransactions", paymeTransactionRepository.count());
-        stats.put("successfulPayments", paymeTransactionRepository.countByState(PaymeTransaction.TransactionState.PAY_ACCEPTED));
-        stats.put("cancelledPayments", paymeTransactionRepository.countByState(PaymeTransaction.TransactionState.CANCELLED_AFTER_SUCCESSFUL));
+        stats.put("totalTransactions", platformCounterService.get(PlatformCounterService.PAYME_TOTAL));
+        stats.put("successfulPayments", platformCounterService.getPaymeCount(PaymeTransaction.TransactionState.PAY_ACCEPTED.name()));
+        stats.put("cancelledPayments", platformCounterService.getPaymeCount(PaymeTransaction.TransactionState.CANCELLED_AFTER_SUCCESSFUL.name()));
         stats.put("totalRevenue", paymeTransactionRepository.getTotalAmountByState(PaymeTransaction.TransactionState.PAY_ACCEPTED));
         
         // Add period-based filtering if needed
@@ -659,4 +687,19 @@ public class PaymeService {
         
         return result;
     }
+    
+    private void publishStateChange(PaymeTransaction transaction, PaymeTransaction.TransactionState previousState) {
+        Course course = transaction.getCourse();
+        eventPublisher.publishEvent(new PaymentEvent(
+            PaymentEvent.Provider.PAYME,
+            transaction.getId(),
+            transaction.getUser().getId(),
+            course.getId(),
+            course.getInstructor() != null ? course.getInstructor().getId() : null,
+            transaction.getAmount(),
+            "UZS",
+            previousState != null ? previousState.name() : null,
+            transaction.getState().name()
+        ));
+    }
 }
@@ -2,6 +2,8 @@ package com.edupress.service;
 
 import com.edupress.dto.request.PaymentRequest;
 import com.edupress.dto.response.PaymentResponse;
+import com.edupress.event.EnrollmentEvent;
+import com.edupress.event.PaymentEvent;
 import com.edupress.model.Course;
 import com.edupress.model.Notification;
 import com.edupress.model.Payment;
@@ -14,8 +16,11 @@ import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
 import com.stripe.param.PaymentIntentCreateParams;
 import com.stripe.param.PaymentIntentConfirmParams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -29,6 +34,8 @@ import java.util.stream.Collectors;
 @Service
 @Transactional
 public class PaymentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentService.class);
     
     @Autowired
     private PaymentRepository paymentRepository;
@@ -43,16 +50,25 @@ public class PaymentService {
     private NotificationService notificationService;
     
     @Autowired
-    private EmailService emailService;
+    private OutboxService outboxService;
+    
+    @Autowired
+    private PlatformCounterService platformCounterService;
+    
+    @Autowired
+    private RevenueLedgerService revenueLedgerService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
     
     @Value("${stripe.api.key}")
     private String stripeSecretKey;
     
     public double getInstructorEarnings(Long instructorId) {
-        // Calculate total earnings for instructor across all their courses
-        // In a real implementation, this would sum up all successful payments
-        // for courses taught by this instructor
-        return Math.random() * 10000 + 1000; // Simulated earnings between $1000-$11000
+        // Net ledger total for the instructor's courses in the reporting currency
+        return revenueLedgerService
+                .getInstructorEarnings(instructorId, revenueLedgerService.getReportingCurrency())
+                .doubleValue();
     }
     
     public PaymentService() {
@@ -103,6 +119,7 @@ public class PaymentService {
         payment.setStatus(mapStripeStatusToPaymentStatus(intent.getStatus()));
         
         payment = paymentRepository.save(payment);
+        publishStateChange(payment, null);
         
         // Create response
         PaymentResponse response = new PaymentResponse(payment);
@@ -134,9 +151,11 @@ public class PaymentService {
         }
         
         // Update payment record
+        Payment.PaymentStatus previousStatus = payment.getStatus();
         payment.setStripePaymentMethodId(paymentMethodId);
         payment.setStatus(mapStripeStatusToPaymentStatus(intent.getStatus()));
         payment = paymentRepository.save(payment);
+        publishStateChange(payment, previousStatus);
         
         // If payment succeeded, enroll user in course
         if (payment.getStatus() == Payment.PaymentStatus.SUCCEEDED) {
@@ -165,8 +184,10 @@ public class PaymentService {
         PaymentIntent intent = PaymentIntent.retrieve(paymentIntentId);
         
         // Update local payment status
+        Payment.PaymentStatus previousStatus = payment.getStatus();
         payment.setStatus(mapStripeStatusToPaymentStatus(intent.getStatus()));
         payment = paymentRepository.save(payment);
+        publishStateChange(payment, previousStatus);
         
         // If payment succeeded, enroll user in course
         if (payment.getStatus() == Payment.PaymentStatus.SUCCEEDED && 
@@ -197,57 +218,78 @@ public class PaymentService {
     
     public Map<String, Object> getPaymentStats() {
         Map<String, Object> stats = new HashMap<>();
-        stats.put("totalPayments", paymentRepository.count());
-        stats.put("successfulPayments", paymentRepository.countSuccessfulPayments());
+        stats.put("totalPayments", platformCounterService.get(PlatformCounterService.PAYMENTS_TOTAL));
+        stats.put("successfulPayments", platformCounterService.getPaymentCount(Payment.PaymentStatus.SUCCEEDED.name()));
         stats.put("totalRevenue", paymentRepository.getTotalRevenue());
         return stats;
     }
     
+    private void publishStateChange(Payment payment, Payment.PaymentStatus previousStatus) {
+        Course course = payment.getCourse();
+        eventPublisher.publishEvent(new PaymentEvent(
+                PaymentEvent.Provider.STRIPE,
+                payment.getId(),
+                payment.getUser().getId(),
+                course.getId(),
+                course.getInstructor() != null ? course.getInstructor().getId() : null,
+                payment.getAmount(),
+                payment.getCurrency(),
+                previousStatus != null ? previousStatus.name() : null,
+                payment.getStatus().name()));
+    }
+    
     private void enrollUserInCourse(User user, Course course) {
         user.getEnrolledCourses().add(course);
         course.setEnrollmentCount(course.getEnrollmentCount() + 1);
         
         userRepository.save(user);
         courseRepository.save(course);
+        eventPublisher.publishEvent(EnrollmentEvent.enrolled(user, course));
     }
     
+    /**
+     * Queues the notification and receipt in the payment's transaction, so they commit with it.
+     * Nothing here is caught: a failed insert has already marked the transaction rollback-only,
+     * and the payment update rolls back with it rather than committing without its messages.
+     */
     private void sendPaymentSuccessNotifications(Payment payment) {
-        try {
-            // Send in-app notification
-            notificationService.createNotification(
-                payment.getUser(),
-                "Payment Successful",
-                "Your payment for \"" + payment.getCourse().getTitle() + "\" was successful. You now have access to the course!",
-                Notification.Type.SUCCESS,
-                "/courses/" + payment.getCourse().getId()
-            );
-            
-            // Send email notification
-            String subject = "Payment Confirmation - " + payment.getCourse().getTitle();
-            String body = String.format(
-                "Dear %s,\n\n" +
-                "Your payment for the course \"%s\" has been processed successfully.\n\n" +
-                "Payment Details:\n" +
-                "- Amount: %s %s\n" +
-                "- Course: %s\n" +
-                "- Payment ID: %s\n\n" +
-                "You now have full access to the course. Start learning today!\n\n" +
-                "Best regards,\n" +
-                "The EduPress Team",
-                payment.getUser().getFirstName(),
-                payment.getCourse().getTitle(),
-                payment.getAmount(),
-                payment.getCurrency().toUpperCase(),
-                payment.getCourse().getTitle(),
-                payment.getStripePaymentIntentId()
-            );
-            
-            emailService.sendSimpleEmail(payment.getReceiptEmail(), subject, body);
-            
-        } catch (Exception e) {
-            // Log error but don't fail the payment process
-            System.err.println("Failed to send payment success notifications: " + e.getMessage());
+        // Send in-app notification
+        notificationService.createNotification(
+            payment.getUser(),
+            "Payment Successful",
+            "Your payment for \"" + payment.getCourse().getTitle() + "\" was successful. You now have access to the course!",
+            Notification.Type.SUCCESS,
+            "/courses/" + payment.getCourse().getId()
+        );
+        
+        String to = payment.getReceiptEmail();
+        if (to == null || to.isBlank()) {
+            logger.warn("Payment {} has no receipt email, skipping the confirmation email", payment.getId());
+            return;
         }
+        
+        // Send email notification
+        String subject = "Payment Confirmation - " + payment.getCourse().getTitle();
+        String body = String.format(
+            "Dear %s,\n\n" +
+            "Your payment for the course \"%s\" has been processed successfully.\n\n" +
+            "Payment Details:\n" +
+            "- Amount: %s %s\n" +
+            "- Course: %s\n" +
+            "- Payment ID: %s\n\n" +
+            "You now have full access to the course. Start learning today!\n\n" +
+            "Best regards,\n" +
+            "The EduPress Team",
+            payment.getUser().getFirstName(),
+            payment.getCourse().getTitle(),
+            payment.getAmount(),
+            payment.getCurrency().toUpperCase(),
+            payment.getCourse().getTitle(),
+            payment.getStripePaymentIntentId()
+        );
+        
+        // Sent by the outbox after commit
+        outboxService.enqueueEmail(to, subject, body);
     }
     
     private Payment.PaymentStatus mapStripeStatusToPaymentStatus(String stripeStatus) {
@@ -0,0 +1,145 @@
+package com.edupress.service;
+
+import com.edupress.analytics.EndpointMetrics;
+import com.edupress.analytics.EndpointMetricsRegistry;
+import com.edupress.analytics.LatencyHistogram;
+import com.edupress.media.SegmentCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Read side of the per-endpoint request metrics: summaries for the admin performance view and
+ * the Prometheus text exposition format for scrapers.
+ */
+@Service
+public class PerformanceMetricsService {
+
+    /** Prometheus histogram bucket edges, in seconds. */
+    private static final double[] BUCKETS_SECONDS = {
+            0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    @Autowired
+    private EndpointMetricsRegistry endpointMetricsRegistry;
+
+    @Autowired
+    private SegmentCache segmentCache;
+
+    /** Endpoints ordered by total time spent in them, busiest first. */
+    public List<EndpointMetrics> getEndpointsByTotalTime() {
+        List<EndpointMetrics> endpoints = endpointMetricsRegistry.getEndpoints();
+        endpoints.sort(Comparator.comparingLong((EndpointMetrics e) -> e.getLatency().getSum()).reversed());
+        return endpoints;
+    }
+
+    public long getUptimeMillis() {
+        return System.currentTimeMillis() - endpointMetricsRegistry.getStartedAt();
+    }
+
+    public String renderPrometheus() {
+        List<EndpointMetrics> endpoints = endpointMetricsRegistry.getEndpoints();
+        endpoints.sort(Comparator.comparing(EndpointMetrics::getName));
+        StringBuilder out = new StringBuilder(4096 + endpoints.size() * 1024);
+
+        header(out, "edupress_http_request_duration_seconds", "histogram",
+                "Time from handler selection to response completion, per controller method.");
+        for (EndpointMetrics endpoint : endpoints) {
+            LatencyHistogram.Snapshot latency = endpoint.getLatency();
+            String label = label(endpoint);
+            for (double edge : BUCKETS_SECONDS) {
+                sample(out, "edupress_http_request_duration_seconds_bucket",
+                        label + ",le=\"" + format(edge) + "\"",
+                        latency.countAtOrBelow((long) (edge * 1e9)));
+            }
+            sample(out, "edupress_http_request_duration_seconds_bucket", label + ",le=\"+Inf\"", latency.getCount());
+            sample(out, "edupress_http_request_duration_seconds_sum", label, seconds(latency.getSum()));
+            sample(out, "edupress_http_request_duration_seconds_count", label, latency.getCount());
+        }
+
+        header(out, "edupress_http_requests_in_flight", "gauge", "Requests currently being handled.");
+        for (EndpointMetrics endpoint : endpoints) {
+            sample(out, "edupress_http_requests_in_flight", label(endpoint), endpoint.getInFlight());
+        }
+
+        header(out, "edupress_http_request_errors_total", "counter", "Requests that ended with a 4xx or 5xx status.");
+        for (EndpointMetrics endpoint : endpoints) {
+            sample(out, "edupress_http_request_errors_total", label(endpoint) + ",class=\"4xx\"", endpoint.getClientErrors());
+            sample(out, "edupress_http_request_errors_total", label(endpoint) + ",class=\"5xx\"", endpoint.getServerErrors());
+        }
+
+        header(out, "edupress_http_request_db_seconds_total", "counter", "Time spent executing JDBC statements.");
+        for (EndpointMetrics endpoint : endpoints) {
+            sample(out, "edupress_http_request_db_seconds_total", label(endpoint), seconds(endpoint.getDbNanos()));
+        }
+
+        header(out, "edupress_http_request_db_statements_total", "counter", "JDBC statements executed.");
+        for (EndpointMetrics endpoint : endpoints) {
+            sample(out, "edupress_http_request_db_statements_total", label(endpoint), endpoint.getDbStatements());
+        }
+
+        header(out, "edupress_http_request_json_seconds_total", "counter", "Time spent serializing JSON response bodies.");
+        for (EndpointMetrics endpoint : endpoints) {
+            sample(out, "edupress_http_request_json_seconds_total", label(endpoint), seconds(endpoint.getJsonNanos()));
+        }
+
+        header(out, "edupress_segment_cache_requests_total", "counter", "Video segment lookups in the in-memory cache.");
+        sample(out, "edupress_segment_cache_requests_total", "result=\"hit\"", segmentCache.getHits());
+        sample(out, "edupress_segment_cache_requests_total", "result=\"miss\"", segmentCache.getMisses());
+        header(out, "edupress_segment_cache_hit_ratio", "gauge", "Share of segment lookups answered from memory.");
+        sample(out, "edupress_segment_cache_hit_ratio", null, segmentCache.getHitRatio());
+        header(out, "edupress_segment_cache_rejections_total", "counter", "Misses TinyLFU declined to cache.");
+        sample(out, "edupress_segment_cache_rejections_total", null, segmentCache.getRejections());
+        header(out, "edupress_segment_cache_evictions_total", "counter", "Segments evicted to admit hotter ones.");
+        sample(out, "edupress_segment_cache_evictions_total", null, segmentCache.getEvictions());
+        header(out, "edupress_segment_cache_served_bytes_total", "counter", "Bytes sent from memory instead of disk.");
+        sample(out, "edupress_segment_cache_served_bytes_total", null, segmentCache.getServedBytes());
+        header(out, "edupress_segment_cache_resident_bytes", "gauge", "Bytes of segments held, out of the cache's budget.");
+        sample(out, "edupress_segment_cache_resident_bytes", null, segmentCache.getResidentBytes());
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        header(out, "edupress_jvm_heap_used_bytes", "gauge", "JVM heap in use.");
+        sample(out, "edupress_jvm_heap_used_bytes", null, heap.getUsed());
+        header(out, "edupress_jvm_threads", "gauge", "Live JVM threads.");
+        sample(out, "edupress_jvm_threads", null, ManagementFactory.getThreadMXBean().getThreadCount());
+        header(out, "edupress_uptime_seconds", "gauge", "Seconds since request metrics started.");
+        sample(out, "edupress_uptime_seconds", null, getUptimeMillis() / 1000.0);
+        return out.toString();
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, long value) {
+        out.append(name);
+        if (labels != null) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (labels != null) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(format(value)).append('\n');
+    }
+
+    private static String label(EndpointMetrics endpoint) {
+        return "endpoint=\"" + endpoint.getName() + "\"";
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+
+    private static String format(double value) {
+        return Double.toString(value);
+    }
+}
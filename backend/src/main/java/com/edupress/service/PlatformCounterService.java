@@ -0,0 +1,351 @@
+package com.edupress.service;
+
+import com.edupress.event.CourseEvent;
+import com.edupress.event.NotificationEvent;
+import com.edupress.event.PaymentEvent;
+import com.edupress.event.UserEvent;
+import com.edupress.model.Course;
+import com.edupress.model.PaymeTransaction;
+import com.edupress.model.Payment;
+import com.edupress.model.PlatformCounter;
+import com.edupress.model.User;
+import com.edupress.repository.CourseRepository;
+import com.edupress.repository.NotificationRepository;
+import com.edupress.repository.PaymeTransactionRepository;
+import com.edupress.repository.PaymentRepository;
+import com.edupress.repository.PlatformCounterRepository;
+import com.edupress.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory platform counters (users by role, course status and pricing, notification read
+ * state, payment states) kept current by domain events, so dashboard reads never run COUNT(*).
+ * <p>
+ * Values are flushed to {@code platform_counters} periodically and on shutdown. On startup the
+ * persisted values are loaded, or rebuilt from the source tables when none exist. A nightly
+ * reconcile recounts everything from the source tables and logs any drift it corrects.
+ */
+@Service
+public class PlatformCounterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlatformCounterService.class);
+
+    public static final String USERS_TOTAL = "users.total";
+    public static final String USERS_ROLE_PREFIX = "users.role.";
+    public static final String COURSES_TOTAL = "courses.total";
+    public static final String COURSES_PUBLISHED = "courses.published";
+    public static final String COURSES_PUBLISHED_FREE = "courses.published.free";
+    public static final String COURSES_PUBLISHED_PAID = "courses.published.paid";
+    public static final String NOTIFICATIONS_TOTAL = "notifications.total";
+    public static final String NOTIFICATIONS_READ = "notifications.read";
+    public static final String NOTIFICATIONS_UNREAD = "notifications.unread";
+    public static final String PAYMENTS_TOTAL = "payments.total";
+    public static final String PAYMENTS_STATUS_PREFIX = "payments.status.";
+    public static final String PAYME_TOTAL = "payme.total";
+    public static final String PAYME_STATE_PREFIX = "payme.state.";
+
+    @Autowired
+    private PlatformCounterRepository platformCounterRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymeTransactionRepository paymeTransactionRepository;
+
+    private final ConcurrentHashMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    private volatile boolean loaded;
+
+    // Reads
+
+    public long get(String name) {
+        ensureLoaded();
+        AtomicLong counter = counters.get(name);
+        return counter != null ? counter.get() : 0L;
+    }
+
+    public long getUserCount(User.Role role) {
+        return get(USERS_ROLE_PREFIX + role.name());
+    }
+
+    public long getPaymentCount(String status) {
+        return get(PAYMENTS_STATUS_PREFIX + status);
+    }
+
+    public long getPaymeCount(String state) {
+        return get(PAYME_STATE_PREFIX + state);
+    }
+
+    public Map<String, Long> snapshot() {
+        ensureLoaded();
+        Map<String, Long> values = new HashMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.get()));
+        return values;
+    }
+
+    // Event handlers. Events raised before the counters are loaded are already reflected in the load.
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserEvent(UserEvent event) {
+        if (!loaded) return;
+        switch (event.getType()) {
+            case CREATED -> {
+                add(USERS_TOTAL, 1);
+                add(USERS_ROLE_PREFIX + event.getRole().name(), 1);
+            }
+            case ROLE_CHANGED -> {
+                add(USERS_ROLE_PREFIX + event.getPreviousRole().name(), -1);
+                add(USERS_ROLE_PREFIX + event.getRole().name(), 1);
+            }
+            case DELETED -> {
+                add(USERS_TOTAL, -1);
+                add(USERS_ROLE_PREFIX + event.getPreviousRole().name(), -1);
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseEvent(CourseEvent event) {
+        if (!loaded) return;
+        if (event.getType() != CourseEvent.Type.CREATED) {
+            applyCourse(event.getPreviousStatus(), event.getPreviousFree(), -1);
+        }
+        if (event.getType() != CourseEvent.Type.DELETED) {
+            applyCourse(event.getStatus(), event.getFree(), 1);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationEvent(NotificationEvent event) {
+        if (!loaded) return;
+        long count = event.getCount();
+        switch (event.getType()) {
+            case CREATED -> {
+                add(NOTIFICATIONS_TOTAL, count);
+                add(event.isWasRead() ? NOTIFICATIONS_READ : NOTIFICATIONS_UNREAD, count);
+            }
+            case READ, ALL_READ -> {
+                if (!event.isWasRead()) {
+                    add(NOTIFICATIONS_UNREAD, -count);
+                    add(NOTIFICATIONS_READ, count);
+                }
+            }
+            case DELETED -> {
+                add(NOTIFICATIONS_TOTAL, -count);
+                add(event.isWasRead() ? NOTIFICATIONS_READ : NOTIFICATIONS_UNREAD, -count);
+            }
+            // Bulk deletes don't report the read/unread split, so recount just this group
+            case PURGED -> replace(countNotifications(), "notifications");
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPaymentEvent(PaymentEvent event) {
+        if (!loaded || !event.isStateChange()) return;
+        boolean stripe = event.getProvider() == PaymentEvent.Provider.STRIPE;
+        String prefix = stripe ? PAYMENTS_STATUS_PREFIX : PAYME_STATE_PREFIX;
+        if (event.getPreviousState() == null) {
+            add(stripe ? PAYMENTS_TOTAL : PAYME_TOTAL, 1);
+        } else {
+            add(prefix + event.getPreviousState(), -1);
+        }
+        add(prefix + event.getState(), 1);
+    }
+
+    // Lifecycle
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        ensureLoaded();
+    }
+
+    @Scheduled(fixedDelayString = "${app.counters.flush-interval-ms:30000}")
+    public void flush() {
+        if (!loaded || !dirty.getAndSet(false)) {
+            return;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<PlatformCounter> rows = new ArrayList<>();
+            counters.forEach((name, counter) -> {
+                PlatformCounter row = new PlatformCounter(name, counter.get());
+                row.setUpdatedAt(now);
+                rows.add(row);
+            });
+            platformCounterRepository.saveAll(rows);
+        } catch (Exception e) {
+            dirty.set(true);
+            logger.warn("Failed to persist platform counters: {}", e.getMessage());
+        }
+    }
+
+    @jakarta.annotation.PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    @Scheduled(cron = "${app.counters.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        Map<String, Long> actual = countFromSourceTables();
+        replace(actual, "all");
+        loaded = true;
+        flush();
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            List<PlatformCounter> persisted = platformCounterRepository.findAll();
+            if (persisted.isEmpty()) {
+                logger.info("No persisted platform counters found, counting from source tables");
+                countFromSourceTables().forEach((name, value) -> counters.put(name, new AtomicLong(value)));
+                dirty.set(true);
+            } else {
+                persisted.forEach(row -> counters.put(row.getName(), new AtomicLong(row.getValue())));
+            }
+            loaded = true;
+        }
+    }
+
+    private void add(String name, long delta) {
+        counters.computeIfAbsent(name, key -> new AtomicLong()).addAndGet(delta);
+        dirty.set(true);
+    }
+
+    private void replace(Map<String, Long> actual, String scope) {
+        actual.forEach((name, value) -> {
+            AtomicLong counter = counters.computeIfAbsent(name, key -> new AtomicLong());
+            long previous = counter.getAndSet(value);
+            if (loaded && previous != value) {
+                logger.warn("Platform counter {} drifted: was {}, reconciled to {}", name, previous, value);
+            }
+        });
+        dirty.set(true);
+        logger.debug("Reconciled {} platform counters", scope);
+    }
+
+    private void applyCourse(Course.Status status, Boolean free, long delta) {
+        add(COURSES_TOTAL, delta);
+        if (status == Course.Status.PUBLISHED) {
+            add(COURSES_PUBLISHED, delta);
+            if (Boolean.TRUE.equals(free)) {
+                add(COURSES_PUBLISHED_FREE, delta);
+            } else if (Boolean.FALSE.equals(free)) {
+                add(COURSES_PUBLISHED_PAID, delta);
+            }
+        }
+    }
+
+    // Source-of-truth counts, one grouped query per table
+
+    private Map<String, Long> countFromSourceTables() {
+        Map<String, Long> values = new HashMap<>();
+        values.putAll(countUsers());
+        values.putAll(countCourses());
+        values.putAll(countNotifications());
+        values.putAll(countGrouped(paymentRepository.countGroupedByStatus(),
+                Payment.PaymentStatus.values(), PAYMENTS_TOTAL, PAYMENTS_STATUS_PREFIX));
+        values.putAll(countGrouped(paymeTransactionRepository.countGroupedByState(),
+                PaymeTransaction.TransactionState.values(), PAYME_TOTAL, PAYME_STATE_PREFIX));
+        return values;
+    }
+
+    private Map<String, Long> countUsers() {
+        Map<String, Long> values = new HashMap<>();
+        for (User.Role role : User.Role.values()) {
+            values.put(USERS_ROLE_PREFIX + role.name(), 0L);
+        }
+        long total = 0;
+        for (Object[] row : userRepository.countUsersGroupedByRole()) {
+            long count = ((Number) row[1]).longValue();
+            total += count;
+            if (row[0] != null) {
+                values.put(USERS_ROLE_PREFIX + ((User.Role) row[0]).name(), count);
+            }
+        }
+        values.put(USERS_TOTAL, total);
+        return values;
+    }
+
+    private Map<String, Long> countCourses() {
+        long total = 0, published = 0, free = 0, paid = 0;
+        for (Object[] row : courseRepository.countCoursesGroupedByStatusAndFree()) {
+            long count = ((Number) row[2]).longValue();
+            total += count;
+            if (row[0] == Course.Status.PUBLISHED) {
+                published += count;
+                if (Boolean.TRUE.equals(row[1])) {
+                    free += count;
+                } else if (Boolean.FALSE.equals(row[1])) {
+                    paid += count;
+                }
+            }
+        }
+        return Map.of(COURSES_TOTAL, total, COURSES_PUBLISHED, published,
+                COURSES_PUBLISHED_FREE, free, COURSES_PUBLISHED_PAID, paid);
+    }
+
+    private Map<String, Long> countNotifications() {
+        long total = 0, read = 0, unread = 0;
+        for (Object[] row : notificationRepository.countGroupedByReadStatus()) {
+            long count = ((Number) row[1]).longValue();
+            total += count;
+            if (Boolean.TRUE.equals(row[0])) {
+                read += count;
+            } else if (Boolean.FALSE.equals(row[0])) {
+                unread += count;
+            }
+        }
+        return Map.of(NOTIFICATIONS_TOTAL, total, NOTIFICATIONS_READ, read, NOTIFICATIONS_UNREAD, unread);
+    }
+
+    private Map<String, Long> countGrouped(List<Object[]> rows, Enum<?>[] states, String totalName, String prefix) {
+        Map<String, Long> values = new HashMap<>();
+        for (Enum<?> state : states) {
+            values.put(prefix + state.name(), 0L);
+        }
+        long total = 0;
+        for (Object[] row : rows) {
+            long count = ((Number) row[1]).longValue();
+            total += count;
+            if (row[0] != null) {
+                values.put(prefix + ((Enum<?>) row[0]).name(), count);
+            }
+        }
+        values.put(totalName, total);
+        return values;
+    }
+}
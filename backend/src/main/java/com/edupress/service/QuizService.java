@@ -1,12 +1,16 @@
 package com.edupress.service;
 
+import com.edupress.event.QuizAttemptEvent;
+import com.edupress.export.ExportFormat;
 import com.edupress.model.*;
 import com.edupress.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -28,6 +32,12 @@ public class QuizService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // Quiz CRUD operations
     public Quiz createQuiz(Quiz quiz) {
         return quizRepository.save(quiz);
@@ -118,7 +128,9 @@ public class QuizService {
         Integer score = calculateScore(attempt, answers);
         attempt.setScore(score);
 
-        return quizAttemptRepository.save(attempt);
+        attempt = quizAttemptRepository.save(attempt);
+        eventPublisher.publishEvent(QuizAttemptEvent.scored(attempt));
+        return attempt;
     }
 
     private Integer calculateScore(QuizAttempt attempt, String answers) {
@@ -218,13 +230,22 @@ public class QuizService {
         return "Question analytics not yet implemented for question ID: " + questionId;
     }
 
-    public Object exportQuizResults(Long quizId) {
-        Quiz quiz = findById(quizId)
-                .orElseThrow(() -> new RuntimeException("Quiz not found with id: " + quizId));
-        
-        // TODO: Implement export functionality
-        // This would export quiz results to CSV, Excel, etc.
-        return "Export functionality not yet implemented for quiz: " + quiz.getTitle();
+    /** Instructor of the quiz's course, who with admins may see its results. */
+    public Long getInstructorId(Long quizId) {
+        if (!quizRepository.existsById(quizId)) {
+            throw new RuntimeException("Quiz not found with id: " + quizId);
+        }
+        return quizRepository.findInstructorIdById(quizId);
+    }
+
+    public StreamingResponseBody exportQuizResults(Long quizId, ExportFormat format, boolean gzip) {
+        if (!quizRepository.existsById(quizId)) {
+            throw new RuntimeException("Quiz not found with id: " + quizId);
+        }
+        String[] columns = {"attemptId", "userId", "username", "email", "score", "status",
+                "timeSpentSeconds", "startedAt", "completedAt"};
+        return exportService.stream(format, gzip, columns,
+                () -> quizAttemptRepository.streamResultRowsByQuizId(quizId));
     }
 
     public Page<Quiz> findInstructorQuizzes(Pageable pageable) {
@@ -0,0 +1,437 @@
+package com.edupress.service;
+
+import com.edupress.event.PaymentEvent;
+import com.edupress.model.Payment;
+import com.edupress.model.PaymeTransaction;
+import com.edupress.model.RevenueLedgerEntry;
+import com.edupress.repository.PaymeTransactionRepository;
+import com.edupress.repository.PaymentRepository;
+import com.edupress.repository.RevenueLedgerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only ledger of revenue movements plus running totals per instructor, course, day and
+ * currency.
+ * <p>
+ * Entries are appended in the same transaction as the payment state change that caused them,
+ * and the in-memory totals are updated once that transaction commits. Totals are kept in minor
+ * units so updates are lock-free increments. {@link #rebuild()} replays payment history in
+ * parallel id ranges when the ledger has to be regenerated from scratch; payment changes that
+ * commit while it runs are held back and appended once the replay is done.
+ */
+@Service
+public class RevenueLedgerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevenueLedgerService.class);
+
+    private static final List<PaymeTransaction.TransactionState> PAYME_PERFORMED_STATES = List.of(
+            PaymeTransaction.TransactionState.PAY_ACCEPTED,
+            PaymeTransaction.TransactionState.CANCELLED_AFTER_SUCCESSFUL);
+
+    @Autowired
+    private RevenueLedgerRepository ledgerRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymeTransactionRepository paymeTransactionRepository;
+
+    @Value("${app.revenue.reporting-currency:USD}")
+    private String reportingCurrency;
+
+    @Value("${app.revenue.rebuild.threads:4}")
+    private int rebuildThreads;
+
+    @Value("${app.revenue.rebuild.chunk-size:1000}")
+    private int rebuildChunkSize;
+
+    private ThreadPoolTaskExecutor executor;
+
+    // Swapped wholesale after a rebuild so readers never see a half-loaded set of totals
+    private volatile RevenueTotals totals = new RevenueTotals();
+
+    // Entries committed during a rebuild, appended when it finishes; guards rebuilding too
+    private final List<RevenueLedgerEntry> deferred = new ArrayList<>();
+    private boolean rebuilding;
+
+    @jakarta.annotation.PostConstruct
+    public void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(rebuildThreads);
+        executor.setMaxPoolSize(rebuildThreads);
+        executor.setQueueCapacity(Integer.MAX_VALUE);
+        executor.setThreadNamePrefix("revenue-rebuild-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+    }
+
+    @jakarta.annotation.PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // Reads
+
+    public String getReportingCurrency() {
+        return reportingCurrency;
+    }
+
+    public Map<String, BigDecimal> getTotalRevenue() {
+        return toAmounts(totals.byCurrency);
+    }
+
+    public Map<String, BigDecimal> getInstructorEarnings(Long instructorId) {
+        return toAmounts(totals.byInstructor.get(instructorId));
+    }
+
+    public BigDecimal getInstructorEarnings(Long instructorId, String currency) {
+        return getInstructorEarnings(instructorId).getOrDefault(normalizeCurrency(currency), BigDecimal.ZERO);
+    }
+
+    public Map<String, BigDecimal> getCourseRevenue(Long courseId) {
+        return toAmounts(totals.byCourse.get(courseId));
+    }
+
+    /** Revenue per currency for the inclusive date range, summed from daily buckets. */
+    public Map<String, BigDecimal> getRevenueBetween(LocalDate from, LocalDate to) {
+        Map<String, Long> sums = new HashMap<>();
+        totals.byDay.subMap(from, true, to, true).values().forEach(day ->
+                day.forEach((currency, minor) -> sums.merge(currency, minor.get(), Long::sum)));
+        Map<String, BigDecimal> result = new TreeMap<>();
+        sums.forEach((currency, minor) -> result.put(currency, fromMinor(minor)));
+        return result;
+    }
+
+    /** Daily revenue for the inclusive date range; days without revenue are omitted. */
+    public Map<LocalDate, Map<String, BigDecimal>> getDailyRevenue(LocalDate from, LocalDate to) {
+        Map<LocalDate, Map<String, BigDecimal>> result = new LinkedHashMap<>();
+        totals.byDay.subMap(from, true, to, true).forEach((date, day) -> result.put(date, toAmounts(day)));
+        return result;
+    }
+
+    public List<Map<String, Object>> getTopCourses(String currency, int limit) {
+        String normalized = normalizeCurrency(currency);
+        List<Map<String, Object>> courses = new ArrayList<>();
+        totals.byCourse.entrySet().stream()
+                .filter(entry -> entry.getValue().containsKey(normalized))
+                .sorted(Comparator.comparingLong(
+                        (Map.Entry<Long, ConcurrentHashMap<String, AtomicLong>> entry) ->
+                                entry.getValue().get(normalized).get()).reversed())
+                .limit(limit)
+                .forEach(entry -> {
+                    Map<String, Object> course = new LinkedHashMap<>();
+                    course.put("courseId", entry.getKey());
+                    course.put("currency", normalized);
+                    course.put("revenue", fromMinor(entry.getValue().get(normalized).get()));
+                    courses.add(course);
+                });
+        return courses;
+    }
+
+    // Live appends
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onPaymentEvent(PaymentEvent event) {
+        if (!event.isStateChange()) {
+            return;
+        }
+        RevenueLedgerEntry.EntryType type = entryTypeFor(event);
+        if (type == null) {
+            return;
+        }
+        RevenueLedgerEntry.Provider provider = RevenueLedgerEntry.Provider.valueOf(event.getProvider().name());
+        if (event.getPaymentId() == null || event.getAmount() == null
+                || ledgerRepository.existsByProviderAndSourceIdAndEntryType(provider, event.getPaymentId(), type)) {
+            return;
+        }
+
+        RevenueLedgerEntry entry = new RevenueLedgerEntry(
+                provider, event.getPaymentId(), type, event.getUserId(), event.getCourseId(),
+                event.getInstructorId(), event.getAmount(), normalizeCurrency(event.getCurrency()),
+                event.getOccurredAt());
+
+        boolean defer;
+        synchronized (deferred) {
+            defer = rebuilding;
+        }
+        if (!defer) {
+            ledgerRepository.save(entry);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    if (defer) {
+                        appendDeferred(entry);
+                    } else {
+                        totals.add(entry);
+                    }
+                }
+            });
+        } else if (defer) {
+            appendDeferred(entry);
+        } else {
+            totals.add(entry);
+        }
+    }
+
+    /**
+     * Holds an entry back while a rebuild runs; when the rebuild finished in the meantime the
+     * entry is appended on the rebuild pool, outside the already committed payment transaction.
+     */
+    private void appendDeferred(RevenueLedgerEntry entry) {
+        synchronized (deferred) {
+            if (rebuilding) {
+                deferred.add(entry);
+                return;
+            }
+        }
+        executor.execute(() -> {
+            if (insertIfAbsent(entry)) {
+                totals.add(entry);
+            }
+        });
+    }
+
+    private static RevenueLedgerEntry.EntryType entryTypeFor(PaymentEvent event) {
+        if (event.getProvider() == PaymentEvent.Provider.STRIPE) {
+            String succeeded = Payment.PaymentStatus.SUCCEEDED.name();
+            if (succeeded.equals(event.getState())) {
+                return RevenueLedgerEntry.EntryType.CREDIT;
+            }
+            return succeeded.equals(event.getPreviousState()) ? RevenueLedgerEntry.EntryType.REVERSAL : null;
+        }
+        if (PaymeTransaction.TransactionState.PAY_ACCEPTED.name().equals(event.getState())) {
+            return RevenueLedgerEntry.EntryType.CREDIT;
+        }
+        if (PaymeTransaction.TransactionState.CANCELLED_AFTER_SUCCESSFUL.name().equals(event.getState())) {
+            return RevenueLedgerEntry.EntryType.REVERSAL;
+        }
+        return null;
+    }
+
+    // Startup and rebuild
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        boolean hasPayments = paymentRepository.findMaxId() != null || paymeTransactionRepository.findMaxId() != null;
+        if (ledgerRepository.count() == 0 && hasPayments) {
+            logger.info("Revenue ledger is empty, replaying payment history");
+            rebuild();
+        } else {
+            reloadTotals();
+        }
+    }
+
+    /**
+     * Regenerates the ledger from the payment tables. Each provider's id space is cut into
+     * fixed-size ranges that are replayed concurrently. Live appends are deferred until the
+     * replay is done, and a chunk that still collides with one that was in flight when the
+     * rebuild began falls back to inserting row by row, skipping the rows already there.
+     */
+    public synchronized int rebuild() {
+        long start = System.currentTimeMillis();
+        synchronized (deferred) {
+            rebuilding = true;
+        }
+        List<CompletableFuture<Integer>> chunks = new ArrayList<>();
+        int entries;
+        try {
+            ledgerRepository.deleteAllInBatch();
+
+            Long maxPaymentId = paymentRepository.findMaxId();
+            if (maxPaymentId != null) {
+                for (long after = 0; after < maxPaymentId; after += rebuildChunkSize) {
+                    final long from = after;
+                    chunks.add(CompletableFuture.supplyAsync(() -> replayStripe(from, from + rebuildChunkSize), executor));
+                }
+            }
+            Long maxPaymeId = paymeTransactionRepository.findMaxId();
+            if (maxPaymeId != null) {
+                for (long after = 0; after < maxPaymeId; after += rebuildChunkSize) {
+                    final long from = after;
+                    chunks.add(CompletableFuture.supplyAsync(() -> replayPayme(from, from + rebuildChunkSize), executor));
+                }
+            }
+
+            entries = chunks.stream().mapToInt(CompletableFuture::join).sum();
+            reloadTotals();
+        } finally {
+            List<RevenueLedgerEntry> held;
+            synchronized (deferred) {
+                rebuilding = false;
+                held = new ArrayList<>(deferred);
+                deferred.clear();
+            }
+            for (RevenueLedgerEntry entry : held) {
+                if (insertIfAbsent(entry)) {
+                    totals.add(entry);
+                }
+            }
+        }
+        logger.info("Rebuilt revenue ledger with {} entries from {} chunks in {} ms",
+                entries, chunks.size(), System.currentTimeMillis() - start);
+        return entries;
+    }
+
+    private int replayStripe(long afterId, long toId) {
+        List<RevenueLedgerEntry> entries = new ArrayList<>();
+        for (Object[] row : paymentRepository.findSucceededLedgerRows(afterId, toId)) {
+            LocalDateTime at = row[6] != null ? (LocalDateTime) row[6] : LocalDateTime.now();
+            entries.add(new RevenueLedgerEntry(RevenueLedgerEntry.Provider.STRIPE, (Long) row[0],
+                    RevenueLedgerEntry.EntryType.CREDIT, (Long) row[1], (Long) row[2], (Long) row[3],
+                    (BigDecimal) row[4], normalizeCurrency((String) row[5]), at));
+        }
+        return saveAll(entries);
+    }
+
+    private int replayPayme(long afterId, long toId) {
+        List<RevenueLedgerEntry> entries = new ArrayList<>();
+        for (Object[] row : paymeTransactionRepository.findLedgerRows(afterId, toId, PAYME_PERFORMED_STATES)) {
+            Long id = (Long) row[0];
+            BigDecimal amount = (BigDecimal) row[4];
+            entries.add(new RevenueLedgerEntry(RevenueLedgerEntry.Provider.PAYME, id,
+                    RevenueLedgerEntry.EntryType.CREDIT, (Long) row[1], (Long) row[2], (Long) row[3],
+                    amount, "UZS", fromEpochMillis((Long) row[6])));
+            if (row[5] == PaymeTransaction.TransactionState.CANCELLED_AFTER_SUCCESSFUL) {
+                entries.add(new RevenueLedgerEntry(RevenueLedgerEntry.Provider.PAYME, id,
+                        RevenueLedgerEntry.EntryType.REVERSAL, (Long) row[1], (Long) row[2], (Long) row[3],
+                        amount, "UZS", fromEpochMillis((Long) row[7])));
+            }
+        }
+        return saveAll(entries);
+    }
+
+    private int saveAll(List<RevenueLedgerEntry> entries) {
+        try {
+            ledgerRepository.saveAll(entries);
+            return entries.size();
+        } catch (DataIntegrityViolationException e) {
+            // An append from before the rebuild began committed some of these rows already
+            int saved = 0;
+            for (RevenueLedgerEntry entry : entries) {
+                // The rolled back batch may have assigned ids
+                entry.setId(null);
+                if (insertIfAbsent(entry)) {
+                    saved++;
+                }
+            }
+            return saved;
+        }
+    }
+
+    private boolean insertIfAbsent(RevenueLedgerEntry entry) {
+        if (ledgerRepository.existsByProviderAndSourceIdAndEntryType(
+                entry.getProvider(), entry.getSourceId(), entry.getEntryType())) {
+            return false;
+        }
+        try {
+            ledgerRepository.save(entry);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    private void reloadTotals() {
+        RevenueTotals loaded = new RevenueTotals();
+        for (Object[] row : ledgerRepository.sumByInstructorAndCurrency()) {
+            loaded.put(loaded.byInstructor, (Long) row[0], (String) row[1], toMinor((BigDecimal) row[2]));
+        }
+        for (Object[] row : ledgerRepository.sumByCourseAndCurrency()) {
+            loaded.put(loaded.byCourse, (Long) row[0], (String) row[1], toMinor((BigDecimal) row[2]));
+        }
+        for (Object[] row : ledgerRepository.sumByDateAndCurrency()) {
+            long minor = toMinor((BigDecimal) row[2]);
+            loaded.put(loaded.byDay, (LocalDate) row[0], (String) row[1], minor);
+            loaded.byCurrency.computeIfAbsent((String) row[1], key -> new AtomicLong()).addAndGet(minor);
+        }
+        totals = loaded;
+    }
+
+    // Helpers
+
+    private String normalizeCurrency(String currency) {
+        return currency == null || currency.isBlank() ? reportingCurrency : currency.trim().toUpperCase();
+    }
+
+    private static LocalDateTime fromEpochMillis(Long millis) {
+        return millis != null
+                ? LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault())
+                : LocalDateTime.now();
+    }
+
+    static long toMinor(BigDecimal amount) {
+        return amount == null ? 0L : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    static BigDecimal fromMinor(long minor) {
+        return BigDecimal.valueOf(minor, 2);
+    }
+
+    private static Map<String, BigDecimal> toAmounts(Map<String, AtomicLong> minorByCurrency) {
+        Map<String, BigDecimal> amounts = new TreeMap<>();
+        if (minorByCurrency != null) {
+            minorByCurrency.forEach((currency, minor) -> amounts.put(currency, fromMinor(minor.get())));
+        }
+        return amounts;
+    }
+
+    private static final class RevenueTotals {
+        private final ConcurrentHashMap<String, AtomicLong> byCurrency = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<Long, ConcurrentHashMap<String, AtomicLong>> byInstructor = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<Long, ConcurrentHashMap<String, AtomicLong>> byCourse = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListMap<LocalDate, ConcurrentHashMap<String, AtomicLong>> byDay = new ConcurrentSkipListMap<>();
+
+        private void add(RevenueLedgerEntry entry) {
+            long minor = toMinor(entry.getAmount());
+            String currency = entry.getCurrency();
+            byCurrency.computeIfAbsent(currency, key -> new AtomicLong()).addAndGet(minor);
+            if (entry.getInstructorId() != null) {
+                put(byInstructor, entry.getInstructorId(), currency, minor);
+            }
+            if (entry.getCourseId() != null) {
+                put(byCourse, entry.getCourseId(), currency, minor);
+            }
+            put(byDay, entry.getEntryDate(), currency, minor);
+        }
+
+        private <K> void put(Map<K, ConcurrentHashMap<String, AtomicLong>> index, K key, String currency, long minor) {
+            index.computeIfAbsent(key, k -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(currency, c -> new AtomicLong())
+                    .addAndGet(minor);
+        }
+    }
+}
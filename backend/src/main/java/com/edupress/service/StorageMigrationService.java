@@ -0,0 +1,292 @@
+package com.edupress.service;
+
+import com.edupress.repository.AssignmentSubmissionRepository;
+import com.edupress.repository.BlogPostRepository;
+import com.edupress.repository.CertificateRepository;
+import com.edupress.repository.CourseRepository;
+import com.edupress.repository.UserRepository;
+import com.edupress.repository.VideoRepository;
+import com.edupress.storage.BlobInfo;
+import com.edupress.storage.BlobStore;
+import com.edupress.storage.ContentAddressedStore;
+import com.edupress.storage.ShardedNames;
+import com.edupress.storage.StorageReferences;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Online migration of files written before the sharded layouts into them. Old uploads sit in flat
+ * directories ({@code videos/}, {@code assignments/}, one per image type, {@code certificates/});
+ * each is copied to its new home, content-addressed blobs for uploads and a
+ * {@link ShardedNames sharded} name for certificate PDFs, and the referencing rows are repointed.
+ * <p>
+ * A file is copied first, then rows are switched with a compare-and-set on the old value, and the
+ * original is deleted only after the run, once no column refers to it any more. Readers see either
+ * the old file or the new one throughout, and a row edited mid-migration simply keeps its new
+ * value. Runs are batched, so the site stays up while a large tree is moved over several runs.
+ */
+@Service
+public class StorageMigrationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageMigrationService.class);
+
+    private static final String CERTIFICATE_DIR = "certificates/";
+
+    @Value("${app.storage.migration.enabled:false}")
+    private boolean scheduledMigrationEnabled;
+
+    @Value("${app.storage.migration.batch-size:500}")
+    private int batchSize;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private ContentAddressedStore contentStore;
+
+    @Autowired
+    private StorageReferences storageReferences;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    @Autowired
+    private AssignmentSubmissionRepository submissionRepository;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BlogPostRepository blogPostRepository;
+
+    private final ReentrantLock running = new ReentrantLock();
+
+    @Scheduled(fixedDelayString = "${app.storage.migration.interval-ms:600000}")
+    public void scheduledMigrate() {
+        if (!scheduledMigrationEnabled) {
+            return;
+        }
+        MigrationReport report = migrate(batchSize);
+        if (report != null && report.getMigratedReferences() + report.getFailed() > 0) {
+            logger.info("Storage migration: {} references moved ({} bytes), {} failed, {} missing, {} remaining",
+                    report.getMigratedReferences(), report.getMigratedBytes(), report.getFailed(),
+                    report.getMissing(), report.getRemaining());
+        }
+    }
+
+    /**
+     * Moves up to {@code limit} legacy references to the sharded layout. Returns null when another
+     * migration is already running.
+     */
+    public MigrationReport migrate(int limit) {
+        if (!running.tryLock()) {
+            return null;
+        }
+        try {
+            long started = System.currentTimeMillis();
+            MigrationReport report = new MigrationReport();
+            Set<String> moved = new HashSet<>();
+            for (Column column : columns()) {
+                for (String reference : new LinkedHashSet<>(column.references.get())) {
+                    if (!column.needsMigration.test(reference)) {
+                        continue;
+                    }
+                    if (report.migratedReferences + report.failed >= limit) {
+                        report.remaining++;
+                        continue;
+                    }
+                    migrateReference(column, reference, report, moved);
+                }
+            }
+            deleteOriginals(moved, report);
+            report.durationMs = System.currentTimeMillis() - started;
+            return report;
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private void migrateReference(Column column, String reference, MigrationReport report, Set<String> moved) {
+        String objectName = storageReferences.objectNameOf(reference);
+        try {
+            BlobInfo info = blobStore.stat(objectName);
+            if (info == null) {
+                report.missing++;
+                logger.warn("Not migrating {} reference {}: file not found", column.label, reference);
+                return;
+            }
+            String newReference = column.relocation.relocate(objectName, info);
+            if (column.replace.apply(reference, newReference) > 0) {
+                report.migratedReferences++;
+                report.migratedBytes += info.getSize();
+                moved.add(objectName);
+            }
+        } catch (IOException | RuntimeException e) {
+            report.failed++;
+            logger.warn("Could not migrate {} reference {}", column.label, reference, e);
+        }
+    }
+
+    // Re-read every column, so a file that is still referenced somewhere, in any form, is kept
+    private void deleteOriginals(Set<String> moved, MigrationReport report) {
+        if (moved.isEmpty()) {
+            return;
+        }
+        Set<String> stillReferenced = new HashSet<>();
+        for (Column column : columns()) {
+            for (String reference : column.references.get()) {
+                String objectName = storageReferences.objectNameOf(reference);
+                if (objectName != null) {
+                    stillReferenced.add(objectName);
+                }
+            }
+        }
+        for (String objectName : moved) {
+            if (stillReferenced.contains(objectName)) {
+                continue;
+            }
+            try {
+                blobStore.delete(objectName);
+                imageVariantService.evict(objectName);
+                report.deletedOriginals++;
+            } catch (IOException e) {
+                logger.warn("Could not delete migrated file {}", objectName, e);
+            }
+        }
+    }
+
+    private List<Column> columns() {
+        Predicate<String> legacyUpload = reference ->
+                StorageReferences.isLegacy(reference) && storageReferences.objectNameOf(reference) != null;
+        Relocation toBlob = (objectName, info) -> importBlob(objectName);
+        Relocation toBlobUrl = (objectName, info) -> fileStorageService.getFileUrl(importBlob(objectName));
+
+        List<Column> columns = new ArrayList<>();
+        columns.add(new Column("video", videoRepository::findAllFilePaths, legacyUpload, toBlob,
+                videoRepository::replaceFilePath));
+        columns.add(new Column("submission", submissionRepository::findAllFilePaths, legacyUpload, toBlob,
+                submissionRepository::replaceFilePath));
+        columns.add(new Column("thumbnail", courseRepository::findAllThumbnailImages, legacyUpload, toBlobUrl,
+                courseRepository::replaceThumbnailImage));
+        columns.add(new Column("avatar", userRepository::findAllProfileImages, legacyUpload, toBlobUrl,
+                userRepository::replaceProfileImage));
+        columns.add(new Column("blog image", blogPostRepository::findAllFeaturedImages, legacyUpload, toBlobUrl,
+                blogPostRepository::replaceFeaturedImage));
+        columns.add(new Column("certificate", certificateRepository::findAllPdfFilePaths,
+                this::isUnshardedCertificate, this::moveCertificate, certificateRepository::replacePdfFilePath));
+        return columns;
+    }
+
+    private String importBlob(String objectName) throws IOException {
+        int dot = objectName.lastIndexOf('.');
+        String extension = dot > objectName.lastIndexOf('/') ? objectName.substring(dot) : "";
+        try (InputStream in = blobStore.get(objectName)) {
+            return contentStore.put(in, extension).getKey();
+        }
+    }
+
+    private boolean isUnshardedCertificate(String reference) {
+        String objectName = storageReferences.objectNameOf(reference);
+        return objectName != null && !ShardedNames.isSharded(CERTIFICATE_DIR, objectName);
+    }
+
+    private String moveCertificate(String objectName, BlobInfo info) throws IOException {
+        String target = ShardedNames.shard(CERTIFICATE_DIR, objectName.substring(objectName.lastIndexOf('/') + 1));
+        if (blobStore.stat(target) == null) {
+            try (InputStream in = blobStore.get(objectName)) {
+                blobStore.put(target, in, info.getSize());
+            }
+        }
+        return target;
+    }
+
+    private interface Relocation {
+        /** Copies the object to its new home and returns the reference records should hold. */
+        String relocate(String objectName, BlobInfo info) throws IOException;
+    }
+
+    private static class Column {
+        private final String label;
+        private final Supplier<List<String>> references;
+        private final Predicate<String> needsMigration;
+        private final Relocation relocation;
+        private final BiFunction<String, String, Integer> replace;
+
+        Column(String label, Supplier<List<String>> references, Predicate<String> needsMigration,
+               Relocation relocation, BiFunction<String, String, Integer> replace) {
+            this.label = label;
+            this.references = references;
+            this.needsMigration = needsMigration;
+            this.relocation = relocation;
+            this.replace = replace;
+        }
+    }
+
+    public static class MigrationReport {
+        private long migratedReferences;
+        private long migratedBytes;
+        private long failed;
+        private long missing;
+        private long deletedOriginals;
+        private long remaining;
+        private long durationMs;
+
+        public long getMigratedReferences() {
+            return migratedReferences;
+        }
+
+        public long getMigratedBytes() {
+            return migratedBytes;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        /** Legacy references whose file is gone; left as they are. */
+        public long getMissing() {
+            return missing;
+        }
+
+        public long getDeletedOriginals() {
+            return deletedOriginals;
+        }
+
+        /** Legacy references beyond this run's limit. */
+        public long getRemaining() {
+            return remaining;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+    }
+}
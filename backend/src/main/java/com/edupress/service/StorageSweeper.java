@@ -0,0 +1,364 @@
+package com.edupress.service;
+
+import com.edupress.repository.AssignmentSubmissionRepository;
+import com.edupress.repository.BlogPostRepository;
+import com.edupress.repository.CertificateRepository;
+import com.edupress.repository.CourseRepository;
+import com.edupress.repository.UserRepository;
+import com.edupress.repository.VideoRepository;
+import com.edupress.storage.BlobInfo;
+import com.edupress.storage.BlobStore;
+import com.edupress.storage.ContentAddressedStore;
+import com.edupress.storage.StorageReferences;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Walks the whole {@link BlobStore} and reconciles it with the columns that reference stored
+ * files: video files, assignment submissions, certificate PDFs, course thumbnails, avatars and
+ * blog images. Reports what is stored, what nobody references, which references point at nothing,
+ * and how many files and bytes each owner (instructor, student, author) accounts for.
+ * <p>
+ * The walk goes one directory level at a time through {@link BlobStore#listLevel}, each level a
+ * task on a fixed pool, so large sharded trees are listed with bounded parallelism instead of one
+ * recursive walk. Unreferenced files older than the grace period can be removed, except blobs,
+ * which are left to {@link BlobGarbageCollector} and its variant eviction.
+ */
+@Service
+public class StorageSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageSweeper.class);
+
+    private static final int ORPHAN_SAMPLE_SIZE = 100;
+
+    // Scratch areas that are never referenced by a record
+    private static final Set<String> SKIPPED_PREFIXES = Set.of("variants/", "videos/.partial/", ".tmp/");
+
+    @Value("${app.storage.sweeper.threads:4}")
+    private int sweeperThreads;
+
+    @Value("${app.storage.gc.grace-hours:24}")
+    private int graceHours;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private ContentAddressedStore contentStore;
+
+    @Autowired
+    private StorageReferences storageReferences;
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    @Autowired
+    private AssignmentSubmissionRepository submissionRepository;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BlogPostRepository blogPostRepository;
+
+    private ThreadPoolTaskExecutor executor;
+
+    private final ReentrantLock running = new ReentrantLock();
+
+    @jakarta.annotation.PostConstruct
+    public void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(sweeperThreads);
+        executor.setMaxPoolSize(sweeperThreads);
+        executor.setThreadNamePrefix("storage-sweeper-");
+        executor.initialize();
+    }
+
+    @jakarta.annotation.PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Scheduled(cron = "${app.storage.sweeper.cron:0 0 5 * * SUN}")
+    public void scheduledSweep() {
+        SweepReport report = sweep(false);
+        if (report != null) {
+            logger.info("Storage sweep: {} objects ({} bytes), {} orphans ({} bytes), {} missing references in {} ms",
+                    report.getObjects(), report.getBytes(), report.getOrphans(), report.getOrphanBytes(),
+                    report.getMissingReferences(), report.getDurationMs());
+        }
+    }
+
+    /**
+     * Runs one sweep; unreferenced files are deleted only with {@code removeOrphans}. Returns null
+     * when another sweep is already running.
+     */
+    public SweepReport sweep(boolean removeOrphans) {
+        if (!running.tryLock()) {
+            return null;
+        }
+        try {
+            long started = System.currentTimeMillis();
+            Walk walk = new Walk(referenceOwners(), Instant.now().minus(Duration.ofHours(graceHours)), removeOrphans);
+            walk.submit("");
+            walk.done.join();
+
+            SweepReport report = walk.report;
+            report.missingReferences = walk.owners.keySet().stream().filter(name -> !walk.seen.contains(name)).count();
+            List<OwnerUsage> usage = new ArrayList<>();
+            walk.usage.forEach((ownerId, counters) ->
+                    usage.add(new OwnerUsage(ownerId, counters[0].sum(), counters[1].sum())));
+            usage.sort(Comparator.comparingLong(OwnerUsage::getBytes).reversed());
+            report.usageByOwner = usage;
+            report.durationMs = System.currentTimeMillis() - started;
+            return report;
+        } finally {
+            running.unlock();
+        }
+    }
+
+    /** Object name of every referenced file, with the ids of the users it is charged to. */
+    public Map<String, Set<Long>> referenceOwners() {
+        Map<String, Set<Long>> owners = new HashMap<>();
+        List<List<Object[]>> columns = List.of(
+                videoRepository.findFilePathOwners(),
+                submissionRepository.findFilePathOwners(),
+                certificateRepository.findPdfFilePathOwners(),
+                courseRepository.findThumbnailImageOwners(),
+                userRepository.findProfileImageOwners(),
+                blogPostRepository.findFeaturedImageOwners());
+        for (List<Object[]> rows : columns) {
+            for (Object[] row : rows) {
+                String objectName = storageReferences.objectNameOf((String) row[0]);
+                if (objectName == null) {
+                    continue;
+                }
+                Set<Long> ids = owners.computeIfAbsent(objectName, name -> new HashSet<>());
+                if (row[1] != null) {
+                    ids.add((Long) row[1]);
+                }
+            }
+        }
+        return owners;
+    }
+
+    private boolean isSkipped(String prefix) {
+        return SKIPPED_PREFIXES.contains(prefix) || prefix.equals(contentStore.getPrefix() + ".tmp/");
+    }
+
+    /** State of one sweep, shared by the listing tasks. */
+    private class Walk {
+        private final Map<String, Set<Long>> owners;
+        private final Instant cutoff;
+        private final boolean removeOrphans;
+        private final SweepReport report = new SweepReport();
+        private final Set<String> seen = ConcurrentHashMap.newKeySet();
+        private final Map<Long, LongAdder[]> usage = new ConcurrentHashMap<>();
+        private final List<String> orphanSample = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger pending = new AtomicInteger();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Walk(Map<String, Set<Long>> owners, Instant cutoff, boolean removeOrphans) {
+            this.owners = owners;
+            this.cutoff = cutoff;
+            this.removeOrphans = removeOrphans;
+            report.orphanSample = orphanSample;
+        }
+
+        void submit(String prefix) {
+            pending.incrementAndGet();
+            try {
+                executor.execute(() -> {
+                    try {
+                        blobStore.listLevel(prefix, this::visit, child -> {
+                            if (!isSkipped(child)) {
+                                submit(child);
+                            }
+                        });
+                        report.directories.increment();
+                    } catch (IOException | RuntimeException e) {
+                        report.failedDirectories.increment();
+                        logger.warn("Could not list storage prefix '{}'", prefix, e);
+                    } finally {
+                        finish();
+                    }
+                });
+            } catch (TaskRejectedException e) {
+                report.failedDirectories.increment();
+                finish();
+            }
+        }
+
+        private void finish() {
+            if (pending.decrementAndGet() == 0) {
+                done.complete(null);
+            }
+        }
+
+        private void visit(BlobInfo info) {
+            report.objects.increment();
+            report.bytes.add(info.getSize());
+            Set<Long> ids = owners.get(info.getName());
+            if (ids != null) {
+                seen.add(info.getName());
+                report.referenced.increment();
+                // A file shared by several owners counts in full for each of them
+                for (Long ownerId : ids) {
+                    LongAdder[] counters = usage.computeIfAbsent(ownerId, id -> new LongAdder[]{new LongAdder(), new LongAdder()});
+                    counters[0].increment();
+                    counters[1].add(info.getSize());
+                }
+                return;
+            }
+            if (info.getName().startsWith(contentStore.getPrefix())) {
+                report.unreferencedBlobs.increment();
+                return;
+            }
+            report.orphans.increment();
+            report.orphanBytes.add(info.getSize());
+            if (orphanSample.size() < ORPHAN_SAMPLE_SIZE) {
+                orphanSample.add(info.getName());
+            }
+            if (removeOrphans && info.getLastModified().isBefore(cutoff)) {
+                try {
+                    blobStore.delete(info.getName());
+                    report.deletedOrphans.increment();
+                    report.reclaimedBytes.add(info.getSize());
+                } catch (IOException e) {
+                    logger.warn("Could not delete orphaned file {}", info.getName(), e);
+                }
+            }
+        }
+    }
+
+    public static class SweepReport {
+        private final LongAdder objects = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder referenced = new LongAdder();
+        private final LongAdder orphans = new LongAdder();
+        private final LongAdder orphanBytes = new LongAdder();
+        private final LongAdder unreferencedBlobs = new LongAdder();
+        private final LongAdder deletedOrphans = new LongAdder();
+        private final LongAdder reclaimedBytes = new LongAdder();
+        private final LongAdder directories = new LongAdder();
+        private final LongAdder failedDirectories = new LongAdder();
+        private List<String> orphanSample;
+        private long missingReferences;
+        private List<OwnerUsage> usageByOwner;
+        private long durationMs;
+
+        public long getObjects() {
+            return objects.sum();
+        }
+
+        public long getBytes() {
+            return bytes.sum();
+        }
+
+        public long getReferencedObjects() {
+            return referenced.sum();
+        }
+
+        /** Unreferenced files outside the content store. */
+        public long getOrphans() {
+            return orphans.sum();
+        }
+
+        public long getOrphanBytes() {
+            return orphanBytes.sum();
+        }
+
+        /** The first few orphans found, for inspection. */
+        public List<String> getOrphanSample() {
+            return orphanSample;
+        }
+
+        /** Unreferenced blobs, which only {@link BlobGarbageCollector} deletes. */
+        public long getUnreferencedBlobs() {
+            return unreferencedBlobs.sum();
+        }
+
+        /** Referenced files that are not in the store. */
+        public long getMissingReferences() {
+            return missingReferences;
+        }
+
+        public long getDeletedOrphans() {
+            return deletedOrphans.sum();
+        }
+
+        public long getReclaimedBytes() {
+            return reclaimedBytes.sum();
+        }
+
+        public long getDirectories() {
+            return directories.sum();
+        }
+
+        public long getFailedDirectories() {
+            return failedDirectories.sum();
+        }
+
+        /** Files and bytes per owner, largest first. */
+        public List<OwnerUsage> getUsageByOwner() {
+            return usageByOwner;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+    }
+
+    public static class OwnerUsage {
+        private final Long ownerId;
+        private final long files;
+        private final long bytes;
+
+        public OwnerUsage(Long ownerId, long files, long bytes) {
+            this.ownerId = ownerId;
+            this.files = files;
+            this.bytes = bytes;
+        }
+
+        public Long getOwnerId() {
+            return ownerId;
+        }
+
+        public long getFiles() {
+            return files;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+}
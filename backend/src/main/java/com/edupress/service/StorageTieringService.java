@@ -0,0 +1,228 @@
+package com.edupress.service;
+
+import com.edupress.repository.BlobAccessRepository;
+import com.edupress.storage.BlobInfo;
+import com.edupress.storage.BlobStore;
+import com.edupress.storage.ContentAddressedStore;
+import com.edupress.storage.TieredBlobStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moves cold files to the archive tier of a {@link TieredBlobStore}. A file is cold once it has
+ * been neither served nor written for its type's {@code cold-after-days}; documents and
+ * certificates are gzip-compressed on the way when that pays off, videos and images never are,
+ * since their formats are compressed already. Getting a file back needs nothing from here: the
+ * store promotes it on its next read.
+ * <p>
+ * Only uploads in the content store and certificate PDFs are tiered. Files from before content
+ * addressing are read straight from disk by path in places and stay in the hot tier.
+ */
+@Service
+public class StorageTieringService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageTieringService.class);
+
+    private static final String CERTIFICATE_PREFIX = "certificates/";
+
+    private static final Set<String> VIDEO_EXTENSIONS = Set.of("mp4", "m4v", "mov", "webm", "avi", "wmv", "flv", "mkv");
+    private static final Set<String> IMAGE_EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif", "webp", "bmp", "svg");
+
+    @Value("${app.storage.tiering.video.cold-after-days:180}")
+    private int videoColdAfterDays;
+
+    @Value("${app.storage.tiering.video.compress:false}")
+    private boolean videoCompress;
+
+    @Value("${app.storage.tiering.document.cold-after-days:60}")
+    private int documentColdAfterDays;
+
+    @Value("${app.storage.tiering.document.compress:true}")
+    private boolean documentCompress;
+
+    @Value("${app.storage.tiering.image.cold-after-days:0}")
+    private int imageColdAfterDays;
+
+    @Value("${app.storage.tiering.image.compress:false}")
+    private boolean imageCompress;
+
+    @Value("${app.storage.tiering.certificate.cold-after-days:90}")
+    private int certificateColdAfterDays;
+
+    @Value("${app.storage.tiering.certificate.compress:true}")
+    private boolean certificateCompress;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private ContentAddressedStore contentStore;
+
+    @Autowired
+    private BlobAccessTracker blobAccessTracker;
+
+    @Autowired
+    private BlobAccessRepository blobAccessRepository;
+
+    private final ReentrantLock running = new ReentrantLock();
+
+    public boolean isEnabled() {
+        return blobStore instanceof TieredBlobStore;
+    }
+
+    @Scheduled(cron = "${app.storage.tiering.cron:0 0 3 * * *}")
+    public void scheduledRun() {
+        if (!isEnabled()) {
+            return;
+        }
+        TieringReport report = run();
+        if (report != null) {
+            logger.info("Storage tiering: {} of {} files archived, {} bytes down to {}, {} failed in {} ms",
+                    report.getArchived(), report.getScanned(), report.getArchivedOriginalBytes(),
+                    report.getArchivedStoredBytes(), report.getFailed(), report.getDurationMs());
+        }
+    }
+
+    /**
+     * Archives every file that is cold under its type's policy. Returns null when another run is
+     * in progress.
+     */
+    public TieringReport run() {
+        if (!(blobStore instanceof TieredBlobStore tiered)) {
+            throw new RuntimeException("No archive tier is configured (app.storage.archive.backend)");
+        }
+        if (!running.tryLock()) {
+            return null;
+        }
+        try {
+            long started = System.currentTimeMillis();
+            blobAccessTracker.flush();
+            Instant now = Instant.now();
+            TieringReport report = new TieringReport();
+            for (String prefix : List.of(contentStore.getPrefix(), CERTIFICATE_PREFIX)) {
+                Map<String, Instant> lastAccess = new HashMap<>();
+                for (Object[] row : blobAccessRepository.findAccessTimesByPrefix(prefix)) {
+                    lastAccess.put((String) row[0], ((LocalDateTime) row[1]).atZone(ZoneId.systemDefault()).toInstant());
+                }
+                List<BlobInfo> cold = new ArrayList<>();
+                tiered.getHot().list(prefix, info -> {
+                    Policy policy = policyFor(info.getName());
+                    if (policy == null) {
+                        return;
+                    }
+                    report.scanned++;
+                    Instant accessed = lastAccess.getOrDefault(info.getName(), Instant.EPOCH);
+                    Instant lastUsed = accessed.isAfter(info.getLastModified()) ? accessed : info.getLastModified();
+                    if (policy.coldAfter != null && lastUsed.isBefore(now.minus(policy.coldAfter))) {
+                        cold.add(info);
+                    }
+                });
+                for (BlobInfo info : cold) {
+                    try {
+                        long stored = tiered.demote(info.getName(), policyFor(info.getName()).compress);
+                        if (stored >= 0) {
+                            report.archived++;
+                            report.archivedOriginalBytes += info.getSize();
+                            report.archivedStoredBytes += stored;
+                        }
+                    } catch (IOException e) {
+                        report.failed++;
+                        logger.warn("Could not archive {}", info.getName(), e);
+                    }
+                }
+            }
+            report.durationMs = System.currentTimeMillis() - started;
+            return report;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Storage tiering failed", e);
+        } finally {
+            running.unlock();
+        }
+    }
+
+    /** Policy for a stored object, or null for objects that are never tiered. */
+    Policy policyFor(String objectName) {
+        String fileName = objectName.substring(objectName.lastIndexOf('/') + 1);
+        if (objectName.startsWith(CERTIFICATE_PREFIX)) {
+            return fileName.endsWith(".pdf") ? new Policy(certificateColdAfterDays, certificateCompress) : null;
+        }
+        // Skips the content store's staging files
+        if (!ContentAddressedStore.isKey(fileName)) {
+            return null;
+        }
+        int dot = fileName.lastIndexOf('.');
+        String extension = dot >= 0 ? fileName.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+        if (VIDEO_EXTENSIONS.contains(extension)) {
+            return new Policy(videoColdAfterDays, videoCompress);
+        }
+        if (IMAGE_EXTENSIONS.contains(extension)) {
+            return new Policy(imageColdAfterDays, imageCompress);
+        }
+        return new Policy(documentColdAfterDays, documentCompress);
+    }
+
+    static final class Policy {
+        // Null when files of this type are never archived
+        final Duration coldAfter;
+        final boolean compress;
+
+        Policy(int coldAfterDays, boolean compress) {
+            this.coldAfter = coldAfterDays > 0 ? Duration.ofDays(coldAfterDays) : null;
+            this.compress = compress;
+        }
+    }
+
+    public static class TieringReport {
+        private long scanned;
+        private long archived;
+        private long archivedOriginalBytes;
+        private long archivedStoredBytes;
+        private long failed;
+        private long durationMs;
+
+        /** Hot-tier files a policy applies to. */
+        public long getScanned() {
+            return scanned;
+        }
+
+        public long getArchived() {
+            return archived;
+        }
+
+        /** Size of the archived files as they were in the hot tier. */
+        public long getArchivedOriginalBytes() {
+            return archivedOriginalBytes;
+        }
+
+        /** What they take in the archive tier after compression. */
+        public long getArchivedStoredBytes() {
+            return archivedStoredBytes;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+    }
+}
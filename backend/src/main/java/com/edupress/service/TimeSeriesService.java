@@ -0,0 +1,170 @@
+package com.edupress.service;
+
+import com.edupress.analytics.TimeSeriesStore;
+import com.edupress.analytics.TimeSeriesStore.Metric;
+import com.edupress.analytics.TimeSeriesStore.Resolution;
+import com.edupress.event.CourseEvent;
+import com.edupress.event.EnrollmentEvent;
+import com.edupress.event.LessonCompletedEvent;
+import com.edupress.event.PaymentEvent;
+import com.edupress.event.UserEvent;
+import com.edupress.model.Payment;
+import com.edupress.model.PaymeTransaction;
+import com.edupress.repository.CourseRepository;
+import com.edupress.repository.PaymeTransactionRepository;
+import com.edupress.repository.PaymentRepository;
+import com.edupress.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Records platform activity into an in-memory {@link TimeSeriesStore} so growth analytics can
+ * answer date-range questions without scanning entity tables.
+ * <p>
+ * On startup the store is seeded from creation timestamps still inside the day-resolution
+ * retention window. Enrollments and lesson completions have no stored timestamp, so those
+ * series only cover activity since the last restart.
+ */
+@Service
+public class TimeSeriesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimeSeriesService.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymeTransactionRepository paymeTransactionRepository;
+
+    @Value("${app.analytics.timeseries.minute-retention-hours:48}")
+    private long minuteRetentionHours;
+
+    @Value("${app.analytics.timeseries.hour-retention-days:90}")
+    private long hourRetentionDays;
+
+    @Value("${app.analytics.timeseries.day-retention-days:1095}")
+    private long dayRetentionDays;
+
+    private TimeSeriesStore store;
+
+    private volatile boolean loaded;
+
+    @jakarta.annotation.PostConstruct
+    public void init() {
+        store = new TimeSeriesStore(
+                Duration.ofHours(minuteRetentionHours),
+                Duration.ofDays(hourRetentionDays),
+                Duration.ofDays(dayRetentionDays));
+    }
+
+    public long count(Metric metric, LocalDateTime from, LocalDateTime to) {
+        return store.sum(metric, from, to);
+    }
+
+    public List<TimeSeriesStore.Point> series(Metric metric, LocalDateTime from, LocalDateTime to, Resolution resolution) {
+        if (resolution == null) {
+            resolution = store.suggestResolution(from, to, 500);
+        }
+        return store.series(metric, from, to, resolution);
+    }
+
+    public Resolution suggestResolution(LocalDateTime from, LocalDateTime to) {
+        return store.suggestResolution(from, to, 500);
+    }
+
+    // Event handlers. Anything raised before the backfill is already in the seeded data.
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserEvent(UserEvent event) {
+        if (loaded && event.getType() == UserEvent.Type.CREATED) {
+            store.record(Metric.SIGNUPS, event.getOccurredAt());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseEvent(CourseEvent event) {
+        if (loaded && event.getType() == CourseEvent.Type.CREATED) {
+            store.record(Metric.COURSES_CREATED, event.getOccurredAt());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEnrollmentEvent(EnrollmentEvent event) {
+        if (loaded && event.getType() == EnrollmentEvent.Type.ENROLLED) {
+            store.record(Metric.ENROLLMENTS, event.getOccurredAt());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPaymentEvent(PaymentEvent event) {
+        if (loaded && event.isStateChange() && isSuccessful(event)) {
+            store.record(Metric.PAYMENTS, event.getOccurredAt());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLessonCompleted(LessonCompletedEvent event) {
+        if (loaded) {
+            store.record(Metric.LESSON_COMPLETIONS, event.getOccurredAt());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        backfill();
+    }
+
+    private synchronized void backfill() {
+        long start = System.currentTimeMillis();
+        store.clear();
+        LocalDateTime since = LocalDateTime.now().minusDays(dayRetentionDays);
+
+        userRepository.findCreatedAtSince(since).forEach(at -> recordIfPresent(Metric.SIGNUPS, at));
+        courseRepository.findCreatedAtSince(since).forEach(at -> recordIfPresent(Metric.COURSES_CREATED, at));
+        paymentRepository.findSucceededAtSince(since).forEach(at -> recordIfPresent(Metric.PAYMENTS, at));
+
+        long sinceMillis = since.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        List<PaymeTransaction.TransactionState> performed = List.of(
+                PaymeTransaction.TransactionState.PAY_ACCEPTED,
+                PaymeTransaction.TransactionState.CANCELLED_AFTER_SUCCESSFUL);
+        for (Long performTime : paymeTransactionRepository.findPerformTimesSince(sinceMillis, performed)) {
+            if (performTime != null) {
+                store.record(Metric.PAYMENTS,
+                        LocalDateTime.ofInstant(Instant.ofEpochMilli(performTime), ZoneId.systemDefault()));
+            }
+        }
+
+        loaded = true;
+        logger.info("Seeded analytics time series in {} ms", System.currentTimeMillis() - start);
+    }
+
+    private void recordIfPresent(Metric metric, LocalDateTime at) {
+        if (at != null) {
+            store.record(metric, at);
+        }
+    }
+
+    private static boolean isSuccessful(PaymentEvent event) {
+        return event.getProvider() == PaymentEvent.Provider.STRIPE
+                ? Payment.PaymentStatus.SUCCEEDED.name().equals(event.getState())
+                : PaymeTransaction.TransactionState.PAY_ACCEPTED.name().equals(event.getState());
+    }
+}
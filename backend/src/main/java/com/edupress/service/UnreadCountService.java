@@ -0,0 +1,113 @@
+package com.edupress.service;
+
+import com.edupress.controller.WebSocketController;
+import com.edupress.event.NotificationEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.function.LongSupplier;
+
+/**
+ * Unread notification badge counts, personal notifications and broadcasts together, kept in an
+ * {@link UnreadCounterMap} so the dashboard and {@code /unread-count} polls are memory reads.
+ * A user's count is loaded from the database on first read and then moved by the same committed
+ * changes that {@link PlatformCounterService} counts; each change to a cached count is pushed to
+ * the user on {@code /user/queue/unread-count}. Counts of users who stopped reading are evicted,
+ * and every count is reloaded after {@code max-age-seconds} so races between a load and a
+ * concurrent commit can't leave it wrong for long.
+ */
+@Service
+public class UnreadCountService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UnreadCountService.class);
+
+    @Value("${app.notifications.unread-cache.capacity:100000}")
+    private int capacity;
+
+    @Value("${app.notifications.unread-cache.max-age-seconds:600}")
+    private long maxAgeSeconds;
+
+    // Using @Lazy to avoid circular dependency with WebSocketController
+    @Autowired
+    @Lazy
+    private WebSocketController webSocketController;
+
+    private UnreadCounterMap counters;
+
+    @jakarta.annotation.PostConstruct
+    public void init() {
+        counters = new UnreadCounterMap(capacity, maxAgeSeconds * 1000);
+    }
+
+    /** The user's unread count, loaded with {@code loader} when it isn't cached. */
+    public long get(Long userId, LongSupplier loader) {
+        long count = counters.get(userId);
+        if (count >= 0) {
+            return count;
+        }
+        long stamp = counters.stamp(userId);
+        count = loader.getAsLong();
+        counters.putIfUnchanged(userId, count, stamp);
+        return count;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationEvent(NotificationEvent event) {
+        Long userId = event.getUserId();
+        if (userId == null) {
+            // Changes not tied to one user are applied by their senders
+            return;
+        }
+        switch (event.getType()) {
+            case CREATED -> {
+                if (!event.isWasRead()) {
+                    adjust(userId, event.getCount());
+                }
+            }
+            case READ, ALL_READ, DELETED -> {
+                if (!event.isWasRead()) {
+                    adjust(userId, -event.getCount());
+                }
+            }
+            // Bulk deletes don't say how many were unread
+            case PURGED -> counters.invalidate(userId);
+        }
+    }
+
+    /** Moves a cached count by {@code delta} after a committed change and pushes the new count. */
+    public void adjust(Long userId, long delta) {
+        long count = counters.add(userId, delta);
+        if (count >= 0) {
+            push(userId, count);
+        }
+    }
+
+    /**
+     * One more unread notification for each of the users, from a bulk insert. Not pushed: the
+     * sender announces bulk notifications on a shared topic instead.
+     */
+    public void increment(Collection<Long> userIds) {
+        for (Long userId : userIds) {
+            counters.add(userId, 1);
+        }
+    }
+
+    /** Drops every cached count, for changes that reach too many users to adjust one by one. */
+    public void invalidateAll() {
+        counters.clear();
+    }
+
+    private void push(Long userId, long count) {
+        try {
+            webSocketController.sendUnreadCount(userId.toString(), count);
+        } catch (Exception e) {
+            logger.debug("Failed to push unread count to user {}: {}", userId, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.edupress.service;
+
+import java.util.Arrays;
+
+/**
+ * Bounded map from user id to a count, for {@link UnreadCountService}. Keys and values are
+ * primitive longs in open-addressed arrays, so an entry costs a few dozen bytes and no objects.
+ * <p>
+ * The map is split into stripes by key hash, each guarded by its own monitor. A full stripe
+ * evicts with CLOCK, the usual approximation of LRU: every read sets an entry's reference bit,
+ * and the clock hand clears set bits until it reaches an entry nobody read since its last pass.
+ * Entries older than {@code maxAgeMillis} count as absent, so a count that drifted is reloaded.
+ * <p>
+ * Absent entries are loaded by the caller. {@link #stamp} taken before the load and passed to
+ * {@link #putIfUnchanged} keeps a load that raced with an update to the same stripe from being
+ * cached with the value from before that update.
+ */
+public class UnreadCounterMap {
+
+    // User ids are positive, so 0 marks a free slot
+    private static final long FREE = 0;
+
+    private final Stripe[] stripes;
+    private final long maxAgeMillis;
+
+    public UnreadCounterMap(int capacity, long maxAgeMillis) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        // About 64 entries per stripe at least, at most 16 stripes
+        int stripeCount = Math.min(16, Integer.highestOneBit(Math.max(1, capacity / 64)));
+        this.stripes = new Stripe[stripeCount];
+        int perStripe = (capacity + stripeCount - 1) / stripeCount;
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    /** The count for {@code key}, or -1 when it isn't cached. */
+    public long get(long key) {
+        return stripe(key).get(key, System.currentTimeMillis());
+    }
+
+    /** Changes a cached count by {@code delta}, never below zero; returns it, or -1 when it isn't cached. */
+    public long add(long key, long delta) {
+        return stripe(key).add(key, delta);
+    }
+
+    /** Version of the stripe holding {@code key}; moved by updates to uncached keys and invalidations. */
+    public long stamp(long key) {
+        return stripe(key).stamp();
+    }
+
+    /** Caches a loaded count unless the stripe changed since {@code stamp} or the key got cached meanwhile. */
+    public boolean putIfUnchanged(long key, long value, long stamp) {
+        return stripe(key).putIfUnchanged(key, value, stamp, System.currentTimeMillis());
+    }
+
+    public void invalidate(long key) {
+        stripe(key).invalidate(key);
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private Stripe stripe(long key) {
+        if (key <= FREE) {
+            throw new IllegalArgumentException("Keys must be positive: " + key);
+        }
+        return stripes[(int) (mix(key) >>> 40) & (stripes.length - 1)];
+    }
+
+    // MurmurHash3 finalizer: sequential ids spread over stripes and slots
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private final class Stripe {
+
+        private final int capacity;
+        private final int mask;
+        private final long[] keys;
+        private final long[] values;
+        private final long[] loadedAt;
+        private final boolean[] referenced;
+        private int size;
+        private int hand;
+        private long version;
+
+        Stripe(int capacity) {
+            this.capacity = capacity;
+            // Load factor at most one half keeps probe sequences short
+            int slots = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1;
+            this.mask = slots - 1;
+            this.keys = new long[slots];
+            this.values = new long[slots];
+            this.loadedAt = new long[slots];
+            this.referenced = new boolean[slots];
+        }
+
+        synchronized long get(long key, long now) {
+            int slot = find(key);
+            if (slot < 0) {
+                return -1;
+            }
+            if (now - loadedAt[slot] > maxAgeMillis) {
+                removeAt(slot);
+                return -1;
+            }
+            referenced[slot] = true;
+            return values[slot];
+        }
+
+        synchronized long add(long key, long delta) {
+            int slot = find(key);
+            if (slot < 0) {
+                // A load of this key in flight may have read the count from before this change
+                version++;
+                return -1;
+            }
+            values[slot] = Math.max(0, values[slot] + delta);
+            return values[slot];
+        }
+
+        synchronized long stamp() {
+            return version;
+        }
+
+        synchronized boolean putIfUnchanged(long key, long value, long stamp, long now) {
+            if (version != stamp) {
+                return false;
+            }
+            // Another load got there first and may have been updated since
+            if (find(key) >= 0) {
+                return false;
+            }
+            if (size >= capacity) {
+                evict();
+            }
+            int slot = home(key);
+            while (keys[slot] != FREE) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            loadedAt[slot] = now;
+            referenced[slot] = false;
+            size++;
+            return true;
+        }
+
+        synchronized void invalidate(long key) {
+            version++;
+            int slot = find(key);
+            if (slot >= 0) {
+                removeAt(slot);
+            }
+        }
+
+        synchronized void clear() {
+            version++;
+            Arrays.fill(keys, FREE);
+            size = 0;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private int home(long key) {
+            return (int) mix(key) & mask;
+        }
+
+        private int find(long key) {
+            for (int slot = home(key); keys[slot] != FREE; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        // Second chance: referenced entries lose their bit and survive one more pass
+        private void evict() {
+            while (true) {
+                hand = (hand + 1) & mask;
+                if (keys[hand] == FREE) {
+                    continue;
+                }
+                if (referenced[hand]) {
+                    referenced[hand] = false;
+                } else {
+                    removeAt(hand);
+                    return;
+                }
+            }
+        }
+
+        // Backward-shift deletion: pulls later entries of the probe run into the gap, no tombstones
+        private void removeAt(int slot) {
+            int gap = slot;
+            int next = slot;
+            while (true) {
+                next = (next + 1) & mask;
+                if (keys[next] == FREE) {
+                    break;
+                }
+                int home = home(keys[next]);
+                // The entry may move into the gap only if its home is not cyclically in (gap, next]
+                boolean homeBetween = gap <= next
+                        ? home > gap && home <= next
+                        : home > gap || home <= next;
+                if (!homeBetween) {
+                    keys[gap] = keys[next];
+                    values[gap] = values[next];
+                    loadedAt[gap] = loadedAt[next];
+                    referenced[gap] = referenced[next];
+                    gap = next;
+                }
+            }
+            keys[gap] = FREE;
+            referenced[gap] = false;
+            size--;
+        }
+    }
+}
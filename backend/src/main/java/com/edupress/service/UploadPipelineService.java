@@ -0,0 +1,429 @@
+package com.edupress.service;
+
+import com.edupress.controller.WebSocketController;
+import com.edupress.media.ImageVariant;
+import com.edupress.media.MimeSniffer;
+import com.edupress.media.Mp4Info;
+import com.edupress.model.UploadJob;
+import com.edupress.repository.LessonRepository;
+import com.edupress.repository.UploadJobRepository;
+import com.edupress.repository.UserRepository;
+import com.edupress.storage.ContentAddressedStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Processing of uploaded files off the request thread. A request only checks what it declares
+ * (name, extension, size), moves the multipart body into the content store's staging directory
+ * and saves an {@link UploadJob}, then answers with the job while it is still pending. The bytes
+ * then go through these stages:
+ * <ol>
+ *   <li>sniff: the leading bytes must be of the type the extension claims;</li>
+ *   <li>store: SHA-256 and move into the {@link ContentAddressedStore};</li>
+ *   <li>analyze: MP4 metadata of videos, resized variants of images;</li>
+ *   <li>complete: one short transaction creates the video, submission or avatar and marks the
+ *       job ready.</li>
+ * </ol>
+ * The first two run on the ingest executor, the rest on the analysis executor; both are bounded.
+ * The outcome is pushed to the uploader on {@code /user/queue/uploads} and can be polled at
+ * {@code /api/files/uploads/{id}}.
+ * <p>
+ * The request stages its bytes before it first touches the database, since with open-in-view
+ * the first query pins a connection to the request, and no stage does file I/O inside a
+ * transaction. Jobs a restart or a full queue left behind are picked up by
+ * {@link #resubmitStalled}.
+ */
+@Service
+public class UploadPipelineService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadPipelineService.class);
+
+    // Jobs untouched for this long and not queued on this node are submitted again
+    private static final Duration STALLED_AFTER = Duration.ofMinutes(1);
+
+    @Value("${app.upload.pipeline.ingest-threads:2}")
+    private int ingestThreads;
+
+    @Value("${app.upload.pipeline.analysis-threads:2}")
+    private int analysisThreads;
+
+    @Value("${app.upload.pipeline.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Autowired
+    private UploadJobRepository uploadJobRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ContentAddressedStore contentStore;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private VideoMetadataService videoMetadataService;
+
+    @Autowired
+    private VideoService videoService;
+
+    @Autowired
+    private AssignmentService assignmentService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Using @Lazy to avoid circular dependency with WebSocketController
+    @Autowired
+    @Lazy
+    private WebSocketController webSocketController;
+
+    private ThreadPoolTaskExecutor ingestExecutor;
+
+    private ThreadPoolTaskExecutor analysisExecutor;
+
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    @jakarta.annotation.PostConstruct
+    public void init() {
+        ingestExecutor = new ThreadPoolTaskExecutor();
+        ingestExecutor.setCorePoolSize(ingestThreads);
+        ingestExecutor.setMaxPoolSize(ingestThreads);
+        ingestExecutor.setQueueCapacity(queueCapacity);
+        ingestExecutor.setThreadNamePrefix("upload-ingest-");
+        // Rejected jobs stay pending and are retried by resubmitStalled
+        ingestExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        ingestExecutor.initialize();
+
+        analysisExecutor = new ThreadPoolTaskExecutor();
+        analysisExecutor.setCorePoolSize(analysisThreads);
+        analysisExecutor.setMaxPoolSize(analysisThreads);
+        analysisExecutor.setQueueCapacity(queueCapacity);
+        analysisExecutor.setThreadNamePrefix("upload-analysis-");
+        // When analysis falls behind, ingest threads do it themselves and stop taking new files
+        analysisExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        analysisExecutor.initialize();
+    }
+
+    @jakarta.annotation.PreDestroy
+    public void shutdown() {
+        ingestExecutor.shutdown();
+        analysisExecutor.shutdown();
+    }
+
+    /** A general file, e.g. a course thumbnail or blog image; the job's blob key is its name. */
+    public UploadJob submitFile(Long userId, MultipartFile file, String category) {
+        String fileName = fileStorageService.validateUpload(file);
+        UploadJob job = newJob(userId, UploadJob.Kind.FILE, fileName, file.getSize());
+        job.setCategory(category);
+        return accept(job, file, null);
+    }
+
+    public UploadJob submitAvatar(Long userId, MultipartFile file) {
+        String contentType = file.getContentType();
+        String fileName = cleanFileName(file.getOriginalFilename());
+        if (contentType == null || !contentType.startsWith("image/") || !ImageVariantService.isImage(fileName)) {
+            throw new RuntimeException("Avatar must be an image");
+        }
+        UploadJob job = newJob(userId, UploadJob.Kind.AVATAR, fileName, file.getSize());
+        return accept(job, file, () -> {
+            if (!userRepository.existsById(userId)) {
+                throw new RuntimeException("User not found with id: " + userId);
+            }
+        });
+    }
+
+    public UploadJob submitVideo(Long userId, Long lessonId, String title, String description,
+                                 Integer orderIndex, MultipartFile file) {
+        String fileName = cleanFileName(file.getOriginalFilename());
+        UploadJob job = newJob(userId, UploadJob.Kind.VIDEO, fileName, file.getSize());
+        if (!VideoService.isValidVideoFormat(job.getExtension())) {
+            throw new RuntimeException("Invalid video format. Supported formats: mp4, avi, mov, wmv, flv, webm, mkv");
+        }
+        job.setParentId(lessonId);
+        job.setTitle(title);
+        job.setDescription(description);
+        job.setOrderIndex(orderIndex);
+        return accept(job, file, () -> {
+            if (!lessonRepository.existsById(lessonId)) {
+                throw new RuntimeException("Lesson not found with id: " + lessonId);
+            }
+        });
+    }
+
+    public UploadJob submitAssignment(Long assignmentId, Long studentId, MultipartFile file) {
+        String fileName = cleanFileName(file.getOriginalFilename());
+        UploadJob job = newJob(studentId, UploadJob.Kind.SUBMISSION, fileName, file.getSize());
+        job.setParentId(assignmentId);
+        return accept(job, file, () -> assignmentService.checkSubmission(assignmentId, studentId, fileName, file.getSize()));
+    }
+
+    /** The job, if it was started by {@code userId}; admins see every job. */
+    public UploadJob getJob(String jobId, Long userId, boolean admin) {
+        UploadJob job = uploadJobRepository.findById(jobId)
+                .orElseThrow(() -> new RuntimeException("Upload not found: " + jobId));
+        if (!admin && !job.getUserId().equals(userId)) {
+            throw new RuntimeException("Upload not found: " + jobId);
+        }
+        return job;
+    }
+
+    /**
+     * What the upload endpoints answer with and {@code /api/files/uploads/{id}} reports: the job's
+     * state, and where the stored file and its image variants can be fetched once it is ready.
+     */
+    public Map<String, Object> view(UploadJob job) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("uploadId", job.getId());
+        response.put("kind", job.getKind());
+        response.put("status", job.getStatus());
+        response.put("originalFilename", job.getFileName());
+        response.put("size", job.getFileSize());
+        response.put("type", job.getCategory());
+        response.put("statusUrl", "/api/files/uploads/" + job.getId());
+        response.put("targetId", job.getTargetId());
+        response.put("error", job.getError());
+        if (job.getStatus() == UploadJob.Status.READY) {
+            String fileName = job.getBlobKey();
+            response.put("filename", fileName);
+            response.put("url", "/api/files/download/" + fileName);
+            response.put("contentType", job.getContentType());
+            if (ImageVariantService.isImage(fileName)) {
+                Map<String, String> variants = new LinkedHashMap<>();
+                for (ImageVariant variant : ImageVariant.values()) {
+                    variants.put(variant.fileName(), fileStorageService.getFileUrl(fileName) + "?w=" + variant.getWidth());
+                }
+                response.put("variants", variants);
+            }
+        }
+        return response;
+    }
+
+    /** Submits jobs left pending by a restart or a full queue, and fails those whose bytes are gone. */
+    @Scheduled(fixedDelayString = "${app.upload.pipeline.retry-interval-ms:60000}")
+    public void resubmitStalled() {
+        List<UploadJob> stalled = uploadJobRepository.findByStatusInAndUpdatedAtBefore(
+                List.of(UploadJob.Status.PENDING, UploadJob.Status.PROCESSING), LocalDateTime.now().minus(STALLED_AFTER));
+        for (UploadJob job : stalled) {
+            if (inFlight.contains(job.getId())) {
+                continue;
+            }
+            if (job.getBlobKey() == null && (job.getStagedPath() == null || !Files.exists(Paths.get(job.getStagedPath())))) {
+                fail(job, new RuntimeException("Uploaded data is no longer available; upload the file again"));
+                continue;
+            }
+            submit(job);
+        }
+    }
+
+    private UploadJob newJob(Long userId, UploadJob.Kind kind, String fileName, long fileSize) {
+        int dot = fileName.lastIndexOf('.');
+        String extension = dot >= 0 ? fileName.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+        UploadJob job = new UploadJob(UUID.randomUUID().toString(), userId, kind, fileName, extension, fileSize);
+        LocalDateTime now = LocalDateTime.now();
+        job.setCreatedAt(now);
+        job.setUpdatedAt(now);
+        return job;
+    }
+
+    // Stages the bytes, runs the checks that need the database, saves the job and queues it
+    private UploadJob accept(UploadJob job, MultipartFile file, Runnable databaseChecks) {
+        if (file.isEmpty()) {
+            throw new RuntimeException("Failed to store empty file.");
+        }
+        Path staged = contentStore.newTempPath();
+        try {
+            // transferTo(File) lets the container rename its spool file instead of copying it
+            file.transferTo(staged.toFile());
+        } catch (IOException ex) {
+            deleteQuietly(staged);
+            throw new RuntimeException("Could not store file " + job.getFileName() + ". Please try again!", ex);
+        }
+        job.setStagedPath(staged.toString());
+        try {
+            if (databaseChecks != null) {
+                databaseChecks.run();
+            }
+            uploadJobRepository.save(job);
+        } catch (RuntimeException e) {
+            deleteQuietly(staged);
+            throw e;
+        }
+        submit(job);
+        return job;
+    }
+
+    private void submit(UploadJob job) {
+        if (!inFlight.add(job.getId())) {
+            return;
+        }
+        try {
+            CompletableFuture.supplyAsync(() -> ingest(job), ingestExecutor)
+                    .thenApplyAsync(this::analyze, analysisExecutor)
+                    .thenAccept(info -> complete(job, info))
+                    .whenComplete((ignored, e) -> {
+                        inFlight.remove(job.getId());
+                        if (e != null) {
+                            fail(job, e);
+                        }
+                    });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(job.getId());
+            logger.warn("Upload {} left pending: the upload queue is full", job.getId());
+        }
+    }
+
+    // Stage 1-2: sniff the type, then hash the bytes into the content store
+    private UploadJob ingest(UploadJob job) {
+        if (job.getBlobKey() != null) {
+            // Stored before a restart; only the later stages are left
+            return job;
+        }
+        job.setStatus(UploadJob.Status.PROCESSING);
+        save(job);
+        Path staged = Paths.get(job.getStagedPath());
+        try {
+            String contentType = MimeSniffer.sniff(staged);
+            if (!MimeSniffer.matchesExtension(contentType, job.getExtension())) {
+                throw new RuntimeException("File content does not match its ." + job.getExtension() + " extension");
+            }
+            job.setContentType(contentType);
+            ContentAddressedStore.StoredBlob blob = contentStore.putFile(staged, job.getExtension());
+            job.setBlobKey(blob.getKey());
+            job.setFileSize(blob.getSize());
+            job.setStagedPath(null);
+            save(job);
+            logger.debug("Upload {} stored as {}{}", job.getId(), blob.getKey(), blob.isDeduplicated() ? " (deduplicated)" : "");
+            return job;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store upload " + job.getId(), e);
+        }
+    }
+
+    // Stage 3: metadata that goes into the record, and image variants in the background
+    private Mp4Info analyze(UploadJob job) {
+        String key = job.getBlobKey();
+        if (job.getKind() == UploadJob.Kind.VIDEO) {
+            return videoMetadataService.inspect(key);
+        }
+        if (ImageVariantService.isImage(key)) {
+            try {
+                imageVariantService.generateAsync(key, contentStore.localFile(key));
+            } catch (IOException e) {
+                // Variants are rendered on first request instead
+                logger.debug("Could not queue variants of {}: {}", key, e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    // Stage 4: the record and the job's final state, in one short transaction
+    private void complete(UploadJob job, Mp4Info info) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Long targetId = switch (job.getKind()) {
+                case VIDEO -> videoService.createUploadedVideo(job.getParentId(), job.getTitle(), job.getDescription(),
+                        job.getOrderIndex(), job.getBlobKey(), job.getFileSize(), info).getId();
+                case SUBMISSION -> assignmentService.createSubmission(job.getParentId(), job.getUserId(),
+                        job.getFileName(), job.getBlobKey(), job.getFileSize()).getId();
+                case AVATAR -> userService.setAvatar(job.getUserId(), fileStorageService.getFileUrl(job.getBlobKey())).getId();
+                case FILE -> null;
+            };
+            job.setTargetId(targetId);
+            job.setStatus(UploadJob.Status.READY);
+            save(job);
+        });
+        logger.info("Upload {} ready: {} {} ({} bytes)", job.getId(), job.getKind(), job.getBlobKey(), job.getFileSize());
+        notifyUploader(job);
+    }
+
+    private void fail(UploadJob job, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        logger.warn("Upload {} ({}) failed: {}", job.getId(), job.getFileName(), cause.getMessage());
+        if (job.getStagedPath() != null) {
+            deleteQuietly(Paths.get(job.getStagedPath()));
+            job.setStagedPath(null);
+        }
+        // A blob stored before the failure is left to BlobGarbageCollector
+        String message = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+        job.setError(message.length() > 500 ? message.substring(0, 500) : message);
+        job.setStatus(UploadJob.Status.FAILED);
+        try {
+            save(job);
+        } catch (RuntimeException e) {
+            logger.warn("Could not record the failure of upload {}", job.getId(), e);
+        }
+        notifyUploader(job);
+    }
+
+    private void save(UploadJob job) {
+        job.setUpdatedAt(LocalDateTime.now());
+        uploadJobRepository.save(job);
+    }
+
+    private void notifyUploader(UploadJob job) {
+        try {
+            webSocketController.sendUploadStatus(job.getUserId().toString(), job);
+        } catch (Exception e) {
+            // The job can still be polled
+            logger.debug("Could not push the status of upload {}: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    private static String cleanFileName(String originalFileName) {
+        if (originalFileName == null || originalFileName.isBlank()) {
+            throw new RuntimeException("Invalid file name");
+        }
+        String cleanName = Paths.get(StringUtils.cleanPath(originalFileName)).getFileName().toString();
+        if (cleanName.contains("..")) {
+            throw new RuntimeException("Invalid file name");
+        }
+        return cleanName;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.debug("Could not delete staged upload {}", file, e);
+        }
+    }
+}
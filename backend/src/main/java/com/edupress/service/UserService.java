@@ -2,12 +2,14 @@ package com.edupress.service;
 
 import com.edupress.dto.request.SignupRequest;
 import com.edupress.dto.response.JwtResponse;
+import com.edupress.event.UserEvent;
 import com.edupress.model.User;
 import com.edupress.repository.UserRepository;
 import com.edupress.security.JwtUtils;
 import com.edupress.security.UserPrincipal;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.Authentication;
@@ -31,6 +33,12 @@ public class UserService {
     @Autowired
     private JwtUtils jwtUtils;
 
+    @Autowired
+    private PlatformCounterService platformCounterService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public User createUser(SignupRequest signupRequest) {
         if (userRepository.existsByEmail(signupRequest.getEmail())) {
             throw new RuntimeException("Error: Email is already in use!");
@@ -50,7 +58,9 @@ public class UserService {
         user.setCreatedAt(LocalDateTime.now());
         user.setUpdatedAt(LocalDateTime.now());
 
-        return userRepository.save(user);
+        user = userRepository.save(user);
+        eventPublisher.publishEvent(UserEvent.created(user));
+        return user;
     }
 
     public Optional<User> findByEmail(String email) {
@@ -86,6 +96,7 @@ public class UserService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
         userRepository.delete(user);
+        eventPublisher.publishEvent(UserEvent.deleted(user));
     }
 
     public JwtResponse authenticateUser(UserPrincipal userPrincipal) {
@@ -118,7 +129,7 @@ public class UserService {
     }
 
     public long countUsersByRole(User.Role role) {
-        return userRepository.countByRole(role);
+        return platformCounterService.getUserCount(role);
     }
 
     public long getActiveUsersCount() {
@@ -130,17 +141,22 @@ public class UserService {
     }
 
     public long countAllUsers() {
-        return userRepository.count();
+        return platformCounterService.get(PlatformCounterService.USERS_TOTAL);
     }
 
     public User updateUserRole(Long userId, User.Role newRole) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
         
+        User.Role previousRole = user.getRole();
         user.setRole(newRole);
         user.setUpdatedAt(LocalDateTime.now());
         
-        return userRepository.save(user);
+        user = userRepository.save(user);
+        if (previousRole != newRole) {
+            eventPublisher.publishEvent(UserEvent.roleChanged(user, previousRole));
+        }
+        return user;
     }
 
     public User toggleUserStatus(Long userId) {
@@ -154,15 +170,15 @@ public class UserService {
     }
 
     public long getTotalUsers() {
-        return userRepository.count();
+        return platformCounterService.get(PlatformCounterService.USERS_TOTAL);
     }
 
     public Object getUserStatsByRole() {
         return new Object() {
-            public final long totalUsers = userRepository.count();
-            public final long admins = userRepository.countByRole(User.Role.ADMIN);
-            public final long instructors = userRepository.countByRole(User.Role.INSTRUCTOR);
-            public final long students = userRepository.countByRole(User.Role.STUDENT);
+            public final long totalUsers = platformCounterService.get(PlatformCounterService.USERS_TOTAL);
+            public final long admins = platformCounterService.getUserCount(User.Role.ADMIN);
+            public final long instructors = platformCounterService.getUserCount(User.Role.INSTRUCTOR);
+            public final long students = platformCounterService.getUserCount(User.Role.STUDENT);
         };
     }
 
@@ -180,12 +196,12 @@ public class UserService {
         userRepository.save(user);
     }
 
-    public User uploadAvatar(Long userId, org.springframework.web.multipart.MultipartFile file) {
+    // Called by UploadPipelineService once the new avatar is in the content store
+    public User setAvatar(Long userId, String imageUrl) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
-        
-        // Save file logic would go here - for now just return user
-        // In a real implementation, you'd save the file and update the user's avatar URL
+
+        user.setProfileImage(imageUrl);
         user.setUpdatedAt(LocalDateTime.now());
         
         return userRepository.save(user);
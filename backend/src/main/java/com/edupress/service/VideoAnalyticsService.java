@@ -0,0 +1,267 @@
+package com.edupress.service;
+
+import com.edupress.analytics.HyperLogLog;
+import com.edupress.analytics.WatchTimeTracker;
+import com.edupress.model.VideoAnalytics;
+import com.edupress.repository.VideoAnalyticsRepository;
+import com.edupress.repository.VideoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-video watch time, distinct viewers, completion distribution and segment retention, built
+ * in memory from player heartbeats and flushed to {@code video_analytics} periodically and on
+ * shutdown. Persisted totals are loaded on first use; sessions still open at a restart simply
+ * continue as new sessions.
+ */
+@Service
+public class VideoAnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VideoAnalyticsService.class);
+
+    @Value("${app.analytics.video.viewer-precision:12}")
+    private int viewerPrecision;
+
+    @Value("${app.analytics.video.session-idle-minutes:30}")
+    private int sessionIdleMinutes;
+
+    @Value("${app.analytics.video.max-heartbeat-seconds:60}")
+    private int maxHeartbeatSeconds;
+
+    @Autowired
+    private VideoAnalyticsRepository videoAnalyticsRepository;
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    private final ConcurrentHashMap<Long, TrackedVideo> videos = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded;
+
+    // Writes
+
+    /**
+     * Records a player heartbeat: the viewer is at {@code positionSeconds} and has played
+     * {@code watchedSeconds} since the previous heartbeat. Watched time is capped at the
+     * configured heartbeat interval so a misbehaving client cannot inflate it.
+     */
+    public void recordHeartbeat(Long videoId, Long userId, int positionSeconds, int watchedSeconds) {
+        ensureLoaded();
+        TrackedVideo video = videos.get(videoId);
+        if (video == null) {
+            video = videos.computeIfAbsent(videoId, this::startTracking);
+        }
+        int watched = Math.max(0, Math.min(watchedSeconds, maxHeartbeatSeconds));
+        video.tracker.heartbeat(userId, positionSeconds, watched, System.currentTimeMillis());
+    }
+
+    private TrackedVideo startTracking(Long videoId) {
+        List<Object[]> rows = videoRepository.findPlaybackInfo(videoId);
+        if (rows.isEmpty()) {
+            throw new RuntimeException("Video not found with id: " + videoId);
+        }
+        Object[] row = rows.get(0);
+        int duration = row[1] != null ? (Integer) row[1] : 0;
+        return new TrackedVideo((Long) row[2], new WatchTimeTracker(duration, viewerPrecision));
+    }
+
+    public void remove(Long videoId) {
+        videos.remove(videoId);
+        if (videoAnalyticsRepository.existsById(videoId)) {
+            videoAnalyticsRepository.deleteById(videoId);
+        }
+    }
+
+    // Reads
+
+    public WatchTimeTracker.Snapshot getSnapshot(Long videoId) {
+        ensureLoaded();
+        TrackedVideo video = videos.get(videoId);
+        return video != null ? video.tracker.snapshot() : null;
+    }
+
+    /** Retention for every active video of the course, in lesson order. */
+    public List<VideoRetention> getCourseRetention(Long courseId) {
+        ensureLoaded();
+        List<VideoRetention> result = new ArrayList<>();
+        for (Object[] row : videoRepository.findOutlineByCourseId(courseId)) {
+            TrackedVideo video = videos.get((Long) row[0]);
+            if (video != null) {
+                result.add(new VideoRetention((Long) row[0], (String) row[1], (Long) row[2], (String) row[3],
+                        courseId, null, video.tracker.snapshot()));
+            }
+        }
+        return result;
+    }
+
+    /** Most-watched videos, platform-wide or limited to {@code courseIds} when not null. */
+    public List<VideoRetention> getTopVideos(Collection<Long> courseIds, int limit) {
+        ensureLoaded();
+        List<Map.Entry<Long, WatchTimeTracker.Snapshot>> snapshots = new ArrayList<>();
+        videos.forEach((videoId, video) -> {
+            if (courseIds == null || courseIds.contains(video.courseId)) {
+                snapshots.add(Map.entry(videoId, video.tracker.snapshot()));
+            }
+        });
+        snapshots.sort(Comparator.comparingLong(
+                (Map.Entry<Long, WatchTimeTracker.Snapshot> e) -> e.getValue().getWatchSeconds()).reversed());
+        List<Map.Entry<Long, WatchTimeTracker.Snapshot>> top = snapshots.subList(0, Math.min(Math.max(limit, 0), snapshots.size()));
+        if (top.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Object[]> titles = new HashMap<>();
+        for (Object[] row : videoRepository.findTitlesByIds(top.stream().map(Map.Entry::getKey).toList())) {
+            titles.put((Long) row[0], row);
+        }
+        List<VideoRetention> result = new ArrayList<>(top.size());
+        for (Map.Entry<Long, WatchTimeTracker.Snapshot> entry : top) {
+            Object[] row = titles.getOrDefault(entry.getKey(), new Object[6]);
+            result.add(new VideoRetention(entry.getKey(), (String) row[1], (Long) row[2], (String) row[3],
+                    (Long) row[4], (String) row[5], entry.getValue()));
+        }
+        return result;
+    }
+
+    // Lifecycle
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        ensureLoaded();
+    }
+
+    @Scheduled(fixedDelayString = "${app.analytics.video.flush-interval-ms:30000}")
+    public void flush() {
+        if (!loaded) {
+            return;
+        }
+        long idleBefore = System.currentTimeMillis() - sessionIdleMinutes * 60_000L;
+        LocalDateTime now = LocalDateTime.now();
+        List<VideoAnalytics> rows = new ArrayList<>();
+        List<TrackedVideo> flushed = new ArrayList<>();
+        videos.forEach((videoId, video) -> {
+            video.tracker.expireSessions(idleBefore);
+            if (video.tracker.takeDirty()) {
+                rows.add(toRow(videoId, video, now));
+                flushed.add(video);
+            }
+        });
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            videoAnalyticsRepository.saveAll(rows);
+        } catch (Exception e) {
+            flushed.forEach(video -> video.tracker.markDirty());
+            logger.warn("Failed to persist video analytics for {} videos: {}", rows.size(), e.getMessage());
+        }
+    }
+
+    @jakarta.annotation.PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            for (VideoAnalytics row : videoAnalyticsRepository.findAll()) {
+                WatchTimeTracker tracker = WatchTimeTracker.restore(row.getDurationSeconds(),
+                        HyperLogLog.fromBytes(row.getViewerSketch()), row.getWatchSeconds(), row.getSessions(),
+                        VideoAnalytics.splitCounts(row.getSegmentViews()), VideoAnalytics.splitCounts(row.getCompletion()));
+                videos.putIfAbsent(row.getVideoId(), new TrackedVideo(row.getCourseId(), tracker));
+            }
+            loaded = true;
+        }
+    }
+
+    private static VideoAnalytics toRow(Long videoId, TrackedVideo video, LocalDateTime now) {
+        WatchTimeTracker.Snapshot snapshot = video.tracker.snapshot();
+        VideoAnalytics row = new VideoAnalytics(videoId, video.courseId, snapshot.getDurationSeconds());
+        row.setWatchSeconds(snapshot.getWatchSeconds());
+        row.setSessions(snapshot.getSessions());
+        row.setSegmentViews(VideoAnalytics.joinCounts(snapshot.getSegmentViews()));
+        row.setCompletion(VideoAnalytics.joinCounts(snapshot.getCompletion()));
+        row.setViewerSketch(snapshot.getViewers().toBytes());
+        row.setUpdatedAt(now);
+        return row;
+    }
+
+    private static class TrackedVideo {
+        final Long courseId;
+        final WatchTimeTracker tracker;
+
+        TrackedVideo(Long courseId, WatchTimeTracker tracker) {
+            this.courseId = courseId;
+            this.tracker = tracker;
+        }
+    }
+
+    public static class VideoRetention {
+        private final Long videoId;
+        private final String title;
+        private final Long lessonId;
+        private final String lessonTitle;
+        private final Long courseId;
+        private final String courseTitle;
+        private final WatchTimeTracker.Snapshot stats;
+
+        private VideoRetention(Long videoId, String title, Long lessonId, String lessonTitle,
+                               Long courseId, String courseTitle, WatchTimeTracker.Snapshot stats) {
+            this.videoId = videoId;
+            this.title = title;
+            this.lessonId = lessonId;
+            this.lessonTitle = lessonTitle;
+            this.courseId = courseId;
+            this.courseTitle = courseTitle;
+            this.stats = stats;
+        }
+
+        public Long getVideoId() {
+            return videoId;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public Long getLessonId() {
+            return lessonId;
+        }
+
+        public String getLessonTitle() {
+            return lessonTitle;
+        }
+
+        public Long getCourseId() {
+            return courseId;
+        }
+
+        public String getCourseTitle() {
+            return courseTitle;
+        }
+
+        public WatchTimeTracker.Snapshot getStats() {
+            return stats;
+        }
+    }
+}
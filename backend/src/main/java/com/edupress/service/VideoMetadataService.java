@@ -0,0 +1,165 @@
+package com.edupress.service;
+
+import com.edupress.media.Mp4FastStart;
+import com.edupress.media.Mp4Info;
+import com.edupress.media.Mp4Parser;
+import com.edupress.model.Video;
+import com.edupress.repository.VideoRepository;
+import com.edupress.storage.ContentAddressedStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fills in a video's duration, dimensions, codecs and bitrate from its file's {@code moov} atom
+ * at upload, and rewrites files whose {@code moov} sits at the end into fast-start order in the
+ * background. The rewrite is stored as a new blob and the videos pointing at the old one are
+ * switched over with a compare-and-set; the old blob is left to {@link BlobGarbageCollector}, so
+ * signed URLs handed out before the switch keep working until they expire.
+ */
+@Service
+public class VideoMetadataService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VideoMetadataService.class);
+
+    private static final Set<String> ISO_MEDIA_EXTENSIONS = Set.of("mp4", "m4v", "mov");
+
+    @Value("${app.video.fast-start.enabled:true}")
+    private boolean fastStartEnabled;
+
+    @Value("${app.video.processing.threads:1}")
+    private int processingThreads;
+
+    @Autowired
+    private ContentAddressedStore contentStore;
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    private ThreadPoolTaskExecutor executor;
+
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    @jakarta.annotation.PostConstruct
+    public void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(processingThreads);
+        executor.setMaxPoolSize(processingThreads);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("video-processing-");
+        executor.initialize();
+    }
+
+    @jakarta.annotation.PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /** Metadata of the stored video, or null when it isn't an MP4/MOV file or can't be parsed. */
+    public Mp4Info inspect(String key) {
+        int dot = key.lastIndexOf('.');
+        if (dot < 0 || !ISO_MEDIA_EXTENSIONS.contains(key.substring(dot + 1).toLowerCase(Locale.ROOT))) {
+            return null;
+        }
+        try {
+            Path file = contentStore.localFile(key);
+            return file != null ? Mp4Parser.parse(file) : null;
+        } catch (IOException e) {
+            logger.warn("Could not read MP4 metadata of {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    /** Copies what was parsed onto the video; the duration is only set when the file declares one. */
+    public void apply(Video video, Mp4Info info) {
+        if (info == null) {
+            return;
+        }
+        if (info.getDurationSeconds() > 0) {
+            video.setDuration((int) Math.round(info.getDurationSeconds()));
+        }
+        video.setWidth(info.getWidth());
+        video.setHeight(info.getHeight());
+        video.setBitrate(info.getBitrate());
+        video.setVideoCodec(info.getVideoCodec());
+        video.setAudioCodec(info.getAudioCodec());
+        video.setFastStart(info.isFastStart());
+    }
+
+    /**
+     * Queues a fast-start rewrite of the blob when its {@code moov} atom follows the media data.
+     * Inside a transaction the job waits for the commit, so the new video row is there to repoint.
+     */
+    public void scheduleFastStart(String key, Mp4Info info) {
+        if (!fastStartEnabled || info == null || info.isFastStart()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submitFastStart(key);
+                }
+            });
+        } else {
+            submitFastStart(key);
+        }
+    }
+
+    private void submitFastStart(String key) {
+        if (!inFlight.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    makeFastStart(key);
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Fast-start rewrite of {} failed", key, e);
+                } finally {
+                    inFlight.remove(key);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            inFlight.remove(key);
+            logger.warn("Fast-start rewrite of {} not queued: video processing queue is full", key);
+        }
+    }
+
+    /**
+     * Rewrites the blob into fast-start order and repoints its videos at the result. Returns the
+     * new key, or null when there was nothing to do.
+     */
+    public String makeFastStart(String key) throws IOException {
+        Path source = contentStore.localFile(key);
+        if (source == null) {
+            return null;
+        }
+        Path rewritten = contentStore.newTempPath();
+        try {
+            if (!Mp4FastStart.rewrite(source, rewritten)) {
+                return null;
+            }
+            String extension = key.substring(key.lastIndexOf('.'));
+            String fastStartKey = contentStore.putFile(rewritten, extension).getKey();
+            int videos = videoRepository.replaceWithFastStartFile(key, fastStartKey);
+            logger.info("Rewrote {} as fast-start {} for {} videos", key, fastStartKey, videos);
+            return fastStartKey;
+        } finally {
+            Files.deleteIfExists(rewritten);
+        }
+    }
+}
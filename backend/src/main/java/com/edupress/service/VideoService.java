@@ -1,22 +1,18 @@
 package com.edupress.service;
 
+import com.edupress.media.Mp4Info;
 import com.edupress.model.*;
 import com.edupress.repository.*;
+import com.edupress.storage.ContentAddressedStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 @Transactional
@@ -34,7 +30,14 @@ public class VideoService {
     @Autowired
     private UserRepository userRepository;
 
-    private final String uploadDir = "uploads/videos/";
+    @Autowired
+    private VideoAnalyticsService videoAnalyticsService;
+
+    @Autowired
+    private ContentAddressedStore contentStore;
+
+    @Autowired
+    private VideoMetadataService videoMetadataService;
 
     // Video CRUD operations
     public Video createVideo(Video video) {
@@ -71,6 +74,7 @@ public class VideoService {
 
     public void deleteVideo(Long id) {
         videoRepository.deleteById(id);
+        videoAnalyticsService.remove(id);
     }
 
     // Business logic methods
@@ -93,39 +97,23 @@ public class VideoService {
     }
 
     // Video upload operations
-    public Video uploadVideo(Long lessonId, String title, String description, 
-                           Integer orderIndex, MultipartFile file) throws IOException {
+    // Called by UploadPipelineService once the uploaded file is in the content store
+    public Video createUploadedVideo(Long lessonId, String title, String description, Integer orderIndex,
+                                     String blobKey, long fileSize, Mp4Info info) {
         Lesson lesson = lessonRepository.findById(lessonId)
                 .orElseThrow(() -> new RuntimeException("Lesson not found with id: " + lessonId));
 
-        // Validate file
-        String fileName = file.getOriginalFilename();
-        if (fileName == null || fileName.isEmpty()) {
-            throw new RuntimeException("Invalid file name");
-        }
-
-        String fileExtension = fileName.substring(fileName.lastIndexOf(".") + 1).toLowerCase();
-        if (!isValidVideoFormat(fileExtension)) {
-            throw new RuntimeException("Invalid video format. Supported formats: mp4, avi, mov, wmv, flv");
-        }
-
-        // Save file
-        String uniqueFileName = UUID.randomUUID().toString() + "_" + fileName;
-        Path uploadPath = Paths.get(uploadDir);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
-        }
-        
-        Path filePath = uploadPath.resolve(uniqueFileName);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
-        // Create video record
+        // Create video record; the same video uploaded to several lessons is stored once
         Video video = new Video(title, description, Video.VideoType.FILE, lesson);
-        video.setFilePath(filePath.toString());
-        video.setFileSize(file.getSize());
+        video.setFilePath(blobKey);
+        video.setFileSize(fileSize);
         video.setOrderIndex(orderIndex);
+        video.setDuration(0);
+        videoMetadataService.apply(video, info);
 
-        return videoRepository.save(video);
+        Video saved = videoRepository.save(video);
+        videoMetadataService.scheduleFastStart(blobKey, info);
+        return saved;
     }
 
     public Video createYouTubeVideo(Long lessonId, String title, String description, 
@@ -141,7 +129,7 @@ public class VideoService {
         return videoRepository.save(video);
     }
 
-    private boolean isValidVideoFormat(String extension) {
+    static boolean isValidVideoFormat(String extension) {
         String[] validFormats = {"mp4", "avi", "mov", "wmv", "flv", "webm", "mkv"};
         for (String format : validFormats) {
             if (format.equals(extension)) {
@@ -219,6 +207,13 @@ public class VideoService {
         return videoRepository.searchByTitleOrDescription(searchTerm, pageable);
     }
 
+    /** Blob key of an uploaded video's file, or null for external and pre-content-addressing videos. */
+    public String getVideoBlobKey(Long videoId) {
+        Video video = findById(videoId)
+                .orElseThrow(() -> new RuntimeException("Video not found with id: " + videoId));
+        return video.getType() == Video.VideoType.FILE ? ContentAddressedStore.keyOf(video.getFilePath()) : null;
+    }
+
     // File access method
     public Path getVideoFilePath(Long videoId) {
         Video video = findById(videoId)
@@ -228,6 +223,6 @@ public class VideoService {
             throw new RuntimeException("Video is not a file upload");
         }
         
-        return Paths.get(video.getFilePath());
+        return contentStore.localFileOf(video.getFilePath());
     }
 }
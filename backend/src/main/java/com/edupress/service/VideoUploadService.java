@@ -0,0 +1,406 @@
+package com.edupress.service;
+
+import com.edupress.media.Mp4Info;
+import com.edupress.model.Lesson;
+import com.edupress.model.UploadSession;
+import com.edupress.model.Video;
+import com.edupress.repository.LessonRepository;
+import com.edupress.repository.UploadSessionRepository;
+import com.edupress.repository.VideoRepository;
+import com.edupress.storage.ContentAddressedStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Resumable, chunked video uploads: {@link #start} declares the file and reserves a partial file
+ * of the full size, {@link #writeChunk} writes one chunk at its offset, and {@link #commit}
+ * moves the finished file into the {@link ContentAddressedStore} and creates the {@link Video}.
+ * <p>
+ * Chunks are streamed from the request straight into the partial file with positional
+ * {@link FileChannel} writes, so they can arrive in any order and in parallel, and nothing is
+ * spooled to a temp file first. Each chunk carries a SHA-256 that is checked before the chunk is
+ * marked as received; a chunk that fails the check is simply sent again. A chunk counts as missing
+ * while it is being written, so a bad re-send can't leave damaged bytes marked as received, and
+ * only one write per chunk may be in flight. Chunk writes share a
+ * per-upload read lock, while commit and abort take the write lock, so the file never moves
+ * under an in-flight write. No transaction is open while bytes are copied.
+ */
+@Service
+public class VideoUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VideoUploadService.class);
+
+    private static final int MIN_CHUNK_SIZE = 256 * 1024;
+    private static final int MAX_CHUNK_SIZE = 64 * 1024 * 1024;
+
+    @Value("${app.upload.dir:uploads/}")
+    private String uploadRoot;
+
+    @Value("${app.upload.video.chunk-size-bytes:8388608}")
+    private int defaultChunkSize;
+
+    @Value("${app.upload.video.max-size-bytes:4294967296}")
+    private long maxSize;
+
+    @Value("${app.upload.video.session-ttl-hours:24}")
+    private int sessionTtlHours;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    @Autowired
+    private VideoMetadataService videoMetadataService;
+
+    @Autowired
+    private ContentAddressedStore contentStore;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ConcurrentHashMap<String, ActiveUpload> uploads = new ConcurrentHashMap<>();
+
+    /** Opens an upload session and reserves the partial file. */
+    public UploadSession start(Long userId, Long lessonId, String title, String description, Integer orderIndex,
+                               Integer durationSeconds, String fileName, long totalSize, Integer chunkSize) throws IOException {
+        if (!lessonRepository.existsById(lessonId)) {
+            throw new RuntimeException("Lesson not found with id: " + lessonId);
+        }
+        if (fileName == null || fileName.isBlank()) {
+            throw new RuntimeException("Invalid file name");
+        }
+        String cleanName = Paths.get(StringUtils.cleanPath(fileName)).getFileName().toString();
+        if (cleanName.contains("..")) {
+            throw new RuntimeException("Invalid file name");
+        }
+        String extension = cleanName.substring(cleanName.lastIndexOf('.') + 1).toLowerCase();
+        if (!VideoService.isValidVideoFormat(extension)) {
+            throw new RuntimeException("Invalid video format. Supported formats: mp4, avi, mov, wmv, flv, webm, mkv");
+        }
+        if (totalSize <= 0 || totalSize > maxSize) {
+            throw new RuntimeException("Video size must be between 1 byte and " + maxSize + " bytes");
+        }
+        int size = chunkSize != null ? chunkSize : defaultChunkSize;
+        if (size < MIN_CHUNK_SIZE || size > MAX_CHUNK_SIZE) {
+            throw new RuntimeException("Chunk size must be between " + MIN_CHUNK_SIZE + " and " + MAX_CHUNK_SIZE + " bytes");
+        }
+
+        UploadSession session = new UploadSession(UUID.randomUUID().toString(), userId, lessonId, cleanName, totalSize, size);
+        session.setTitle(title);
+        session.setDescription(description);
+        session.setOrderIndex(orderIndex);
+        session.setDurationSeconds(durationSeconds);
+        LocalDateTime now = LocalDateTime.now();
+        session.setCreatedAt(now);
+        session.setUpdatedAt(now);
+        session.setExpiresAt(now.plusHours(sessionTtlHours));
+
+        Path partial = partialPath(session.getId());
+        Files.createDirectories(partial.getParent());
+        try (RandomAccessFile file = new RandomAccessFile(partial.toFile(), "rw")) {
+            // Sized up front so chunks can land at any offset; sparse where the filesystem allows
+            file.setLength(totalSize);
+        }
+        try {
+            session = uploadSessionRepository.save(session);
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        uploads.put(session.getId(), new ActiveUpload(session));
+        return session;
+    }
+
+    /**
+     * Writes the chunk starting at {@code offset} from {@code body}, which must hold exactly that
+     * chunk's bytes and hash to {@code sha256Hex}. A chunk that was already received may be sent
+     * again; it counts as missing until the new copy passes its checksum.
+     *
+     * @return the session after the chunk is recorded
+     */
+    public UploadSession writeChunk(String uploadId, Long userId, long offset, long contentLength,
+                                    String sha256Hex, InputStream body) throws IOException {
+        if (sha256Hex == null || sha256Hex.isBlank()) {
+            throw new RuntimeException("X-Chunk-SHA256 header is required");
+        }
+        ActiveUpload upload = activeUpload(uploadId, userId);
+        UploadSession session = upload.session;
+        if (offset < 0 || offset % session.getChunkSize() != 0 || offset >= session.getTotalSize()) {
+            throw new RuntimeException("Offset must be a multiple of the chunk size inside the file");
+        }
+        int index = (int) (offset / session.getChunkSize());
+        long length = session.chunkLength(index);
+        if (contentLength >= 0 && contentLength != length) {
+            throw new RuntimeException("Chunk " + index + " must be " + length + " bytes");
+        }
+
+        upload.lock.readLock().lock();
+        try {
+            if (upload.closed) {
+                throw new RuntimeException("Upload is no longer active");
+            }
+            synchronized (upload) {
+                if (upload.writing.get(index)) {
+                    throw new RuntimeException("Chunk " + index + " is already being written");
+                }
+                upload.writing.set(index);
+                if (upload.received.get(index)) {
+                    // The bytes on disk are about to be replaced; stored first so a crash mid-write forgets them too
+                    upload.received.clear(index);
+                    session.setReceivedChunkSet(upload.received);
+                    session.setUpdatedAt(LocalDateTime.now());
+                    uploadSessionRepository.save(session);
+                }
+            }
+            try {
+                return receiveChunk(upload, index, offset, length, sha256Hex, body);
+            } finally {
+                synchronized (upload) {
+                    upload.writing.clear(index);
+                }
+            }
+        } finally {
+            upload.lock.readLock().unlock();
+        }
+    }
+
+    private UploadSession receiveChunk(ActiveUpload upload, int index, long offset, long length,
+                                       String sha256Hex, InputStream body) throws IOException {
+        UploadSession session = upload.session;
+        MessageDigest digest = sha256();
+        // The request body is left open for the container to finish
+        ReadableByteChannel source = Channels.newChannel(new DigestInputStream(body, digest));
+        try (FileChannel channel = FileChannel.open(partialPath(session.getId()), StandardOpenOption.WRITE)) {
+            long written = 0;
+            while (written < length) {
+                long n = channel.transferFrom(source, offset + written, length - written);
+                if (n <= 0) {
+                    break;
+                }
+                written += n;
+            }
+            if (written != length) {
+                throw new RuntimeException("Chunk " + index + " was truncated after " + written + " bytes");
+            }
+        }
+        String actual = HexFormat.of().formatHex(digest.digest());
+        if (!actual.equalsIgnoreCase(sha256Hex.trim())) {
+            throw new RuntimeException("Checksum mismatch for chunk " + index);
+        }
+        synchronized (upload) {
+            upload.received.set(index);
+            session.setReceivedChunkSet(upload.received);
+            LocalDateTime now = LocalDateTime.now();
+            session.setUpdatedAt(now);
+            session.setExpiresAt(now.plusHours(sessionTtlHours));
+            uploadSessionRepository.save(session);
+        }
+        return session;
+    }
+
+    /**
+     * Finishes the upload once every chunk is in: flushes the file to disk, renames it into the
+     * blob store and creates the video record. If the record can't be saved the upload stays
+     * open, and a retried commit reuses the stored blob.
+     */
+    public Video commit(String uploadId, Long userId) throws IOException {
+        ActiveUpload upload = activeUpload(uploadId, userId);
+        UploadSession session = upload.session;
+        upload.lock.writeLock().lock();
+        try {
+            if (upload.closed) {
+                throw new RuntimeException("Upload is no longer active");
+            }
+            int missing = session.getTotalChunks() - upload.received.cardinality();
+            if (missing > 0) {
+                throw new RuntimeException(missing + " chunks are still missing");
+            }
+            if (session.getBlobKey() == null) {
+                Path partial = partialPath(uploadId);
+                try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                }
+                // Chunks land out of order, so the content hash takes one more read of the file here
+                ContentAddressedStore.StoredBlob blob = contentStore.putFile(partial, extensionOf(session.getFileName()));
+                session.setBlobKey(blob.getKey());
+                session.setUpdatedAt(LocalDateTime.now());
+                uploadSessionRepository.save(session);
+            }
+            if (!contentStore.exists(session.getBlobKey())) {
+                throw new RuntimeException("Uploaded data is no longer available; start a new upload");
+            }
+            Mp4Info info = videoMetadataService.inspect(session.getBlobKey());
+
+            Video video;
+            try {
+                video = new TransactionTemplate(transactionManager).execute(status -> {
+                    Lesson lesson = lessonRepository.findById(session.getLessonId())
+                            .orElseThrow(() -> new RuntimeException("Lesson not found with id: " + session.getLessonId()));
+                    Video created = new Video(session.getTitle(), session.getDescription(), Video.VideoType.FILE, lesson);
+                    created.setFilePath(session.getBlobKey());
+                    created.setFileSize(session.getTotalSize());
+                    created.setOrderIndex(session.getOrderIndex());
+                    created.setDuration(session.getDurationSeconds() != null ? session.getDurationSeconds() : 0);
+                    videoMetadataService.apply(created, info);
+                    created = videoRepository.save(created);
+
+                    session.setStatus(UploadSession.UploadStatus.COMPLETED);
+                    session.setVideoId(created.getId());
+                    session.setUpdatedAt(LocalDateTime.now());
+                    uploadSessionRepository.save(session);
+                    return created;
+                });
+            } catch (RuntimeException e) {
+                session.setStatus(UploadSession.UploadStatus.ACTIVE);
+                session.setVideoId(null);
+                throw e;
+            }
+            upload.closed = true;
+            uploads.remove(uploadId);
+            videoMetadataService.scheduleFastStart(session.getBlobKey(), info);
+            logger.info("Upload {} committed as video {} ({} bytes)", uploadId, video.getId(), session.getTotalSize());
+            return video;
+        } finally {
+            upload.lock.writeLock().unlock();
+        }
+    }
+
+    public void abort(String uploadId, Long userId) throws IOException {
+        close(activeUpload(uploadId, userId));
+    }
+
+    public UploadSession getSession(String uploadId, Long userId) {
+        UploadSession session = uploadSessionRepository.findById(uploadId)
+                .orElseThrow(() -> new RuntimeException("Upload not found: " + uploadId));
+        if (!session.getUserId().equals(userId)) {
+            throw new RuntimeException("Upload not found: " + uploadId);
+        }
+        ActiveUpload upload = uploads.get(uploadId);
+        return upload != null ? upload.session : session;
+    }
+
+    public List<UploadSession> getActiveSessions(Long userId) {
+        return uploadSessionRepository.findByUserIdAndStatusOrderByCreatedAtDesc(userId, UploadSession.UploadStatus.ACTIVE);
+    }
+
+    /** Indexes of the chunks not yet received, for a client resuming an interrupted upload. */
+    public static List<Integer> missingChunks(UploadSession session) {
+        BitSet received = session.getReceivedChunkSet();
+        List<Integer> missing = new ArrayList<>();
+        for (int i = received.nextClearBit(0); i < session.getTotalChunks(); i = received.nextClearBit(i + 1)) {
+            missing.add(i);
+        }
+        return missing;
+    }
+
+    /** Aborts sessions nobody has touched within the TTL and removes their partial files. */
+    @Scheduled(fixedDelayString = "${app.upload.video.cleanup-interval-ms:3600000}")
+    public void expireSessions() {
+        List<UploadSession> expired = uploadSessionRepository.findByStatusAndExpiresAtBefore(
+                UploadSession.UploadStatus.ACTIVE, LocalDateTime.now());
+        for (UploadSession session : expired) {
+            try {
+                close(uploads.computeIfAbsent(session.getId(), id -> new ActiveUpload(session)));
+            } catch (Exception e) {
+                logger.warn("Could not expire upload {}: {}", session.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private void close(ActiveUpload upload) throws IOException {
+        upload.lock.writeLock().lock();
+        try {
+            if (upload.closed) {
+                return;
+            }
+            Files.deleteIfExists(partialPath(upload.session.getId()));
+            upload.session.setStatus(UploadSession.UploadStatus.ABORTED);
+            upload.session.setUpdatedAt(LocalDateTime.now());
+            uploadSessionRepository.save(upload.session);
+            upload.closed = true;
+            uploads.remove(upload.session.getId());
+        } finally {
+            upload.lock.writeLock().unlock();
+        }
+    }
+
+    private ActiveUpload activeUpload(String uploadId, Long userId) {
+        ActiveUpload upload = uploads.get(uploadId);
+        if (upload == null) {
+            // After a restart, sessions are reloaded on first use
+            UploadSession session = uploadSessionRepository.findById(uploadId)
+                    .filter(s -> s.getStatus() == UploadSession.UploadStatus.ACTIVE)
+                    .orElseThrow(() -> new RuntimeException("Upload not found: " + uploadId));
+            upload = uploads.computeIfAbsent(uploadId, id -> new ActiveUpload(session));
+        }
+        if (!upload.session.getUserId().equals(userId)) {
+            throw new RuntimeException("Upload not found: " + uploadId);
+        }
+        return upload;
+    }
+
+    private static String extensionOf(String fileName) {
+        return fileName.substring(fileName.lastIndexOf('.') + 1);
+    }
+
+    // Under the upload directory, like the blob store, so the commit is a same-filesystem rename
+    private Path partialPath(String uploadId) {
+        return Paths.get(uploadRoot, "videos", ".partial", uploadId + ".part");
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class ActiveUpload {
+        final UploadSession session;
+        final BitSet received;
+        // Chunks with a write in flight
+        final BitSet writing = new BitSet();
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        boolean closed;
+
+        ActiveUpload(UploadSession session) {
+            this.session = session;
+            this.received = session.getReceivedChunkSet();
+        }
+    }
+}
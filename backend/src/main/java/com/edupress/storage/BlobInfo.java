@@ -0,0 +1,29 @@
+package com.edupress.storage;
+
+import java.time.Instant;
+
+/** Name, size and modification time of an object in a {@link BlobStore}. */
+public class BlobInfo {
+
+    private final String name;
+    private final long size;
+    private final Instant lastModified;
+
+    public BlobInfo(String name, long size, Instant lastModified) {
+        this.name = name;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+}
@@ -0,0 +1,67 @@
+package com.edupress.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Where stored files physically live. Objects are addressed by a slash-separated name such as
+ * {@code blobs/1f/1a/<key>} or {@code certificates/certificate_CERT-2025-AB12CD34.pdf}; all I/O
+ * is streaming, so no implementation holds a whole object in memory.
+ * <p>
+ * {@link LocalBlobStore} keeps objects under the upload directory of a single node.
+ * {@link S3BlobStore} keeps them in an S3-compatible bucket shared by every node, normally behind
+ * a {@link CachingBlobStore} so hot objects are read from local disk.
+ */
+public interface BlobStore {
+
+    /**
+     * Stores {@code in} under {@code name}, replacing any existing object. {@code length} may be
+     * -1 when unknown. {@code in} is not closed.
+     */
+    void put(String name, InputStream in, long length) throws IOException;
+
+    /** Stores the contents of a local file under {@code name}; the file is gone afterwards. */
+    default void putFile(String name, Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            put(name, in, Files.size(file));
+        }
+        Files.deleteIfExists(file);
+    }
+
+    /** Opens the object for reading; throws {@link java.nio.file.NoSuchFileException} when absent. */
+    InputStream get(String name) throws IOException;
+
+    /** Opens {@code length} bytes of the object starting at {@code offset}. */
+    InputStream getRange(String name, long offset, long length) throws IOException;
+
+    /** Size and modification time of the object, or null when absent. */
+    BlobInfo stat(String name) throws IOException;
+
+    /** Deletes the object; deleting an absent object is not an error. */
+    void delete(String name) throws IOException;
+
+    /** Sets the object's modification time to now without changing its contents. */
+    void touch(String name) throws IOException;
+
+    /** Calls {@code action} for every object whose name starts with {@code prefix}. */
+    void list(String prefix, Consumer<BlobInfo> action) throws IOException;
+
+    /**
+     * Lists one level below {@code prefix} (empty, or ending in {@code /}): objects directly
+     * under it go to {@code objects}, and each sub-prefix, ending in {@code /}, goes to
+     * {@code prefixes}. Lets a walk of the whole store be split across threads.
+     */
+    void listLevel(String prefix, Consumer<BlobInfo> objects, Consumer<String> prefixes) throws IOException;
+
+    /**
+     * A local file with the object's contents, for zero-copy streaming and image decoding.
+     * Stores with a local cache fetch the object into it first. Null when the object is absent
+     * or this store keeps nothing on local disk.
+     */
+    default Path localPath(String name) throws IOException {
+        return null;
+    }
+}
@@ -0,0 +1,262 @@
+package com.edupress.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Read-through local disk cache in front of a remote {@link BlobStore}. Reads of a cached object
+ * never leave the node; a miss downloads the whole object once (concurrent readers of the same
+ * object wait for that one download) and later reads are local. Writes go to the origin and
+ * leave a copy in the cache, since the node that took an upload usually serves it next.
+ * <p>
+ * The cache is bounded by {@code maxBytes} and evicts least recently used objects. Ranged reads
+ * of an object that isn't cached go straight to the origin without filling the cache, so a
+ * player seeking through a long video doesn't pull the whole file onto every node it touches.
+ * Metadata ({@link #stat}, {@link #list}) always comes from the origin, which stays the single
+ * source of truth.
+ */
+public class CachingBlobStore implements BlobStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingBlobStore.class);
+
+    private final BlobStore origin;
+    private final LocalBlobStore cache;
+    private final long maxBytes;
+
+    // Cached object name -> size, in access order
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long cachedBytes;
+
+    private final ConcurrentHashMap<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public CachingBlobStore(BlobStore origin, LocalBlobStore cache, long maxBytes) {
+        this.origin = origin;
+        this.cache = cache;
+        this.maxBytes = maxBytes;
+        loadExistingEntries();
+    }
+
+    // Objects cached before a restart are still valid: names are never reused for other content
+    private void loadExistingEntries() {
+        List<BlobInfo> existing = new ArrayList<>();
+        try {
+            cache.list("", existing::add);
+        } catch (IOException e) {
+            logger.warn("Could not index the blob cache at {}", cache.getRoot(), e);
+        }
+        existing.sort(Comparator.comparing(BlobInfo::getLastModified));
+        synchronized (entries) {
+            for (BlobInfo info : existing) {
+                entries.put(info.getName(), info.getSize());
+                cachedBytes += info.getSize();
+            }
+        }
+        evict(null);
+    }
+
+    @Override
+    public void put(String name, InputStream in, long length) throws IOException {
+        cache.put(name, in, length);
+        Path local = cache.resolve(name);
+        try (InputStream copy = Files.newInputStream(local)) {
+            origin.put(name, copy, Files.size(local));
+        } catch (IOException | RuntimeException e) {
+            cache.delete(name);
+            throw e;
+        }
+        admit(name, Files.size(local));
+    }
+
+    @Override
+    public void putFile(String name, Path file) throws IOException {
+        long size = Files.size(file);
+        try (InputStream in = Files.newInputStream(file)) {
+            origin.put(name, in, size);
+        }
+        cache.putFile(name, file);
+        admit(name, size);
+    }
+
+    @Override
+    public InputStream get(String name) throws IOException {
+        Path local = localPath(name);
+        if (local == null) {
+            throw new NoSuchFileException(name);
+        }
+        return Files.newInputStream(local);
+    }
+
+    @Override
+    public InputStream getRange(String name, long offset, long length) throws IOException {
+        if (isCached(name)) {
+            hits.incrementAndGet();
+            return cache.getRange(name, offset, length);
+        }
+        misses.incrementAndGet();
+        return origin.getRange(name, offset, length);
+    }
+
+    @Override
+    public BlobInfo stat(String name) throws IOException {
+        return origin.stat(name);
+    }
+
+    @Override
+    public void delete(String name) throws IOException {
+        origin.delete(name);
+        forget(name);
+    }
+
+    @Override
+    public void touch(String name) throws IOException {
+        origin.touch(name);
+    }
+
+    @Override
+    public void list(String prefix, Consumer<BlobInfo> action) throws IOException {
+        origin.list(prefix, action);
+    }
+
+    @Override
+    public void listLevel(String prefix, Consumer<BlobInfo> objects, Consumer<String> prefixes) throws IOException {
+        origin.listLevel(prefix, objects, prefixes);
+    }
+
+    @Override
+    public Path localPath(String name) throws IOException {
+        if (isCached(name)) {
+            hits.incrementAndGet();
+            return cache.resolve(name);
+        }
+        misses.incrementAndGet();
+
+        CompletableFuture<Path> mine = new CompletableFuture<>();
+        CompletableFuture<Path> running = inFlight.putIfAbsent(name, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+            }
+        }
+        try {
+            Path filled = fill(name);
+            mine.complete(filled);
+            return filled;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(name, mine);
+        }
+    }
+
+    private Path fill(String name) throws IOException {
+        if (isCached(name)) {
+            return cache.resolve(name);
+        }
+        BlobInfo info = origin.stat(name);
+        if (info == null) {
+            return null;
+        }
+        try (InputStream in = origin.get(name)) {
+            cache.put(name, in, info.getSize());
+        }
+        admit(name, info.getSize());
+        logger.debug("Cached {} ({} bytes) from object storage", name, info.getSize());
+        return cache.resolve(name);
+    }
+
+    private boolean isCached(String name) {
+        synchronized (entries) {
+            if (entries.get(name) == null) {
+                return false;
+            }
+        }
+        if (Files.isRegularFile(cache.resolve(name))) {
+            return true;
+        }
+        // Removed from disk behind our back
+        forget(name);
+        return false;
+    }
+
+    private void admit(String name, long size) {
+        synchronized (entries) {
+            Long previous = entries.put(name, size);
+            cachedBytes += size - (previous != null ? previous : 0);
+        }
+        evict(name);
+    }
+
+    private void forget(String name) {
+        synchronized (entries) {
+            Long size = entries.remove(name);
+            if (size != null) {
+                cachedBytes -= size;
+            }
+        }
+        try {
+            cache.delete(name);
+        } catch (IOException e) {
+            logger.debug("Could not remove cached {}", name, e);
+        }
+    }
+
+    // Drops least recently used objects until the cache fits its budget, sparing {@code keep}
+    private void evict(String keep) {
+        List<String> victims = new ArrayList<>();
+        synchronized (entries) {
+            Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+            while (cachedBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, Long> entry = eldest.next();
+                if (entry.getKey().equals(keep)) {
+                    continue;
+                }
+                cachedBytes -= entry.getValue();
+                victims.add(entry.getKey());
+                eldest.remove();
+            }
+        }
+        for (String victim : victims) {
+            try {
+                cache.delete(victim);
+            } catch (IOException e) {
+                logger.debug("Could not evict cached {}", victim, e);
+            }
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getCachedBytes() {
+        synchronized (entries) {
+            return cachedBytes;
+        }
+    }
+}
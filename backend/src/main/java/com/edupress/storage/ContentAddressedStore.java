@@ -0,0 +1,316 @@
+package com.edupress.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed blob storage. A blob is named by the SHA-256 of its bytes plus the original
+ * extension ({@code <sha256>.<ext>}, the blob <em>key</em>) and lives in the {@link BlobStore}
+ * under {@code blobs/<first two hex>/<next two hex>/<key>}, so storing the same file twice keeps
+ * one copy and no directory grows past a few hundred entries. The extension is part of the key so
+ * anything serving the file by name still gets the right media type.
+ * <p>
+ * Bytes are hashed while they stream to a local temp file, which is then handed to the store; a
+ * blob is never visible half-written. Blobs are not deleted when a record stops pointing at them:
+ * {@link com.edupress.service.BlobGarbageCollector} sweeps unreferenced blobs older than a grace
+ * period. Storing content that already exists refreshes the blob's modification time, and that
+ * refresh and the collector's delete take the same lock, so a blob being reused is never
+ * collected under the new reference. The lock is per node; with a shared store, run the
+ * collector on one node only.
+ */
+@Component
+public class ContentAddressedStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentAddressedStore.class);
+
+    private static final Pattern KEY = Pattern.compile("([0-9a-f]{64})(\\.[a-z0-9]{1,8})?");
+    private static final Pattern EXTENSION = Pattern.compile("[a-z0-9]{1,8}");
+    private static final int LOCK_STRIPES = 64;
+
+    private final BlobStore blobStore;
+    private final String prefix;
+    private final Path tempDirectory;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    @Autowired
+    public ContentAddressedStore(BlobStore blobStore, @Value("${app.upload.dir:uploads/}") String uploadDir) {
+        this(blobStore, "blobs/", Paths.get(uploadDir, "blobs", ".tmp"));
+    }
+
+    /** A store keeping blobs directly under {@code root} on local disk. */
+    public ContentAddressedStore(Path root) {
+        this(new LocalBlobStore(root), "", root.resolve(".tmp"));
+    }
+
+    public ContentAddressedStore(BlobStore blobStore, String prefix, Path tempDirectory) {
+        this.blobStore = blobStore;
+        this.prefix = prefix;
+        this.tempDirectory = tempDirectory.toAbsolutePath().normalize();
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        try {
+            Files.createDirectories(this.tempDirectory);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not create the blob staging directory " + this.tempDirectory, e);
+        }
+    }
+
+    /** Streams {@code in} into the store and returns the blob; {@code in} is not closed. */
+    public StoredBlob put(InputStream in, String extension) throws IOException {
+        Path temp = tempDirectory.resolve(UUID.randomUUID() + ".tmp");
+        MessageDigest digest = sha256();
+        long size;
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            size = new DigestInputStream(in, digest).transferTo(out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return adopt(temp, HexFormat.of().formatHex(digest.digest()), extension, size);
+    }
+
+    /**
+     * Moves an existing local file into the store, hashing it first. The file is gone afterwards
+     * either way.
+     */
+    public StoredBlob putFile(Path file, String extension) throws IOException {
+        MessageDigest digest = sha256();
+        long size;
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            size = in.transferTo(OutputStream.nullOutputStream());
+        }
+        return adopt(file, HexFormat.of().formatHex(digest.digest()), extension, size);
+    }
+
+    private StoredBlob adopt(Path source, String hash, String extension, long size) throws IOException {
+        String key = hash + normalizeExtension(extension);
+        String name = objectName(key);
+        boolean deduplicated;
+        synchronized (lockFor(key)) {
+            deduplicated = blobStore.stat(name) != null;
+            if (deduplicated) {
+                Files.deleteIfExists(source);
+                // Fresh mtime keeps the collector's grace period from expiring under the new reference
+                blobStore.touch(name);
+            } else {
+                try {
+                    blobStore.putFile(name, source);
+                } finally {
+                    Files.deleteIfExists(source);
+                }
+            }
+        }
+        if (!deduplicated) {
+            logger.debug("Stored blob {} ({} bytes)", key, size);
+        }
+        return new StoredBlob(key, blobStore.localPath(name), size, deduplicated);
+    }
+
+    /** Object name prefix below which all blobs are kept, e.g. {@code blobs/}. */
+    public String getPrefix() {
+        return prefix;
+    }
+
+    /** Name of the blob with {@code key} in the underlying {@link BlobStore}. */
+    public String objectName(String key) {
+        if (!isKey(key)) {
+            throw new RuntimeException("Invalid blob key: " + key);
+        }
+        return prefix + key.substring(0, 2) + "/" + key.substring(2, 4) + "/" + key;
+    }
+
+    /**
+     * A local file with the blob's contents, fetched into the local cache first when the store is
+     * remote; null when the blob doesn't exist.
+     */
+    public Path localFile(String key) throws IOException {
+        return blobStore.localPath(objectName(key));
+    }
+
+    /**
+     * Local file for a reference stored on a record: a blob key, or a path or URL ending in one.
+     * References from before content addressing are local paths and are returned as they are.
+     */
+    public Path localFileOf(String reference) {
+        String key = keyOf(reference);
+        if (key == null) {
+            return Paths.get(reference);
+        }
+        try {
+            Path file = localFile(key);
+            if (file == null) {
+                throw new RuntimeException("Stored file not found: " + key);
+            }
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read stored file " + key, e);
+        }
+    }
+
+    /** Opens the blob for reading. */
+    public InputStream open(String key) throws IOException {
+        return blobStore.get(objectName(key));
+    }
+
+    public boolean exists(String key) {
+        try {
+            return isKey(key) && blobStore.stat(objectName(key)) != null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Calls {@code action} with the key of every blob in the store. */
+    public void forEachKey(Consumer<String> action) throws IOException {
+        forEachBlob((key, size) -> action.accept(key));
+    }
+
+    /** Calls {@code action} with the key and size of every blob in the store. */
+    public void forEachBlob(ObjLongConsumer<String> action) throws IOException {
+        blobStore.list(prefix, info -> {
+            String name = info.getName().substring(prefix.length());
+            String[] parts = name.split("/");
+            if (parts.length == 3 && isKey(parts[2])) {
+                action.accept(parts[2], info.getSize());
+            }
+        });
+    }
+
+    /**
+     * Deletes the blob if it was last stored before {@code olderThan}; returns its size, or -1
+     * when it was kept or already gone.
+     */
+    public long deleteIfOlderThan(String key, Instant olderThan) throws IOException {
+        String name = objectName(key);
+        synchronized (lockFor(key)) {
+            BlobInfo info = blobStore.stat(name);
+            if (info == null || !info.getLastModified().isBefore(olderThan)) {
+                return -1;
+            }
+            blobStore.delete(name);
+            return info.getSize();
+        }
+    }
+
+    /**
+     * A fresh path in the staging directory, for callers that write a file before handing it to
+     * {@link #putFile}; abandoned ones are removed by {@link #purgeTempFiles}.
+     */
+    public Path newTempPath() {
+        return tempDirectory.resolve(UUID.randomUUID() + ".tmp");
+    }
+
+    /** Removes temp files left behind by uploads that died mid-stream; returns how many. */
+    public int purgeTempFiles(Instant olderThan) throws IOException {
+        int purged = 0;
+        try (Stream<Path> files = Files.list(tempDirectory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(olderThan) && Files.deleteIfExists(file)) {
+                    purged++;
+                }
+            }
+        }
+        return purged;
+    }
+
+    public static boolean isKey(String value) {
+        return value != null && KEY.matcher(value).matches();
+    }
+
+    /**
+     * Extracts the blob key from a stored reference: a file path into the store, a
+     * {@code /api/files/view/<key>} URL or the bare key. Returns null for anything else, such as
+     * an external image URL or a file from before content addressing.
+     */
+    public static String keyOf(String reference) {
+        if (reference == null) {
+            return null;
+        }
+        int slash = Math.max(reference.lastIndexOf('/'), reference.lastIndexOf('\\'));
+        String name = reference.substring(slash + 1);
+        int query = name.indexOf('?');
+        if (query >= 0) {
+            name = name.substring(0, query);
+        }
+        Matcher matcher = KEY.matcher(name);
+        return matcher.matches() ? name : null;
+    }
+
+    /** Lower-cased extension with its dot, or empty when it can't be part of a key. */
+    public static String normalizeExtension(String extension) {
+        if (extension == null) {
+            return "";
+        }
+        String ext = extension.startsWith(".") ? extension.substring(1) : extension;
+        ext = ext.toLowerCase(Locale.ROOT);
+        return EXTENSION.matcher(ext).matches() ? "." + ext : "";
+    }
+
+    private Object lockFor(String key) {
+        return locks[Integer.parseInt(key.substring(0, 2), 16) % LOCK_STRIPES];
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static class StoredBlob {
+        private final String key;
+        private final Path path;
+        private final long size;
+        private final boolean deduplicated;
+
+        StoredBlob(String key, Path path, long size, boolean deduplicated) {
+            this.key = key;
+            this.path = path;
+            this.size = size;
+            this.deduplicated = deduplicated;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        /** Local file holding the blob, or null when the store keeps no local copy. */
+        public Path getPath() {
+            return path;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        /** Whether identical content was already stored, so no new disk space was used. */
+        public boolean isDeduplicated() {
+            return deduplicated;
+        }
+    }
+}
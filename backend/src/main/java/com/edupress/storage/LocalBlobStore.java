@@ -0,0 +1,191 @@
+package com.edupress.storage;
+
+import org.apache.commons.io.input.BoundedInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * {@link BlobStore} on a local directory: the object name is the path below {@code root}. Writes
+ * go to {@code root/.tmp} first and are renamed into place, so readers never see a partial
+ * object.
+ */
+public class LocalBlobStore implements BlobStore {
+
+    private static final String TEMP_DIRECTORY = ".tmp";
+
+    private final Path root;
+    private final Path tempDirectory;
+
+    public LocalBlobStore(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+        this.tempDirectory = this.root.resolve(TEMP_DIRECTORY);
+        try {
+            Files.createDirectories(tempDirectory);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not create the storage directory " + this.root, e);
+        }
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /** File backing {@code name}, whether or not it exists. */
+    public Path resolve(String name) {
+        Path path = root.resolve(name).normalize();
+        if (name.isEmpty() || !path.startsWith(root) || path.equals(root) || path.startsWith(tempDirectory)) {
+            throw new RuntimeException("Invalid object name: " + name);
+        }
+        return path;
+    }
+
+    @Override
+    public void put(String name, InputStream in, long length) throws IOException {
+        Path temp = tempDirectory.resolve(UUID.randomUUID() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            in.transferTo(out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        moveIntoPlace(temp, resolve(name));
+    }
+
+    @Override
+    public void putFile(String name, Path file) throws IOException {
+        moveIntoPlace(file, resolve(name));
+    }
+
+    private static void moveIntoPlace(Path source, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Source on another filesystem: copy beside the target, then rename
+            Path sibling = target.resolveSibling(target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+            try {
+                Files.copy(source, sibling);
+                Files.move(sibling, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(sibling);
+            }
+            Files.deleteIfExists(source);
+        }
+    }
+
+    @Override
+    public InputStream get(String name) throws IOException {
+        return Files.newInputStream(resolve(name));
+    }
+
+    @Override
+    public InputStream getRange(String name, long offset, long length) throws IOException {
+        SeekableByteChannel channel = Files.newByteChannel(resolve(name), StandardOpenOption.READ);
+        try {
+            channel.position(offset);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new BoundedInputStream(Channels.newInputStream(channel), length);
+    }
+
+    @Override
+    public BlobInfo stat(String name) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(resolve(name), BasicFileAttributes.class);
+            return new BlobInfo(name, attributes.size(), attributes.lastModifiedTime().toInstant());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void delete(String name) throws IOException {
+        Files.deleteIfExists(resolve(name));
+    }
+
+    @Override
+    public void touch(String name) throws IOException {
+        Files.setLastModifiedTime(resolve(name), FileTime.from(Instant.now()));
+    }
+
+    @Override
+    public void list(String prefix, Consumer<BlobInfo> action) throws IOException {
+        // Walk only the deepest directory the prefix names, then filter on the full prefix
+        int slash = prefix.lastIndexOf('/');
+        Path start = slash > 0 ? root.resolve(prefix.substring(0, slash)).normalize() : root;
+        if (!start.startsWith(root) || !Files.isDirectory(start)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(start)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                if (path.startsWith(tempDirectory)) {
+                    continue;
+                }
+                String name = root.relativize(path).toString().replace('\\', '/');
+                if (!name.startsWith(prefix)) {
+                    continue;
+                }
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                if (attributes.isRegularFile()) {
+                    action.accept(new BlobInfo(name, attributes.size(), attributes.lastModifiedTime().toInstant()));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void listLevel(String prefix, Consumer<BlobInfo> objects, Consumer<String> prefixes) throws IOException {
+        Path dir = prefix.isEmpty() ? root : root.resolve(prefix).normalize();
+        if (!dir.startsWith(root) || !Files.isDirectory(dir)) {
+            return;
+        }
+        try (Stream<Path> children = Files.list(dir)) {
+            for (Path path : (Iterable<Path>) children::iterator) {
+                if (path.equals(tempDirectory)) {
+                    continue;
+                }
+                String name = prefix + path.getFileName();
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                if (attributes.isDirectory()) {
+                    prefixes.accept(name + "/");
+                } else if (attributes.isRegularFile()) {
+                    objects.accept(new BlobInfo(name, attributes.size(), attributes.lastModifiedTime().toInstant()));
+                }
+            }
+        }
+    }
+
+    @Override
+    public Path localPath(String name) {
+        Path path = resolve(name);
+        return Files.isRegularFile(path) ? path : null;
+    }
+}
@@ -0,0 +1,354 @@
+package com.edupress.storage;
+
+import org.apache.commons.io.input.BoundedInputStream;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * {@link BlobStore} on an S3-compatible bucket (AWS S3, MinIO, Ceph RGW, ...), spoken directly
+ * over HTTP with Signature Version 4 so no SDK is needed. Requests use path-style addressing
+ * ({@code <endpoint>/<bucket>/<name>}), which every S3-compatible server accepts. Bodies are
+ * streamed in both directions and sent as {@code UNSIGNED-PAYLOAD}; TLS protects them in transit.
+ */
+public class S3BlobStore implements BlobStore {
+
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final String EMPTY_SHA256 = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+
+    private final URI endpoint;
+    private final String region;
+    private final String bucket;
+    private final String accessKey;
+    private final String secretKey;
+    private final Path spoolDirectory;
+    private final HttpClient httpClient;
+
+    /**
+     * @param spoolDirectory where bodies of unknown length are buffered before upload, since S3
+     *                       needs the length up front
+     */
+    public S3BlobStore(URI endpoint, String region, String bucket, String accessKey, String secretKey,
+                       Path spoolDirectory) {
+        String base = endpoint.toString();
+        this.endpoint = URI.create(base.endsWith("/") ? base.substring(0, base.length() - 1) : base);
+        this.region = region;
+        this.bucket = bucket;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.spoolDirectory = spoolDirectory;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @Override
+    public void put(String name, InputStream in, long length) throws IOException {
+        if (length < 0) {
+            Files.createDirectories(spoolDirectory);
+            Path spool = Files.createTempFile(spoolDirectory, "s3-", ".tmp");
+            try {
+                try (OutputStream out = Files.newOutputStream(spool)) {
+                    in.transferTo(out);
+                }
+                putFile(name, spool);
+            } finally {
+                Files.deleteIfExists(spool);
+            }
+            return;
+        }
+        HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.fromPublisher(
+                HttpRequest.BodyPublishers.ofInputStream(() -> in), length);
+        expectSuccess(send(request("PUT", name, Map.of(), Map.of(), body), HttpResponse.BodyHandlers.ofString()), name);
+    }
+
+    @Override
+    public void putFile(String name, Path file) throws IOException {
+        HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.ofFile(file);
+        expectSuccess(send(request("PUT", name, Map.of(), Map.of(), body), HttpResponse.BodyHandlers.ofString()), name);
+        Files.deleteIfExists(file);
+    }
+
+    @Override
+    public InputStream get(String name) throws IOException {
+        HttpResponse<InputStream> response = send(request("GET", name, Map.of(), Map.of(), null),
+                HttpResponse.BodyHandlers.ofInputStream());
+        return bodyOf(response, name);
+    }
+
+    @Override
+    public InputStream getRange(String name, long offset, long length) throws IOException {
+        if (length <= 0) {
+            return InputStream.nullInputStream();
+        }
+        Map<String, String> headers = Map.of("Range", "bytes=" + offset + "-" + (offset + length - 1));
+        HttpResponse<InputStream> response = send(request("GET", name, Map.of(), headers, null),
+                HttpResponse.BodyHandlers.ofInputStream());
+        InputStream body = bodyOf(response, name);
+        if (response.statusCode() == 200) {
+            // Server ignored the Range header; skip to the requested window ourselves
+            body.skipNBytes(offset);
+            return new BoundedInputStream(body, length);
+        }
+        return body;
+    }
+
+    @Override
+    public BlobInfo stat(String name) throws IOException {
+        HttpResponse<Void> response = send(request("HEAD", name, Map.of(), Map.of(), null),
+                HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 404) {
+            return null;
+        }
+        expectSuccess(response, name);
+        long size = response.headers().firstValueAsLong("Content-Length").orElse(0);
+        Instant lastModified = response.headers().firstValue("Last-Modified")
+                .map(value -> ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant())
+                .orElse(Instant.EPOCH);
+        return new BlobInfo(name, size, lastModified);
+    }
+
+    @Override
+    public void delete(String name) throws IOException {
+        HttpResponse<String> response = send(request("DELETE", name, Map.of(), Map.of(), null),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 404) {
+            expectSuccess(response, name);
+        }
+    }
+
+    @Override
+    public void touch(String name) throws IOException {
+        // S3 has no "touch"; copying an object onto itself with replaced metadata refreshes LastModified
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("x-amz-copy-source", "/" + bucket + "/" + encodePath(name));
+        headers.put("x-amz-metadata-directive", "REPLACE");
+        HttpResponse<String> response = send(request("PUT", name, Map.of(), headers,
+                HttpRequest.BodyPublishers.noBody()), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 404) {
+            throw new NoSuchFileException(name);
+        }
+        expectSuccess(response, name);
+    }
+
+    @Override
+    public void list(String prefix, Consumer<BlobInfo> action) throws IOException {
+        listPages(prefix, null, action, commonPrefix -> { });
+    }
+
+    @Override
+    public void listLevel(String prefix, Consumer<BlobInfo> objects, Consumer<String> prefixes) throws IOException {
+        listPages(prefix, "/", objects, prefixes);
+    }
+
+    private void listPages(String prefix, String delimiter, Consumer<BlobInfo> objects,
+                           Consumer<String> prefixes) throws IOException {
+        String continuationToken = null;
+        do {
+            Map<String, String> query = new TreeMap<>();
+            query.put("list-type", "2");
+            query.put("prefix", prefix);
+            if (delimiter != null) {
+                query.put("delimiter", delimiter);
+            }
+            if (continuationToken != null) {
+                query.put("continuation-token", continuationToken);
+            }
+            HttpResponse<InputStream> response = send(request("GET", null, query, Map.of(), null),
+                    HttpResponse.BodyHandlers.ofInputStream());
+            Document page;
+            try (InputStream body = bodyOf(response, bucket)) {
+                page = parseXml(body);
+            }
+            NodeList contents = page.getElementsByTagName("Contents");
+            for (int i = 0; i < contents.getLength(); i++) {
+                Element entry = (Element) contents.item(i);
+                objects.accept(new BlobInfo(text(entry, "Key"), Long.parseLong(text(entry, "Size")),
+                        Instant.parse(text(entry, "LastModified"))));
+            }
+            NodeList commonPrefixes = page.getElementsByTagName("CommonPrefixes");
+            for (int i = 0; i < commonPrefixes.getLength(); i++) {
+                prefixes.accept(text((Element) commonPrefixes.item(i), "Prefix"));
+            }
+            continuationToken = "true".equals(text(page.getDocumentElement(), "IsTruncated"))
+                    ? text(page.getDocumentElement(), "NextContinuationToken")
+                    : null;
+        } while (continuationToken != null);
+    }
+
+    private HttpRequest request(String method, String name, Map<String, String> query,
+                                Map<String, String> extraHeaders, HttpRequest.BodyPublisher body) {
+        String path = "/" + bucket + (name != null ? "/" + encodePath(name) : "");
+        StringBuilder canonicalQuery = new StringBuilder();
+        for (Map.Entry<String, String> param : new TreeMap<>(query).entrySet()) {
+            if (canonicalQuery.length() > 0) {
+                canonicalQuery.append('&');
+            }
+            canonicalQuery.append(encode(param.getKey())).append('=').append(encode(param.getValue()));
+        }
+        URI uri = URI.create(endpoint + path + (canonicalQuery.length() > 0 ? "?" + canonicalQuery : ""));
+
+        String amzDate = AMZ_DATE.format(ZonedDateTime.now(ZoneOffset.UTC));
+        String payloadHash = body != null ? UNSIGNED_PAYLOAD : EMPTY_SHA256;
+        TreeMap<String, String> signed = new TreeMap<>();
+        signed.put("host", hostOf(uri));
+        signed.put("x-amz-content-sha256", payloadHash);
+        signed.put("x-amz-date", amzDate);
+        for (Map.Entry<String, String> header : extraHeaders.entrySet()) {
+            if (header.getKey().toLowerCase().startsWith("x-amz-")) {
+                signed.put(header.getKey().toLowerCase(), header.getValue().trim());
+            }
+        }
+
+        StringBuilder canonicalHeaders = new StringBuilder();
+        for (Map.Entry<String, String> header : signed.entrySet()) {
+            canonicalHeaders.append(header.getKey()).append(':').append(header.getValue()).append('\n');
+        }
+        String signedHeaders = String.join(";", signed.keySet());
+        String canonicalRequest = method + "\n" + path + "\n" + canonicalQuery + "\n"
+                + canonicalHeaders + "\n" + signedHeaders + "\n" + payloadHash;
+
+        String date = amzDate.substring(0, 8);
+        String scope = date + "/" + region + "/s3/aws4_request";
+        String stringToSign = ALGORITHM + "\n" + amzDate + "\n" + scope + "\n" + hex(sha256(canonicalRequest));
+        byte[] signingKey = hmac(hmac(hmac(hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date),
+                region), "s3"), "aws4_request");
+        String signature = hex(hmac(signingKey, stringToSign));
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofMinutes(10))
+                .method(method, body != null ? body : HttpRequest.BodyPublishers.noBody())
+                .header("Authorization", ALGORITHM + " Credential=" + accessKey + "/" + scope
+                        + ", SignedHeaders=" + signedHeaders + ", Signature=" + signature)
+                .header("x-amz-content-sha256", payloadHash)
+                .header("x-amz-date", amzDate);
+        extraHeaders.forEach(builder::header);
+        return builder.build();
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws IOException {
+        try {
+            return httpClient.send(request, handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while talking to object storage", e);
+        }
+    }
+
+    private static InputStream bodyOf(HttpResponse<InputStream> response, String name) throws IOException {
+        int status = response.statusCode();
+        if (status == 200 || status == 206) {
+            return response.body();
+        }
+        String detail;
+        try (InputStream body = response.body()) {
+            detail = new String(body.readNBytes(512), StandardCharsets.UTF_8);
+        }
+        if (status == 404) {
+            throw new NoSuchFileException(name);
+        }
+        throw new IOException("Object storage returned " + status + " for " + name + ": " + detail);
+    }
+
+    private static void expectSuccess(HttpResponse<?> response, String name) throws IOException {
+        if (response.statusCode() / 100 != 2) {
+            Object body = response.body();
+            throw new IOException("Object storage returned " + response.statusCode() + " for " + name
+                    + (body instanceof String text && !text.isEmpty() ? ": " + text : ""));
+        }
+    }
+
+    private static Document parseXml(InputStream in) throws IOException {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            return factory.newDocumentBuilder().parse(in);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Unreadable listing from object storage", e);
+        }
+    }
+
+    private static String text(Element parent, String tag) {
+        NodeList nodes = parent.getElementsByTagName(tag);
+        return nodes.getLength() > 0 ? nodes.item(0).getTextContent() : null;
+    }
+
+    private static String hostOf(URI uri) {
+        int port = uri.getPort();
+        boolean defaultPort = port == -1 || ("http".equals(uri.getScheme()) && port == 80)
+                || ("https".equals(uri.getScheme()) && port == 443);
+        return defaultPort ? uri.getHost() : uri.getHost() + ":" + port;
+    }
+
+    // RFC 3986 encoding as SigV4 requires: only unreserved characters stay literal
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8)
+                .replace("+", "%20").replace("*", "%2A").replace("%7E", "~");
+    }
+
+    private static String encodePath(String name) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : name.split("/", -1)) {
+            segments.add(encode(segment));
+        }
+        return String.join("/", segments);
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String value) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(value.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        return HexFormat.of().formatHex(bytes);
+    }
+}
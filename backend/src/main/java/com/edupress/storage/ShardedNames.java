@@ -0,0 +1,44 @@
+package com.edupress.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Two-level hashed layout for objects kept under their own file name, such as certificate PDFs:
+ * {@code <prefix>/<h0h1>/<h2h3>/<fileName>} with {@code h} the SHA-256 of the file name. Spreads
+ * what used to be one flat directory over 65536 leaves, so no directory grows past a few hundred
+ * entries even at millions of files. Blobs get the same shape from their key.
+ */
+public final class ShardedNames {
+
+    private ShardedNames() {
+    }
+
+    /** Sharded object name for {@code fileName} below {@code prefix} (empty, or ending in {@code /}). */
+    public static String shard(String prefix, String fileName) {
+        if (fileName.isEmpty() || fileName.indexOf('/') >= 0) {
+            throw new RuntimeException("Invalid file name: " + fileName);
+        }
+        String hash = HexFormat.of().formatHex(sha256(fileName), 0, 2);
+        return prefix + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + fileName;
+    }
+
+    /** Whether {@code name} is already the sharded name of its file name below {@code prefix}. */
+    public static boolean isSharded(String prefix, String name) {
+        if (!name.startsWith(prefix)) {
+            return false;
+        }
+        String fileName = name.substring(name.lastIndexOf('/') + 1);
+        return !fileName.isEmpty() && name.equals(shard(prefix, fileName));
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+}
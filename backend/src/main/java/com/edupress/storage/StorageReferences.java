@@ -0,0 +1,83 @@
+package com.edupress.storage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Maps what records store about a file to the {@link BlobStore} object holding it. Over time the
+ * columns have held blob keys, {@code /api/files/view/...} URLs, object names such as
+ * {@code certificates/...}, and local paths like {@code uploads/videos/<uuid>.mp4}; all of them
+ * resolve to one object name here.
+ */
+@Component
+public class StorageReferences {
+
+    private static final String[] URL_PREFIXES = {"/api/files/view/", "/api/files/download/"};
+
+    private final ContentAddressedStore contentStore;
+
+    private final Path uploadRoot;
+
+    @Autowired
+    public StorageReferences(ContentAddressedStore contentStore, @Value("${app.upload.dir:uploads/}") String uploadDir) {
+        this.contentStore = contentStore;
+        this.uploadRoot = Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Object name the reference points at, or null for references outside the store, such as an
+     * external image URL.
+     */
+    public String objectNameOf(String reference) {
+        if (reference == null || reference.isBlank()) {
+            return null;
+        }
+        String key = ContentAddressedStore.keyOf(reference);
+        if (key != null) {
+            return contentStore.objectName(key);
+        }
+        if (reference.contains("://")) {
+            return null;
+        }
+        String value = reference;
+        int query = value.indexOf('?');
+        if (query >= 0) {
+            value = value.substring(0, query);
+        }
+        for (String prefix : URL_PREFIXES) {
+            if (value.startsWith(prefix)) {
+                return normalized(value.substring(prefix.length()));
+            }
+        }
+        try {
+            Path path = Paths.get(value);
+            Path absolute = path.toAbsolutePath().normalize();
+            if (absolute.startsWith(uploadRoot) && !absolute.equals(uploadRoot)) {
+                return uploadRoot.relativize(absolute).toString().replace('\\', '/');
+            }
+            // Anything else relative was written as an object name
+            return path.isAbsolute() ? null : normalized(value);
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+
+    /** Whether the reference was written before content addressing, i.e. names no blob. */
+    public static boolean isLegacy(String reference) {
+        return ContentAddressedStore.keyOf(reference) == null;
+    }
+
+    private static String normalized(String name) {
+        String value = name.replace('\\', '/');
+        if (value.isEmpty() || value.startsWith("/") || value.equals("..") || value.startsWith("../")
+                || value.contains("/../") || value.endsWith("/..")) {
+            return null;
+        }
+        return value;
+    }
+}
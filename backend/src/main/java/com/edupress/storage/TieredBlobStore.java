@@ -0,0 +1,249 @@
+package com.edupress.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A {@link BlobStore} over two tiers: {@code hot}, where objects are written and served from, and
+ * {@code archive}, a cheaper store cold objects are moved to by {@link #demote}. Callers don't
+ * need to know which tier holds an object: a read that misses the hot tier promotes the object
+ * back first, decompressing it on the way when it was archived compressed, and then reads it as
+ * usual. Listings, {@code stat} and {@code delete} cover both tiers.
+ * <p>
+ * A compressed object is archived as {@code <name>.archive.gz}, a suffix no blob key or
+ * certificate name can end in. Moves between tiers hold a per-name lock, so a read racing a
+ * demotion waits for it and then promotes the object again rather than missing it.
+ */
+public class TieredBlobStore implements BlobStore {
+
+    static final String COMPRESSED_SUFFIX = ".archive.gz";
+
+    private static final int LOCK_STRIPES = 64;
+
+    // Archive uncompressed unless gzip saves at least this share of the bytes
+    private static final double MIN_COMPRESSION_SAVING = 0.1;
+
+    private final BlobStore hot;
+    private final BlobStore archive;
+    private final Path tempDirectory;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public TieredBlobStore(BlobStore hot, BlobStore archive, Path tempDirectory) {
+        this.hot = hot;
+        this.archive = archive;
+        this.tempDirectory = tempDirectory;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        try {
+            Files.createDirectories(tempDirectory);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not create the tiering staging directory " + tempDirectory, e);
+        }
+    }
+
+    public BlobStore getHot() {
+        return hot;
+    }
+
+    @Override
+    public void put(String name, InputStream in, long length) throws IOException {
+        hot.put(name, in, length);
+    }
+
+    @Override
+    public void putFile(String name, Path file) throws IOException {
+        hot.putFile(name, file);
+    }
+
+    @Override
+    public InputStream get(String name) throws IOException {
+        try {
+            return hot.get(name);
+        } catch (NoSuchFileException e) {
+            if (!promote(name)) {
+                throw e;
+            }
+            return hot.get(name);
+        }
+    }
+
+    @Override
+    public InputStream getRange(String name, long offset, long length) throws IOException {
+        try {
+            return hot.getRange(name, offset, length);
+        } catch (NoSuchFileException e) {
+            if (!promote(name)) {
+                throw e;
+            }
+            return hot.getRange(name, offset, length);
+        }
+    }
+
+    /** Size and time are the archived copy's for an object in the archive tier. */
+    @Override
+    public BlobInfo stat(String name) throws IOException {
+        BlobInfo info = hot.stat(name);
+        return info != null ? info : archivedStat(name);
+    }
+
+    @Override
+    public void delete(String name) throws IOException {
+        synchronized (lockFor(name)) {
+            hot.delete(name);
+            archive.delete(name + COMPRESSED_SUFFIX);
+            archive.delete(name);
+        }
+    }
+
+    @Override
+    public void touch(String name) throws IOException {
+        if (hot.stat(name) == null) {
+            // Touched because it is wanted again, e.g. the same file was uploaded anew
+            promote(name);
+        }
+        hot.touch(name);
+    }
+
+    /** Objects of both tiers; one caught mid-move may be reported twice. */
+    @Override
+    public void list(String prefix, Consumer<BlobInfo> action) throws IOException {
+        hot.list(prefix, action);
+        archive.list(prefix, info -> action.accept(fromArchive(info)));
+    }
+
+    @Override
+    public void listLevel(String prefix, Consumer<BlobInfo> objects, Consumer<String> prefixes) throws IOException {
+        Set<String> names = new HashSet<>();
+        Set<String> subPrefixes = new HashSet<>();
+        hot.listLevel(prefix, info -> {
+            names.add(info.getName());
+            objects.accept(info);
+        }, subPrefix -> {
+            subPrefixes.add(subPrefix);
+            prefixes.accept(subPrefix);
+        });
+        archive.listLevel(prefix, info -> {
+            BlobInfo original = fromArchive(info);
+            if (names.add(original.getName())) {
+                objects.accept(original);
+            }
+        }, subPrefix -> {
+            if (subPrefixes.add(subPrefix)) {
+                prefixes.accept(subPrefix);
+            }
+        });
+    }
+
+    @Override
+    public Path localPath(String name) throws IOException {
+        Path path = hot.localPath(name);
+        if (path == null && promote(name)) {
+            path = hot.localPath(name);
+        }
+        return path;
+    }
+
+    /** Whether the object currently sits in the archive tier only. */
+    public boolean isArchived(String name) throws IOException {
+        return hot.stat(name) == null && archivedStat(name) != null;
+    }
+
+    /**
+     * Moves the object from the hot tier to the archive, gzip-compressed when {@code compress} is
+     * set and that saves enough to be worth it. Returns the bytes the archived copy takes, or -1
+     * when the object wasn't in the hot tier.
+     */
+    public long demote(String name, boolean compress) throws IOException {
+        synchronized (lockFor(name)) {
+            BlobInfo info = hot.stat(name);
+            if (info == null) {
+                return -1;
+            }
+            long archived = info.getSize();
+            boolean stored = false;
+            if (compress) {
+                Path compressed = tempDirectory.resolve(UUID.randomUUID() + ".gz");
+                try {
+                    try (InputStream in = hot.get(name);
+                         OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed), 64 * 1024)) {
+                        in.transferTo(out);
+                    }
+                    long compressedSize = Files.size(compressed);
+                    if (compressedSize <= info.getSize() * (1 - MIN_COMPRESSION_SAVING)) {
+                        archive.putFile(name + COMPRESSED_SUFFIX, compressed);
+                        archived = compressedSize;
+                        stored = true;
+                    }
+                } finally {
+                    Files.deleteIfExists(compressed);
+                }
+            }
+            if (!stored) {
+                try (InputStream in = hot.get(name)) {
+                    archive.put(name, in, info.getSize());
+                }
+            }
+            hot.delete(name);
+            return archived;
+        }
+    }
+
+    /**
+     * Brings an archived object back to the hot tier and removes the archived copy. Returns false
+     * when the object is in neither tier.
+     */
+    public boolean promote(String name) throws IOException {
+        synchronized (lockFor(name)) {
+            if (hot.stat(name) != null) {
+                return true;
+            }
+            String compressedName = name + COMPRESSED_SUFFIX;
+            if (archive.stat(compressedName) != null) {
+                try (InputStream in = new GZIPInputStream(archive.get(compressedName), 64 * 1024)) {
+                    hot.put(name, in, -1);
+                }
+                archive.delete(compressedName);
+                return true;
+            }
+            BlobInfo info = archive.stat(name);
+            if (info != null) {
+                try (InputStream in = archive.get(name)) {
+                    hot.put(name, in, info.getSize());
+                }
+                archive.delete(name);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private BlobInfo archivedStat(String name) throws IOException {
+        BlobInfo compressed = archive.stat(name + COMPRESSED_SUFFIX);
+        if (compressed != null) {
+            return new BlobInfo(name, compressed.getSize(), compressed.getLastModified());
+        }
+        return archive.stat(name);
+    }
+
+    private static BlobInfo fromArchive(BlobInfo info) {
+        String name = info.getName();
+        return name.endsWith(COMPRESSED_SUFFIX)
+                ? new BlobInfo(name.substring(0, name.length() - COMPRESSED_SUFFIX.length()), info.getSize(), info.getLastModified())
+                : info;
+    }
+
+    private Object lockFor(String name) {
+        return locks[Math.floorMod(name.hashCode(), LOCK_STRIPES)];
+    }
+}
@@ -0,0 +1,89 @@
+package com.edupress.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimate_ShouldStayWithinErrorBoundsAcrossCardinalities() {
+        for (int distinct : new int[] {0, 10, 1_000, 100_000}) {
+            HyperLogLog sketch = new HyperLogLog(12);
+            for (long id = 1; id <= distinct; id++) {
+                sketch.add(id);
+                sketch.add(id);
+            }
+            // 1.04 / sqrt(4096) is about 1.6%; allow three standard errors
+            assertEquals(distinct, sketch.estimate(), Math.max(1, distinct * 0.05), "distinct=" + distinct);
+        }
+    }
+
+    @Test
+    void merge_ShouldEstimateTheUnion() {
+        HyperLogLog a = new HyperLogLog(12);
+        HyperLogLog b = new HyperLogLog(12);
+        for (long id = 0; id < 30_000; id++) {
+            a.add(id);
+            b.add(id + 20_000);
+        }
+
+        HyperLogLog union = HyperLogLog.fromBytes(a.toBytes()).merge(b);
+
+        assertEquals(50_000, union.estimate(), 50_000 * 0.05);
+        assertThrows(IllegalArgumentException.class, () -> a.merge(new HyperLogLog(10)));
+    }
+
+    @Test
+    void tracker_ShouldDeriveActiveUsersAndHourOfWeekFromDailySlots() {
+        EngagementTracker tracker = new EngagementTracker(35, 12);
+        LocalDate monday = LocalDate.now().with(java.time.DayOfWeek.MONDAY);
+        for (long user = 1; user <= 100; user++) {
+            tracker.record(user, monday.atTime(9, 15));
+            tracker.record(user + 50, monday.plusDays(2).atTime(20, 0));
+        }
+        tracker.record(999L, monday.minusDays(40).atTime(9, 0)); // outside the ring
+
+        assertEquals(100, tracker.countActiveUsers(monday, monday), 3);
+        assertEquals(150, tracker.countActiveUsers(monday, monday.plusDays(6)), 5);
+        long[] cells = tracker.hourOfWeek(monday, monday.plusDays(6));
+        assertEquals(100, cells[9]);
+        assertEquals(100, cells[2 * 24 + 20]);
+        assertEquals(0, tracker.countActiveUsers(monday.minusDays(40), monday.minusDays(40)));
+    }
+
+    @Test
+    void tracker_ShouldRecycleSlotsForNewerDays() {
+        EngagementTracker tracker = new EngagementTracker(7, 10);
+        LocalDateTime start = LocalDate.of(2024, 1, 1).atTime(12, 0);
+        tracker.record(1L, start);
+        tracker.record(2L, start.plusDays(7));
+
+        assertEquals(0, tracker.countActiveUsers(start.toLocalDate(), start.toLocalDate()));
+        assertEquals(1, tracker.countActiveUsers(start.toLocalDate().plusDays(7), start.toLocalDate().plusDays(7)));
+    }
+
+    @Test
+    void tracker_ShouldAllocateSlotsOnlyForDaysWritten() {
+        EngagementTracker tracker = new EngagementTracker(35, 10);
+        assertEquals(0, tracker.getAllocatedDays());
+        assertNull(tracker.getLatestDay());
+        assertEquals(0, tracker.countActiveUsers(LocalDate.now().minusDays(34), LocalDate.now()));
+
+        LocalDateTime start = LocalDate.of(2024, 1, 1).atTime(12, 0);
+        tracker.record(1L, start);
+        tracker.record(2L, start.plusHours(3));
+        tracker.record(3L, start.plusDays(2));
+
+        assertEquals(2, tracker.getAllocatedDays());
+        assertEquals(start.toLocalDate().plusDays(2), tracker.getLatestDay());
+        assertEquals(3, tracker.countActiveUsers(start.toLocalDate(), start.toLocalDate().plusDays(34)));
+
+        tracker.clear();
+        assertNull(tracker.getLatestDay());
+        assertEquals(0, tracker.countActiveUsers(start.toLocalDate(), start.toLocalDate().plusDays(34)));
+    }
+}
@@ -0,0 +1,118 @@
+package com.edupress.analytics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void buckets_ShouldCoverTheRangeWithBoundedRelativeError() {
+        long previousUpper = -1;
+        for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; i++) {
+            long upper = LatencyHistogram.upperBound(i);
+            assertEquals(i, LatencyHistogram.indexOf(previousUpper + 1), "lower edge of bucket " + i);
+            assertEquals(i, LatencyHistogram.indexOf(upper), "upper edge of bucket " + i);
+            assertTrue(upper - previousUpper <= Math.max(1, (previousUpper + 1) / 16 + 1));
+            previousUpper = upper;
+        }
+        assertEquals(LatencyHistogram.MAX_VALUE, previousUpper);
+    }
+
+    @Test
+    void percentile_ShouldTrackRecordedDistribution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1_000);
+        }
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1002, snapshot.getCount());
+        assertEquals(500_000, snapshot.percentile(0.5), 500_000 * 0.07);
+        assertEquals(990_000, snapshot.percentile(0.99), 990_000 * 0.07);
+        assertEquals(LatencyHistogram.MAX_VALUE, snapshot.getMax());
+        assertEquals(1, snapshot.countAtOrBelow(0));
+        assertTrue(snapshot.countAtOrBelow(100_000) <= 101);
+    }
+
+    @Test
+    void endpointMetrics_ShouldClassifyErrorsAndTrackInFlight() {
+        EndpointMetrics metrics = new EndpointMetrics("TestController.get");
+        RequestTimings timings = RequestTimings.current();
+        timings.reset();
+        RequestTimings.addDb(2_000);
+        metrics.begin();
+        metrics.begin();
+        assertEquals(2, metrics.getInFlight());
+
+        metrics.complete(10_000, 404, false, timings);
+        metrics.complete(10_000, 200, true, timings);
+
+        assertEquals(0, metrics.getInFlight());
+        assertEquals(1, metrics.getClientErrors());
+        assertEquals(1, metrics.getServerErrors());
+        assertEquals(2, metrics.getDbStatements());
+        assertEquals(2, metrics.getLatency().getCount());
+    }
+
+    /**
+     * Run with {@code mvn test -Dtest=LatencyHistogramTest -Dbenchmark=true}. Measures the
+     * per-request recording path (begin, two clock reads, complete) from several threads.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark_RecordingOverheadShouldStayUnderOneHundredNanoseconds() throws Exception {
+        EndpointMetrics metrics = new EndpointMetrics("Bench.get");
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        int iterations = 5_000_000;
+        for (int warmup = 0; warmup < 2; warmup++) {
+            run(metrics, 1, iterations);
+        }
+        long single = run(metrics, 1, iterations);
+        long contended = run(metrics, threads, iterations);
+        long clock = clockCost(iterations);
+        System.out.printf("recording overhead: %d ns/op single-threaded, %d ns/op with %d threads"
+                + " (of which %d ns is the two clock reads)%n", single, contended, threads, clock);
+        assertTrue(single < 100, "recording took " + single + " ns");
+    }
+
+    private static long clockCost(int iterations) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long began = System.nanoTime();
+            sink += System.nanoTime() - began;
+        }
+        long perOp = (System.nanoTime() - start) / iterations;
+        return sink == Long.MIN_VALUE ? 0 : perOp;
+    }
+
+    private static long run(EndpointMetrics metrics, int threads, int iterations) throws InterruptedException {
+        Thread[] workers = new Thread[threads];
+        long[] elapsed = new long[threads];
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            workers[t] = new Thread(() -> {
+                RequestTimings timings = RequestTimings.current();
+                long start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    metrics.begin();
+                    timings.reset();
+                    long began = System.nanoTime();
+                    metrics.complete(System.nanoTime() - began + (i & 0xFFFF), 200, false, timings);
+                }
+                elapsed[index] = System.nanoTime() - start;
+            });
+            workers[t].start();
+        }
+        long worst = 0;
+        for (int t = 0; t < threads; t++) {
+            workers[t].join();
+            worst = Math.max(worst, elapsed[t]);
+        }
+        return worst / iterations;
+    }
+}
@@ -0,0 +1,69 @@
+package com.edupress.analytics;
+
+import com.edupress.analytics.TimeSeriesStore.Metric;
+import com.edupress.analytics.TimeSeriesStore.Resolution;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeSeriesStoreTest {
+
+    private final TimeSeriesStore store =
+            new TimeSeriesStore(Duration.ofHours(2), Duration.ofDays(2), Duration.ofDays(30));
+
+    @Test
+    void sum_ShouldUseMinuteBucketsForRecentWindows() {
+        LocalDateTime now = LocalDateTime.now().withSecond(0).withNano(0);
+        store.record(Metric.SIGNUPS, now.minusMinutes(10));
+        store.record(Metric.SIGNUPS, now.minusMinutes(5));
+        store.record(Metric.SIGNUPS, now.minusMinutes(1));
+        store.record(Metric.ENROLLMENTS, now.minusMinutes(1));
+
+        assertEquals(2, store.sum(Metric.SIGNUPS, now.minusMinutes(6), now));
+        assertEquals(3, store.sum(Metric.SIGNUPS, now.minusMinutes(30), now));
+        assertEquals(1, store.sum(Metric.ENROLLMENTS, now.minusMinutes(30), now));
+    }
+
+    @Test
+    void sum_ShouldFallBackToDailyBucketsOnceFineDataHasAgedOut() {
+        LocalDateTime today = LocalDateTime.now().toLocalDate().atStartOfDay();
+        store.record(Metric.COURSES_CREATED, today.minusDays(10).plusHours(3));
+        store.record(Metric.COURSES_CREATED, today.minusDays(10).plusHours(20));
+        store.record(Metric.COURSES_CREATED, today.minusDays(40));
+
+        assertEquals(2, store.sum(Metric.COURSES_CREATED, today.minusDays(11), today));
+        assertEquals(Resolution.DAY, store.suggestResolution(today.minusDays(11), today, 500));
+    }
+
+    @Test
+    void series_ShouldReportEmptyBucketsAsZero() {
+        LocalDateTime today = LocalDateTime.now().toLocalDate().atStartOfDay();
+        store.record(Metric.PAYMENTS, today.minusDays(2).plusHours(1));
+
+        List<TimeSeriesStore.Point> points =
+                store.series(Metric.PAYMENTS, today.minusDays(3), today, Resolution.DAY);
+
+        assertEquals(3, points.size());
+        assertEquals(0, points.get(0).getValue());
+        assertEquals(1, points.get(1).getValue());
+        assertEquals(today.minusDays(2), points.get(1).getStart());
+        assertEquals(0, points.get(2).getValue());
+    }
+
+    @Test
+    void record_ShouldOverwriteSlotsThatWrappedAround() {
+        LocalDateTime now = LocalDateTime.now().withSecond(0).withNano(0);
+        store.record(Metric.SIGNUPS, now.minusHours(3));
+        store.record(Metric.SIGNUPS, now.minusHours(1));
+
+        // The minute ring holds two hours, so the older write only survives in coarser buckets
+        List<TimeSeriesStore.Point> minutes =
+                store.series(Metric.SIGNUPS, now.minusMinutes(119), now, Resolution.MINUTE);
+        assertEquals(1, minutes.stream().mapToLong(TimeSeriesStore.Point::getValue).sum());
+        assertEquals(2, store.sum(Metric.SIGNUPS, now.minusHours(4), now.plusMinutes(1)));
+    }
+}
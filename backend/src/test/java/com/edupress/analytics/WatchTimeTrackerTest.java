@@ -0,0 +1,84 @@
+package com.edupress.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WatchTimeTrackerTest {
+
+    @Test
+    void heartbeat_ShouldBuildRetentionCurveAndCompletionDistribution() {
+        WatchTimeTracker tracker = new WatchTimeTracker(100, 10);
+        // Viewer 1 watches the whole video, viewer 2 stops at 35s, viewer 3 at 5s
+        for (int position = 10; position <= 100; position += 10) {
+            tracker.heartbeat(1L, position, 10, 0);
+        }
+        tracker.heartbeat(2L, 15, 15, 0);
+        tracker.heartbeat(2L, 35, 20, 0);
+        tracker.heartbeat(3L, 5, 5, 0);
+
+        WatchTimeTracker.Snapshot snapshot = tracker.snapshot();
+
+        assertEquals(100 + 35 + 5, snapshot.getWatchSeconds());
+        assertEquals(3, snapshot.getSessions());
+        assertEquals(3, snapshot.getUniqueViewers());
+        assertArrayEquals(new long[] {3, 2, 2, 2, 1, 1, 1, 1, 1, 1}, snapshot.getSegmentViews());
+        // One session played 1 segment, one played 4, one played all 10
+        assertArrayEquals(new long[] {1, 0, 0, 1, 0, 0, 0, 0, 0, 1}, snapshot.getCompletion());
+        assertEquals(50.0, snapshot.getAverageCompletion(), 1e-9);
+        assertEquals(100.0, snapshot.getRetention()[0], 1e-9);
+    }
+
+    @Test
+    void dropOff_ShouldPointAtTheSegmentWhereMostSessionsStopped() {
+        WatchTimeTracker tracker = new WatchTimeTracker(600, 10);
+        for (long user = 0; user < 10; user++) {
+            int stopAt = user < 7 ? 270 : 600;
+            for (int position = 30; position <= stopAt; position += 30) {
+                tracker.heartbeat(user, position, 30, 0);
+            }
+        }
+
+        WatchTimeTracker.Snapshot snapshot = tracker.snapshot();
+
+        // Seven of ten sessions stop inside the 240s-300s segment
+        assertEquals(4, snapshot.getDropOffSegment());
+        assertEquals(7, snapshot.getDropOffSessions());
+        assertEquals(300, snapshot.segmentEndSeconds(snapshot.getDropOffSegment()));
+    }
+
+    @Test
+    void expireSessions_ShouldStartANewSessionForALaterRewatch() {
+        WatchTimeTracker tracker = new WatchTimeTracker(100, 10);
+        tracker.heartbeat(1L, 10, 10, 1_000);
+        tracker.heartbeat(1L, 20, 10, 2_000);
+
+        assertEquals(0, tracker.expireSessions(1_500));
+        assertEquals(1, tracker.expireSessions(10_000));
+        tracker.heartbeat(1L, 10, 10, 20_000);
+
+        WatchTimeTracker.Snapshot snapshot = tracker.snapshot();
+        assertEquals(2, snapshot.getSessions());
+        assertEquals(1, snapshot.getUniqueViewers());
+        assertEquals(2, snapshot.getSegmentViews()[0]);
+    }
+
+    @Test
+    void restore_ShouldCarryOnFromPersistedTotals() {
+        WatchTimeTracker original = new WatchTimeTracker(100, 10);
+        original.heartbeat(1L, 50, 50, 0);
+        WatchTimeTracker.Snapshot saved = original.snapshot();
+
+        WatchTimeTracker restored = WatchTimeTracker.restore(100, HyperLogLog.fromBytes(saved.getViewers().toBytes()),
+                saved.getWatchSeconds(), saved.getSessions(), saved.getSegmentViews(), saved.getCompletion());
+        restored.heartbeat(2L, 10, 10, 0);
+
+        WatchTimeTracker.Snapshot snapshot = restored.snapshot();
+        assertEquals(60, snapshot.getWatchSeconds());
+        assertEquals(2, snapshot.getSessions());
+        assertEquals(2, snapshot.getUniqueViewers());
+        assertEquals(2, snapshot.getSegmentViews()[0]);
+        assertTrue(restored.takeDirty());
+        assertFalse(restored.takeDirty());
+    }
+}
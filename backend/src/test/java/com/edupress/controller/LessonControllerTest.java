@@ -2,6 +2,7 @@ package com.edupress.controller;
 
 import com.edupress.config.TestSecurityConfig;
 import com.edupress.model.Lesson;
+import com.edupress.service.EngagementAnalyticsService;
 import com.edupress.service.LessonService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -41,6 +42,9 @@ class LessonControllerTest {
     @MockBean
     private LessonService lessonService;
 
+    @MockBean
+    private EngagementAnalyticsService engagementAnalyticsService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -0,0 +1,141 @@
+package com.edupress.export;
+
+import com.edupress.service.ExportService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportWritersTest {
+
+    private static final String[] COLUMNS = {"id", "name", "amount", "active", "createdAt"};
+
+    @Test
+    void csv_ShouldQuoteFieldsThatNeedIt() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<Object[]> rows = List.of(
+                new Object[] {1L, "plain", new BigDecimal("9.50"), true, LocalDateTime.of(2024, 1, 2, 3, 4)},
+                new Object[] {2L, "has, comma and \"quotes\"", null, false, null});
+
+        long written = ExportService.writeRows(rows.iterator(), out, ExportFormat.CSV, false, COLUMNS);
+
+        assertEquals(2, written);
+        assertEquals("id,name,amount,active,createdAt\r\n"
+                + "1,plain,9.50,true,2024-01-02T03:04\r\n"
+                + "2,\"has, comma and \"\"quotes\"\"\",,false,\r\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void ndjson_ShouldWriteOneObjectPerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<Object[]> rows = List.of(
+                new Object[] {1L, "a\"b", new BigDecimal("1.25"), true, null},
+                new Object[] {2L, "c", null, false, null});
+
+        ExportService.writeRows(rows.iterator(), out, ExportFormat.NDJSON, false, COLUMNS);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"id\":1,\"name\":\"a\\\"b\",\"amount\":1.25,\"active\":true,\"createdAt\":null}", lines[0]);
+    }
+
+    @Test
+    void gzip_ShouldProduceAValidStreamWithoutClosingTheTarget() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                fail("export must not close the response stream");
+            }
+        };
+        List<Object[]> rows = List.<Object[]>of(new Object[] {1L, "x", null, true, null});
+
+        ExportService.writeRows(rows.iterator(), out, ExportFormat.CSV, true, COLUMNS);
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            String csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(csv.endsWith("1,x,,true,\r\n"));
+        }
+    }
+
+    /**
+     * Run with {@code mvn test -Dtest=ExportWritersTest -Dbenchmark=true}. Generates rows on the
+     * fly so the only thing that could grow with row count is the export pipeline itself. The
+     * repository streams and their database cursors are not part of it.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark_ShouldExportFiveMillionRowsInBoundedMemory() throws Exception {
+        int total = 5_000_000;
+        for (ExportFormat format : ExportFormat.values()) {
+            for (boolean gzip : new boolean[] {false, true}) {
+                CountingOutputStream out = new CountingOutputStream();
+                Runtime runtime = Runtime.getRuntime();
+                System.gc();
+                long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+                long peakHeap = heapBefore;
+                long start = System.nanoTime();
+
+                GeneratedRows rows = new GeneratedRows(total);
+                long written = ExportService.writeRows(rows, out, format, gzip, COLUMNS);
+                peakHeap = Math.max(peakHeap, rows.peakHeap);
+
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                System.out.printf("%s%s: %d rows, %d MB out, %d ms, peak heap growth %d MB%n",
+                        format, gzip ? "+gzip" : "", written, out.count >> 20, millis,
+                        (peakHeap - heapBefore) >> 20);
+                assertEquals(total, written);
+            }
+        }
+    }
+
+    private static final class GeneratedRows implements Iterator<Object[]> {
+        private final int total;
+        private final LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        private int next;
+        private long peakHeap;
+
+        private GeneratedRows(int total) {
+            this.total = total;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < total;
+        }
+
+        @Override
+        public Object[] next() {
+            int i = next++;
+            if ((i & 0xFFFFF) == 0) {
+                Runtime runtime = Runtime.getRuntime();
+                peakHeap = Math.max(peakHeap, runtime.totalMemory() - runtime.freeMemory());
+            }
+            return new Object[] {(long) i, "user" + i + "@example.com", BigDecimal.valueOf(i % 10_000, 2),
+                    (i & 1) == 0, base.plusSeconds(i)};
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.edupress.media;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MimeSnifferTest {
+
+    @Test
+    void sniff_ShouldRecognizeUploadFormatsByTheirLeadingBytes() {
+        assertEquals("image/jpeg", MimeSniffer.sniff(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0}));
+        assertEquals("image/png", MimeSniffer.sniff(new byte[]{(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A}));
+        assertEquals("application/pdf", MimeSniffer.sniff("%PDF-1.7\n".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals("video/mp4", MimeSniffer.sniff(new byte[]{0, 0, 0, 0x20, 'f', 't', 'y', 'p', 'i', 's', 'o', 'm'}));
+        assertEquals("image/webp", MimeSniffer.sniff("RIFF\0\0\0\0WEBPVP8 ".getBytes(StandardCharsets.US_ASCII)));
+        assertNull(MimeSniffer.sniff("plain text".getBytes(StandardCharsets.US_ASCII)));
+        assertNull(MimeSniffer.sniff(new byte[0]));
+    }
+
+    @Test
+    void matchesExtension_ShouldRejectContentDisguisedAsAnotherFormat() {
+        assertTrue(MimeSniffer.matchesExtension("image/jpeg", "JPG"));
+        assertTrue(MimeSniffer.matchesExtension("application/zip", "docx"));
+        assertTrue(MimeSniffer.matchesExtension(null, "txt"));
+
+        assertFalse(MimeSniffer.matchesExtension("application/pdf", "png"));
+        assertFalse(MimeSniffer.matchesExtension(null, "mp4"));
+    }
+}
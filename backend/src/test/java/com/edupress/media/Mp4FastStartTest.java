@@ -0,0 +1,123 @@
+package com.edupress.media;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Mp4FastStartTest {
+
+    private static final byte[] FIRST_CHUNK = "CHUNK-ONE".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SECOND_CHUNK = "CHUNK-TWO".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void parse_ShouldReadTheMoovAtomAtTheEndOfTheFile() throws Exception {
+        Path file = Files.write(dir.resolve("lecture.mp4"), moovLastMp4());
+
+        Mp4Info info = Mp4Parser.parse(file);
+
+        assertEquals(12.5, info.getDurationSeconds(), 1e-9);
+        assertEquals(1280, info.getWidth());
+        assertEquals(720, info.getHeight());
+        assertEquals("avc1", info.getVideoCodec());
+        assertNull(info.getAudioCodec());
+        assertEquals(12L, info.getBitrate());
+        assertFalse(info.isFastStart());
+
+        byte[] noise = new byte[4096];
+        new Random(7).nextBytes(noise);
+        assertNull(Mp4Parser.parse(Files.write(dir.resolve("noise.mp4"), noise)));
+    }
+
+    @Test
+    void rewrite_ShouldMoveMoovFirstAndKeepChunkOffsetsPointingAtTheirData() throws Exception {
+        Path source = Files.write(dir.resolve("lecture.mp4"), moovLastMp4());
+        Path target = dir.resolve("lecture-faststart.mp4");
+
+        assertTrue(Mp4FastStart.rewrite(source, target));
+
+        byte[] rewritten = Files.readAllBytes(target);
+        assertEquals(Files.size(source), rewritten.length);
+        Mp4Info info = Mp4Parser.parse(target);
+        assertTrue(info.isFastStart());
+        assertEquals(12.5, info.getDurationSeconds(), 1e-9);
+
+        ByteBuffer buffer = ByteBuffer.wrap(rewritten);
+        int stco = indexOf(rewritten, "stco".getBytes(StandardCharsets.US_ASCII)) + 4;
+        assertEquals(2, buffer.getInt(stco + 4));
+        assertChunkAt(rewritten, buffer.getInt(stco + 8), FIRST_CHUNK);
+        assertChunkAt(rewritten, buffer.getInt(stco + 12), SECOND_CHUNK);
+
+        assertFalse(Mp4FastStart.rewrite(target, dir.resolve("again.mp4")));
+        assertFalse(Files.exists(dir.resolve("again.mp4")));
+    }
+
+    // ftyp, then mdat holding two chunks, then moov, the layout most encoders write by default
+    private static byte[] moovLastMp4() {
+        byte[] ftyp = box("ftyp", ascii("isom"), ints(0x200), ascii("isom"));
+        int firstChunk = ftyp.length + 8;
+        byte[] mdat = box("mdat", FIRST_CHUNK, SECOND_CHUNK);
+
+        byte[] mvhd = box("mvhd", ints(0, 0, 0, 1000, 12500), new byte[80]);
+        byte[] tkhd = box("tkhd", new byte[76], ints(1280 << 16, 720 << 16));
+        byte[] hdlr = box("hdlr", ints(0, 0), ascii("vide"), new byte[13]);
+        byte[] stsd = box("stsd", ints(0, 1), box("avc1", new byte[8]));
+        byte[] stco = box("stco", ints(0, 2, firstChunk, firstChunk + FIRST_CHUNK.length));
+        byte[] trak = box("trak", tkhd, box("mdia", hdlr, box("minf", box("stbl", stsd, stco))));
+        return concat(ftyp, mdat, box("moov", mvhd, trak));
+    }
+
+    private static byte[] box(String type, byte[]... parts) {
+        byte[] content = concat(parts);
+        return concat(ints(content.length + 8), ascii(type), content);
+    }
+
+    private static byte[] ints(int... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 4);
+        for (int value : values) {
+            buffer.putInt(value);
+        }
+        return buffer.array();
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern) {
+        outer:
+        for (int i = 0; i <= data.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static void assertChunkAt(byte[] file, int offset, byte[] chunk) {
+        byte[] actual = new byte[chunk.length];
+        System.arraycopy(file, offset, actual, 0, chunk.length);
+        assertArrayEquals(chunk, actual);
+    }
+}
@@ -0,0 +1,212 @@
+package com.edupress.media;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Context;
+import org.apache.catalina.startup.Tomcat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RangeFileSenderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void parse_ShouldHandleClosedOpenAndSuffixRangesAndCoalesceOverlaps() {
+        assertEquals(List.of(new ByteRange(0, 99)), ByteRange.parse("bytes=0-99", 1000));
+        assertEquals(List.of(new ByteRange(900, 999)), ByteRange.parse("bytes=900-", 1000));
+        assertEquals(List.of(new ByteRange(950, 999)), ByteRange.parse("bytes=-50", 1000));
+        assertEquals(List.of(new ByteRange(0, 999)), ByteRange.parse("bytes=0-5000", 1000));
+        assertEquals(List.of(new ByteRange(0, 199), new ByteRange(500, 599)),
+                ByteRange.parse("bytes=500-599, 100-199, 0-150", 1000));
+
+        // Unsatisfiable: valid syntax, but nothing inside the file
+        assertEquals(List.of(), ByteRange.parse("bytes=1000-1100", 1000));
+        // Invalid or unsupported: ignored, the whole file is sent
+        assertNull(ByteRange.parse("bytes=50-10", 1000));
+        assertNull(ByteRange.parse("items=0-10", 1000));
+        assertNull(ByteRange.parse("bytes=abc", 1000));
+        assertNull(ByteRange.parse("bytes=" + "0-1,".repeat(ByteRange.MAX_RANGES) + "5-6", 1000));
+    }
+
+    @Test
+    void send_ShouldAnswerRangeRequestsWithPartialContent() throws Exception {
+        Path file = videoFile(1000);
+
+        MockHttpServletResponse single = send(get("bytes=100-199"), file);
+        assertEquals(206, single.getStatus());
+        assertEquals("bytes 100-199/1000", single.getHeader("Content-Range"));
+        assertEquals("bytes", single.getHeader("Accept-Ranges"));
+        assertEquals("video/mp4", single.getContentType());
+        assertArrayEquals(slice(file, 100, 100), single.getContentAsByteArray());
+
+        MockHttpServletResponse multi = send(get("bytes=0-9,990-"), file);
+        assertEquals(206, multi.getStatus());
+        assertTrue(multi.getContentType().startsWith("multipart/byteranges; boundary="));
+        String body = new String(multi.getContentAsByteArray(), StandardCharsets.ISO_8859_1);
+        assertTrue(body.contains("Content-Range: bytes 0-9/1000"));
+        assertTrue(body.contains("Content-Range: bytes 990-999/1000"));
+        assertEquals(multi.getContentAsByteArray().length, multi.getContentLengthLong());
+
+        MockHttpServletResponse unsatisfiable = send(get("bytes=2000-"), file);
+        assertEquals(416, unsatisfiable.getStatus());
+        assertEquals("bytes */1000", unsatisfiable.getHeader("Content-Range"));
+    }
+
+    @Test
+    void send_ShouldHonourValidators() throws Exception {
+        Path file = videoFile(1000);
+        MockHttpServletResponse first = send(get(null), file);
+        assertEquals(200, first.getStatus());
+        assertEquals(1000, first.getContentAsByteArray().length);
+        String etag = first.getHeader("ETag");
+        assertNotNull(first.getHeader("Last-Modified"));
+        assertEquals("private, max-age=60", first.getHeader("Cache-Control"));
+
+        MockHttpServletRequest revalidate = get(null);
+        revalidate.addHeader("If-None-Match", etag);
+        MockHttpServletResponse notModified = send(revalidate, file);
+        assertEquals(304, notModified.getStatus());
+        assertEquals(0, notModified.getContentAsByteArray().length);
+
+        // A stale If-Range means the cached copy is outdated: send the whole new file
+        MockHttpServletRequest staleRange = get("bytes=0-9");
+        staleRange.addHeader("If-Range", "\"stale\"");
+        assertEquals(200, send(staleRange, file).getStatus());
+
+        MockHttpServletRequest currentRange = get("bytes=0-9");
+        currentRange.addHeader("If-Range", etag);
+        assertEquals(206, send(currentRange, file).getStatus());
+    }
+
+    /**
+     * Run with {@code mvn test -Dtest=RangeFileSenderTest -Dbenchmark=true}. Serves a 64 MB file
+     * from an embedded Tomcat (sendfile on, as in production) to 500 concurrent clients, each of
+     * which seeks to random offsets and reads 1 MB ranges, the pattern of a player scrubbing
+     * through a lecture.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark_ShouldServeFiveHundredSeekingClients() throws Exception {
+        int fileSize = 64 * 1024 * 1024;
+        int rangeSize = 1024 * 1024;
+        int clients = 500;
+        int seeksPerClient = 20;
+        Path file = videoFile(fileSize);
+
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(dir.resolve("tomcat").toString());
+        tomcat.setPort(0);
+        tomcat.getConnector().setProperty("maxThreads", "200");
+        Context context = tomcat.addContext("", dir.toString());
+        Tomcat.addServlet(context, "video", new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                RangeFileSender.send(request, response, file, "private, max-age=60");
+            }
+        });
+        context.addServletMappingDecoded("/video", "video");
+        tomcat.start();
+        try {
+            URI uri = URI.create("http://localhost:" + tomcat.getConnector().getLocalPort() + "/video");
+            ExecutorService pool = Executors.newFixedThreadPool(clients);
+            HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            AtomicLong bytes = new AtomicLong();
+            AtomicLong failures = new AtomicLong();
+            CountDownLatch done = new CountDownLatch(clients);
+            long start = System.nanoTime();
+            for (int c = 0; c < clients; c++) {
+                long seed = c;
+                pool.execute(() -> {
+                    Random random = new Random(seed);
+                    byte[] buffer = new byte[64 * 1024];
+                    try {
+                        for (int i = 0; i < seeksPerClient; i++) {
+                            long offset = (long) random.nextInt(fileSize / rangeSize) * rangeSize;
+                            HttpRequest request = HttpRequest.newBuilder(uri)
+                                    .header("Range", "bytes=" + offset + "-" + (offset + rangeSize - 1)).build();
+                            HttpResponse<InputStream> response = http.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                            try (InputStream in = response.body()) {
+                                long read = 0;
+                                for (int n; (n = in.read(buffer)) > 0; ) {
+                                    read += n;
+                                }
+                                if (response.statusCode() != 206 || read != rangeSize) {
+                                    failures.incrementAndGet();
+                                }
+                                bytes.addAndGet(read);
+                            }
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            assertTrue(done.await(10, TimeUnit.MINUTES));
+            double seconds = (System.nanoTime() - start) / 1e9;
+            pool.shutdownNow();
+            System.out.printf("%d clients x %d seeks: %.1f requests/s, %.0f MB/s, %d failures%n",
+                    clients, seeksPerClient, clients * seeksPerClient / seconds,
+                    bytes.get() / seconds / (1024 * 1024), failures.get());
+            assertEquals(0, failures.get());
+        } finally {
+            tomcat.stop();
+            tomcat.destroy();
+        }
+    }
+
+    private Path videoFile(int size) throws IOException {
+        byte[] data = new byte[size];
+        new Random(42).nextBytes(data);
+        Path file = dir.resolve("lecture-" + size + ".mp4");
+        Files.write(file, data);
+        return file;
+    }
+
+    private static byte[] slice(Path file, int offset, int length) throws IOException {
+        byte[] all = Files.readAllBytes(file);
+        byte[] part = new byte[length];
+        System.arraycopy(all, offset, part, 0, length);
+        return part;
+    }
+
+    private static MockHttpServletRequest get(String range) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/videos/1/stream");
+        if (range != null) {
+            request.addHeader("Range", range);
+        }
+        return request;
+    }
+
+    private static MockHttpServletResponse send(MockHttpServletRequest request, Path file) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RangeFileSender.send(request, response, file, "private, max-age=60");
+        return response;
+    }
+}
@@ -0,0 +1,97 @@
+package com.edupress.media;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentCacheTest {
+
+    private static final int SEGMENT = 4096;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void oneOffReads_ShouldNotEvictSegmentsThatAreReadOften() throws Exception {
+        byte[] data = randomBytes(SEGMENT * 4);
+        Path file = Files.write(dir.resolve("launch.mp4"), data);
+        SegmentCache cache = new SegmentCache(SEGMENT, SEGMENT * 2L);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (int i = 0; i < 5; i++) {
+                read(cache, channel, 0, data.length).release();
+                read(cache, channel, 1, data.length).release();
+            }
+            assertEquals(2, cache.getMisses());
+            assertEquals(8, cache.getHits());
+
+            // Asked for once: colder than both residents, so it isn't cached
+            assertNull(cache.acquire("launch", 3, channel, data.length));
+            assertEquals(1, cache.getRejections());
+
+            // Held while segment 2 becomes hot enough to evict it: its bytes stay intact until released
+            SegmentCache.Segment held = read(cache, channel, 0, data.length);
+            for (int i = 0; i < 10 && cache.getEvictions() == 0; i++) {
+                SegmentCache.Segment hot = cache.acquire("launch", 2, channel, data.length);
+                if (hot != null) {
+                    hot.release();
+                }
+            }
+            assertEquals(1, cache.getEvictions());
+            assertArrayEquals(Arrays.copyOfRange(data, 0, SEGMENT), bytes(held.slice(0, SEGMENT)));
+            held.release();
+        }
+        assertEquals(SEGMENT * 2L, cache.getResidentBytes());
+    }
+
+    @Test
+    void rangeAcrossSegments_ShouldBeServedFromTheCacheOnceHot() throws Exception {
+        byte[] data = randomBytes(SEGMENT * 3 + 100);
+        Path file = Files.write(dir.resolve("intro.mp4"), data);
+        SegmentCache cache = new SegmentCache(SEGMENT, SEGMENT * 8L);
+
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/media/intro.mp4");
+            request.addHeader("Range", "bytes=1000-" + (SEGMENT * 3 + 49));
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            RangeFileSender.send(request, response, file, null, cache);
+
+            assertEquals(206, response.getStatus());
+            assertArrayEquals(Arrays.copyOfRange(data, 1000, SEGMENT * 3 + 50), response.getContentAsByteArray());
+        }
+        assertEquals(4, cache.getMisses());
+        assertEquals(4, cache.getHits());
+        assertEquals(2L * (SEGMENT * 3 + 50 - 1000), cache.getServedBytes());
+    }
+
+    private static SegmentCache.Segment read(SegmentCache cache, FileChannel channel, long index, long length)
+            throws Exception {
+        SegmentCache.Segment segment = cache.acquire("launch", index, channel, length);
+        assertNotNull(segment);
+        return segment;
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        new Random(42).nextBytes(data);
+        return data;
+    }
+}
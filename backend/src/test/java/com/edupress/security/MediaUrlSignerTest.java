@@ -0,0 +1,44 @@
+package com.edupress.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MediaUrlSignerTest {
+
+    // Any 64 hex digits form a valid key
+    private static final String KEY = "1f1a4f53b6b7ac0b1dc9a1f3c7ff6c4b2c33a8e4c3a0b70bd4c7ac3b8c2a1f00.mp4";
+
+    private final MediaUrlSigner signer = new MediaUrlSigner("test-signing-secret");
+
+    @Test
+    void signedUrl_ShouldVerifyOnlyWithTheParametersItWasSignedFor() {
+        Instant expiry = Instant.now().plusSeconds(600);
+        UriComponents url = UriComponentsBuilder.fromUriString(signer.sign(KEY, expiry, 480, false)).build();
+        long exp = Long.parseLong(url.getQueryParams().getFirst("exp"));
+        String sig = url.getQueryParams().getFirst("sig");
+
+        assertEquals("/media/" + KEY, url.getPath());
+        assertTrue(signer.verify(KEY, exp, 480, false, sig));
+
+        assertFalse(signer.verify(KEY.replace("1f1a", "2f1a"), exp, 480, false, sig));
+        assertFalse(signer.verify(KEY, exp + 3600, 480, false, sig));
+        assertFalse(signer.verify(KEY, exp, 1280, false, sig));
+        assertFalse(signer.verify(KEY, exp, 480, true, sig));
+        assertFalse(signer.verify(KEY, exp, 480, false, null));
+        assertFalse(new MediaUrlSigner("rotated-secret").verify(KEY, exp, 480, false, sig));
+    }
+
+    @Test
+    void expiredUrl_ShouldNotVerify() {
+        Instant expiry = Instant.now().minusSeconds(1);
+        String sig = UriComponentsBuilder.fromUriString(signer.sign(KEY, expiry, null, true)).build()
+                .getQueryParams().getFirst("sig");
+
+        assertFalse(signer.verify(KEY, expiry.getEpochSecond(), null, true, sig));
+    }
+}
@@ -0,0 +1,325 @@
+package com.edupress.service;
+
+import com.edupress.model.CohortFunnel;
+import com.edupress.model.CohortRetention;
+import com.edupress.model.CohortRetention.CohortType;
+import com.edupress.model.JobCheckpoint;
+import com.edupress.repository.AssignmentSubmissionRepository;
+import com.edupress.repository.CertificateRepository;
+import com.edupress.repository.CohortFunnelRepository;
+import com.edupress.repository.CohortRetentionRepository;
+import com.edupress.repository.EnrollmentRecordRepository;
+import com.edupress.repository.JobCheckpointRepository;
+import com.edupress.repository.LessonProgressRepository;
+import com.edupress.repository.LessonRepository;
+import com.edupress.repository.QuizAttemptRepository;
+import com.edupress.repository.QuizRepository;
+import com.edupress.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CohortAnalyticsServiceTest {
+
+    // Three weeks back, so the cohort has offsets 0 to 3
+    private static final LocalDate WEEK = CohortAnalyticsService.weekOf(LocalDate.now()).minusWeeks(3);
+
+    // Source data: student sign-up times, [userId, at] lesson activity and [userId, courseId, at] enrollments
+    private final Map<Long, LocalDateTime> students = new HashMap<>();
+    private final List<Object[]> lessonActivity = new ArrayList<>();
+    private final List<Object[]> enrollments = new ArrayList<>();
+
+    // Result tables and the job checkpoint
+    private final List<CohortRetention> retention = new ArrayList<>();
+    private final List<CohortFunnel> funnels = new ArrayList<>();
+    private JobCheckpoint checkpoint;
+
+    private volatile boolean failSignupCohorts;
+
+    private UserRepository userRepository;
+    private CohortAnalyticsService service;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findStudentIdsCreatedBetween(any(), any())).thenAnswer(invocation -> {
+            if (failSignupCohorts) {
+                throw new IllegalStateException("database went away");
+            }
+            return students.entrySet().stream()
+                    .filter(student -> within(student.getValue(), invocation.getArgument(0), invocation.getArgument(1)))
+                    .map(Map.Entry::getKey).sorted().toList();
+        });
+        when(userRepository.findStudentSignupTimesTouchedSince(any(), any())).thenAnswer(invocation ->
+                students.entrySet().stream()
+                        .filter(student -> touchedSince(student.getKey(), student.getValue(), invocation.getArgument(0)))
+                        .map(Map.Entry::getValue).toList());
+
+        EnrollmentRecordRepository enrollmentRecordRepository = mock(EnrollmentRecordRepository.class);
+        when(enrollmentRecordRepository.findEnrolledBetween(any(), any())).thenAnswer(invocation -> enrollments.stream()
+                .filter(row -> within((LocalDateTime) row[2], invocation.getArgument(0), invocation.getArgument(1)))
+                .map(row -> new Object[] {row[0], row[1]}).toList());
+        when(enrollmentRecordRepository.findEnrollmentTimesTouchedSince(any(), any())).thenAnswer(invocation -> enrollments.stream()
+                .filter(row -> touchedSince((Long) row[0], (LocalDateTime) row[2], invocation.getArgument(0)))
+                .map(row -> (LocalDateTime) row[2]).toList());
+
+        LessonProgressRepository lessonProgressRepository = mock(LessonProgressRepository.class);
+        when(lessonProgressRepository.findActivityBetween(anyCollection(), any(), any())).thenAnswer(invocation -> {
+            Collection<Long> userIds = invocation.getArgument(0);
+            return lessonActivity.stream()
+                    .filter(row -> userIds.contains((Long) row[0])
+                            && within((LocalDateTime) row[1], invocation.getArgument(1), invocation.getArgument(2)))
+                    .toList();
+        });
+        // Completed lessons: user 1 all four of course 10, user 2 half, user 3 one; one of two in course 20
+        when(lessonProgressRepository.countByUserAndCourse(anyCollection())).thenReturn(List.of(
+                new Object[] {1L, 10L, 4L},
+                new Object[] {2L, 10L, 2L},
+                new Object[] {3L, 10L, 1L},
+                new Object[] {1L, 20L, 1L}));
+
+        LessonRepository lessonRepository = mock(LessonRepository.class);
+        when(lessonRepository.countGroupedByCourse()).thenReturn(List.of(
+                new Object[] {10L, 4L},
+                new Object[] {20L, 2L}));
+        QuizRepository quizRepository = mock(QuizRepository.class);
+        when(quizRepository.findCourseIdsWithActiveQuizzes()).thenReturn(List.of(10L));
+        QuizAttemptRepository quizAttemptRepository = mock(QuizAttemptRepository.class);
+        when(quizAttemptRepository.findPassedUserCourses(anyCollection())).thenReturn(List.of(
+                new Object[] {1L, 10L},
+                new Object[] {3L, 10L}));
+        CertificateRepository certificateRepository = mock(CertificateRepository.class);
+        when(certificateRepository.findCertifiedUserCourses(anyCollection())).thenReturn(List.<Object[]>of(
+                new Object[] {1L, 10L}));
+
+        CohortRetentionRepository retentionRepository = mock(CohortRetentionRepository.class);
+        when(retentionRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            List<CohortRetention> rows = new ArrayList<>();
+            invocation.<Iterable<CohortRetention>>getArgument(0).forEach(rows::add);
+            synchronized (retention) {
+                retention.addAll(rows);
+            }
+            return rows;
+        });
+        when(retentionRepository.deleteCohort(any(), any())).thenAnswer(invocation -> remove(retention, row ->
+                row.getCohortType() == invocation.getArgument(0) && row.getCohortWeek().equals(invocation.getArgument(1))));
+        when(retentionRepository.deleteOlderThan(any())).thenAnswer(invocation ->
+                remove(retention, row -> row.getCohortWeek().isBefore(invocation.getArgument(0))));
+        when(retentionRepository.findByCohortTypeAndCohortWeekGreaterThanEqualOrderByCohortWeekAscWeekOffsetAsc(any(), any()))
+                .thenAnswer(invocation -> {
+                    synchronized (retention) {
+                        return retention.stream()
+                                .filter(row -> row.getCohortType() == invocation.getArgument(0)
+                                        && !row.getCohortWeek().isBefore(invocation.getArgument(1)))
+                                .sorted(Comparator.comparing(CohortRetention::getCohortWeek)
+                                        .thenComparing(CohortRetention::getWeekOffset))
+                                .toList();
+                    }
+                });
+
+        CohortFunnelRepository funnelRepository = mock(CohortFunnelRepository.class);
+        when(funnelRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            List<CohortFunnel> rows = new ArrayList<>();
+            invocation.<Iterable<CohortFunnel>>getArgument(0).forEach(rows::add);
+            synchronized (funnels) {
+                funnels.addAll(rows);
+            }
+            return rows;
+        });
+        when(funnelRepository.deleteCohort(any())).thenAnswer(invocation ->
+                remove(funnels, row -> row.getCohortWeek().equals(invocation.getArgument(0))));
+        when(funnelRepository.deleteOlderThan(any())).thenAnswer(invocation ->
+                remove(funnels, row -> row.getCohortWeek().isBefore(invocation.getArgument(0))));
+        when(funnelRepository.sumByWeekSince(any())).thenAnswer(invocation ->
+                sumFunnels(invocation.getArgument(0), null));
+        when(funnelRepository.sumByWeekSinceForCourses(any(), anyCollection())).thenAnswer(invocation ->
+                sumFunnels(invocation.getArgument(0), invocation.getArgument(1)));
+
+        JobCheckpointRepository checkpointRepository = mock(JobCheckpointRepository.class);
+        when(checkpointRepository.findById(CohortAnalyticsService.JOB_NAME)).thenAnswer(invocation ->
+                Optional.ofNullable(checkpoint).map(CohortAnalyticsServiceTest::copy));
+        when(checkpointRepository.save(any(JobCheckpoint.class))).thenAnswer(invocation -> {
+            checkpoint = copy(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+
+        service = new CohortAnalyticsService();
+        ReflectionTestUtils.setField(service, "userRepository", userRepository);
+        ReflectionTestUtils.setField(service, "enrollmentRecordRepository", enrollmentRecordRepository);
+        ReflectionTestUtils.setField(service, "lessonProgressRepository", lessonProgressRepository);
+        ReflectionTestUtils.setField(service, "lessonRepository", lessonRepository);
+        ReflectionTestUtils.setField(service, "quizRepository", quizRepository);
+        ReflectionTestUtils.setField(service, "quizAttemptRepository", quizAttemptRepository);
+        ReflectionTestUtils.setField(service, "assignmentSubmissionRepository", mock(AssignmentSubmissionRepository.class));
+        ReflectionTestUtils.setField(service, "certificateRepository", certificateRepository);
+        ReflectionTestUtils.setField(service, "cohortRetentionRepository", retentionRepository);
+        ReflectionTestUtils.setField(service, "cohortFunnelRepository", funnelRepository);
+        ReflectionTestUtils.setField(service, "jobCheckpointRepository", checkpointRepository);
+        ReflectionTestUtils.setField(service, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(service, "horizonWeeks", 6);
+        ReflectionTestUtils.setField(service, "retentionWeeks", 12);
+        ReflectionTestUtils.setField(service, "threads", 2);
+        service.init();
+
+        // Four students sign up during the cohort week and enroll that day
+        for (long user = 1; user <= 4; user++) {
+            LocalDateTime signedUp = WEEK.plusDays(1).atTime(9, 0).plusMinutes(user);
+            students.put(user, signedUp);
+            lessonActivity.add(new Object[] {user, signedUp.plusHours(1)});
+            enrollments.add(new Object[] {user, 10L, signedUp.plusMinutes(30)});
+        }
+        enrollments.add(new Object[] {1L, 20L, WEEK.plusDays(2).atTime(12, 0)});
+        enrollments.add(new Object[] {2L, 20L, WEEK.plusDays(2).atTime(12, 0)});
+        // Users 1 and 2 come back the week after, user 1 twice; only user 1 the week after that
+        lessonActivity.add(new Object[] {1L, WEEK.plusWeeks(1).plusDays(3).atTime(18, 0)});
+        lessonActivity.add(new Object[] {1L, WEEK.plusWeeks(1).plusDays(4).atTime(18, 0)});
+        lessonActivity.add(new Object[] {2L, WEEK.plusWeeks(1).atTime(8, 0)});
+        lessonActivity.add(new Object[] {1L, WEEK.plusWeeks(2).plusDays(6).atTime(23, 59)});
+        // Someone outside the cohort is never counted
+        students.put(5L, WEEK.minusDays(1).atTime(9, 0));
+        lessonActivity.add(new Object[] {5L, WEEK.plusWeeks(1).atTime(8, 0)});
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void refresh_ShouldBuildTheRetentionMatrixOfAFixedCohort() {
+        CohortAnalyticsService.RunResult result = service.refresh(true);
+
+        assertTrue(result.isFull());
+        assertEquals(6, result.getSignupCohorts());
+        List<CohortAnalyticsService.RetentionCurve> curves = service.getRetention(CohortType.SIGNUP, 6);
+        assertEquals(List.of(WEEK.minusWeeks(1), WEEK), curves.stream().map(CohortAnalyticsService.RetentionCurve::getCohortWeek).toList());
+        CohortAnalyticsService.RetentionCurve cohort = curves.get(1);
+        assertEquals(4, cohort.getCohortSize());
+        assertArrayEquals(new int[] {4, 2, 1, 0}, cohort.getActiveUsers());
+        // The earlier single-member cohort was active only in its second week
+        assertArrayEquals(new int[] {0, 0, 1, 0, 0}, curves.get(0).getActiveUsers());
+    }
+
+    @Test
+    void refresh_ShouldCountEachFunnelStage() {
+        service.refresh(true);
+
+        List<CohortAnalyticsService.FunnelWeek> all = service.getFunnel(null, 6);
+        assertEquals(1, all.size());
+        assertFunnel(all.get(0), 6, 4, 3, 2, 1);
+        // Course 10 has a quiz: user 2 is half way but never passed it, user 3 passed without reaching half
+        assertFunnel(service.getFunnel(List.of(10L), 6).get(0), 4, 3, 2, 1, 1);
+        // Course 20 has none, so reaching half lets user 1 through the quiz step
+        assertFunnel(service.getFunnel(List.of(20L), 6).get(0), 2, 1, 1, 1, 0);
+        assertEquals(List.of(), service.getFunnel(List.of(), 6));
+    }
+
+    @Test
+    void refresh_ShouldResumeFromTheLastCheckpointAfterAPartialRebuild() {
+        service.refresh(true);
+        JobCheckpoint first = service.getLastRun().orElseThrow();
+        assertNotNull(first.getWatermark());
+
+        // User 3 comes back this week, but the signup cohort fails to rebuild
+        lessonActivity.add(new Object[] {3L, LocalDateTime.now()});
+        failSignupCohorts = true;
+        assertThrows(RuntimeException.class, () -> service.refresh(false));
+
+        // The checkpoint has not moved, and the failed cohort keeps its previous rows
+        JobCheckpoint afterFailure = service.getLastRun().orElseThrow();
+        assertEquals(first.getWatermark(), afterFailure.getWatermark());
+        assertEquals(first.getLastRunAt(), afterFailure.getLastRunAt());
+        assertArrayEquals(new int[] {4, 2, 1, 0}, service.getRetention(CohortType.SIGNUP, 6).get(1).getActiveUsers());
+
+        // The next run starts from the same watermark and picks the cohort up again
+        failSignupCohorts = false;
+        CohortAnalyticsService.RunResult resumed = service.refresh(false);
+        assertFalse(resumed.isFull());
+        assertEquals(1, resumed.getSignupCohorts());
+        assertEquals(1, resumed.getEnrollmentCohorts());
+        assertArrayEquals(new int[] {4, 2, 1, 1}, service.getRetention(CohortType.SIGNUP, 6).get(1).getActiveUsers());
+        assertTrue(service.getLastRun().orElseThrow().getWatermark().isAfter(first.getWatermark()));
+        // Rebuilding one cohort does not duplicate its rows
+        assertEquals(4, retention.stream()
+                .filter(row -> row.getCohortType() == CohortType.SIGNUP && row.getCohortWeek().equals(WEEK)).count());
+    }
+
+    private static void assertFunnel(CohortAnalyticsService.FunnelWeek week, long enrolled, long startedLesson,
+                                     long halfCompleted, long passedQuiz, long certified) {
+        assertEquals(WEEK, week.getCohortWeek());
+        assertEquals(enrolled, week.getEnrolled());
+        assertEquals(startedLesson, week.getStartedLesson());
+        assertEquals(halfCompleted, week.getHalfCompleted());
+        assertEquals(passedQuiz, week.getPassedQuiz());
+        assertEquals(certified, week.getCertified());
+    }
+
+    // A member is touched when they signed up or enrolled, or did anything, since the watermark
+    private boolean touchedSince(Long userId, LocalDateTime joinedAt, LocalDateTime since) {
+        return !joinedAt.isBefore(since) || lessonActivity.stream()
+                .anyMatch(row -> row[0].equals(userId) && !((LocalDateTime) row[1]).isBefore(since));
+    }
+
+    private static boolean within(LocalDateTime at, LocalDateTime from, LocalDateTime to) {
+        return !at.isBefore(from) && at.isBefore(to);
+    }
+
+    private static <T> int remove(List<T> table, Predicate<T> filter) {
+        synchronized (table) {
+            int before = table.size();
+            table.removeIf(filter);
+            return before - table.size();
+        }
+    }
+
+    private List<Object[]> sumFunnels(LocalDate since, Collection<Long> courseIds) {
+        Map<LocalDate, long[]> sums = new HashMap<>();
+        synchronized (funnels) {
+            for (CohortFunnel row : funnels) {
+                if (row.getCohortWeek().isBefore(since) || (courseIds != null && !courseIds.contains(row.getCourseId()))) {
+                    continue;
+                }
+                long[] sum = sums.computeIfAbsent(row.getCohortWeek(), week -> new long[5]);
+                sum[0] += row.getEnrolled();
+                sum[1] += row.getStartedLesson();
+                sum[2] += row.getHalfCompleted();
+                sum[3] += row.getPassedQuiz();
+                sum[4] += row.getCertified();
+            }
+        }
+        return sums.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> new Object[] {entry.getKey(), entry.getValue()[0], entry.getValue()[1],
+                        entry.getValue()[2], entry.getValue()[3], entry.getValue()[4]})
+                .toList();
+    }
+
+    private static JobCheckpoint copy(JobCheckpoint source) {
+        JobCheckpoint copy = new JobCheckpoint(source.getName());
+        copy.setWatermark(source.getWatermark());
+        copy.setLastRunAt(source.getLastRunAt());
+        copy.setLastDurationMs(source.getLastDurationMs());
+        return copy;
+    }
+}
@@ -0,0 +1,217 @@
+package com.edupress.service;
+
+import com.edupress.event.AssignmentEvent;
+import com.edupress.event.QuizAttemptEvent;
+import com.edupress.model.Course;
+import com.edupress.model.CourseAnalytics;
+import com.edupress.model.EnrollmentRecord;
+import com.edupress.model.User;
+import com.edupress.repository.CourseAnalyticsRepository;
+import com.edupress.repository.CourseRepository;
+import com.edupress.repository.EnrollmentRecordRepository;
+import com.edupress.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+class CourseAnalyticsServiceTest {
+
+    private static final BigDecimal MAX_SCORE = new BigDecimal("100");
+
+    @Autowired
+    private CourseAnalyticsService courseAnalyticsService;
+
+    @Autowired
+    private CourseAnalyticsRepository courseAnalyticsRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private EnrollmentRecordRepository enrollmentRecordRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User instructor;
+    private User student;
+    private Course course;
+
+    @BeforeEach
+    void setUp() {
+        instructor = user(User.Role.INSTRUCTOR);
+        student = user(User.Role.STUDENT);
+        // Saved directly, so the course has no analytics row until something builds one
+        course = courseRepository.save(new Course("Analytics " + UUID.randomUUID(), "description", BigDecimal.ZERO, instructor, null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.delete(student);
+        enrollmentRecordRepository.deleteAll(enrollmentRecordRepository.findAll().stream()
+                .filter(record -> record.getCourseId().equals(course.getId())).toList());
+        courseAnalyticsRepository.deleteById(course.getId());
+        courseRepository.delete(course);
+        userRepository.delete(instructor);
+    }
+
+    @Test
+    void onApplicationReady_ShouldRebuildCoursesWithoutARow() {
+        student.getEnrolledCourses().add(course);
+        student = userRepository.save(student);
+        enrollmentRecordRepository.save(new EnrollmentRecord(student.getId(), course.getId(), LocalDateTime.now()));
+        assertTrue(courseAnalyticsRepository.findCourseIdsWithoutAnalytics().contains(course.getId()));
+
+        courseAnalyticsService.onApplicationReady();
+
+        CourseAnalytics analytics = analytics();
+        assertEquals(instructor.getId(), analytics.getInstructorId());
+        assertEquals(1L, analytics.getActiveEnrollments());
+        assertEquals(1L, analytics.getTotalEnrollments());
+        assertEquals(0L, analytics.getUnenrollments());
+        assertFalse(courseAnalyticsRepository.findCourseIdsWithoutAnalytics().contains(course.getId()));
+
+        // A course that already has a row keeps it; the next startup leaves it alone
+        inTransaction(() -> eventPublisher.publishEvent(quizAttempt(80, true)));
+        courseAnalyticsService.onApplicationReady();
+        assertEquals(1L, analytics().getQuizAttempts());
+    }
+
+    @Test
+    void regrade_ShouldMoveTheSubmissionBetweenBandsUsingThePreviousScore() {
+        courseAnalyticsService.onApplicationReady();
+
+        inTransaction(() -> eventPublisher.publishEvent(submission(AssignmentEvent.Type.SUBMITTED, null, null)));
+        inTransaction(() -> eventPublisher.publishEvent(submission(AssignmentEvent.Type.GRADED, null, "95")));
+        assertGrades(1, 1, 0, 0, 0, 0);
+
+        // 95 to 72 moves the submission from A to C without grading it twice
+        inTransaction(() -> eventPublisher.publishEvent(submission(AssignmentEvent.Type.GRADED, "95", "72")));
+        assertGrades(1, 0, 0, 1, 0, 0);
+
+        // Within the same band nothing moves
+        inTransaction(() -> eventPublisher.publishEvent(submission(AssignmentEvent.Type.GRADED, "72", "78")));
+        assertGrades(1, 0, 0, 1, 0, 0);
+
+        inTransaction(() -> eventPublisher.publishEvent(submission(AssignmentEvent.Type.GRADED, "78", "12.5")));
+        assertGrades(1, 0, 0, 0, 0, 1);
+        assertEquals(1L, analytics().getSubmissions());
+    }
+
+    @Test
+    void events_ShouldMoveCountersOnlyWhenTheirTransactionCommits() {
+        courseAnalyticsService.onApplicationReady();
+
+        assertThrows(IllegalStateException.class, () -> inTransaction(() -> {
+            eventPublisher.publishEvent(quizAttempt(90, true));
+            eventPublisher.publishEvent(submission(AssignmentEvent.Type.GRADED, null, "95"));
+            throw new IllegalStateException("rolled back");
+        }));
+        CourseAnalytics unchanged = analytics();
+        assertEquals(0L, unchanged.getQuizAttempts());
+        assertEquals(0L, unchanged.getGradedSubmissions());
+
+        inTransaction(() -> eventPublisher.publishEvent(quizAttempt(90, true)));
+        assertEquals(1L, analytics().getQuizAttempts());
+    }
+
+    @Test
+    void concurrentEvents_ShouldAllLandThroughTheDeltaUpdates() throws Exception {
+        courseAnalyticsService.onApplicationReady();
+
+        int threads = 8, perThread = 25;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        int score = (thread * perThread + i) % 101;
+                        inTransaction(() -> {
+                            eventPublisher.publishEvent(quizAttempt(score, score >= 60));
+                            eventPublisher.publishEvent(submission(AssignmentEvent.Type.SUBMITTED, null, null));
+                        });
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        long attempts = threads * perThread, scoreSum = 0, passed = 0;
+        for (int n = 0; n < attempts; n++) {
+            scoreSum += n % 101;
+            passed += n % 101 >= 60 ? 1 : 0;
+        }
+        CourseAnalytics analytics = analytics();
+        assertEquals(attempts, analytics.getQuizAttempts());
+        assertEquals(passed, analytics.getQuizPassed());
+        assertEquals(scoreSum, analytics.getQuizScoreSum());
+        assertEquals(attempts * 100, analytics.getQuizMaxScoreSum());
+        assertEquals(attempts, analytics.getSubmissions());
+    }
+
+    private void assertGrades(long graded, long a, long b, long c, long d, long f) {
+        CourseAnalytics analytics = analytics();
+        assertEquals(graded, analytics.getGradedSubmissions());
+        assertEquals(List.of(a, b, c, d, f), List.of(analytics.getGradeA(), analytics.getGradeB(),
+                analytics.getGradeC(), analytics.getGradeD(), analytics.getGradeF()));
+    }
+
+    private CourseAnalytics analytics() {
+        return courseAnalyticsRepository.findById(course.getId()).orElseThrow();
+    }
+
+    private AssignmentEvent submission(AssignmentEvent.Type type, String previousScore, String score) {
+        return new AssignmentEvent(type, 1L, 1L, course.getId(), student.getId(),
+                previousScore != null ? new BigDecimal(previousScore) : null,
+                score != null ? new BigDecimal(score) : null, MAX_SCORE);
+    }
+
+    private QuizAttemptEvent quizAttempt(int score, boolean passed) {
+        return new QuizAttemptEvent(1L, 1L, course.getId(), student.getId(), score, 100, passed);
+    }
+
+    private void inTransaction(Runnable work) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> work.run());
+    }
+
+    private User user(User.Role role) {
+        String name = role.name().toLowerCase() + UUID.randomUUID().toString().substring(0, 8);
+        User user = new User("Test", "User", name + "@example.com", "password");
+        user.setUsername(name);
+        user.setRole(role);
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,108 @@
+package com.edupress.service;
+
+import com.edupress.controller.WebSocketController;
+import com.edupress.model.Course;
+import com.edupress.model.User;
+import com.edupress.repository.CourseRepository;
+import com.edupress.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CourseUpdateFanoutServiceTest {
+
+    private static final long STUDENTS = 2500;
+
+    private UserRepository userRepository;
+    private JdbcTemplate jdbcTemplate;
+    private WebSocketController webSocketController;
+    private CourseUpdateFanoutService service;
+    private User instructor;
+
+    @BeforeEach
+    void setUp() {
+        instructor = new User();
+        instructor.setId(7L);
+        instructor.setRole(User.Role.INSTRUCTOR);
+        Course course = new Course();
+        course.setId(3L);
+        course.setTitle("Algorithms");
+        course.setInstructor(instructor);
+
+        CourseRepository courseRepository = mock(CourseRepository.class);
+        when(courseRepository.findById(3L)).thenReturn(Optional.of(course));
+        when(courseRepository.countEnrolledStudents(3L)).thenReturn(STUDENTS);
+
+        // Students have ids 1..STUDENTS; serve them by keyset like the real query
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findEnrolledStudentIdsAfter(eq(3L), anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(1);
+            Pageable pageable = invocation.getArgument(2);
+            return LongStream.rangeClosed(afterId + 1, Math.min(STUDENTS, afterId + pageable.getPageSize()))
+                    .boxed().toList();
+        });
+
+        jdbcTemplate = mock(JdbcTemplate.class);
+        webSocketController = mock(WebSocketController.class);
+
+        service = new CourseUpdateFanoutService();
+        ReflectionTestUtils.setField(service, "chunkSize", 1000);
+        ReflectionTestUtils.setField(service, "pauseMs", 0L);
+        ReflectionTestUtils.setField(service, "queueCapacity", 5);
+        ReflectionTestUtils.setField(service, "courseRepository", courseRepository);
+        ReflectionTestUtils.setField(service, "userRepository", userRepository);
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "eventPublisher", mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(service, "unreadCountService", mock(UnreadCountService.class));
+        ReflectionTestUtils.setField(service, "webSocketController", webSocketController);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void notifyCourseUpdate_ShouldBatchInsertByKeysetChunksAndPublishOnce() {
+        CourseUpdateFanoutService.FanoutJob job = service.notifyCourseUpdate(3L, null, instructor);
+        verify(webSocketController, timeout(5000))
+                .sendCourseUpdate("3", "New content has been added to: Algorithms", "new_content");
+        // Waits for the job to finish
+        service.shutdown();
+
+        assertNotNull(job.getFinishedAt());
+        assertEquals(CourseUpdateFanoutService.FanoutJob.Status.COMPLETED, job.getStatus());
+        assertEquals(STUDENTS, job.getTotal());
+        assertEquals(STUDENTS, job.getSent());
+        verify(userRepository).findEnrolledStudentIdsAfter(eq(3L), eq(0L), any(Pageable.class));
+        verify(userRepository).findEnrolledStudentIdsAfter(eq(3L), eq(1000L), any(Pageable.class));
+        verify(userRepository).findEnrolledStudentIdsAfter(eq(3L), eq(2000L), any(Pageable.class));
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), anyList());
+        verify(webSocketController, times(1)).sendCourseUpdate(anyString(), anyString(), anyString());
+        assertSame(job, service.getJob(job.getId()));
+    }
+
+    @Test
+    void notifyCourseUpdate_ShouldRejectInstructorsOfOtherCourses() {
+        User other = new User();
+        other.setId(8L);
+        other.setRole(User.Role.INSTRUCTOR);
+
+        assertThrows(RuntimeException.class, () -> service.notifyCourseUpdate(3L, "Hello", other));
+        verifyNoInteractions(userRepository, jdbcTemplate, webSocketController);
+    }
+}
@@ -0,0 +1,156 @@
+package com.edupress.service;
+
+import com.edupress.dto.response.AdminOverviewResponse;
+import com.edupress.event.CourseEvent;
+import com.edupress.event.UserEvent;
+import com.edupress.model.Course;
+import com.edupress.model.User;
+import com.edupress.repository.CourseRepository;
+import com.edupress.repository.NotificationRepository;
+import com.edupress.repository.PaymeTransactionRepository;
+import com.edupress.repository.PaymentRepository;
+import com.edupress.repository.PlatformCounterRepository;
+import com.edupress.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DashboardAggregationServiceTest {
+
+    private UserRepository userRepository;
+    private CourseRepository courseRepository;
+    private NotificationRepository notificationRepository;
+    private EnrollmentService enrollmentService;
+    private PlatformCounterService counters;
+    private DashboardAggregationService service;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        courseRepository = mock(CourseRepository.class);
+        notificationRepository = mock(NotificationRepository.class);
+        enrollmentService = mock(EnrollmentService.class);
+
+        when(userRepository.countUsersGroupedByRole()).thenReturn(List.of(
+                new Object[] {User.Role.STUDENT, 40L},
+                new Object[] {User.Role.INSTRUCTOR, 5L},
+                new Object[] {User.Role.ADMIN, 1L}));
+        when(courseRepository.countCoursesGroupedByStatusAndFree()).thenReturn(List.of(
+                new Object[] {Course.Status.PUBLISHED, true, 3L},
+                new Object[] {Course.Status.PUBLISHED, false, 7L},
+                new Object[] {Course.Status.DRAFT, false, 2L}));
+        when(notificationRepository.countGroupedByReadStatus()).thenReturn(List.of(
+                new Object[] {false, 12L},
+                new Object[] {true, 30L}));
+
+        counters = new PlatformCounterService();
+        ReflectionTestUtils.setField(counters, "platformCounterRepository", mock(PlatformCounterRepository.class));
+        ReflectionTestUtils.setField(counters, "userRepository", userRepository);
+        ReflectionTestUtils.setField(counters, "courseRepository", courseRepository);
+        ReflectionTestUtils.setField(counters, "notificationRepository", notificationRepository);
+        ReflectionTestUtils.setField(counters, "paymentRepository", mock(PaymentRepository.class));
+        ReflectionTestUtils.setField(counters, "paymeTransactionRepository", mock(PaymeTransactionRepository.class));
+        counters.onApplicationReady();
+
+        service = new DashboardAggregationService();
+        ReflectionTestUtils.setField(service, "platformCounterService", counters);
+        ReflectionTestUtils.setField(service, "enrollmentService", enrollmentService);
+        ReflectionTestUtils.setField(service, "cacheTtlMillis", 60_000L);
+        ReflectionTestUtils.setField(service, "executorThreads", 2);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void getAdminOverview_ShouldFoldGroupedRowsIntoTotals() {
+        AdminOverviewResponse overview = service.getAdminOverview();
+
+        assertEquals(46, overview.getTotalUsers());
+        assertEquals(40, overview.getTotalStudents());
+        assertEquals(5, overview.getTotalInstructors());
+        assertEquals(1, overview.getTotalAdmins());
+        assertEquals(12, overview.getTotalCourses());
+        assertEquals(10, overview.getPublishedCourses());
+        assertEquals(3, overview.getFreeCourses());
+        assertEquals(7, overview.getPaidCourses());
+        assertEquals(42, overview.getNotificationStats().getTotalNotifications());
+        assertEquals(12, overview.getNotificationStats().getUnreadNotifications());
+        assertEquals(30, overview.getNotificationStats().getReadNotifications());
+    }
+
+    @Test
+    void getAdminOverview_ShouldShareOneComputationAcrossConcurrentCallers() throws Exception {
+        int callers = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<AdminOverviewResponse>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return service.getAdminOverview();
+            }));
+        }
+        start.countDown();
+
+        AdminOverviewResponse first = results.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<AdminOverviewResponse> result : results) {
+            assertSame(first, result.get(5, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+
+        verify(enrollmentService, times(1)).getGlobalEnrollmentStats();
+        // Counters were loaded once at startup, not per request
+        verify(userRepository, times(1)).countUsersGroupedByRole();
+    }
+
+    @Test
+    void invalidate_ShouldForceRecomputation() {
+        service.getAdminOverview();
+        service.invalidate();
+        service.getAdminOverview();
+
+        verify(enrollmentService, times(2)).getGlobalEnrollmentStats();
+    }
+
+    @Test
+    void getAdminOverview_ShouldReflectDomainEventsWithoutRequerying() {
+        User instructor = new User();
+        instructor.setRole(User.Role.STUDENT);
+        counters.onUserEvent(UserEvent.created(instructor));
+        instructor.setRole(User.Role.INSTRUCTOR);
+        counters.onUserEvent(UserEvent.roleChanged(instructor, User.Role.STUDENT));
+
+        Course course = new Course();
+        course.setStatus(Course.Status.DRAFT);
+        course.setIsFree(true);
+        counters.onCourseEvent(CourseEvent.created(course));
+        course.setStatus(Course.Status.PUBLISHED);
+        counters.onCourseEvent(CourseEvent.changed(CourseEvent.Type.PUBLISHED, course, Course.Status.DRAFT, true));
+
+        AdminOverviewResponse overview = service.getAdminOverview();
+
+        assertEquals(47, overview.getTotalUsers());
+        assertEquals(40, overview.getTotalStudents());
+        assertEquals(6, overview.getTotalInstructors());
+        assertEquals(13, overview.getTotalCourses());
+        assertEquals(11, overview.getPublishedCourses());
+        assertEquals(4, overview.getFreeCourses());
+        verify(userRepository, times(1)).countUsersGroupedByRole();
+    }
+}
@@ -0,0 +1,96 @@
+package com.edupress.service;
+
+import com.edupress.analytics.EngagementTracker;
+import com.edupress.event.CourseEvent;
+import com.edupress.event.LessonCompletedEvent;
+import com.edupress.repository.CourseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class EngagementAnalyticsServiceTest {
+
+    private CourseRepository courseRepository;
+    private EngagementAnalyticsService service;
+
+    @BeforeEach
+    void setUp() {
+        courseRepository = mock(CourseRepository.class);
+        when(courseRepository.existsById(anyLong())).thenAnswer(invocation -> (Long) invocation.getArgument(0) < 100);
+
+        service = new EngagementAnalyticsService();
+        ReflectionTestUtils.setField(service, "courseRepository", courseRepository);
+        ReflectionTestUtils.setField(service, "retentionDays", 35);
+        ReflectionTestUtils.setField(service, "platformPrecision", 12);
+        ReflectionTestUtils.setField(service, "coursePrecision", 10);
+        ReflectionTestUtils.setField(service, "maxCourses", 3);
+        service.init();
+    }
+
+    @Test
+    void recordRequest_ShouldOnlyTrackCoursesThatExist() {
+        service.recordRequest(1L, 1L);
+        service.recordRequest(2L, 1L);
+        for (long junk = 100; junk < 110; junk++) {
+            service.recordRequest(1L, junk);
+        }
+
+        assertEquals(1, service.getTrackedCourseCount());
+        assertEquals(2, service.countActiveUsers(1L, LocalDate.now(), LocalDate.now()));
+        assertEquals(0, service.countActiveUsers(100L, LocalDate.now(), LocalDate.now()));
+        // Junk ids still count as platform activity
+        assertEquals(2, service.countActiveUsers(null, LocalDate.now(), LocalDate.now()));
+        // An existing course is looked up once, when its tracker is created
+        verify(courseRepository, times(1)).existsById(1L);
+    }
+
+    @Test
+    void recordRequest_ShouldStopAllocatingAtTheCap() {
+        for (long course = 1; course <= 5; course++) {
+            service.recordRequest(1L, course);
+        }
+
+        assertEquals(3, service.getTrackedCourseCount());
+        assertEquals(0, service.countActiveUsers(4L, LocalDate.now(), LocalDate.now()));
+    }
+
+    @Test
+    void deletedAndIdleCourses_ShouldBeEvicted() {
+        LocalDateTime now = LocalDateTime.now();
+        service.recordRequest(1L, 1L);
+        service.onLessonCompleted(new LessonCompletedEvent(1L, 2L, 20L));
+        service.onLessonCompleted(new LessonCompletedEvent(1L, 3L, 30L));
+        assertEquals(3, service.getTrackedCourseCount());
+        // Move the last activity of courses 2 and 3 back in time
+        trackers().put(2L, new EngagementTracker(35, 10));
+        trackers().get(2L).record(20L, now.minusDays(40));
+        trackers().put(3L, new EngagementTracker(35, 10));
+        trackers().get(3L).record(30L, now.minusDays(34));
+
+        service.onCourseEvent(new CourseEvent(CourseEvent.Type.DELETED, 1L, null, null, null, null, null));
+        assertEquals(2, service.getTrackedCourseCount());
+
+        // Course 2 has nothing inside the window; course 3 still has its oldest day
+        service.evictIdleCourses();
+        assertEquals(1, service.getTrackedCourseCount());
+        assertEquals(1, service.countActiveUsers(3L, now.toLocalDate().minusDays(34), now.toLocalDate()));
+
+        // Evicting frees room under the cap again
+        service.recordRequest(1L, 4L);
+        service.recordRequest(1L, 5L);
+        assertEquals(3, service.getTrackedCourseCount());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, EngagementTracker> trackers() {
+        return (Map<Long, EngagementTracker>) ReflectionTestUtils.getField(service, "courses");
+    }
+}
@@ -0,0 +1,105 @@
+package com.edupress.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageVariantServiceTest {
+
+    @TempDir
+    Path uploadRoot;
+
+    private ImageVariantService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ImageVariantService();
+        ReflectionTestUtils.setField(service, "uploadRoot", uploadRoot.toString());
+        ReflectionTestUtils.setField(service, "executorThreads", 1);
+        ReflectionTestUtils.setField(service, "maxSourcePixels", 40_000_000L);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void getVariant_ShouldServeTheSmallestVariantAtLeastAsWideAsRequested() throws Exception {
+        Path source = image("banner.jpg", 2000, 1000, false);
+
+        Path card = service.getVariant("banner.jpg", source, 300);
+        BufferedImage decoded = ImageIO.read(card.toFile());
+
+        assertTrue(card.startsWith(uploadRoot.resolve("variants")));
+        assertEquals("card.jpg", card.getFileName().toString());
+        assertEquals(480, decoded.getWidth());
+        assertEquals(240, decoded.getHeight());
+        assertTrue(Files.size(card) < Files.size(source));
+        assertEquals(card, service.getVariant("banner.jpg", source, 480));
+    }
+
+    @Test
+    void getVariant_ShouldKeepTransparencyAndNeverUpscale() throws Exception {
+        Path source = image("logo.png", 600, 600, true);
+
+        Path thumb = service.getVariant("logo.png", source, 100);
+        assertEquals("thumb.png", thumb.getFileName().toString());
+        assertTrue(ImageIO.read(thumb.toFile()).getColorModel().hasAlpha());
+
+        assertEquals(source, service.getVariant("logo.png", source, 1280));
+        assertEquals(source, service.getVariant("notes.pdf", source, 160));
+    }
+
+    @Test
+    void concurrentRequests_ShouldShareOneRendering() throws Exception {
+        Path source = image("hero.jpg", 3000, 2000, false);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Path>> results = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            results.add(pool.submit(() -> service.getVariant("hero.jpg", source, 1280)));
+        }
+        HashSet<Path> paths = new HashSet<>();
+        for (Future<Path> result : results) {
+            paths.add(result.get());
+        }
+        pool.shutdown();
+
+        assertEquals(1, paths.size());
+        try (var files = Files.list(paths.iterator().next().getParent())) {
+            assertEquals(List.of("hero.jpg"), files.map(p -> p.getFileName().toString()).toList());
+        }
+    }
+
+    private Path image(String name, int width, int height, boolean alpha) throws Exception {
+        BufferedImage image = new BufferedImage(width, height,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(alpha ? new Color(30, 90, 200, 128) : new Color(30, 90, 200));
+        g.fillRect(0, 0, width / 2, height);
+        g.setColor(Color.ORANGE);
+        g.fillOval(width / 4, height / 4, width / 2, height / 2);
+        g.dispose();
+        Path path = uploadRoot.resolve(name);
+        ImageIO.write(image, alpha ? "png" : "jpg", path.toFile());
+        return path;
+    }
+}
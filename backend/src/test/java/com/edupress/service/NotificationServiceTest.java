@@ -0,0 +1,198 @@
+package com.edupress.service;
+
+import com.edupress.dto.response.NotificationFeedItem;
+import com.edupress.model.BroadcastNotification;
+import com.edupress.model.Notification;
+import com.edupress.model.User;
+import com.edupress.repository.BroadcastNotificationRepository;
+import com.edupress.repository.BroadcastReadRepository;
+import com.edupress.repository.NotificationRepository;
+import com.edupress.repository.UserRepository;
+import com.edupress.security.UserPrincipal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+class NotificationServiceTest {
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private UnreadCountService unreadCountService;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private BroadcastNotificationRepository broadcastRepository;
+
+    @Autowired
+    private BroadcastReadRepository broadcastReadRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User student;
+    private User instructor;
+    private LocalDateTime base;
+    private BroadcastNotification forInstructors;
+
+    @BeforeEach
+    void setUp() {
+        student = user(User.Role.STUDENT);
+        instructor = user(User.Role.INSTRUCTOR);
+        base = student.getCreatedAt().plusMinutes(1);
+
+        // Several rows share a timestamp, across and within the two sources
+        notification(student, "own 1", base.plusSeconds(1));
+        notification(student, "own 2", base.plusSeconds(2));
+        notification(student, "own 3", base.plusSeconds(2));
+        notification(student, "own 4", base.plusSeconds(3));
+        notification(student, "own 5", base.plusSeconds(5));
+        broadcast("all 1", null, base.plusSeconds(2));
+        broadcast("all 2", null, base.plusSeconds(3));
+        broadcast("students", User.Role.STUDENT, base.plusSeconds(4));
+        broadcast("all 3", null, base.plusSeconds(5));
+        forInstructors = broadcast("instructors", User.Role.INSTRUCTOR, base.plusSeconds(4));
+
+        unreadCountService.invalidateAll();
+        signIn(student);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        broadcastReadRepository.deleteAllInBatch();
+        broadcastRepository.deleteAllInBatch();
+        notificationRepository.deleteAllInBatch();
+        userRepository.deleteAll(List.of(student, instructor));
+        unreadCountService.invalidateAll();
+    }
+
+    @Test
+    void findUserNotifications_ShouldPageThroughOwnAndBroadcastRowsWithoutGapsOrRepeats() {
+        List<NotificationFeedItem> all = notificationService.findUserNotifications(PageRequest.of(0, 50)).getContent();
+        assertEquals(9, all.size());
+        for (int i = 1; i < all.size(); i++) {
+            assertFalse(all.get(i).getCreatedAt().isAfter(all.get(i - 1).getCreatedAt()));
+        }
+
+        for (int size = 1; size <= 4; size++) {
+            List<String> paged = new ArrayList<>();
+            Page<NotificationFeedItem> page;
+            int number = 0;
+            do {
+                page = notificationService.findUserNotifications(PageRequest.of(number++, size));
+                assertEquals(9, page.getTotalElements());
+                page.forEach(item -> paged.add(key(item)));
+            } while (page.hasNext());
+
+            assertEquals(all.stream().map(NotificationServiceTest::key).toList(), paged);
+            // Pages repeat the same order when asked again
+            assertEquals(paged.subList(0, size), notificationService.findUserNotifications(PageRequest.of(0, size))
+                    .getContent().stream().map(NotificationServiceTest::key).toList());
+        }
+    }
+
+    @Test
+    void broadcastsForARole_ShouldBeHiddenFromOtherRoles() {
+        List<String> studentTitles = titles(notificationService.findUserNotifications(PageRequest.of(0, 50)));
+        assertTrue(studentTitles.contains("students"));
+        assertFalse(studentTitles.contains("instructors"));
+        assertEquals(9, notificationService.getUnreadCountByUser(student));
+        assertThrows(RuntimeException.class, () -> notificationService.markBroadcastAsRead(forInstructors.getId()));
+
+        signIn(instructor);
+        List<String> instructorTitles = titles(notificationService.findUserNotifications(PageRequest.of(0, 50)));
+        assertEquals(List.of("all 3", "instructors", "all 2", "all 1"), instructorTitles);
+        assertEquals(4, notificationService.getUnreadCountByUser(instructor));
+    }
+
+    @Test
+    void readMarkers_ShouldMoveTheUnreadCount() {
+        BroadcastNotification students = broadcastRepository.findAll().stream()
+                .filter(broadcast -> "students".equals(broadcast.getTitle())).findFirst().orElseThrow();
+        assertEquals(9, notificationService.getUnreadCountByUser(student));
+
+        notificationService.markBroadcastAsRead(students.getId());
+        notificationService.markBroadcastAsRead(students.getId());
+        assertEquals(8, notificationService.getUnreadCountByUser(student));
+        assertEquals(8, notificationService.findUserNotificationsByReadStatus(false, PageRequest.of(0, 50)).getTotalElements());
+        assertEquals(List.of("students"), titles(notificationService.findUserNotificationsByReadStatus(true, PageRequest.of(0, 50))));
+        // The instructor's count is their own
+        assertEquals(4, notificationService.getUnreadCountByUser(instructor));
+
+        assertEquals(8, notificationService.markAllAsReadByUser(student));
+        assertEquals(0, notificationService.getUnreadCountByUser(student));
+        assertEquals(0, notificationService.findUserNotificationsByReadStatus(false, PageRequest.of(0, 50)).getTotalElements());
+        assertTrue(notificationService.findUserNotifications(PageRequest.of(0, 50)).stream().allMatch(NotificationFeedItem::isRead));
+        assertEquals(4, broadcastReadRepository.count());
+
+        // Loaded again from the database, not only moved in the cache
+        unreadCountService.invalidateAll();
+        assertEquals(0, notificationService.getUnreadCountByUser(student));
+        assertEquals(4, notificationService.getUnreadCountByUser(instructor));
+
+        BroadcastNotification later = broadcast("all 4", null, base.plusSeconds(6));
+        unreadCountService.invalidateAll();
+        assertEquals(1, notificationService.getUnreadCountByUser(student));
+        notificationService.markBroadcastAsRead(later.getId());
+        assertEquals(0, notificationService.getUnreadCountByUser(student));
+    }
+
+    private User user(User.Role role) {
+        String name = role.name().toLowerCase() + UUID.randomUUID().toString().substring(0, 8);
+        User user = new User("Test", "User", name + "@example.com", "password");
+        user.setUsername(name);
+        user.setRole(role);
+        return userRepository.save(user);
+    }
+
+    private void notification(User user, String title, LocalDateTime createdAt) {
+        Notification notification = new Notification(title, "message", Notification.Type.INFO, user);
+        notification.setCreatedAt(createdAt);
+        notificationRepository.save(notification);
+    }
+
+    private BroadcastNotification broadcast(String title, User.Role role, LocalDateTime createdAt) {
+        BroadcastNotification broadcast = new BroadcastNotification(title, "message", Notification.Type.SYSTEM, role);
+        broadcast.setCreatedAt(createdAt);
+        return broadcastRepository.save(broadcast);
+    }
+
+    private static void signIn(User user) {
+        UserPrincipal principal = UserPrincipal.create(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    private static String key(NotificationFeedItem item) {
+        return (item.isBroadcast() ? "broadcast:" : "own:") + item.getId();
+    }
+
+    private static List<String> titles(Page<NotificationFeedItem> page) {
+        List<String> titles = page.map(NotificationFeedItem::getTitle).getContent();
+        assertEquals(titles.size(), new HashSet<>(titles).size());
+        return titles;
+    }
+}
@@ -0,0 +1,117 @@
+package com.edupress.service;
+
+import com.edupress.controller.WebSocketController;
+import com.edupress.model.Notification;
+import com.edupress.model.OutboxMessage;
+import com.edupress.repository.NotificationRepository;
+import com.edupress.repository.OutboxMessageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OutboxDispatcherTest {
+
+    private OutboxMessageRepository outboxMessageRepository;
+    private NotificationRepository notificationRepository;
+    private EmailService emailService;
+    private WebSocketController webSocketController;
+    private OutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        outboxMessageRepository = mock(OutboxMessageRepository.class);
+        notificationRepository = mock(NotificationRepository.class);
+        emailService = mock(EmailService.class);
+        webSocketController = mock(WebSocketController.class);
+
+        dispatcher = new OutboxDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 100);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(dispatcher, "initialBackoffMs", 1000L);
+        ReflectionTestUtils.setField(dispatcher, "maxBackoffMs", 60000L);
+        ReflectionTestUtils.setField(dispatcher, "leaseMs", 300000L);
+        ReflectionTestUtils.setField(dispatcher, "outboxMessageRepository", outboxMessageRepository);
+        ReflectionTestUtils.setField(dispatcher, "notificationRepository", notificationRepository);
+        ReflectionTestUtils.setField(dispatcher, "emailService", emailService);
+        ReflectionTestUtils.setField(dispatcher, "webSocketController", webSocketController);
+    }
+
+    @Test
+    void dispatch_ShouldMarkDeliveredMessagesSentTogetherAndRetryFailedOnesLater() {
+        OutboxMessage push = message(1L, OutboxMessage.Channel.NOTIFICATION, "42");
+        push.setNotificationId(10L);
+        OutboxMessage delivered = message(2L, OutboxMessage.Channel.EMAIL, "ok@example.com");
+        OutboxMessage bounced = message(3L, OutboxMessage.Channel.EMAIL, "down@example.com");
+
+        Notification notification = new Notification("Title", "Message", Notification.Type.INFO, null);
+        notification.setId(10L);
+        when(outboxMessageRepository.findDueIds(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(1L, 2L, 3L));
+        when(outboxMessageRepository.findByClaimTokenOrderById(anyString())).thenReturn(List.of(push, delivered, bounced));
+        when(notificationRepository.findAllById(List.of(10L))).thenReturn(List.of(notification));
+        when(emailService.sendSimpleEmails(anyList())).thenAnswer(invocation -> {
+            List<SimpleMailMessage> mails = invocation.getArgument(0);
+            Map<SimpleMailMessage, Exception> failed = new IdentityHashMap<>();
+            mails.stream().filter(mail -> mail.getTo()[0].startsWith("down"))
+                    .forEach(mail -> failed.put(mail, new RuntimeException("Connection refused")));
+            return failed;
+        });
+
+        LocalDateTime before = LocalDateTime.now();
+        assertEquals(3, dispatcher.dispatch());
+
+        verify(webSocketController).sendNotificationToUser("42", notification);
+        verify(emailService, times(1)).sendSimpleEmails(anyList());
+        verify(outboxMessageRepository).markSent(eq(List.of(1L, 2L)), any(LocalDateTime.class));
+        verify(outboxMessageRepository).save(bounced);
+        assertEquals(1, bounced.getAttempts());
+        assertEquals(OutboxMessage.Status.PENDING, bounced.getStatus());
+        assertTrue(bounced.getNextAttemptAt().isAfter(before.plusNanos(999_000_000)));
+        assertEquals("Connection refused", bounced.getLastError());
+    }
+
+    @Test
+    void dispatch_ShouldGiveUpAfterMaxAttempts() {
+        OutboxMessage email = message(5L, OutboxMessage.Channel.EMAIL, "down@example.com");
+        email.setAttempts(2);
+        when(outboxMessageRepository.findDueIds(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(5L));
+        when(outboxMessageRepository.findByClaimTokenOrderById(anyString())).thenReturn(List.of(email));
+        when(emailService.sendSimpleEmails(anyList())).thenAnswer(invocation -> {
+            Map<SimpleMailMessage, Exception> failed = new IdentityHashMap<>();
+            List<SimpleMailMessage> mails = invocation.getArgument(0);
+            mails.forEach(mail -> failed.put(mail, new RuntimeException("Mailbox unavailable")));
+            return failed;
+        });
+
+        dispatcher.dispatch();
+
+        assertEquals(OutboxMessage.Status.FAILED, email.getStatus());
+        assertEquals(3, email.getAttempts());
+        verify(outboxMessageRepository, never()).markSent(anyCollection(), any());
+    }
+
+    @Test
+    void backoff_ShouldDoubleUpToTheCap() {
+        assertTrue(dispatcher.backoffMs(1) >= 1000 && dispatcher.backoffMs(1) <= 1200);
+        assertTrue(dispatcher.backoffMs(3) >= 4000 && dispatcher.backoffMs(3) <= 4800);
+        assertTrue(dispatcher.backoffMs(40) >= 60000 && dispatcher.backoffMs(40) <= 72000);
+    }
+
+    private static OutboxMessage message(Long id, OutboxMessage.Channel channel, String recipient) {
+        OutboxMessage message = new OutboxMessage(channel, recipient);
+        message.setId(id);
+        message.setSubject("Subject");
+        message.setBody("Body");
+        return message;
+    }
+}
@@ -0,0 +1,190 @@
+package com.edupress.service;
+
+import com.edupress.event.NotificationEvent;
+import com.edupress.event.UserEvent;
+import com.edupress.model.PlatformCounter;
+import com.edupress.model.User;
+import com.edupress.repository.CourseRepository;
+import com.edupress.repository.NotificationRepository;
+import com.edupress.repository.PaymeTransactionRepository;
+import com.edupress.repository.PaymentRepository;
+import com.edupress.repository.PlatformCounterRepository;
+import com.edupress.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.edupress.service.PlatformCounterService.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PlatformCounterServiceTest {
+
+    // Source tables, as the grouped counts they report
+    private long readNotifications = 3;
+    private long unreadNotifications = 5;
+    private long students = 40;
+
+    // The platform_counters table, and how many saves to it fail before it recovers
+    private final Map<String, Long> persisted = new HashMap<>();
+    private int failingSaves;
+
+    private PlatformCounterRepository platformCounterRepository;
+    private UserRepository userRepository;
+    private NotificationRepository notificationRepository;
+    private PlatformCounterService service;
+
+    @BeforeEach
+    void setUp() {
+        platformCounterRepository = mock(PlatformCounterRepository.class);
+        when(platformCounterRepository.findAll()).thenAnswer(invocation -> {
+            List<PlatformCounter> rows = new ArrayList<>();
+            persisted.forEach((name, value) -> rows.add(new PlatformCounter(name, value)));
+            return rows;
+        });
+        when(platformCounterRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            if (failingSaves > 0) {
+                failingSaves--;
+                throw new DataAccessResourceFailureException("database went away");
+            }
+            invocation.<Iterable<PlatformCounter>>getArgument(0).forEach(row -> persisted.put(row.getName(), row.getValue()));
+            return List.of();
+        });
+
+        userRepository = mock(UserRepository.class);
+        when(userRepository.countUsersGroupedByRole()).thenAnswer(invocation -> List.<Object[]>of(
+                new Object[] {User.Role.STUDENT, students}));
+        notificationRepository = mock(NotificationRepository.class);
+        when(notificationRepository.countGroupedByReadStatus()).thenAnswer(invocation -> List.of(
+                new Object[] {true, readNotifications},
+                new Object[] {false, unreadNotifications}));
+
+        service = new PlatformCounterService();
+        ReflectionTestUtils.setField(service, "platformCounterRepository", platformCounterRepository);
+        ReflectionTestUtils.setField(service, "userRepository", userRepository);
+        ReflectionTestUtils.setField(service, "courseRepository", mock(CourseRepository.class));
+        ReflectionTestUtils.setField(service, "notificationRepository", notificationRepository);
+        ReflectionTestUtils.setField(service, "paymentRepository", mock(PaymentRepository.class));
+        ReflectionTestUtils.setField(service, "paymeTransactionRepository", mock(PaymeTransactionRepository.class));
+    }
+
+    @Test
+    void onNotificationEvent_ShouldMoveTheReadAndUnreadCounters() {
+        service.onApplicationReady();
+        assertNotifications(8, 3, 5);
+
+        service.onNotificationEvent(event(NotificationEvent.Type.CREATED, 1, false));
+        assertNotifications(9, 3, 6);
+        service.onNotificationEvent(event(NotificationEvent.Type.CREATED, 2, true));
+        assertNotifications(11, 5, 6);
+
+        service.onNotificationEvent(event(NotificationEvent.Type.READ, 1, false));
+        assertNotifications(11, 6, 5);
+        // Reading something already read changes nothing
+        service.onNotificationEvent(event(NotificationEvent.Type.READ, 1, true));
+        assertNotifications(11, 6, 5);
+
+        service.onNotificationEvent(event(NotificationEvent.Type.DELETED, 1, false));
+        assertNotifications(10, 6, 4);
+        service.onNotificationEvent(event(NotificationEvent.Type.DELETED, 2, true));
+        assertNotifications(8, 4, 4);
+
+        service.onNotificationEvent(event(NotificationEvent.Type.ALL_READ, 4, false));
+        assertNotifications(8, 8, 0);
+        service.onNotificationEvent(event(NotificationEvent.Type.ALL_READ, 0, true));
+        assertNotifications(8, 8, 0);
+    }
+
+    @Test
+    void purge_ShouldRecountOnlyTheNotificationCounters() {
+        service.onApplicationReady();
+        service.onNotificationEvent(event(NotificationEvent.Type.CREATED, 1, false));
+
+        // The bulk delete left 2 read and 1 unread; users changed too, but are not part of the recount
+        readNotifications = 2;
+        unreadNotifications = 1;
+        students = 45;
+        service.onNotificationEvent(event(NotificationEvent.Type.PURGED, 0, false));
+
+        assertNotifications(3, 2, 1);
+        assertEquals(40, service.getUserCount(User.Role.STUDENT));
+        verify(userRepository, times(1)).countUsersGroupedByRole();
+    }
+
+    @Test
+    void eventsBeforeLoading_ShouldBeSkippedBecauseTheLoadAlreadyCountsThem() {
+        service.onNotificationEvent(event(NotificationEvent.Type.CREATED, 1, false));
+        service.onUserEvent(new UserEvent(UserEvent.Type.CREATED, 1L, User.Role.STUDENT, null));
+        // The source tables already hold the rows those events were about
+        unreadNotifications = 6;
+        students = 41;
+
+        assertNotifications(9, 3, 6);
+        assertEquals(41, service.get(USERS_TOTAL));
+        assertEquals(41, service.getUserCount(User.Role.STUDENT));
+    }
+
+    @Test
+    void load_ShouldPreferPersistedValuesOverCounting() {
+        persisted.put(NOTIFICATIONS_TOTAL, 100L);
+        persisted.put(NOTIFICATIONS_UNREAD, 100L);
+
+        assertEquals(100, service.get(NOTIFICATIONS_TOTAL));
+        assertEquals(0, service.get(NOTIFICATIONS_READ));
+        verifyNoInteractions(notificationRepository);
+    }
+
+    @Test
+    void flushAndReconcile_ShouldPersistOnlyChangesAndCorrectDrift() {
+        service.flush();
+        verify(platformCounterRepository, never()).saveAll(anyIterable());
+
+        // Counting from the source tables on load marks everything for the first flush
+        service.onApplicationReady();
+        service.flush();
+        assertEquals(5L, persisted.get(NOTIFICATIONS_UNREAD));
+        service.flush();
+        verify(platformCounterRepository, times(1)).saveAll(anyIterable());
+
+        service.onNotificationEvent(event(NotificationEvent.Type.CREATED, 1, false));
+        service.flush();
+        assertEquals(6L, persisted.get(NOTIFICATIONS_UNREAD));
+        verify(platformCounterRepository, times(2)).saveAll(anyIterable());
+
+        // A failed flush is retried on the next one
+        failingSaves = 1;
+        service.onNotificationEvent(event(NotificationEvent.Type.READ, 1, false));
+        service.flush();
+        assertEquals(6L, persisted.get(NOTIFICATIONS_UNREAD));
+        service.flush();
+        assertEquals(5L, persisted.get(NOTIFICATIONS_UNREAD));
+        assertEquals(4L, persisted.get(NOTIFICATIONS_READ));
+
+        // The counters drifted from the source tables; reconcile puts them back and persists them
+        readNotifications = 10;
+        unreadNotifications = 0;
+        students = 50;
+        service.reconcile();
+        assertNotifications(10, 10, 0);
+        assertEquals(50, service.get(USERS_TOTAL));
+        assertEquals(10L, persisted.get(NOTIFICATIONS_TOTAL));
+        assertEquals(50L, persisted.get(USERS_ROLE_PREFIX + User.Role.STUDENT.name()));
+    }
+
+    private void assertNotifications(long total, long read, long unread) {
+        assertEquals(total, service.get(NOTIFICATIONS_TOTAL));
+        assertEquals(read, service.get(NOTIFICATIONS_READ));
+        assertEquals(unread, service.get(NOTIFICATIONS_UNREAD));
+    }
+
+    private static NotificationEvent event(NotificationEvent.Type type, long count, boolean wasRead) {
+        return new NotificationEvent(type, 1L, null, count, wasRead);
+    }
+}
@@ -0,0 +1,252 @@
+package com.edupress.service;
+
+import com.edupress.event.PaymentEvent;
+import com.edupress.model.PaymeTransaction;
+import com.edupress.model.RevenueLedgerEntry;
+import com.edupress.repository.PaymeTransactionRepository;
+import com.edupress.repository.PaymentRepository;
+import com.edupress.repository.RevenueLedgerRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RevenueLedgerServiceTest {
+
+    private static final LocalDateTime PAID_AT = LocalDateTime.of(2024, 3, 5, 10, 0);
+
+    // The ledger table, with its unique key on (provider, source, type)
+    private final List<RevenueLedgerEntry> ledger = new ArrayList<>();
+
+    private RevenueLedgerRepository ledgerRepository;
+    private PaymentRepository paymentRepository;
+    private PaymeTransactionRepository paymeTransactionRepository;
+    private RevenueLedgerService service;
+
+    @BeforeEach
+    void setUp() {
+        ledgerRepository = mock(RevenueLedgerRepository.class);
+        when(ledgerRepository.existsByProviderAndSourceIdAndEntryType(any(), any(), any())).thenAnswer(invocation ->
+                exists(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2)));
+        when(ledgerRepository.save(any(RevenueLedgerEntry.class))).thenAnswer(invocation -> {
+            RevenueLedgerEntry entry = invocation.getArgument(0);
+            insert(List.of(entry));
+            return entry;
+        });
+        when(ledgerRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            List<RevenueLedgerEntry> entries = new ArrayList<>();
+            invocation.<Iterable<RevenueLedgerEntry>>getArgument(0).forEach(entries::add);
+            insert(entries);
+            return entries;
+        });
+        doAnswer(invocation -> {
+            synchronized (ledger) {
+                ledger.clear();
+            }
+            return null;
+        }).when(ledgerRepository).deleteAllInBatch();
+        when(ledgerRepository.sumByInstructorAndCurrency()).thenAnswer(invocation -> sum(RevenueLedgerEntry::getInstructorId));
+        when(ledgerRepository.sumByCourseAndCurrency()).thenAnswer(invocation -> sum(RevenueLedgerEntry::getCourseId));
+        when(ledgerRepository.sumByDateAndCurrency()).thenAnswer(invocation -> sum(RevenueLedgerEntry::getEntryDate));
+
+        paymentRepository = mock(PaymentRepository.class);
+        paymeTransactionRepository = mock(PaymeTransactionRepository.class);
+
+        service = new RevenueLedgerService();
+        ReflectionTestUtils.setField(service, "ledgerRepository", ledgerRepository);
+        ReflectionTestUtils.setField(service, "paymentRepository", paymentRepository);
+        ReflectionTestUtils.setField(service, "paymeTransactionRepository", paymeTransactionRepository);
+        ReflectionTestUtils.setField(service, "reportingCurrency", "USD");
+        ReflectionTestUtils.setField(service, "rebuildThreads", 2);
+        ReflectionTestUtils.setField(service, "rebuildChunkSize", 10);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void onPaymentEvent_ShouldStoreReversalsAsNegativeAmounts() {
+        service.onPaymentEvent(stripe(1L, "49.99", null, "SUCCEEDED"));
+        service.onPaymentEvent(stripe(1L, "49.99", "SUCCEEDED", "CANCELED"));
+        service.onPaymentEvent(stripe(2L, "-20.00", null, "SUCCEEDED"));
+
+        assertEquals(3, ledger.size());
+        assertEquals(new BigDecimal("-49.99"), entry(RevenueLedgerEntry.Provider.STRIPE, 1L,
+                RevenueLedgerEntry.EntryType.REVERSAL).getAmount());
+        // A credit is positive whatever sign it arrives with
+        assertEquals(new BigDecimal("20.00"), entry(RevenueLedgerEntry.Provider.STRIPE, 2L,
+                RevenueLedgerEntry.EntryType.CREDIT).getAmount());
+        assertEquals(Map.of("USD", new BigDecimal("20.00")), service.getTotalRevenue());
+        assertEquals(Map.of("USD", new BigDecimal("20.00")), service.getCourseRevenue(10L));
+        assertEquals(new BigDecimal("20.00"), service.getInstructorEarnings(100L, "usd"));
+    }
+
+    @Test
+    void onPaymentEvent_ShouldKeepPaymeSumsExactToTheTiyin() {
+        // PaymeService stores the request amount, given in tiyin, as so'm
+        BigDecimal first = BigDecimal.valueOf(12345678).divide(BigDecimal.valueOf(100));
+        BigDecimal second = BigDecimal.valueOf(1).divide(BigDecimal.valueOf(100));
+        service.onPaymentEvent(payme(1L, first, "WAITING_PAY", "PAY_ACCEPTED"));
+        service.onPaymentEvent(payme(2L, second, "WAITING_PAY", "PAY_ACCEPTED"));
+        service.onPaymentEvent(payme(3L, first, "WAITING_PAY", "PAY_ACCEPTED"));
+        service.onPaymentEvent(payme(3L, first, "PAY_ACCEPTED", "CANCELLED_AFTER_SUCCESSFUL"));
+
+        assertEquals(Map.of("UZS", new BigDecimal("123456.79")), service.getTotalRevenue());
+        assertEquals(12345679L, RevenueLedgerService.toMinor(service.getTotalRevenue().get("UZS")));
+        assertEquals(new BigDecimal("-123456.78"), entry(RevenueLedgerEntry.Provider.PAYME, 3L,
+                RevenueLedgerEntry.EntryType.REVERSAL).getAmount());
+    }
+
+    @Test
+    void onPaymentEvent_ShouldCountARepeatedStateChangeOnce() {
+        PaymentEvent event = stripe(1L, "49.99", "PROCESSING", "SUCCEEDED");
+        service.onPaymentEvent(event);
+        service.onPaymentEvent(event);
+        service.onPaymentEvent(stripe(1L, "49.99", "PROCESSING", "SUCCEEDED"));
+        // Not a state change, so not revenue
+        service.onPaymentEvent(stripe(1L, "49.99", "SUCCEEDED", "SUCCEEDED"));
+
+        assertEquals(1, ledger.size());
+        verify(ledgerRepository, times(1)).save(any(RevenueLedgerEntry.class));
+        assertEquals(Map.of("USD", new BigDecimal("49.99")), service.getTotalRevenue());
+    }
+
+    @Test
+    void rebuild_ShouldReproduceTheTotalsOfLiveAppends() {
+        service.onPaymentEvent(stripe(1L, "49.99", null, "SUCCEEDED"));
+        service.onPaymentEvent(stripe(2L, "15.00", null, "SUCCEEDED"));
+        service.onPaymentEvent(stripe(25L, "100.00", null, "SUCCEEDED"));
+        service.onPaymentEvent(payme(1L, new BigDecimal("150000.50"), "WAITING_PAY", "PAY_ACCEPTED"));
+        service.onPaymentEvent(payme(2L, new BigDecimal("99000.00"), "WAITING_PAY", "PAY_ACCEPTED"));
+        service.onPaymentEvent(payme(2L, new BigDecimal("99000.00"), "PAY_ACCEPTED", "CANCELLED_AFTER_SUCCESSFUL"));
+        Map<String, BigDecimal> liveTotal = service.getTotalRevenue();
+        Map<String, BigDecimal> liveCourse = service.getCourseRevenue(10L);
+        Map<String, BigDecimal> liveInstructor = service.getInstructorEarnings(100L);
+        Map<LocalDate, Map<String, BigDecimal>> liveDaily = service.getDailyRevenue(PAID_AT.toLocalDate(), PAID_AT.toLocalDate());
+
+        stubPaymentHistory();
+        assertEquals(6, service.rebuild());
+
+        assertEquals(6, ledger.size());
+        assertEquals(liveTotal, service.getTotalRevenue());
+        assertEquals(liveCourse, service.getCourseRevenue(10L));
+        assertEquals(liveInstructor, service.getInstructorEarnings(100L));
+        assertEquals(liveDaily, service.getDailyRevenue(PAID_AT.toLocalDate(), PAID_AT.toLocalDate()));
+        assertEquals(new BigDecimal("164.99"), liveTotal.get("USD"));
+        assertEquals(new BigDecimal("150000.50"), liveTotal.get("UZS"));
+    }
+
+    @Test
+    void rebuild_ShouldDeferLiveAppendsAndSkipRowsAlreadyAppended() {
+        stubPaymentHistory();
+        when(paymentRepository.findSucceededLedgerRows(0L, 10L)).thenAnswer(invocation -> {
+            // A payment committing mid-rebuild is held back until the replay is done...
+            service.onPaymentEvent(stripe(30L, "5.00", null, "SUCCEEDED"));
+            // ...and one appended just before the rebuild began collides with the replay
+            synchronized (ledger) {
+                ledger.add(new RevenueLedgerEntry(RevenueLedgerEntry.Provider.STRIPE, 1L,
+                        RevenueLedgerEntry.EntryType.CREDIT, 1L, 10L, 100L, new BigDecimal("49.99"), "USD", PAID_AT));
+            }
+            return List.<Object[]>of(stripeRow(1L, "49.99"), stripeRow(2L, "15.00"));
+        });
+
+        service.rebuild();
+
+        assertEquals(7, ledger.size());
+        // Appended after every replayed row
+        assertEquals(30L, ledger.get(ledger.size() - 1).getSourceId());
+        assertEquals(new BigDecimal("169.99"), service.getTotalRevenue().get("USD"));
+        assertEquals(new BigDecimal("150000.50"), service.getTotalRevenue().get("UZS"));
+    }
+
+    // The payment tables behind rebuild(), matching the events of rebuild_ShouldReproduceTheTotalsOfLiveAppends
+    private void stubPaymentHistory() {
+        when(paymentRepository.findMaxId()).thenReturn(25L);
+        when(paymentRepository.findSucceededLedgerRows(anyLong(), anyLong())).thenReturn(List.of());
+        when(paymentRepository.findSucceededLedgerRows(0L, 10L))
+                .thenReturn(List.of(stripeRow(1L, "49.99"), stripeRow(2L, "15.00")));
+        when(paymentRepository.findSucceededLedgerRows(20L, 30L))
+                .thenReturn(List.<Object[]>of(stripeRow(25L, "100.00")));
+        long paidAt = PAID_AT.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        when(paymeTransactionRepository.findMaxId()).thenReturn(2L);
+        when(paymeTransactionRepository.findLedgerRows(eq(0L), eq(10L), anyList())).thenReturn(List.of(
+                new Object[]{1L, 1L, 10L, 100L, new BigDecimal("150000.50"),
+                        PaymeTransaction.TransactionState.PAY_ACCEPTED, paidAt, null},
+                new Object[]{2L, 2L, 10L, 100L, new BigDecimal("99000.00"),
+                        PaymeTransaction.TransactionState.CANCELLED_AFTER_SUCCESSFUL, paidAt, paidAt}));
+    }
+
+    private static Object[] stripeRow(Long id, String amount) {
+        return new Object[]{id, 1L, 10L, 100L, new BigDecimal(amount), "usd", PAID_AT};
+    }
+
+    private static PaymentEvent stripe(Long id, String amount, String previousState, String state) {
+        return at(new PaymentEvent(PaymentEvent.Provider.STRIPE, id, 1L, 10L, 100L, new BigDecimal(amount), "usd",
+                previousState, state));
+    }
+
+    private static PaymentEvent payme(Long id, BigDecimal amount, String previousState, String state) {
+        return at(new PaymentEvent(PaymentEvent.Provider.PAYME, id, 1L, 10L, 100L, amount, "UZS",
+                previousState, state));
+    }
+
+    private static PaymentEvent at(PaymentEvent event) {
+        ReflectionTestUtils.setField(event, "occurredAt", PAID_AT);
+        return event;
+    }
+
+    private boolean exists(RevenueLedgerEntry.Provider provider, Long sourceId, RevenueLedgerEntry.EntryType type) {
+        synchronized (ledger) {
+            return ledger.stream().anyMatch(entry -> entry.getProvider() == provider
+                    && entry.getSourceId().equals(sourceId) && entry.getEntryType() == type);
+        }
+    }
+
+    // All or nothing, like a batch insert in one transaction
+    private void insert(List<RevenueLedgerEntry> entries) {
+        synchronized (ledger) {
+            for (RevenueLedgerEntry entry : entries) {
+                if (exists(entry.getProvider(), entry.getSourceId(), entry.getEntryType())) {
+                    throw new DataIntegrityViolationException("Duplicate ledger entry " + entry.getSourceId());
+                }
+            }
+            ledger.addAll(entries);
+        }
+    }
+
+    private RevenueLedgerEntry entry(RevenueLedgerEntry.Provider provider, Long sourceId, RevenueLedgerEntry.EntryType type) {
+        synchronized (ledger) {
+            return ledger.stream().filter(entry -> entry.getProvider() == provider
+                    && entry.getSourceId().equals(sourceId) && entry.getEntryType() == type).findFirst().orElse(null);
+        }
+    }
+
+    private List<Object[]> sum(Function<RevenueLedgerEntry, Object> key) {
+        Map<List<Object>, BigDecimal> sums = new HashMap<>();
+        synchronized (ledger) {
+            ledger.stream().filter(entry -> key.apply(entry) != null).forEach(entry ->
+                    sums.merge(List.of(key.apply(entry), entry.getCurrency()), entry.getAmount(), BigDecimal::add));
+        }
+        List<Object[]> rows = new ArrayList<>();
+        sums.forEach((group, amount) -> rows.add(new Object[]{group.get(0), group.get(1), amount}));
+        return rows;
+    }
+}
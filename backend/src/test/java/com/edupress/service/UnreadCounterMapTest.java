@@ -0,0 +1,91 @@
+package com.edupress.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UnreadCounterMapTest {
+
+    @Test
+    void operations_ShouldMatchAPlainMapWhileUnderCapacity() {
+        UnreadCounterMap counters = new UnreadCounterMap(4096, Long.MAX_VALUE / 2);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20000; i++) {
+            long key = 1 + random.nextInt(1500);
+            switch (random.nextInt(4)) {
+                case 0 -> {
+                    if (counters.putIfUnchanged(key, i % 7, counters.stamp(key))) {
+                        expected.put(key, (long) (i % 7));
+                    } else {
+                        assertTrue(expected.containsKey(key));
+                    }
+                }
+                case 1 -> {
+                    long delta = random.nextInt(5) - 2;
+                    long count = counters.add(key, delta);
+                    Long previous = expected.get(key);
+                    if (previous == null) {
+                        assertEquals(-1, count);
+                    } else {
+                        expected.put(key, Math.max(0, previous + delta));
+                        assertEquals(expected.get(key), count);
+                    }
+                }
+                case 2 -> {
+                    counters.invalidate(key);
+                    expected.remove(key);
+                }
+                default -> assertEquals(expected.getOrDefault(key, -1L), counters.get(key));
+            }
+        }
+        assertEquals(expected.size(), counters.size());
+        expected.forEach((key, value) -> assertEquals(value, counters.get(key)));
+    }
+
+    @Test
+    void putIfUnchanged_ShouldRejectALoadThatRacedWithAnUpdate() {
+        UnreadCounterMap counters = new UnreadCounterMap(100, 60000);
+        long stamp = counters.stamp(7);
+        // A notification for user 7 commits while its count is being loaded
+        assertEquals(-1, counters.add(7, 1));
+
+        assertFalse(counters.putIfUnchanged(7, 3, stamp));
+        assertEquals(-1, counters.get(7));
+        assertTrue(counters.putIfUnchanged(7, 4, counters.stamp(7)));
+        assertEquals(4, counters.get(7));
+    }
+
+    @Test
+    void eviction_ShouldKeepTheMapBoundedAndSpareRecentlyReadEntries() {
+        UnreadCounterMap counters = new UnreadCounterMap(64, 60000);
+        for (long key = 1; key <= 64; key++) {
+            counters.putIfUnchanged(key, key, counters.stamp(key));
+        }
+        for (long key = 1; key <= 8; key++) {
+            counters.get(key);
+        }
+        for (long key = 65; key <= 120; key++) {
+            counters.putIfUnchanged(key, key, counters.stamp(key));
+        }
+
+        assertEquals(64, counters.size());
+        for (long key = 1; key <= 8; key++) {
+            assertEquals(key, counters.get(key));
+        }
+    }
+
+    @Test
+    void get_ShouldTreatExpiredEntriesAsAbsent() {
+        UnreadCounterMap counters = new UnreadCounterMap(100, -1);
+        counters.putIfUnchanged(5, 2, counters.stamp(5));
+
+        assertEquals(-1, counters.get(5));
+        assertEquals(0, counters.size());
+    }
+}
@@ -0,0 +1,176 @@
+package com.edupress.service;
+
+import com.edupress.controller.WebSocketController;
+import com.edupress.model.AssignmentSubmission;
+import com.edupress.model.UploadJob;
+import com.edupress.repository.LessonRepository;
+import com.edupress.repository.UploadJobRepository;
+import com.edupress.repository.UserRepository;
+import com.edupress.storage.ContentAddressedStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UploadPipelineServiceTest {
+
+    private static final byte[] PDF = "%PDF-1.7\nreport body\n".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path root;
+
+    // The upload_jobs table, and the staged path each job was saved with first
+    private final Map<String, UploadJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, String> stagedPaths = new ConcurrentHashMap<>();
+
+    private ContentAddressedStore contentStore;
+    private AssignmentService assignmentService;
+    private WebSocketController webSocketController;
+    private UploadPipelineService service;
+
+    @BeforeEach
+    void setUp() {
+        UploadJobRepository uploadJobRepository = mock(UploadJobRepository.class);
+        when(uploadJobRepository.save(any())).thenAnswer(invocation -> {
+            UploadJob job = invocation.getArgument(0);
+            if (job.getStagedPath() != null) {
+                stagedPaths.putIfAbsent(job.getId(), job.getStagedPath());
+            }
+            jobs.put(job.getId(), job);
+            return job;
+        });
+        when(uploadJobRepository.findById(anyString())).thenAnswer(invocation -> Optional.ofNullable(jobs.get(invocation.<String>getArgument(0))));
+        when(uploadJobRepository.findByStatusInAndUpdatedAtBefore(anyCollection(), any())).thenAnswer(invocation -> {
+            Collection<UploadJob.Status> statuses = invocation.getArgument(0);
+            LocalDateTime before = invocation.getArgument(1);
+            return jobs.values().stream()
+                    .filter(job -> statuses.contains(job.getStatus()) && job.getUpdatedAt().isBefore(before))
+                    .toList();
+        });
+
+        assignmentService = mock(AssignmentService.class);
+        when(assignmentService.createSubmission(anyLong(), anyLong(), anyString(), anyString(), anyLong())).thenAnswer(invocation -> {
+            AssignmentSubmission submission = new AssignmentSubmission();
+            submission.setId(55L);
+            return submission;
+        });
+        webSocketController = mock(WebSocketController.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        contentStore = new ContentAddressedStore(root.resolve("blobs"));
+
+        service = new UploadPipelineService();
+        ReflectionTestUtils.setField(service, "ingestThreads", 2);
+        ReflectionTestUtils.setField(service, "analysisThreads", 2);
+        ReflectionTestUtils.setField(service, "queueCapacity", 10);
+        ReflectionTestUtils.setField(service, "uploadJobRepository", uploadJobRepository);
+        ReflectionTestUtils.setField(service, "lessonRepository", mock(LessonRepository.class));
+        ReflectionTestUtils.setField(service, "userRepository", mock(UserRepository.class));
+        ReflectionTestUtils.setField(service, "contentStore", contentStore);
+        ReflectionTestUtils.setField(service, "fileStorageService", mock(FileStorageService.class));
+        ReflectionTestUtils.setField(service, "imageVariantService", mock(ImageVariantService.class));
+        ReflectionTestUtils.setField(service, "videoMetadataService", mock(VideoMetadataService.class));
+        ReflectionTestUtils.setField(service, "videoService", mock(VideoService.class));
+        ReflectionTestUtils.setField(service, "assignmentService", assignmentService);
+        ReflectionTestUtils.setField(service, "userService", mock(UserService.class));
+        ReflectionTestUtils.setField(service, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(service, "webSocketController", webSocketController);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void submitAssignment_ShouldStoreTheFileAndCreateTheSubmission() {
+        UploadJob job = service.submitAssignment(8L, 3L, new MockMultipartFile("file", "report.pdf", "application/pdf", PDF));
+        assertEquals(UploadJob.Kind.SUBMISSION, job.getKind());
+        verify(assignmentService).checkSubmission(8L, 3L, "report.pdf", PDF.length);
+
+        awaitOutcome(job);
+        assertEquals(UploadJob.Status.READY, job.getStatus());
+        assertEquals(55L, job.getTargetId());
+        assertEquals("application/pdf", job.getContentType());
+        assertNull(job.getStagedPath());
+        verify(assignmentService).createSubmission(8L, 3L, "report.pdf", job.getBlobKey(), (long) PDF.length);
+        assertTrue(contentStore.exists(job.getBlobKey()));
+        // The staged bytes were moved into the store, not copied
+        assertFalse(Files.exists(Paths.get(stagedPaths.get(job.getId()))));
+    }
+
+    @Test
+    void contentNotMatchingItsExtension_ShouldFailTheJobAndRemoveTheStagedFile() {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 1, 2, 3};
+        UploadJob job = service.submitAssignment(8L, 3L, new MockMultipartFile("file", "report.pdf", "application/pdf", png));
+
+        awaitOutcome(job);
+        assertEquals(UploadJob.Status.FAILED, job.getStatus());
+        assertEquals("File content does not match its .pdf extension", job.getError());
+        assertNull(job.getBlobKey());
+        assertNull(job.getStagedPath());
+        assertFalse(Files.exists(Paths.get(stagedPaths.get(job.getId()))));
+        verify(assignmentService, never()).createSubmission(anyLong(), anyLong(), anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    void resubmitStalled_ShouldFailJobsWhoseStagedBytesAreGoneAndRetryTheRest() throws Exception {
+        LocalDateTime stalledSince = LocalDateTime.now().minusMinutes(5);
+        UploadJob lost = stalledJob("lost", root.resolve("gone.tmp"), stalledSince);
+        Path staged = contentStore.newTempPath();
+        Files.createDirectories(staged.getParent());
+        Files.write(staged, PDF);
+        UploadJob waiting = stalledJob("waiting", staged, stalledSince);
+        // Recent jobs may still be queued somewhere, so they are left alone
+        UploadJob recent = stalledJob("recent", root.resolve("also-gone.tmp"), LocalDateTime.now());
+
+        service.resubmitStalled();
+
+        assertEquals(UploadJob.Status.FAILED, lost.getStatus());
+        assertEquals("Uploaded data is no longer available; upload the file again", lost.getError());
+        verify(webSocketController).sendUploadStatus("3", lost);
+
+        awaitOutcome(waiting);
+        assertEquals(UploadJob.Status.READY, waiting.getStatus());
+        assertTrue(contentStore.exists(waiting.getBlobKey()));
+        assertFalse(Files.exists(staged));
+
+        assertEquals(UploadJob.Status.PENDING, recent.getStatus());
+        verify(assignmentService, times(1)).createSubmission(anyLong(), anyLong(), anyString(), anyString(), anyLong());
+    }
+
+    private UploadJob stalledJob(String id, Path staged, LocalDateTime updatedAt) {
+        UploadJob job = new UploadJob(id, 3L, UploadJob.Kind.SUBMISSION, "report.pdf", "pdf", PDF.length);
+        job.setParentId(8L);
+        job.setStagedPath(staged.toString());
+        job.setCreatedAt(updatedAt);
+        job.setUpdatedAt(updatedAt);
+        jobs.put(id, job);
+        return job;
+    }
+
+    // The uploader is told once the job is READY or FAILED
+    private void awaitOutcome(UploadJob job) {
+        verify(webSocketController, timeout(10_000)).sendUploadStatus("3", job);
+    }
+}
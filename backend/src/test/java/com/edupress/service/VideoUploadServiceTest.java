@@ -0,0 +1,247 @@
+package com.edupress.service;
+
+import com.edupress.model.Lesson;
+import com.edupress.model.UploadSession;
+import com.edupress.model.Video;
+import com.edupress.repository.LessonRepository;
+import com.edupress.repository.UploadSessionRepository;
+import com.edupress.repository.VideoRepository;
+import com.edupress.storage.ContentAddressedStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class VideoUploadServiceTest {
+
+    private static final int CHUNK = 256 * 1024;
+
+    @TempDir
+    Path uploadRoot;
+
+    private VideoRepository videoRepository;
+    private ContentAddressedStore contentStore;
+    private VideoUploadService service;
+
+    @BeforeEach
+    void setUp() {
+        UploadSessionRepository uploadSessionRepository = mock(UploadSessionRepository.class);
+        when(uploadSessionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        LessonRepository lessonRepository = mock(LessonRepository.class);
+        when(lessonRepository.existsById(7L)).thenReturn(true);
+        when(lessonRepository.findById(7L)).thenReturn(Optional.of(new Lesson()));
+        videoRepository = mock(VideoRepository.class);
+        when(videoRepository.save(any())).thenAnswer(invocation -> {
+            Video video = invocation.getArgument(0);
+            video.setId(99L);
+            return video;
+        });
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        service = new VideoUploadService();
+        ReflectionTestUtils.setField(service, "uploadRoot", uploadRoot.toString());
+        ReflectionTestUtils.setField(service, "defaultChunkSize", CHUNK);
+        ReflectionTestUtils.setField(service, "maxSize", 1L << 30);
+        ReflectionTestUtils.setField(service, "sessionTtlHours", 24);
+        ReflectionTestUtils.setField(service, "uploadSessionRepository", uploadSessionRepository);
+        ReflectionTestUtils.setField(service, "lessonRepository", lessonRepository);
+        ReflectionTestUtils.setField(service, "videoRepository", videoRepository);
+        ReflectionTestUtils.setField(service, "transactionManager", transactionManager);
+        contentStore = new ContentAddressedStore(uploadRoot.resolve("blobs"));
+        ReflectionTestUtils.setField(service, "contentStore", contentStore);
+        VideoMetadataService videoMetadataService = new VideoMetadataService();
+        ReflectionTestUtils.setField(videoMetadataService, "contentStore", contentStore);
+        ReflectionTestUtils.setField(service, "videoMetadataService", videoMetadataService);
+    }
+
+    @Test
+    void chunksSentInParallelAndOutOfOrder_ShouldReassembleIntoTheVideoFile() throws Exception {
+        byte[] data = randomBytes(CHUNK * 5 + 1234);
+        UploadSession session = service.start(1L, 7L, "Intro", null, 1, 300, "intro.mp4", data.length, null);
+        assertEquals(6, session.getTotalChunks());
+
+        List<Integer> order = new ArrayList<>(List.of(0, 1, 2, 3, 4, 5));
+        Collections.shuffle(order, new Random(3));
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<?>> writes = new ArrayList<>();
+        for (int index : order) {
+            writes.add(pool.submit(() -> sendChunk(session.getId(), data, index)));
+        }
+        for (Future<?> write : writes) {
+            write.get();
+        }
+        pool.shutdown();
+        assertTrue(VideoUploadService.missingChunks(session).isEmpty());
+
+        Video video = service.commit(session.getId(), 1L);
+
+        assertEquals(99L, video.getId());
+        assertEquals((long) data.length, video.getFileSize());
+        assertEquals(300, video.getDuration());
+        assertTrue(ContentAddressedStore.isKey(video.getFilePath()));
+        assertArrayEquals(data, Files.readAllBytes(contentStore.localFileOf(video.getFilePath())));
+        assertFalse(Files.exists(uploadRoot.resolve("videos/.partial/" + session.getId() + ".part")));
+        assertEquals(UploadSession.UploadStatus.COMPLETED, session.getStatus());
+    }
+
+    @Test
+    void corruptChunk_ShouldBeRejectedAndLeftMissing() throws Exception {
+        byte[] data = randomBytes(CHUNK * 2);
+        UploadSession session = service.start(1L, 7L, "Intro", null, 1, null, "intro.mp4", data.length, null);
+        sendChunk(session.getId(), data, 0);
+
+        byte[] second = slice(data, 1);
+        String checksum = sha256(second);
+        second[10] ^= 1;
+        RuntimeException error = assertThrows(RuntimeException.class, () -> service.writeChunk(session.getId(), 1L,
+                CHUNK, second.length, checksum, new ByteArrayInputStream(second)));
+        assertEquals("Checksum mismatch for chunk 1", error.getMessage());
+        assertEquals(List.of(1), VideoUploadService.missingChunks(session));
+
+        assertThrows(RuntimeException.class, () -> service.commit(session.getId(), 1L));
+        verify(videoRepository, never()).save(any());
+
+        // Resuming with the right bytes completes the upload
+        sendChunk(session.getId(), data, 1);
+        assertEquals(99L, service.commit(session.getId(), 1L).getId());
+    }
+
+    @Test
+    void badResendOfAReceivedChunk_ShouldMarkItMissingAgain() throws Exception {
+        byte[] data = randomBytes(CHUNK * 2);
+        UploadSession session = service.start(1L, 7L, "Intro", null, 1, null, "intro.mp4", data.length, null);
+        sendChunk(session.getId(), data, 0);
+        sendChunk(session.getId(), data, 1);
+        assertTrue(VideoUploadService.missingChunks(session).isEmpty());
+
+        // A corrupt re-send overwrites the good bytes, so the chunk must count as missing again
+        byte[] corrupt = slice(data, 1);
+        String checksum = sha256(corrupt);
+        corrupt[10] ^= 1;
+        assertThrows(RuntimeException.class, () -> service.writeChunk(session.getId(), 1L,
+                CHUNK, corrupt.length, checksum, new ByteArrayInputStream(corrupt)));
+        assertEquals(List.of(1), VideoUploadService.missingChunks(session));
+        assertThrows(RuntimeException.class, () -> service.commit(session.getId(), 1L));
+
+        sendChunk(session.getId(), data, 1);
+        // So must one cut short without a declared length
+        byte[] truncated = new byte[CHUNK / 2];
+        System.arraycopy(data, 0, truncated, 0, truncated.length);
+        RuntimeException error = assertThrows(RuntimeException.class, () -> service.writeChunk(session.getId(), 1L,
+                0, -1, sha256(slice(data, 0)), new ByteArrayInputStream(truncated)));
+        assertEquals("Chunk 0 was truncated after " + truncated.length + " bytes", error.getMessage());
+        assertEquals(List.of(0), VideoUploadService.missingChunks(session));
+        verify(videoRepository, never()).save(any());
+
+        sendChunk(session.getId(), data, 0);
+        Video video = service.commit(session.getId(), 1L);
+        assertArrayEquals(data, Files.readAllBytes(contentStore.localFileOf(video.getFilePath())));
+    }
+
+    @Test
+    void secondWriteOfAChunkInFlight_ShouldBeRejected() throws Exception {
+        byte[] data = randomBytes(CHUNK);
+        UploadSession session = service.start(1L, 7L, "Intro", null, 1, null, "intro.mp4", data.length, null);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InputStream slow = new SequenceInputStream(new ByteArrayInputStream(data, 0, 1024), new InputStream() {
+            private final InputStream rest = new ByteArrayInputStream(data, 1024, data.length - 1024);
+
+            @Override
+            public int read() throws IOException {
+                await();
+                return rest.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                await();
+                return rest.read(b, off, len);
+            }
+
+            private void await() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        Future<UploadSession> first = pool.submit(() ->
+                service.writeChunk(session.getId(), 1L, 0, CHUNK, sha256(data), slow));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        RuntimeException error = assertThrows(RuntimeException.class, () -> service.writeChunk(session.getId(), 1L,
+                0, CHUNK, sha256(data), new ByteArrayInputStream(data)));
+        assertEquals("Chunk 0 is already being written", error.getMessage());
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        pool.shutdown();
+        assertTrue(VideoUploadService.missingChunks(session).isEmpty());
+    }
+
+    @Test
+    void anotherUsersUpload_ShouldNotBeVisible() throws Exception {
+        UploadSession session = service.start(1L, 7L, "Intro", null, 1, null, "intro.mp4", CHUNK, null);
+        byte[] chunk = randomBytes(CHUNK);
+        assertThrows(RuntimeException.class, () -> service.writeChunk(session.getId(), 2L, 0, CHUNK,
+                sha256(chunk), new ByteArrayInputStream(chunk)));
+        assertThrows(RuntimeException.class, () -> service.commit(session.getId(), 2L));
+    }
+
+    private void sendChunk(String uploadId, byte[] data, int index) {
+        byte[] chunk = slice(data, index);
+        try {
+            service.writeChunk(uploadId, 1L, (long) index * CHUNK, chunk.length, sha256(chunk), new ByteArrayInputStream(chunk));
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static byte[] slice(byte[] data, int index) {
+        int start = index * CHUNK;
+        int length = Math.min(CHUNK, data.length - start);
+        byte[] chunk = new byte[length];
+        System.arraycopy(data, start, chunk, 0, length);
+        return chunk;
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        new Random(42).nextBytes(data);
+        return data;
+    }
+
+    private static String sha256(byte[] bytes) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+}
@@ -0,0 +1,81 @@
+package com.edupress.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentAddressedStoreTest {
+
+    // Any 64 hex digits form a valid key
+    private static final String PROMO_HASH = "1f1a4f53b6b7ac0b1dc9a1f3c7ff6c4b2c33a8e4c3a0b70bd4c7ac3b8c2a1f00";
+
+    @TempDir
+    Path root;
+
+    @Test
+    void put_ShouldStoreIdenticalContentOnceUnderAShardedPath() throws Exception {
+        ContentAddressedStore store = new ContentAddressedStore(root);
+
+        ContentAddressedStore.StoredBlob first = store.put(stream("promo video"), "MP4");
+        ContentAddressedStore.StoredBlob second = store.put(stream("promo video"), ".mp4");
+        ContentAddressedStore.StoredBlob other = store.put(stream("another video"), "mp4");
+
+        assertEquals(first.getKey(), second.getKey());
+        assertFalse(first.isDeduplicated());
+        assertTrue(second.isDeduplicated());
+        assertNotEquals(first.getKey(), other.getKey());
+        assertTrue(first.getKey().endsWith(".mp4"));
+        String hash = first.getKey().substring(0, 64);
+        assertEquals(root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(first.getKey()),
+                first.getPath());
+        assertEquals("promo video", Files.readString(first.getPath()));
+
+        List<String> keys = new ArrayList<>();
+        store.forEachKey(keys::add);
+        assertEquals(2, keys.size());
+    }
+
+    @Test
+    void keyOf_ShouldFindTheKeyInPathsAndUrlsOnly() {
+        String key = PROMO_HASH + ".jpg";
+        assertEquals(key, ContentAddressedStore.keyOf("uploads/blobs/1f/1a/" + key));
+        assertEquals(key, ContentAddressedStore.keyOf("/api/files/view/" + key + "?w=320"));
+        assertEquals(PROMO_HASH, ContentAddressedStore.keyOf(PROMO_HASH));
+        assertNull(ContentAddressedStore.keyOf("uploads/videos/0b7c1e52-lecture.mp4"));
+        assertNull(ContentAddressedStore.keyOf("https://images.example.com/course.jpg"));
+        assertNull(ContentAddressedStore.keyOf(null));
+    }
+
+    @Test
+    void deleteIfOlderThan_ShouldSpareBlobsStoredWithinTheGracePeriod() throws Exception {
+        ContentAddressedStore store = new ContentAddressedStore(root);
+        ContentAddressedStore.StoredBlob blob = store.put(stream("lecture notes"), "pdf");
+        Instant cutoff = Instant.now().minus(1, ChronoUnit.HOURS);
+
+        assertEquals(-1, store.deleteIfOlderThan(blob.getKey(), cutoff));
+
+        Files.setLastModifiedTime(blob.getPath(), FileTime.from(cutoff.minus(1, ChronoUnit.HOURS)));
+        // Storing the same content again counts as fresh use
+        store.put(stream("lecture notes"), "pdf");
+        assertEquals(-1, store.deleteIfOlderThan(blob.getKey(), cutoff));
+
+        Files.setLastModifiedTime(blob.getPath(), FileTime.from(cutoff.minus(1, ChronoUnit.HOURS)));
+        assertEquals("lecture notes".length(), store.deleteIfOlderThan(blob.getKey(), cutoff));
+        assertFalse(store.exists(blob.getKey()));
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,255 @@
+package com.edupress.storage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3BlobStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private FakeS3 fakeS3;
+    private S3BlobStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        fakeS3 = new FakeS3("media");
+        store = new S3BlobStore(fakeS3.endpoint(), "us-east-1", "media", "test-key", "test-secret",
+                tempDir.resolve("spool"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        fakeS3.stop();
+    }
+
+    @Test
+    void objects_ShouldRoundTripWithRangesListingAndSignedRequests() throws Exception {
+        store.put("blobs/aa/bb/lecture one.mp4", stream("0123456789"), 10);
+        store.put("blobs/aa/cc/notes.pdf", stream("notes"), -1);
+        store.put("certificates/certificate_CERT-1.pdf", stream("certificate"), 11);
+
+        try (InputStream in = store.get("blobs/aa/bb/lecture one.mp4")) {
+            assertEquals("0123456789", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        try (InputStream in = store.getRange("blobs/aa/bb/lecture one.mp4", 3, 4)) {
+            assertEquals("3456", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals(5, store.stat("blobs/aa/cc/notes.pdf").getSize());
+        assertNull(store.stat("blobs/missing"));
+        assertThrows(NoSuchFileException.class, () -> store.get("blobs/missing"));
+
+        // The stand-in pages listings two keys at a time
+        List<String> names = new ArrayList<>();
+        store.list("blobs/", info -> names.add(info.getName()));
+        assertEquals(List.of("blobs/aa/bb/lecture one.mp4", "blobs/aa/cc/notes.pdf"), names);
+
+        store.delete("blobs/aa/cc/notes.pdf");
+        assertNull(store.stat("blobs/aa/cc/notes.pdf"));
+        assertTrue(fakeS3.authorizations.stream()
+                .allMatch(header -> header.startsWith("AWS4-HMAC-SHA256 Credential=test-key/")));
+    }
+
+    @Test
+    void touch_ShouldRefreshLastModifiedSoTheCollectorSparesTheBlob() throws Exception {
+        store.put("blobs/aa/bb/video.mp4", stream("video"), 5);
+        fakeS3.lastModified.put("blobs/aa/bb/video.mp4", Instant.now().minus(2, ChronoUnit.DAYS));
+
+        store.touch("blobs/aa/bb/video.mp4");
+
+        Instant touched = store.stat("blobs/aa/bb/video.mp4").getLastModified();
+        assertTrue(touched.isAfter(Instant.now().minus(1, ChronoUnit.MINUTES)));
+        assertThrows(NoSuchFileException.class, () -> store.touch("blobs/missing"));
+    }
+
+    @Test
+    void cachingStore_ShouldServeRepeatReadsLocallyWithinItsBudget() throws Exception {
+        CachingBlobStore cached = new CachingBlobStore(store, new LocalBlobStore(tempDir.resolve("cache")), 12);
+        store.put("a", stream("aaaaaa"), 6);
+        store.put("b", stream("bbbbbb"), 6);
+
+        Path first = cached.localPath("a");
+        Path again = cached.localPath("a");
+        assertEquals(first, again);
+        assertEquals("aaaaaa", Files.readString(first));
+        assertEquals(1, fakeS3.objectGets.get());
+        assertEquals(1, cached.getHits());
+
+        // Ranges of uncached objects go to the origin without filling the cache
+        try (InputStream in = cached.getRange("b", 2, 2)) {
+            assertEquals("bb", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals(6, cached.getCachedBytes());
+
+        cached.localPath("b");
+        cached.put("c", stream("cccccc"), 6);
+        // "a" was least recently used, so it made room for "c"
+        assertEquals(12, cached.getCachedBytes());
+        assertFalse(Files.exists(first));
+        assertNotNull(store.stat("c"));
+        assertNull(cached.localPath("missing"));
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Just enough of the S3 REST API, path-style, for the store's requests. */
+    static class FakeS3 {
+        final Map<String, byte[]> objects = new ConcurrentSkipListMap<>();
+        final Map<String, Instant> lastModified = new HashMap<>();
+        final List<String> authorizations = new ArrayList<>();
+        final AtomicInteger objectGets = new AtomicInteger();
+        private final String bucket;
+        private final HttpServer server;
+
+        FakeS3(String bucket) throws IOException {
+            this.bucket = bucket;
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/", this::handle);
+            server.start();
+        }
+
+        URI endpoint() {
+            return URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+
+        private synchronized void handle(HttpExchange exchange) throws IOException {
+            authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+            String path = exchange.getRequestURI().getRawPath();
+            String name = path.length() > bucket.length() + 2
+                    ? URLDecoder.decode(path.substring(bucket.length() + 2), StandardCharsets.UTF_8)
+                    : null;
+            switch (exchange.getRequestMethod()) {
+                case "PUT" -> {
+                    String copySource = exchange.getRequestHeaders().getFirst("x-amz-copy-source");
+                    if (copySource != null && !objects.containsKey(name)) {
+                        respond(exchange, 404, "");
+                        return;
+                    }
+                    if (copySource == null) {
+                        objects.put(name, exchange.getRequestBody().readAllBytes());
+                    }
+                    lastModified.put(name, Instant.now());
+                    respond(exchange, 200, "");
+                }
+                case "GET" -> {
+                    if (name == null) {
+                        list(exchange);
+                        return;
+                    }
+                    byte[] data = objects.get(name);
+                    if (data == null) {
+                        respond(exchange, 404, "<Error><Code>NoSuchKey</Code></Error>");
+                        return;
+                    }
+                    objectGets.incrementAndGet();
+                    String range = exchange.getRequestHeaders().getFirst("Range");
+                    if (range != null) {
+                        String[] bounds = range.substring("bytes=".length()).split("-");
+                        int start = Integer.parseInt(bounds[0]);
+                        int end = Math.min(Integer.parseInt(bounds[1]), data.length - 1);
+                        byte[] slice = new byte[end - start + 1];
+                        System.arraycopy(data, start, slice, 0, slice.length);
+                        send(exchange, 206, slice);
+                    } else {
+                        send(exchange, 200, data);
+                    }
+                }
+                case "HEAD" -> {
+                    byte[] data = objects.get(name);
+                    if (data == null) {
+                        exchange.sendResponseHeaders(404, -1);
+                    } else {
+                        exchange.getResponseHeaders().set("Content-Length", String.valueOf(data.length));
+                        exchange.getResponseHeaders().set("Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME
+                                .format(lastModified.get(name).atOffset(ZoneOffset.UTC)));
+                        exchange.sendResponseHeaders(200, -1);
+                    }
+                    exchange.close();
+                }
+                case "DELETE" -> {
+                    objects.remove(name);
+                    exchange.sendResponseHeaders(204, -1);
+                    exchange.close();
+                }
+                default -> respond(exchange, 405, "");
+            }
+        }
+
+        private void list(HttpExchange exchange) throws IOException {
+            Map<String, String> query = new HashMap<>();
+            for (String pair : exchange.getRequestURI().getRawQuery().split("&")) {
+                String[] parts = pair.split("=", 2);
+                query.put(parts[0], URLDecoder.decode(parts[1], StandardCharsets.UTF_8));
+            }
+            String prefix = query.getOrDefault("prefix", "");
+            String after = query.get("continuation-token");
+            StringBuilder xml = new StringBuilder("<ListBucketResult>");
+            int count = 0;
+            String last = null;
+            boolean truncated = false;
+            for (String key : objects.keySet()) {
+                if (!key.startsWith(prefix) || (after != null && key.compareTo(after) <= 0)) {
+                    continue;
+                }
+                if (count == 2) {
+                    truncated = true;
+                    break;
+                }
+                xml.append("<Contents><Key>").append(key).append("</Key><Size>").append(objects.get(key).length)
+                   .append("</Size><LastModified>").append(lastModified.get(key)).append("</LastModified></Contents>");
+                last = key;
+                count++;
+            }
+            xml.append("<IsTruncated>").append(truncated).append("</IsTruncated>");
+            if (truncated) {
+                xml.append("<NextContinuationToken>").append(last).append("</NextContinuationToken>");
+            }
+            respond(exchange, 200, xml.append("</ListBucketResult>").toString());
+        }
+
+        private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+            send(exchange, status, body.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+            exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.edupress.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StorageReferencesTest {
+
+    // Any 64 hex digits form a valid key
+    private static final String KEY = "1f1a4f53b6b7ac0b1dc9a1f3c7ff6c4b2c33a8e4c3a0b70bd4c7ac3b8c2a1f00.mp4";
+
+    @TempDir
+    Path uploadDir;
+
+    @Test
+    void objectNameOf_ShouldResolveEveryFormARecordHasHeld() {
+        StorageReferences references = new StorageReferences(
+                new ContentAddressedStore(new LocalBlobStore(uploadDir), "blobs/", uploadDir.resolve("blobs/.tmp")),
+                uploadDir.toString());
+
+        assertEquals("blobs/1f/1a/" + KEY, references.objectNameOf(KEY));
+        assertEquals("blobs/1f/1a/" + KEY, references.objectNameOf("/api/files/view/" + KEY + "?w=480"));
+        assertEquals("course/course_1.jpg", references.objectNameOf("/api/files/view/course/course_1.jpg"));
+        assertEquals("videos/a.mp4", references.objectNameOf(uploadDir.resolve("videos/a.mp4").toString()));
+        assertEquals("certificates/certificate_X.pdf", references.objectNameOf("certificates/certificate_X.pdf"));
+        assertNull(references.objectNameOf("https://cdn.example.com/a.jpg"));
+        assertNull(references.objectNameOf("/api/files/view/../secret"));
+        assertNull(references.objectNameOf(null));
+    }
+
+    @Test
+    void shard_ShouldSpreadNamesOverTwoHashedLevels() {
+        String name = ShardedNames.shard("certificates/", "certificate_CERT-2025-AB12CD34.pdf");
+
+        assertTrue(name.matches("certificates/[0-9a-f]{2}/[0-9a-f]{2}/certificate_CERT-2025-AB12CD34\\.pdf"));
+        assertEquals(name, ShardedNames.shard("certificates/", "certificate_CERT-2025-AB12CD34.pdf"));
+        assertTrue(ShardedNames.isSharded("certificates/", name));
+        assertFalse(ShardedNames.isSharded("certificates/", "certificates/certificate_CERT-2025-AB12CD34.pdf"));
+    }
+}
@@ -0,0 +1,64 @@
+package com.edupress.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TieredBlobStoreTest {
+
+    private static final String NAME = "certificates/ab/cd/certificate_CERT-2025-AB12CD34.pdf";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void demotedObject_ShouldStayVisibleAndComeBackOnRead() throws Exception {
+        LocalBlobStore hot = new LocalBlobStore(directory.resolve("hot"));
+        LocalBlobStore archive = new LocalBlobStore(directory.resolve("archive"));
+        TieredBlobStore store = new TieredBlobStore(hot, archive, directory.resolve("staging"));
+        byte[] content = "certificate of completion\n".repeat(2000).getBytes(StandardCharsets.UTF_8);
+        store.put(NAME, new ByteArrayInputStream(content), content.length);
+
+        long archived = store.demote(NAME, true);
+
+        assertTrue(archived > 0 && archived < content.length / 10);
+        assertNull(hot.stat(NAME));
+        assertNotNull(archive.stat(NAME + TieredBlobStore.COMPRESSED_SUFFIX));
+        assertTrue(store.isArchived(NAME));
+        assertNotNull(store.stat(NAME));
+        List<String> listed = new ArrayList<>();
+        store.list("certificates/", info -> listed.add(info.getName()));
+        assertEquals(List.of(NAME), listed);
+
+        try (InputStream in = store.get(NAME)) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+        assertFalse(store.isArchived(NAME));
+        assertNull(archive.stat(NAME + TieredBlobStore.COMPRESSED_SUFFIX));
+    }
+
+    @Test
+    void delete_ShouldRemoveTheArchivedCopy() throws Exception {
+        LocalBlobStore hot = new LocalBlobStore(directory.resolve("hot"));
+        LocalBlobStore archive = new LocalBlobStore(directory.resolve("archive"));
+        TieredBlobStore store = new TieredBlobStore(hot, archive, directory.resolve("staging"));
+        byte[] content = {1, 2, 3, 4};
+        store.put(NAME, new ByteArrayInputStream(content), content.length);
+
+        // Too small for gzip to pay off, so archived as is
+        assertEquals(content.length, store.demote(NAME, true));
+        store.delete(NAME);
+
+        assertNull(store.stat(NAME));
+        assertNull(archive.stat(NAME));
+        assertEquals(-1, store.demote(NAME, true));
+    }
+}